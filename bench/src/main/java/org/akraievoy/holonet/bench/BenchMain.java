@@ -0,0 +1,47 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.holonet.bench;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs JMH with results written as JSON, unless result options are given explicitly,
+ * so that the numbers of different commits may be compared.
+ */
+public class BenchMain {
+  public static final String RESULT_DEFAULT = "target/jmh-result.json";
+
+  public static void main(String[] args) throws Exception {
+    final List<String> argList = new ArrayList<String>(Arrays.asList(args));
+    if (!argList.contains("-rf")) {
+      argList.add(0, "json");
+      argList.add(0, "-rf");
+    }
+    if (!argList.contains("-rff")) {
+      argList.add(0, RESULT_DEFAULT);
+      argList.add(0, "-rff");
+    }
+
+    Main.main(argList.toArray(new String[argList.size()]));
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.holonet.bench;
+
+import org.akraievoy.cnet.gen.vo.EntropySource;
+import org.akraievoy.cnet.gen.vo.EntropySourceRandom;
+import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataFactory;
+
+/**
+ * Fixed-seed fixtures shared by the benchmarks.
+ */
+public class BenchNets {
+  public static final long SEED = 31337;
+
+  public static EntropySource entropy() {
+    return new EntropySourceRandom().seed(SEED);
+  }
+
+  public static EdgeData create(final String kind, final boolean symmetric, final int size) {
+    if ("sparse".equals(kind)) {
+      return EdgeDataFactory.sparse(symmetric, 0.0, size);
+    } else if ("dense".equals(kind)) {
+      return EdgeDataFactory.dense(symmetric, 0.0, size);
+    }
+    throw new IllegalArgumentException("kind '" + kind + "' is not sparse or dense");
+  }
+
+  /**
+   * Ring with random chords, so that the net is connected and distances are positive.
+   */
+  public static EdgeData random(
+      final String kind, final boolean symmetric, final int size, final int avgDegree
+  ) {
+    final EntropySource eSource = entropy();
+    final EdgeData net = create(kind, symmetric, size);
+    for (int i = 0; i < size; i++) {
+      net.set(i, (i + 1) % size, 1 + eSource.nextDouble());
+    }
+    final int chords = size * Math.max(0, avgDegree - 2) / 2;
+    for (int c = 0; c < chords; c++) {
+      final int from = eSource.nextInt(size);
+      final int into = eSource.nextInt(size);
+      if (from != into) {
+        net.set(from, into, 1 + eSource.nextDouble());
+      }
+    }
+    return net;
+  }
+}
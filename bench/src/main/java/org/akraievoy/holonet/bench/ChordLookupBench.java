@@ -0,0 +1,103 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.holonet.bench;
+
+import algores.holonet.core.Network;
+import algores.holonet.core.Node;
+import algores.holonet.core.ServiceFactory;
+import algores.holonet.core.api.Address;
+import algores.holonet.core.api.Key;
+import algores.holonet.core.api.tier0.storage.StorageService;
+import algores.holonet.core.api.tier1.delivery.LookupService;
+import algores.holonet.protocols.chord.ChordRoutingServiceImpl;
+import algores.holonet.protocols.chord.ChordServiceBase;
+import com.google.common.base.Optional;
+import org.akraievoy.cnet.gen.vo.EntropySource;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-seed lookups over a stabilized Chord network, set up the same way
+ * as in the Chord protocol test case.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChordLookupBench {
+  public static final int REQUESTS = 4096;
+
+  @Param({"64", "256"})
+  public int nodes;
+
+  protected Node[] clients;
+  protected Key[] keys;
+  protected Address[] servers;
+  protected int request;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    final EntropySource eSource = BenchNets.entropy();
+    final Network net = new Network();
+    net.setFactory(
+        new ServiceFactory()
+            .setRouting(new ChordRoutingServiceImpl())
+            .routingRedundancy(2)
+            .maxFingerFlavorNum(9)
+            .overlay(new ChordServiceBase())
+    );
+    final AtomicLong failCount = new AtomicLong();
+    net.generateNode(null, eSource, null);
+    net.insertNodes(nodes - 1, failCount, eSource);
+    net.putDataEntries(256, eSource);
+    for (Node node : net.getAllNodes()) {
+      node.getServices().getOverlay().stabilize();
+    }
+    if (failCount.get() > 0) {
+      throw new IllegalStateException(failCount.get() + " failures while setting up the network");
+    }
+
+    clients = new Node[REQUESTS];
+    keys = new Key[REQUESTS];
+    servers = new Address[REQUESTS];
+    for (int r = 0; r < REQUESTS; r++) {
+      final Node client = net.getRandomNode(eSource);
+      final Node server = net.getRandomNode(eSource);
+      final StorageService serverStorage = server.getServices().getStorage();
+      clients[r] = client;
+      keys[r] = serverStorage.getEntryCount() > 0 ?
+          eSource.randomElement(serverStorage.getKeys()) :
+          server.getKey();
+      servers[r] = server.getAddress();
+    }
+  }
+
+  @Benchmark
+  public Address lookup() throws Exception {
+    final int r = request;
+    request = (request + 1) % REQUESTS;
+    return clients[r].getServices().getLookup().lookup(
+        keys[r], false, LookupService.Mode.GET, Optional.of(servers[r])
+    );
+  }
+}
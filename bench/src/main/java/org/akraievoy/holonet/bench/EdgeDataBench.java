@@ -0,0 +1,94 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.holonet.bench;
+
+import org.akraievoy.cnet.gen.vo.EntropySource;
+import org.akraievoy.cnet.net.vo.EdgeData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EdgeDataBench {
+  public static final int LOOKUPS = 1024;
+
+  @Param({"sparse", "dense"})
+  public String kind;
+
+  @Param({"256", "1024"})
+  public int size;
+
+  @Param({"16"})
+  public int avgDegree;
+
+  protected EdgeData net;
+  protected int[] froms;
+  protected int[] intos;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    net = BenchNets.random(kind, true, size, avgDegree);
+
+    final EntropySource eSource = BenchNets.entropy();
+    froms = new int[LOOKUPS];
+    intos = new int[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      froms[i] = eSource.nextInt(size);
+      intos[i] = eSource.nextInt(size);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public double get() {
+    double sum = 0;
+    for (int i = 0; i < LOOKUPS; i++) {
+      sum += net.get(froms[i], intos[i]);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public double setAndReset() {
+    double sum = 0;
+    for (int i = 0; i < LOOKUPS; i++) {
+      //  sparse inserts and removes, dense just overwrites
+      sum += net.set(froms[i], intos[i], 0.5);
+      net.set(froms[i], intos[i], 0);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double visitNonDef() {
+    final double[] sum = {0};
+    net.visitNonDef(new EdgeData.EdgeVisitor() {
+      public void visit(int from, int into, double e) {
+        sum[0] += e;
+      }
+    });
+    return sum[0];
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.holonet.bench;
+
+import org.akraievoy.cnet.metrics.api.Metric;
+import org.akraievoy.cnet.metrics.api.MetricRoutes;
+import org.akraievoy.cnet.metrics.domain.MetricRoutesFloydWarshall;
+import org.akraievoy.cnet.metrics.domain.MetricRoutesJohnson;
+import org.akraievoy.cnet.metrics.domain.MetricScalarEigenGap;
+import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.holonet.exp.store.RefObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricBench {
+  @Param({"64", "256"})
+  public int size;
+
+  @Param({"8"})
+  public int avgDegree;
+
+  protected RefObject<EdgeData> structure;
+  protected RefObject<EdgeData> distances;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final EdgeData net = BenchNets.random("sparse", true, size, avgDegree);
+    structure = new RefObject<EdgeData>(net);
+    distances = new RefObject<EdgeData>(net);
+  }
+
+  protected Object routes(final MetricRoutes metric) {
+    metric.setSource(structure);
+    metric.setDistSource(distances);
+    return Metric.fetch(metric);
+  }
+
+  @Benchmark
+  public Object routesFloydWarshall() {
+    return routes(new MetricRoutesFloydWarshall());
+  }
+
+  @Benchmark
+  public Object routesJohnson() {
+    return routes(new MetricRoutesJohnson());
+  }
+
+  @Benchmark
+  public Object eigenGap() {
+    return Metric.fetch(new MetricScalarEigenGap().configure(structure));
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.holonet.bench;
+
+import org.akraievoy.cnet.gen.vo.EntropySource;
+import org.akraievoy.cnet.net.vo.Store;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StoreBit is out of here, as it has no binary search.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StoreBench {
+  public static final int OPS = 1024;
+
+  @Param({"BYTE", "INT", "LONG", "FLOAT", "DOUBLE"})
+  public Store.Width width;
+
+  @Param({"64", "4096"})
+  public int size;
+
+  protected Store store;
+  protected int[] positions;
+  protected double[] searches;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    store = width.create();
+    store.ins(0, size, 0.0);
+    for (int i = 0; i < size; i++) {
+      store.set(i, sortedValue(i));
+    }
+
+    final EntropySource eSource = BenchNets.entropy();
+    positions = new int[OPS];
+    searches = new double[OPS];
+    for (int i = 0; i < OPS; i++) {
+      positions[i] = eSource.nextInt(size);
+      searches[i] = sortedValue(eSource.nextInt(size));
+    }
+  }
+
+  protected double sortedValue(int pos) {
+    return width == Store.Width.BYTE ? pos * 250 / size - 125 : pos;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(OPS)
+  public int insDel() {
+    for (int i = 0; i < OPS; i++) {
+      final int pos = positions[i];
+      store.ins(pos, pos + 1, 1.0);
+      store.del(pos, pos + 1);
+    }
+    return store.size();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(OPS)
+  public int bSearch() {
+    int sum = 0;
+    for (int i = 0; i < OPS; i++) {
+      sum += store.bSearch(0, size, searches[i]);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(OPS)
+  public double get() {
+    double sum = 0;
+    for (int i = 0; i < OPS; i++) {
+      sum += store.get(positions[i], 0.0);
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.holonet.bench;
+
+import com.google.common.io.ByteStreams;
+import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataDense;
+import org.akraievoy.cnet.net.vo.EdgeDataSparse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StreamableBench {
+  @Param({"sparse", "dense"})
+  public String kind;
+
+  @Param({"256", "1024"})
+  public int size;
+
+  @Param({"16"})
+  public int avgDegree;
+
+  protected EdgeData net;
+  protected byte[] bytes;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    net = BenchNets.random(kind, true, size, avgDegree);
+    bytes = ByteStreams.toByteArray(net.createStream());
+  }
+
+  @Benchmark
+  public byte[] write() throws IOException {
+    return ByteStreams.toByteArray(net.createStream());
+  }
+
+  @Benchmark
+  public EdgeData read() throws IOException {
+    final ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+    if ("sparse".equals(kind)) {
+      return new EdgeDataSparse().fromStream(in);
+    }
+    return new EdgeDataDense().fromStream(in);
+  }
+}
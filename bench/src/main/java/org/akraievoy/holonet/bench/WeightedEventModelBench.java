@@ -0,0 +1,96 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.holonet.bench;
+
+import org.akraievoy.cnet.gen.vo.EntropySource;
+import org.akraievoy.cnet.gen.vo.WeightedEventModel;
+import org.akraievoy.cnet.gen.vo.WeightedEventModelBase;
+import org.akraievoy.cnet.gen.vo.WeightedPairModel;
+import org.akraievoy.cnet.net.vo.EdgeData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WeightedEventModelBench {
+  @Param({"1024", "65536"})
+  public int events;
+
+  protected EntropySource eSource;
+  protected WeightedEventModel model;
+  protected double[] weights;
+
+  protected WeightedPairModel pairModel;
+  protected int pairSize;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    eSource = BenchNets.entropy();
+    weights = new double[events];
+    model = new WeightedEventModelBase();
+    for (int e = 0; e < events; e++) {
+      weights[e] = eSource.nextLogGaussian();
+      model.add(e, weights[e]);
+    }
+    //  sums are initialized lazily on first generation
+    model.generate(eSource, false, null);
+
+    pairSize = (int) Math.sqrt(events);
+    final EdgeData requests = BenchNets.create("dense", false, pairSize);
+    for (int from = 0; from < pairSize; from++) {
+      for (int into = 0; into < pairSize; into++) {
+        requests.set(from, into, eSource.nextLogGaussian());
+      }
+    }
+    pairModel = new WeightedPairModel(requests);
+    for (int v = 0; v < pairSize; v++) {
+      pairModel.activate(v);
+    }
+  }
+
+  @Benchmark
+  public int generate() {
+    return model.generate(eSource, false, null);
+  }
+
+  @Benchmark
+  public int generateRemoveAdd() {
+    final int event = model.generate(eSource, true, null);
+    model.add(event, weights[event]);
+    return event;
+  }
+
+  @Benchmark
+  public int pairGenerate() {
+    return pairModel.generate(eSource);
+  }
+
+  @Benchmark
+  public int pairChurn() {
+    final int vertex = eSource.nextInt(pairSize);
+    pairModel.deactivate(vertex);
+    pairModel.activate(vertex);
+    return pairModel.getSize();
+  }
+}
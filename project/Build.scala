@@ -0,0 +1,25 @@
+import sbt._
+import Keys._
+
+object HolonetBuild extends Build {
+  val jmhVersion = "1.21"
+
+  lazy val root = Project("holonet", file("."))
+
+  /**
+   * JMH benchmarks, harness is generated by annotation processor on javac run.
+   *
+   *   sbt 'bench/run'                          -- all benchmarks, JSON to bench/target/jmh-result.json
+   *   sbt 'bench/run EdgeDataBench -p size=256' -- any of the usual JMH options
+   */
+  lazy val bench = Project("bench", file("bench")).dependsOn(root).settings(
+    scalaVersion := "2.9.2",
+    libraryDependencies ++= Seq(
+      "org.openjdk.jmh" % "jmh-core" % jmhVersion,
+      "org.openjdk.jmh" % "jmh-generator-annprocess" % jmhVersion
+    ),
+    mainClass in (Compile, run) := Some("org.akraievoy.holonet.bench.BenchMain"),
+    fork in run := true,
+    javaOptions in run += "-Xmx3G"
+  )
+}
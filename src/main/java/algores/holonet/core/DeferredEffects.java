@@ -0,0 +1,58 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algores.holonet.core;
+
+import com.google.common.base.Optional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Effects of one node's work within a parallel round, recorded by a worker thread
+ *   while the network is read as it was at the start of the round,
+ *   see {@link Network#defer()} and {@link Network#commit(DeferredEffects)}.
+ */
+public class DeferredEffects {
+  protected final List<Runnable> effects = new ArrayList<Runnable>();
+  protected double elapsedTime;
+  protected CommunicationException failure;
+
+  public void add(final Runnable effect) {
+    effects.add(effect);
+  }
+
+  public int size() {
+    return effects.size();
+  }
+
+  /**
+   * @return time elapsed on rpc calls of this node, not yet added to the network clock
+   */
+  public double getElapsedTime() {
+    return elapsedTime;
+  }
+
+  public Optional<CommunicationException> getFailure() {
+    return Optional.fromNullable(failure);
+  }
+
+  public void setFailure(final CommunicationException failure) {
+    this.failure = failure;
+  }
+}
@@ -30,6 +30,7 @@ import org.akraievoy.holonet.exp.store.RefObject;
 import org.akraievoy.cnet.gen.vo.EntropySource;
 import org.akraievoy.cnet.gen.vo.WeightedEventModel;
 import org.akraievoy.cnet.gen.vo.WeightedEventModelBase;
+import org.akraievoy.cnet.gen.vo.WeightedPairModel;
 import org.akraievoy.cnet.metrics.domain.MetricEDataRouteLen;
 import org.akraievoy.cnet.metrics.domain.MetricRoutesFloydWarshall;
 import org.akraievoy.cnet.net.vo.EdgeData;
@@ -59,7 +60,7 @@ public class EnvCNet implements Env {
   protected double overlayDistDiameter;
 
   protected WeightedEventModel nodeModel = new WeightedEventModelBase(Optional.of("nodes"));
-  protected WeightedEventModel requestModel = new WeightedEventModelBase(Optional.of("requests"));
+  protected WeightedPairModel requestModel;
 
   protected HashMap<Integer, Node> addressIdxToNode = new HashMap<Integer, Node>(256, 0.25f);
   protected final EnvMappings mappings = new EnvMappings();
@@ -148,21 +149,13 @@ public class EnvCNet implements Env {
       nodeModel.add(i, density.get(i));
     }
 
-    renewRequestModel();
-  }
-
-  protected void renewRequestModel() {
-    requestModel.clear();
     if (req.getValue().getNonDefCount() == 0) {
       throw new IllegalStateException("empty request network");
     }
-    req.getValue().visitNonDef(new EdgeData.EdgeVisitor() {
-      public void visit(int from, int into, double e) {
-        if (addressIdxToNode.containsKey(from) && addressIdxToNode.containsKey(into)) {
-          requestModel.add(toId(from, into), e);
-        }
-      }
-    });
+    requestModel = new WeightedPairModel(req.getValue());
+    for (Integer nodeIdx : addressIdxToNode.keySet()) {
+      requestModel.activate(nodeIdx);
+    }
   }
 
   @Override
@@ -278,8 +271,8 @@ public class EnvCNet implements Env {
     final int idx = addrCNet.getNodeIdx();
 
     addressIdxToNode.put(idx, newNode);
-    renewRequestModel();
-    seedLinksCache.clear();
+    requestModel.activate(idx);
+    invalidateSeedLinks(address);
   }
 
   public void removeNode(Address address) {
@@ -291,12 +284,23 @@ public class EnvCNet implements Env {
     final AddressCNet addrCNet = (AddressCNet) address;
     final int idx = addrCNet.getNodeIdx();
     addressIdxToNode.remove(idx);
-    renewRequestModel();
+    requestModel.deactivate(idx);
 
     //	return this slot to event model
     final VertexData density = this.density.getValue();
     nodeModel.add(idx, density.get(idx));
-    seedLinksCache.clear();
+    invalidateSeedLinks(address);
+  }
+
+  /**
+   * Only the seed links of nodes linked to the one joining/leaving are affected.
+   */
+  protected void invalidateSeedLinks(Address address) {
+    for (Iterator<Address> localIt = seedLinksCache.keySet().iterator(); localIt.hasNext(); ) {
+      if (seedLink(localIt.next(), address)) {
+        localIt.remove();
+      }
+    }
   }
 
   public Collection<Node> getAllNodes() {
@@ -320,7 +324,7 @@ public class EnvCNet implements Env {
       return Optional.absent();
     }
 
-    final int pairId = requestModel.generate(entropy, false, null);
+    final int pairId = requestModel.generate(entropy);
 
     final int clientId = toFrom(pairId);
     final int serverId = toInto(pairId);
@@ -0,0 +1,173 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algores.holonet.core;
+
+import algores.holonet.core.api.Address;
+import algores.holonet.core.api.tier0.routing.Routing.RouteListener;
+import gnu.trove.TIntHashSet;
+
+import java.util.Arrays;
+
+/**
+ * Live link graphs of the network, rows are indexed as per {@link Env#indexOf(Address)}:
+ * <ul>
+ *   <li>DHT links are stored routes, kept up to date by events of route tables,</li>
+ *   <li>seed links are those of {@link Env#seedLink(Address, Address)}, refreshed as nodes join.</li>
+ * </ul>
+ * <p/>
+ * Rows of departed nodes are dropped, but links into them are kept as long as route tables keep them,
+ *   so links have to be filtered against the nodes present, same as
+ *   {@link algores.holonet.core.api.tier0.routing.RoutingService#hasRouteFor(Address, boolean, boolean)} does.
+ */
+public class LinkGraph implements RouteListener {
+  protected final Network network;
+
+  protected TIntHashSet[] dhtRows = new TIntHashSet[16];
+  protected TIntHashSet[] seedRows = new TIntHashSet[16];
+
+  public LinkGraph(final Network network) {
+    this.network = network;
+  }
+
+  /**
+   * Route events of deferring threads are applied on commit, see {@link Network#effect(Runnable)}.
+   */
+  public void routeAdded(final Address owner, final Address address) {
+    if (owner.equals(address)) {
+      return;
+    }
+    if (!network.isDeferring()) {
+      dhtRow(indexOf(owner), true).add(indexOf(address));
+      return;
+    }
+
+    network.effect(new Runnable() {
+      public void run() {
+        routeAdded(owner, address);
+      }
+    });
+  }
+
+  public void routeRemoved(final Address owner, final Address address) {
+    if (network.isDeferring()) {
+      network.effect(new Runnable() {
+        public void run() {
+          routeRemoved(owner, address);
+        }
+      });
+      return;
+    }
+
+    final TIntHashSet row = dhtRow(indexOf(owner), false);
+    if (row != null) {
+      row.remove(indexOf(address));
+    }
+  }
+
+  /**
+   * Seed links between the joining node and the nodes present, both ways.
+   */
+  public void nodeJoined(final Node node) {
+    final Env env = network.getEnv();
+    final Address address = node.getAddress();
+    final int index = indexOf(address);
+    final TIntHashSet row = seedRow(index, true);
+    row.clear();
+
+    for (Node other : env.getAllNodes()) {
+      final Address otherAddress = other.getAddress();
+      if (address.equals(otherAddress)) {
+        continue;
+      }
+
+      final int otherIndex = indexOf(otherAddress);
+      if (env.seedLink(address, otherAddress)) {
+        row.add(otherIndex);
+      }
+      final TIntHashSet otherRow = seedRow(otherIndex, true);
+      if (env.seedLink(otherAddress, address)) {
+        otherRow.add(index);
+      } else {
+        otherRow.remove(index);
+      }
+    }
+  }
+
+  /**
+   * Drops the rows of the departed node and stops listening to its routes.
+   */
+  public void nodeLeft(final Node node) {
+    final int index = indexOf(node.getAddress());
+    final TIntHashSet dhtRow = dhtRow(index, false);
+    if (dhtRow != null) {
+      dhtRow.clear();
+    }
+    final TIntHashSet seedRow = seedRow(index, false);
+    if (seedRow != null) {
+      seedRow.clear();
+    }
+    node.getServices().getRouting().routes().listen(null, null);
+  }
+
+  /**
+   * @return indexes of stored routes of the node, unsorted, possibly of nodes departed already
+   */
+  public int[] dhtLinks(final int index) {
+    final TIntHashSet row = dhtRow(index, false);
+    return row == null ? new int[0] : row.toArray();
+  }
+
+  /**
+   * @return indexes of seed links of the node, unsorted, possibly of nodes departed already
+   */
+  public int[] seedLinks(final int index) {
+    final TIntHashSet row = seedRow(index, false);
+    return row == null ? new int[0] : row.toArray();
+  }
+
+  protected int indexOf(final Address address) {
+    return network.getEnv().indexOf(address);
+  }
+
+  protected TIntHashSet dhtRow(final int index, final boolean create) {
+    if (index >= dhtRows.length) {
+      if (!create) {
+        return null;
+      }
+      dhtRows = Arrays.copyOf(dhtRows, Math.max(index + 1, 2 * dhtRows.length));
+    }
+    if (dhtRows[index] == null && create) {
+      dhtRows[index] = new TIntHashSet();
+    }
+    return dhtRows[index];
+  }
+
+  protected TIntHashSet seedRow(final int index, final boolean create) {
+    if (index >= seedRows.length) {
+      if (!create) {
+        return null;
+      }
+      seedRows = Arrays.copyOf(seedRows, Math.max(index + 1, 2 * seedRows.length));
+    }
+    if (seedRows[index] == null && create) {
+      seedRows[index] = new TIntHashSet();
+    }
+    return seedRows[index];
+  }
+}
@@ -64,11 +64,16 @@ public class Network {
   //	node management
   //	---------------
   protected final NetworkRpcBase rpc = new NetworkRpcBase(this);
+  protected final LinkGraph links = new LinkGraph(this);
 
   public NetworkRpc getRpc() {
     return rpc;
   }
 
+  public LinkGraph getLinks() {
+    return links;
+  }
+
   public Node getRandomNode(EntropySource eSource) {
     final Collection<Node> allNodes = getAllNodes();
     if (allNodes.isEmpty()) {
@@ -104,6 +109,8 @@ public class Network {
 
     final Node newNode = createNode(eSource);
     if (env.getNode(newNode.getAddress()) != null) {
+      //  the links are those of the node bound already
+      newNode.getServices().getRouting().routes().listen(null, null);
       if (nodeFailureCounter == null) {
         throw new CommunicationException("address already bound");
       } else {
@@ -114,6 +121,7 @@ public class Network {
 
     //	normally, node may need its address be correctly resolved immediately after its arrival
     env.putNode(newNode, newNode.getAddress());
+    links.nodeJoined(newNode);
     try {
 
       newNode.getServices().getOverlay().join(parentAddress);
@@ -121,6 +129,7 @@ public class Network {
       getInterceptor().registerNodeArrivals(1, true);
       return newNode;
     } catch (CommunicationException nfe) {
+      links.nodeLeft(newNode);
       env.removeNode(newNode.getAddress());
       if (nodeFailureCounter == null) {
         throw nfe;
@@ -129,6 +138,7 @@ public class Network {
         return null;
       }
     } catch (SimulatorException e) {
+      links.nodeLeft(newNode);
       env.removeNode(newNode.getAddress());
       getInterceptor().registerNodeArrivals(1, false);
       throw e;
@@ -154,6 +164,7 @@ public class Network {
       getInterceptor().registerNodeFailure(nodeToRemove.getAddress(), rangeWidth);
     }
 
+    links.nodeLeft(nodeToRemove);
     env.removeNode(nodeToRemove.getAddress());
     for (Key key : keys) {
       env.getMappings().deregister(key, nodeToRemove, false);
@@ -174,11 +185,86 @@ public class Network {
   }
 
   public void registerRpcCall(Node caller, final Address calleeAddress) {
-    elapsedTime += 2.0 * caller.getAddress().getDistance(calleeAddress);
+    final double callTime = 2.0 * caller.getAddress().getDistance(calleeAddress);
+    final DeferredEffects effects = deferred.get();
+    if (effects != null) {
+      effects.elapsedTime += callTime;
+    } else {
+      elapsedTime += callTime;
+    }
   }
 
   public double getElapsedTime() {
-    return elapsedTime;
+    final DeferredEffects effects = deferred.get();
+    return effects != null ? elapsedTime + effects.elapsedTime : elapsedTime;
+  }
+
+  //	----------------
+  //	deferred effects
+  //	----------------
+  protected final ThreadLocal<DeferredEffects> deferred = new ThreadLocal<DeferredEffects>();
+
+  /**
+   * Starts recording effects of the current thread instead of applying them,
+   *   until {@link #stopDeferring()}: routing updates, metrics and elapsed time all go
+   *   through {@link #effect(Runnable)} or the register methods of this class.
+   * <p/>
+   * Any other state of the network is expected to be only read meanwhile,
+   *   so that threads deferring in parallel all see it as it was at the start of the round.
+   */
+  public DeferredEffects defer() {
+    if (deferred.get() != null) {
+      throw new IllegalStateException("already deferring");
+    }
+    final DeferredEffects effects = new DeferredEffects();
+    deferred.set(effects);
+    return effects;
+  }
+
+  public void stopDeferring() {
+    deferred.remove();
+  }
+
+  public boolean isDeferring() {
+    return deferred.get() != null;
+  }
+
+  /**
+   * Applies the effect right away, or records it if the current thread is deferring.
+   */
+  public void effect(final Runnable effect) {
+    final DeferredEffects effects = deferred.get();
+    if (effects != null) {
+      effects.add(effect);
+    } else {
+      effect.run();
+    }
+  }
+
+  /**
+   * Applies the recorded effects in the order those were recorded, should not be called while deferring.
+   */
+  public void commit(final DeferredEffects effects) {
+    if (deferred.get() != null) {
+      throw new IllegalStateException("committing while deferring");
+    }
+    for (Runnable effect : effects.effects) {
+      effect.run();
+    }
+    elapsedTime += effects.elapsedTime;
+  }
+
+  public void registerRpcCallResult(final Address source, final Address target, final boolean successful) {
+    if (!isDeferring()) {
+      getInterceptor().registerRpcCallResult(source, target, successful);
+      return;
+    }
+
+    effect(new Runnable() {
+      public void run() {
+        getInterceptor().registerRpcCallResult(source, target, successful);
+      }
+    });
   }
 
   //	---------------
@@ -387,7 +473,6 @@ public class Network {
     }
     final double directLatency = 2 * firstAddr.getDistance(targetAddr);
 
-    final NetworkInterceptor interceptor = getInterceptor();
     final double routeRedundancy =
         (double) stats.traversalsSucceeded / route.size();
     final double routeRetraction =
@@ -397,17 +482,22 @@ public class Network {
     final double routeRpcFailRatio =
         (double) stats.traversalsFailed / stats.traversalsCalled;
 
-    interceptor.modeToLookups(mode).registerLookup(
-        firstAddr,
-        targetAddr,
-        latency,
-        route.size() - 1,
-        routeRedundancy,
-        routeRetraction,
-        routeExhaustion,
-        routeRpcFailRatio,
-        directLatency,
-        success
-    );
+    final Address lookupTargetAddr = targetAddr;
+    effect(new Runnable() {
+      public void run() {
+        getInterceptor().modeToLookups(mode).registerLookup(
+            firstAddr,
+            lookupTargetAddr,
+            latency,
+            route.size() - 1,
+            routeRedundancy,
+            routeRetraction,
+            routeExhaustion,
+            routeRpcFailRatio,
+            directLatency,
+            success
+        );
+      }
+    });
   }
 }
\ No newline at end of file
@@ -20,6 +20,8 @@ package algores.holonet.core;
 
 import algores.holonet.core.api.Address;
 import algores.holonet.core.api.tier1.delivery.LookupService;
+import org.akraievoy.cnet.stat.vo.Moments;
+import org.akraievoy.cnet.stat.vo.QuantileSketch;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -174,6 +176,28 @@ public interface NetworkInterceptor {
     private double routingServiceRedundancyChangeTotal;
     private long routingServiceSnapshotCount;
 
+    //  successful lookups only, fed incrementally and mergeable across runs
+    private final Moments hopStats = new Moments();
+    private final Moments latencyStats = new Moments();
+    private final QuantileSketch hopQuantiles = new QuantileSketch();
+    private final QuantileSketch latencyQuantiles = new QuantileSketch();
+
+    public Moments getHopStats() {
+      return hopStats;
+    }
+
+    public Moments getLatencyStats() {
+      return latencyStats;
+    }
+
+    public QuantileSketch getHopQuantiles() {
+      return hopQuantiles;
+    }
+
+    public QuantileSketch getLatencyQuantiles() {
+      return latencyQuantiles;
+    }
+
     public double getMeanLatency() {
       return totalLatency / lookupSuccesses;
     }
@@ -206,6 +230,10 @@ public interface NetworkInterceptor {
       if (success) {
         totalLatency += latency;
         totalHopCount += hopCount;
+        hopStats.add(hopCount);
+        latencyStats.add(latency);
+        hopQuantiles.add(hopCount);
+        latencyQuantiles.add(latency);
         if (hopCount > 0 && directLatency > 1.0e-3) {
           lookupVsDirectTotal += latency / directLatency;
           lookupVsDirectCount++;
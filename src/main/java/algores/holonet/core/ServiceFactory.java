@@ -85,6 +85,23 @@ public class ServiceFactory {
     );
   }
 
+  /**
+   * @param skipCovered skip finger powers covered by fingers resolved in the same round
+   * @param batch finger powers refreshed per round, zero or less to refresh all of them
+   */
+  public ServiceFactory fingerRepair(final boolean skipCovered, final int batch) {
+    if (!(overlay instanceof ChordServiceBase)) {
+      throw new IllegalStateException(
+          "finger repair is not configurable for " + overlay.getClass().getSimpleName()
+      );
+    }
+    final ChordServiceBase overlay0 = ((ChordServiceBase) overlay).copy();
+    overlay0.fingerSkipCovered(skipCovered).fingerBatch(batch);
+    return new ServiceFactory(
+        storage, rpc, lookup, routing, overlay0
+    );
+  }
+
   public ServiceFactory lookup(LookupService lookup0) {
     return new ServiceFactory(
         storage, rpc, lookup0, routing, overlay
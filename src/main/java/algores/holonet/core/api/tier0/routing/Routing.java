@@ -317,6 +317,15 @@ public final class Routing {
     }
   }
 
+  /**
+   * Notified of addresses entering and leaving a route table, updates of stored routes are not reported.
+   */
+  public static interface RouteListener {
+    void routeAdded(Address owner, Address address);
+
+    void routeRemoved(Address owner, Address address);
+  }
+
   public static class RouteTable {
     private final SortedMap<Flavor, TreeSet<Address>> flavorToAddresses =
         new TreeMap<Flavor, TreeSet<Address>>();
@@ -325,10 +334,28 @@ public final class Routing {
     private final SortedMap<Address, RoutingEntry> addressToRoute =
         new TreeMap<Address, RoutingEntry>();
 
+    private Address owner;
+    private RouteListener listener;
+
     protected RouteTable() {
       //  sealed for foreigners
     }
 
+    /**
+     * Addresses stored already are reported to the new listener right away.
+     *
+     * @param listener null to stop reporting
+     */
+    public void listen(final Address newOwner, final RouteListener newListener) {
+      owner = newOwner;
+      listener = newListener;
+      if (listener != null) {
+        for (Address address : addressToRoute.keySet()) {
+          listener.routeAdded(owner, address);
+        }
+      }
+    }
+
     public int size() {
       return addressToRoute.size();
     }
@@ -415,6 +442,9 @@ public final class Routing {
 
       addressToFlavor.put(address, flavor);
       addressToRoute.put(address, route);
+      if (listener != null) {
+        listener.routeAdded(owner, address);
+      }
       final TreeSet<Address> addresses = flavorToAddresses.get(flavor);
       if (addresses == null) {
         final TreeSet<Address> newAddresses = new TreeSet<Address>();
@@ -445,6 +475,9 @@ public final class Routing {
       }
 
       addressToRoute.remove(address);
+      if (listener != null) {
+        listener.routeRemoved(owner, address);
+      }
       final TreeSet<Address> addresses = flavorToAddresses.get(prevFlavor);
       if (addresses == null) {
         return 0;
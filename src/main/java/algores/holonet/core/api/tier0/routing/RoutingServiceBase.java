@@ -20,6 +20,7 @@ package algores.holonet.core.api.tier0.routing;
 
 import algores.holonet.capi.Event;
 import algores.holonet.core.Env;
+import algores.holonet.core.Node;
 import algores.holonet.core.api.*;
 import algores.holonet.core.api.tier0.rpc.RpcService;
 import algores.holonet.protocols.ring.RingRoutingService;
@@ -71,6 +72,12 @@ public abstract class RoutingServiceBase extends LocalServiceBase implements Rou
   protected RoutingServiceBase() {
   }
 
+  @Override
+  public void init(Node ownerNode) {
+    super.init(ownerNode);
+    routes.listen(ownerNode.getAddress(), ownerNode.getNetwork().getLinks());
+  }
+
   public double getRedundancy() {
     return redundancy;
   }
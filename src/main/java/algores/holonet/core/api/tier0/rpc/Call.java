@@ -25,6 +25,7 @@ public class Call {
   final Node source;
   final Address target;
   final Class service;
+  long dispatchStart;
 
   public Call(Node rpcSource, Address rpcTarget, Class service) {
     this.source = rpcSource;
@@ -24,11 +24,15 @@ import algores.holonet.core.Node;
 import algores.holonet.core.api.Address;
 import com.google.common.base.Optional;
 import org.akraievoy.base.introspect.Introspect;
+import org.akraievoy.holonet.exp.probe.Probe;
+import org.akraievoy.holonet.exp.probe.Probes;
 
 import java.lang.reflect.Proxy;
 import java.util.*;
 
 public class Context {
+  private static final Probe probeDispatch = Probes.probe("rpc.dispatch");
+
   final Network parentNetwork;
 
   final RemotingHandler handler;
@@ -74,7 +78,7 @@ public class Context {
 
     parentNetwork.registerRpcCall(request.getSource(), request.getTarget());
     targetNode = parentNetwork.getEnv().getNode(request.getTarget());
-    parentNetwork.getInterceptor().registerRpcCallResult(
+    parentNetwork.registerRpcCallResult(
         request.getSource().getAddress(),
         request.getTarget(),
         targetNode != null
@@ -115,6 +119,7 @@ public class Context {
 
     servedRequests++;
     final Call call = getActiveRequest().get();
+    call.dispatchStart = Probes.start();
     parentNetwork.registerRpcCall(call.getSource(), call.getTarget());
 
     return targetNode;
@@ -122,7 +127,8 @@ public class Context {
 
   public void onCallCompleted() {
     Call call = activeRequests.get(activeRequests.size() - 1);
-    parentNetwork.getInterceptor().registerRpcCallResult(
+    probeDispatch.stop(call.dispatchStart);
+    parentNetwork.registerRpcCallResult(
         call.getSource().getAddress(),
         call.getTarget(),
         true
@@ -54,7 +54,10 @@ public class NetworkRpcBase implements NetworkRpc {
     return getRpcContext().getActiveRequest();
   }
 
+  /**
+   * Drops the rpc context of the current thread.
+   */
   public void dispose() {
-    context.set(null);
+    context.remove();
   }
 }
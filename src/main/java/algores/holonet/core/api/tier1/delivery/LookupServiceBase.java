@@ -249,17 +249,31 @@ public class LookupServiceBase extends LocalServiceBase implements LookupService
     return traversals;
   }
 
-  protected RecursiveLookupState updateRoutes(Mode mode, RecursiveLookupState state) {
-    final RoutingService routing = getOwner().getServices().getRouting();
-    final RoutingService.RoutingStatsTuple statsBefore =
-        routing.getStats();
-
+  /**
+   * Routes are updated via {@link algores.holonet.core.Network#effect(Runnable)},
+   *   so lookups of a deferring thread leave the routing of traversed nodes intact till commit.
+   */
+  protected RecursiveLookupState updateRoutes(final Mode mode, RecursiveLookupState state) {
+    //  traversals are mapped right away, callers go on to change those
     final Map<Event, Iterable<RoutingEntry>> eventToHandles =
         new TreeMap<Event, Iterable<RoutingEntry>>();
     eventToHandles.put(Event.HEART_BEAT, mapToRoutes(state.traversed.values()));
     eventToHandles.put(Event.CONNECTION_FAILED, mapToRoutes(state.failed.values()));
     eventToHandles.put(Event.DISCOVERED, mapToRoutes(state.pending.values()));
 
+    getOwner().getNetwork().effect(new Runnable() {
+      public void run() {
+        updateRoutes0(mode, eventToHandles);
+      }
+    });
+    return state;
+  }
+
+  protected void updateRoutes0(Mode mode, Map<Event, Iterable<RoutingEntry>> eventToHandles) {
+    final RoutingService routing = getOwner().getServices().getRouting();
+    final RoutingService.RoutingStatsTuple statsBefore =
+        routing.getStats();
+
     routing.update(eventToHandles);
 
     final RoutingService.RoutingStatsTuple statsAfter =
@@ -269,6 +283,5 @@ public class LookupServiceBase extends LocalServiceBase implements LookupService
         statsAfter.routeRedundancy,
         statsAfter.routeRedundancy / statsBefore.routeRedundancy
     );
-    return state;
   }
 }
\ No newline at end of file
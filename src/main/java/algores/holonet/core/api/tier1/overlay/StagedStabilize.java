@@ -0,0 +1,40 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algores.holonet.core.api.tier1.overlay;
+
+import algores.holonet.core.CommunicationException;
+
+/**
+ * Overlays with stabilization split in two stages, so that whole-network rounds
+ *   may run the second stage of all nodes in parallel.
+ * <p/>
+ * Calling both stages in order is the same as {@link OverlayService#stabilize()}.
+ */
+public interface StagedStabilize {
+  /**
+   * Repairs links to the neighbors, may change state of the neighbors too.
+   */
+  void stabilizeNeighbors() throws CommunicationException;
+
+  /**
+   * Repairs the rest of the links, changing state of other nodes
+   *   only via {@link algores.holonet.core.Network#effect(Runnable)}.
+   */
+  void stabilizeFingers() throws CommunicationException;
+}
@@ -22,16 +22,43 @@ import algores.holonet.core.Network;
 import algores.holonet.core.Node;
 import org.akraievoy.cnet.gen.vo.EntropySource;
 
+import java.util.ArrayList;
 import java.util.Collection;
 
 /**
- * Stabilizes all nodes in the network event.
+ * Reflavors routes of all nodes in the network event.
+ * <p/>
+ * Reflavoring only changes routes of the node itself, so in parallel mode
+ *   all nodes are reflavored at once, see {@link NodeRound}.
  */
 public class EventNetReflavor extends Event<EventNetReflavor> {
+  protected boolean parallel = false;
+
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  public EventNetReflavor withParallel(boolean parallel) {
+    setParallel(parallel);
+    return this;
+  }
+
   public Result executeInternal(Network targetNetwork, final EntropySource eSource) {
     Result result = Result.SUCCESS;
 
     final Collection<Node> allNodes = targetNetwork.getAllNodes();
+    if (parallel) {
+      NodeRound.run(
+          targetNetwork, new ArrayList<Node>(allNodes),
+          new NodeRound.Work() {
+            public void run(Node node) {
+              node.getServices().getRouting().fullReflavor();
+            }
+          }
+      );
+      return result;
+    }
+
     for (Node node : allNodes) {
       node.getServices().getRouting().fullReflavor();
     }
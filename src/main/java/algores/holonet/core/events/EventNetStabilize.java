@@ -19,36 +19,71 @@
 package algores.holonet.core.events;
 
 import algores.holonet.core.CommunicationException;
+import algores.holonet.core.DeferredEffects;
 import algores.holonet.core.Network;
 import algores.holonet.core.Node;
-import algores.holonet.core.api.Key;
+import algores.holonet.core.api.tier1.overlay.OverlayService;
+import algores.holonet.core.api.tier1.overlay.StagedStabilize;
 import org.akraievoy.cnet.gen.vo.EntropySource;
 
-import java.util.TreeMap;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Stabilizes all nodes in the network event.
+ * <p/>
+ * In parallel mode, overlays with {@link StagedStabilize} repair neighbors node by node,
+ *   then repair fingers of all nodes at once, see {@link NodeRound}.
  */
 public class EventNetStabilize extends Event<EventNetStabilize> {
+  protected boolean parallel = false;
+
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  public EventNetStabilize withParallel(boolean parallel) {
+    setParallel(parallel);
+    return this;
+  }
+
   public Result executeInternal(Network targetNetwork, final EntropySource eSource) {
     Result result = Result.SUCCESS;
 
     int stabilizeSucceeded = 0;
     int stabilizeTotal = 0;
+    final List<Node> staged = new ArrayList<Node>();
     for (Node node : targetNetwork.getAllNodes()) {
+      final OverlayService overlay = node.getServices().getOverlay();
       try {
         stabilizeTotal += 1;
-        node.getServices().getOverlay().stabilize();
-        stabilizeSucceeded += 1;
+        if (parallel && overlay instanceof StagedStabilize) {
+          ((StagedStabilize) overlay).stabilizeNeighbors();
+          staged.add(node);
+        } else {
+          overlay.stabilize();
+          stabilizeSucceeded += 1;
+        }
       } catch (CommunicationException e) {
-        result = handleEventFailure(e, null);
-        log.debug(
-            String.format(
-                "stabilize failed: %s",
-                e.getMessage()
-            ),
-            e
-        );
+        result = stabilizeFailed(e);
+      }
+    }
+
+    if (!staged.isEmpty()) {
+      final List<DeferredEffects> committed = NodeRound.run(
+          targetNetwork, staged,
+          new NodeRound.Work() {
+            public void run(Node node) throws CommunicationException {
+              ((StagedStabilize) node.getServices().getOverlay()).stabilizeFingers();
+            }
+          }
+      );
+      for (DeferredEffects effects : committed) {
+        if (effects.getFailure().isPresent()) {
+          result = stabilizeFailed(effects.getFailure().get());
+        } else {
+          stabilizeSucceeded += 1;
+        }
       }
     }
 
@@ -63,4 +98,15 @@ public class EventNetStabilize extends Event<EventNetStabilize> {
 
     return result;
   }
+
+  protected Result stabilizeFailed(final CommunicationException e) {
+    log.debug(
+        String.format(
+            "stabilize failed: %s",
+            e.getMessage()
+        ),
+        e
+    );
+    return handleEventFailure(e, null);
+  }
 }
@@ -0,0 +1,93 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algores.holonet.core.events;
+
+import algores.holonet.core.CommunicationException;
+import algores.holonet.core.DeferredEffects;
+import algores.holonet.core.Network;
+import algores.holonet.core.Node;
+import org.akraievoy.util.Workers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Runs the same work for a list of nodes on the shared workers, with effects of each node deferred,
+ *   then commits those node by node, in the order of the list.
+ * <p/>
+ * As the work of any node sees the network as it was at the start of the round,
+ *   and effects are applied in a fixed order, results do not depend on thread scheduling.
+ */
+class NodeRound {
+  interface Work {
+    void run(Node node) throws CommunicationException;
+  }
+
+  /**
+   * @return committed effects, one per node, in the order of nodes
+   */
+  static List<DeferredEffects> run(final Network network, final List<Node> nodes, final Work work) {
+    final DeferredEffects[] effects = new DeferredEffects[nodes.size()];
+    final int stripes = Math.max(1, Math.min(nodes.size(), Workers.parallelism()));
+    final Thread caller = Thread.currentThread();
+
+    final List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(stripes);
+    for (int s = 0; s < stripes; s++) {
+      final int stripe = s;
+      tasks.add(new Callable<Object>() {
+        public Object call() {
+          try {
+            for (int pos = stripe; pos < effects.length; pos += stripes) {
+              effects[pos] = runNode(network, nodes.get(pos), work);
+            }
+          } finally {
+            if (Thread.currentThread() != caller) {
+              //  pooled threads outlive the network, so should not keep its rpc context
+              network.getRpc().dispose();
+            }
+          }
+          return null;
+        }
+      });
+    }
+
+    //  nothing is committed till all the work is done, as it all has to see the same network
+    Workers.invokeAll("running node round", tasks);
+
+    for (DeferredEffects nodeEffects : effects) {
+      network.commit(nodeEffects);
+    }
+
+    return Arrays.asList(effects);
+  }
+
+  protected static DeferredEffects runNode(final Network network, final Node node, final Work work) {
+    final DeferredEffects effects = network.defer();
+    try {
+      work.run(node);
+    } catch (CommunicationException e) {
+      effects.setFailure(e);
+    } finally {
+      network.stopDeferring();
+    }
+    return effects;
+  }
+}
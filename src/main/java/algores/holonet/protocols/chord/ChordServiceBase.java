@@ -24,8 +24,10 @@ import algores.holonet.core.SimulatorException;
 import algores.holonet.core.api.Address;
 import algores.holonet.core.api.Key;
 import algores.holonet.core.api.KeySpace;
+import algores.holonet.core.api.Range;
 import algores.holonet.core.api.tier0.rpc.RpcService;
 import algores.holonet.core.api.tier1.delivery.LookupService;
+import algores.holonet.core.api.tier1.overlay.StagedStabilize;
 import algores.holonet.protocols.ring.RingRoutingService;
 import algores.holonet.protocols.ring.RingRoutingServiceImpl;
 import algores.holonet.protocols.ring.RingService;
@@ -33,9 +35,29 @@ import com.google.common.base.Optional;
 
 import static algores.holonet.core.api.tier0.routing.Routing.*;
 
-public class ChordServiceBase extends RingService implements ChordService {
+public class ChordServiceBase extends RingService implements ChordService, StagedStabilize {
+  /**
+   * Skip finger powers falling into the range of a finger resolved already in the same round.
+   */
+  protected boolean fingerSkipCovered = false;
+  /**
+   * Number of finger powers refreshed per round, rotating over all of them, zero or less to refresh all.
+   */
+  protected int fingerBatch = 0;
+  protected int fingerCursor = 0;
+
   public ChordServiceBase copy() {
-    return new ChordServiceBase();
+    return new ChordServiceBase().fingerSkipCovered(fingerSkipCovered).fingerBatch(fingerBatch);
+  }
+
+  public ChordServiceBase fingerSkipCovered(final boolean fingerSkipCovered) {
+    this.fingerSkipCovered = fingerSkipCovered;
+    return this;
+  }
+
+  public ChordServiceBase fingerBatch(final int fingerBatch) {
+    this.fingerBatch = fingerBatch;
+    return this;
   }
 
   /**
@@ -74,6 +96,11 @@ public class ChordServiceBase extends RingService implements ChordService {
    * For maintaining finger table/link purpose
    */
   public void stabilize() throws CommunicationException {
+    stabilizeNeighbors();
+    stabilizeFingers();
+  }
+
+  public void stabilizeNeighbors() throws CommunicationException {
     final RingRoutingServiceImpl ownRouting =
         (RingRoutingServiceImpl) getRouting();
     final RpcService rpc = owner.getServices().getRpc();
@@ -111,12 +138,17 @@ public class ChordServiceBase extends RingService implements ChordService {
             ownRouting.getPredecessor(), false, owner.getKey(), true
         )
     );
+  }
 
+  public void stabilizeFingers() throws CommunicationException {
     fixFingers();
   }
 
   /**
    * Should not be called remotely.
+   * <p/>
+   * Powers of the round are walked in increasing order, with the batch set they start
+   *   where the previous round stopped, see {@link #fingerBatch(int)} and {@link #fingerSkipCovered(boolean)}.
    *
    * @throws algores.holonet.core.CommunicationException
    *          chained
@@ -124,22 +156,47 @@ public class ChordServiceBase extends RingService implements ChordService {
   protected void fixFingers() throws CommunicationException {
     final Key ownerKey = owner.getAddress().getKey();
 
-    //	TODO omit queries in case finger is responsible for multiple powers
-    for (int power = 0; power < Key.BITNESS; power++) {
+    final int powers = fingerBatch > 0 ? Math.min(fingerBatch, Key.BITNESS) : Key.BITNESS;
+    final int powerStart = fingerBatch > 0 ? fingerCursor : 0;
+    fingerCursor = (powerStart + powers) % Key.BITNESS;
+
+    Range covered = null;
+    for (int step = 0; step < powers; step++) {
+      final int power = powerStart + step;
+      //  rotation wraps to the lowest powers, those start a range of their own
+      if (power == Key.BITNESS) {
+        covered = null;
+      }
+      final Key fingerKey = ownerKey.next(power % Key.BITNESS);
+      if (covered != null && covered.contains(fingerKey)) {
+        continue;
+      }
+      covered = null;
+
       try {
         final Address address = owner.getServices().getLookup().lookup(
-            ownerKey.next(power), false, LookupService.Mode.FIXFINGERS,
+            fingerKey, false, LookupService.Mode.FIXFINGERS,
             Optional.<Address>absent()
         );
 
         //  it's possible that finger ends up pointing to the same node
         //    especially this is true for initial stages
         if (address.equals(owner.getAddress())) {
+          if (fingerSkipCovered) {
+            covered = getRouting().ownRoute().getRange();
+          }
           continue;
         }
 
         final RoutingEntry entry = rpcToRouting(address).ownRoute();
-        getRouting().update(eventToRoute(Event.HEART_BEAT, entry));
+        owner.getNetwork().effect(new Runnable() {
+          public void run() {
+            getRouting().update(eventToRoute(Event.HEART_BEAT, entry));
+          }
+        });
+        if (fingerSkipCovered) {
+          covered = entry.getRange();
+        }
       } catch (CommunicationException nfe) {
         //	should be ignored...
       }
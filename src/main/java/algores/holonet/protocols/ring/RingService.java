@@ -100,7 +100,12 @@ public class RingService extends OverlayServiceBase {
     if (rsOpt.isPresent()) {
       return rsOpt.get();
     } else {
-      getRouting().registerCommunicationFailure(target.getAddress(), false);
+      final Address address = target.getAddress();
+      owner.getNetwork().effect(new Runnable() {
+        public void run() {
+          getRouting().registerCommunicationFailure(address, false);
+        }
+      });
       throw new CommunicationException(
           String.format("%s is offline", target)
       );
@@ -165,7 +165,12 @@ public class Metrics implements NetworkInterceptor {
       final String prefix = capitalize(mode.toString().toLowerCase());
       reportLens.forTypeName(Long.class, periodName + prefix + "Count").set(lookups.getLookupCount());
       reportLens.forName(periodName + prefix + "HopAvg").set(lookups.getMeanPathLength());
+      reportLens.forName(periodName + prefix + "HopDev").set(lookups.getHopStats().sampleStandardDeviation());
+      reportLens.forName(periodName + prefix + "HopP90").set(lookups.getHopQuantiles().quantile(0.9));
       reportLens.forName(periodName + prefix + "DelayAvg").set(lookups.getMeanLatency());
+      reportLens.forName(periodName + prefix + "DelayDev").set(lookups.getLatencyStats().sampleStandardDeviation());
+      reportLens.forName(periodName + prefix + "DelayP50").set(lookups.getLatencyQuantiles().median());
+      reportLens.forName(periodName + prefix + "DelayP90").set(lookups.getLatencyQuantiles().quantile(0.9));
       reportLens.forName(periodName + prefix + "VsDirectRatioAvg").set(lookups.getLookupVsDirectRatioAvg());
       reportLens.forName(periodName + prefix + "ScsRatio").set(lookups.getLookupSuccessRatio());
       reportLens.forName(periodName + prefix + "CorrRatio").set(lookups.getLookupConsistency());
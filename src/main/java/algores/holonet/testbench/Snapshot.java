@@ -18,26 +18,30 @@
 
 package algores.holonet.testbench;
 
+import algores.holonet.core.LinkGraph;
 import algores.holonet.core.Network;
 import algores.holonet.core.Node;
-import algores.holonet.core.api.Address;
-import algores.holonet.core.api.tier0.routing.RoutingService;
 import org.akraievoy.cnet.metrics.api.Metric;
 import org.akraievoy.cnet.metrics.domain.MetricScalarEigenGap;
 import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataBuilder;
 import org.akraievoy.cnet.net.vo.EdgeDataFactory;
 import org.akraievoy.cnet.net.vo.EdgeDataSparse;
 import org.akraievoy.holonet.exp.store.RefObject;
 import org.akraievoy.holonet.exp.store.StoreLens;
+import org.akraievoy.util.Workers;
 import scala.Tuple4;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * Metrics that make sense in static context.
+ * <p/>
+ * Link graphs are copied from those the network maintains, see {@link LinkGraph},
+ *   eigen gaps of the three link graphs are computed concurrently.
  */
 public class Snapshot {
   private Tuple4<Integer, Double, Double, Double> elemStats;
@@ -82,102 +86,78 @@ public class Snapshot {
     rangeStats = processFun(network, RANGE);
 
     final Collection<Node> nodes = network.getAllNodes();
-    int maxIndex = 0;
-    for (Node node : nodes) {
-      maxIndex = Math.max(maxIndex, network.getEnv().indexOf(node.getAddress()));
-    }
-
-    linksAll = EdgeDataFactory.sparse(false, maxIndex + 1);
-    linksSeed = EdgeDataFactory.sparse(false, maxIndex + 1);
-    linksDht = EdgeDataFactory.sparse(false, maxIndex + 1);
-    //  assymetric, keeping node gaps
-    for (Node nodeFrom : nodes) {
-      final RoutingService fromRouting = nodeFrom.getServices().getRouting();
-      final int fromIndex = network.getEnv().indexOf(nodeFrom.getAddress());
-
-      for (Node nodeInto : nodes) {
-        final Address intoAddr = nodeInto.getAddress();
-        if (nodeFrom.getAddress().equals(intoAddr)) {
-          continue;
-        }
-
-        final boolean linkSeed =
-            fromRouting.hasRouteFor(intoAddr, false, true);
-        final boolean linkDht =
-            fromRouting.hasRouteFor(intoAddr, true, false);
-
-        final int intoIndex = network.getEnv().indexOf(nodeInto.getAddress());
-
-        if (linkSeed || linkDht) {
-          linksAll.set(fromIndex, intoIndex, 1);
-        }
-        if (linkDht) {
-          linksDht.set(fromIndex, intoIndex, 1);
-        }
-        if (linkSeed) {
-          linksSeed.set(fromIndex, intoIndex, 1);
-        }
+    final int[] addrIndexes = new int[nodes.size()];
+    {
+      int nodeIndex = 0;
+      for (Node node : nodes) {
+        addrIndexes[nodeIndex++] = network.getEnv().indexOf(node.getAddress());
       }
     }
-
-    final List<Integer> addrIndexes = new ArrayList<Integer>(nodes.size());
-    for (Node node : nodes) {
-      addrIndexes.add(network.getEnv().indexOf(node.getAddress()));
+    Arrays.sort(addrIndexes);
+    final int maxIndex = addrIndexes.length > 0 ? addrIndexes[addrIndexes.length - 1] : 0;
+
+    //  position among the nodes present, or -1 for the gaps
+    final int[] ranks = new int[maxIndex + 1];
+    Arrays.fill(ranks, -1);
+    for (int rank = 0; rank < addrIndexes.length; rank++) {
+      ranks[addrIndexes[rank]] = rank;
     }
-    Collections.sort(addrIndexes);
 
-    final EdgeData lambdaLinksAll = EdgeDataFactory.sparse(true, addrIndexes.size());
-    final EdgeData lambdaLinksSeed = EdgeDataFactory.sparse(true, addrIndexes.size());
-    final EdgeData lambdaLinksDht = EdgeDataFactory.sparse(true, addrIndexes.size());
+    //  assymetric, keeping node gaps
+    final EdgeDataBuilder allBuilder = new EdgeDataBuilder(EdgeDataFactory.sparse(false, maxIndex + 1));
+    final EdgeDataBuilder seedBuilder = new EdgeDataBuilder(EdgeDataFactory.sparse(false, maxIndex + 1));
+    final EdgeDataBuilder dhtBuilder = new EdgeDataBuilder(EdgeDataFactory.sparse(false, maxIndex + 1));
     //  symmetric, avoiding node gaps
-    for (Node nodeFrom : nodes) {
-      final RoutingService fromRouting = nodeFrom.getServices().getRouting();
-      final int fromIndex = Collections.binarySearch(
-          addrIndexes,
-          network.getEnv().indexOf(nodeFrom.getAddress())
-      );
-
-      for (Node nodeInto : nodes) {
-        final Address intoAddr = nodeInto.getAddress();
-        if (nodeFrom.getAddress().equals(intoAddr)) {
-          continue;
+    final EdgeDataBuilder lambdaAllBuilder = new EdgeDataBuilder(true, 0.0, addrIndexes.length);
+    final EdgeDataBuilder lambdaSeedBuilder = new EdgeDataBuilder(true, 0.0, addrIndexes.length);
+    final EdgeDataBuilder lambdaDhtBuilder = new EdgeDataBuilder(true, 0.0, addrIndexes.length);
+
+    final LinkGraph links = network.getLinks();
+    for (int fromIndex : addrIndexes) {
+      for (int intoIndex : links.seedLinks(fromIndex)) {
+        if (intoIndex <= maxIndex && ranks[intoIndex] >= 0 && intoIndex != fromIndex) {
+          allBuilder.add(fromIndex, intoIndex, 1);
+          seedBuilder.add(fromIndex, intoIndex, 1);
+          lambdaAllBuilder.add(ranks[fromIndex], ranks[intoIndex], 1);
+          lambdaSeedBuilder.add(ranks[fromIndex], ranks[intoIndex], 1);
         }
-
-        final boolean linkSeed =
-            fromRouting.hasRouteFor(intoAddr, false, true);
-        final boolean linkDht =
-            fromRouting.hasRouteFor(intoAddr, true, false);
-
-        final int intoIndex = Collections.binarySearch(
-            addrIndexes,
-            network.getEnv().indexOf(nodeInto.getAddress())
-        );
-
-        if (linkSeed || linkDht) {
-          lambdaLinksAll.set(fromIndex, intoIndex, 1);
-        }
-        if (linkDht) {
-          lambdaLinksDht.set(fromIndex, intoIndex, 1);
-        }
-        if (linkSeed) {
-          lambdaLinksSeed.set(fromIndex, intoIndex, 1);
+      }
+      for (int intoIndex : links.dhtLinks(fromIndex)) {
+        if (intoIndex <= maxIndex && ranks[intoIndex] >= 0 && intoIndex != fromIndex) {
+          allBuilder.add(fromIndex, intoIndex, 1);
+          dhtBuilder.add(fromIndex, intoIndex, 1);
+          lambdaAllBuilder.add(ranks[fromIndex], ranks[intoIndex], 1);
+          lambdaDhtBuilder.add(ranks[fromIndex], ranks[intoIndex], 1);
         }
       }
     }
 
-    final MetricScalarEigenGap eigenGapMetric = new MetricScalarEigenGap();
-
-    eigenGapMetric.setSource(new RefObject<EdgeData>(lambdaLinksAll));
-    lambdaAll = Metric.fetch(eigenGapMetric);
-
-    eigenGapMetric.setSource(new RefObject<EdgeData>(lambdaLinksDht));
-    lambdaDht = Metric.fetch(eigenGapMetric);
-
-    eigenGapMetric.setSource(new RefObject<EdgeData>(lambdaLinksSeed));
-    lambdaSeed = Metric.fetch(eigenGapMetric);
-
-
+    linksAll = allBuilder.build();
+    linksSeed = seedBuilder.build();
+    linksDht = dhtBuilder.build();
+
+    //  solver failures are kept as they are, these are caught upstream
+    final List<Double> lambdas = Workers.invokeAll(
+        "computing eigen gaps",
+        Arrays.asList(
+            eigenGap(lambdaAllBuilder.buildFrozen()),
+            eigenGap(lambdaDhtBuilder.buildFrozen()),
+            eigenGap(lambdaSeedBuilder.buildFrozen())
+        )
+    );
+    lambdaAll = lambdas.get(0);
+    lambdaDht = lambdas.get(1);
+    lambdaSeed = lambdas.get(2);
+  }
 
+  protected static Callable<Double> eigenGap(final EdgeData lambdaLinks) {
+    return new Callable<Double>() {
+      public Double call() {
+        final MetricScalarEigenGap eigenGapMetric = new MetricScalarEigenGap();
+        eigenGapMetric.setSource(new RefObject<EdgeData>(lambdaLinks));
+        return Metric.fetch(eigenGapMetric);
+      }
+    };
   }
 
   public void store(StoreLens<Double> reportLens) {
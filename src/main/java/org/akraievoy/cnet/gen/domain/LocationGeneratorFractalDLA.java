@@ -20,8 +20,22 @@ package org.akraievoy.cnet.gen.domain;
 
 import com.google.common.base.Optional;
 import org.akraievoy.cnet.gen.vo.*;
+import org.akraievoy.util.Workers;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Diffusion-limited aggregation: points of each generation drift from random cells until they come
+ *   next to an earlier deposit, seed points of the first generation are spread uniformly.
+ * <p/>
+ * Walkers may be released in batches, to run concurrently, see {@link #setWalkerNum(int)}.
+ */
 public class LocationGeneratorFractalDLA extends LocationGeneratorBase {
+  protected static final int BLOCK = 16;
+  protected static final long GOLDEN = 0x9e3779b97f4a7c15L;
+
   protected final EntropySource eSource;
   protected final WeightedEventModel eventModel;
 
@@ -33,8 +47,18 @@ public class LocationGeneratorFractalDLA extends LocationGeneratorBase {
 
   protected int seedPointNum = 1;
 
+  protected int walkerNum = 1;
+  protected boolean deterministic = true;
+
   protected double[] weights;
 
+  protected int[] dirs;
+  //  deposited weights, as double bits, while walkers are out
+  protected AtomicLongArray deposits;
+  //  coarse occupancy: does a block of BLOCK x BLOCK cells have any deposit
+  protected boolean[] blocks;
+  protected int blockRow;
+
   public LocationGeneratorFractalDLA(final EntropySource eSource) {
     this.eSource = eSource;
     this.eventModel = new WeightedEventModelBase(Optional.of("locations"));
@@ -84,14 +108,39 @@ public class LocationGeneratorFractalDLA extends LocationGeneratorBase {
     return seedPointNum;
   }
 
+  public int getWalkerNum() {
+    return walkerNum;
+  }
+
+  /**
+   * @param walkerNum walkers released at once, one means a single walker driven by the main entropy source
+   */
+  public void setWalkerNum(int walkerNum) {
+    this.walkerNum = walkerNum;
+  }
+
+  public boolean isDeterministic() {
+    return deterministic;
+  }
+
+  /**
+   * @param deterministic if set, walkers released at once only see deposits of previous batches,
+   *   otherwise they deposit right away, which is faster but depends on scheduling of the threads
+   */
+  public void setDeterministic(boolean deterministic) {
+    this.deterministic = deterministic;
+  }
+
   public void run() {
     eSource.diagnoseSeed(this.getClass().getSimpleName());
     computeWeights();
   }
 
   protected void computeWeights() {
-    weights = new double[cells];
-    final int[] dirs = new int[]{-gridSize - 1, -gridSize, -gridSize + 1, 1, gridSize + 1, gridSize, gridSize - 1, -1};
+    dirs = new int[]{-gridSize - 1, -gridSize, -gridSize + 1, 1, gridSize + 1, gridSize, gridSize - 1, -1};
+    deposits = new AtomicLongArray(cells);
+    blockRow = (gridSize + BLOCK - 1) / BLOCK;
+    blocks = new boolean[blockRow * blockRow];
 
     final double totalWeight = Math.pow(gridSize, dimensionRatio);
     final double totalArea = totalWeight / densityRatio;
@@ -110,64 +159,183 @@ public class LocationGeneratorFractalDLA extends LocationGeneratorBase {
         points *= genPointsRatio;
       }
       final double pointWeight = genWeight / points;
+      final int pointNum = (int) Math.ceil(points);
 
-      int tries = tryNum;
-      for (int p = 0; p < points; tries--) {
-        final int pos = eSource.nextInt(cells);
-
-        if (g == 0 || tries == 0) {  //	that's a seed (or tries exhausted), distribute it uniformly
-          weights[pos] += pointWeight;
-          p++;
-          tries = tryNum;
-          continue;
-        }
-
-        int dir = eSource.nextInt(dirs.length) % 8;
-
-        int curPos = pos;
-        while (isDep(curPos)) {  //	atempting to drift out of deposit
-          curPos += dirs[dir];
+      if (walkerNum <= 1) {
+        //  the original loop counted the deposit as a try, so only the first point had all of them
+        for (int p = 0; p < pointNum; p++) {
+          deposit(land(eSource, g, p == 0 ? tryNum : tryNum - 1), pointWeight);
         }
-        if (!isPos(curPos)) {  //	clipped off
-          continue;
+      } else {
+        for (int released = 0; released < pointNum; released += walkerNum) {
+          release(g, Math.min(walkerNum, pointNum - released), pointWeight);
         }
+      }
+    }
 
-        int stepCounter = 0;
-        while (isPos(curPos)) {  //	drift to deposit, looking at near cells also
-          final int nextPos = curPos + dirs[dir];
-          final int nextPosL = curPos + dirs[(dir + 1) % 8];
-          final int nextPosR = curPos + dirs[(dir + 7) % 8];
+    weights = new double[cells];
+    final int[] events = new int[cells];
+    final double[] eventWeights = new double[cells];
+    int eventNum = 0;
+    for (int i = 0; i < cells; i++) {
+      weights[i] = Double.longBitsToDouble(deposits.get(i));
+      if (weights[i] > 0) {
+        events[eventNum] = i;
+        eventWeights[eventNum] = weights[i];
+        eventNum++;
+      }
+    }
+    deposits = null;
+    blocks = null;
 
-          if (isDep(nextPos) || isDep(nextPosL) || isDep(nextPosR)) {
-            break;
-          }
+    eventModel.addAll(events, eventWeights, eventNum);
+  }
 
-          curPos = nextPos;
-          if (stepCounter % 8 == 0) {
-            dir = (dir + eSource.nextInt(3) + 7) % 8;
+  /**
+   * Releases a batch of walkers, each driven by its own entropy source seeded off the main one,
+   *   walkers are striped over the threads and deposit without locks.
+   */
+  protected void release(final int g, final int walkers, final double pointWeight) {
+    final long batchSeed = ((long) eSource.nextInt(Integer.MAX_VALUE) << 31) ^ eSource.nextInt(Integer.MAX_VALUE);
+    final int[] landings = new int[walkers];
+    final int threads = Math.min(walkers, Workers.parallelism());
+
+    final List<Runnable> tasks = new ArrayList<Runnable>();
+    for (int t = 0; t < threads; t++) {
+      final int stripe = t;
+      tasks.add(new Runnable() {
+        public void run() {
+          final EntropySourceRandom walkerSource = new EntropySourceRandom();
+          for (int w = stripe; w < walkers; w += threads) {
+            walkerSource.setSeed(mix(batchSeed + w * GOLDEN));
+            landings[w] = land(walkerSource, g, tryNum);
+            if (!deterministic) {
+              deposit(landings[w], pointWeight);
+            }
           }
-          stepCounter++;
         }
+      });
+    }
 
-        if (!isPos(curPos)) {
-          continue; //	failed to land on deposit: clipped off
+    Workers.runAll("releasing walkers", tasks);
+
+    if (deterministic) {
+      for (int landing : landings) {
+        deposit(landing, pointWeight);
+      }
+    }
+  }
+
+  /**
+   * @return the cell the walker deposits to, after tries are exhausted it's any random one
+   */
+  protected int land(final EntropySource eSource, final int g, final int tryBudget) {
+    for (int tries = tryBudget; ; tries--) {
+      final int pos = eSource.nextInt(cells);
+
+      if (g == 0 || tries == 0) {  //	that's a seed (or tries exhausted), distribute it uniformly
+        return pos;
+      }
+
+      final int landing = walk(eSource, pos);
+      if (landing >= 0) {
+        return landing;
+      }
+    }
+  }
+
+  /**
+   * @return the cell next to the deposit the walker stopped at, or <code>-1</code> if it got clipped off
+   */
+  protected int walk(final EntropySource eSource, final int pos) {
+    int dir = eSource.nextInt(dirs.length) % 8;
+
+    int curPos = pos;
+    while (isDep(curPos)) {  //	atempting to drift out of deposit
+      curPos += dirs[dir];
+    }
+    if (!isPos(curPos)) {  //	clipped off
+      return -1;
+    }
+
+    int stepCounter = 0;
+    int freeSteps = 0;
+    while (isPos(curPos)) {  //	drift to deposit, looking at near cells also
+      if (freeSteps == 0) {
+        freeSteps = freeSteps(curPos);
+      }
+
+      final int nextPos = curPos + dirs[dir];
+      if (freeSteps > 0) {
+        freeSteps--;
+      } else {
+        final int nextPosL = curPos + dirs[(dir + 1) % 8];
+        final int nextPosR = curPos + dirs[(dir + 7) % 8];
+
+        if (isDep(nextPos) || isDep(nextPosL) || isDep(nextPosR)) {
+          break;
         }
+      }
 
-        weights[curPos] += pointWeight;
-        p++;
-        tries = tryNum;
+      curPos = nextPos;
+      if (stepCounter % 8 == 0) {
+        dir = (dir + eSource.nextInt(3) + 7) % 8;
       }
+      stepCounter++;
     }
 
-    for (int i = 0; i < cells; i++) {
-      if (weights[i] > 0) {
-        eventModel.add(i, weights[i]);
+    if (!isPos(curPos)) {
+      return -1; //	failed to land on deposit: clipped off
+    }
+
+    return curPos;
+  }
+
+  /**
+   * A walker can't get further than <code>BLOCK - 1</code> cells away in as many steps,
+   *   so if its block and the blocks around are empty those steps need no deposit checks.
+   * Walkers near the edges of the grid are left alone, as they wrap over rows or get clipped off.
+   *
+   * @return steps which are sure to not come next to any deposit
+   */
+  protected int freeSteps(final int pos) {
+    final int x = pos % gridSize;
+    final int y = pos / gridSize;
+    if (x < BLOCK || x >= gridSize - BLOCK || y < BLOCK || y >= gridSize - BLOCK) {
+      return 0;
+    }
+
+    final int blockX = x / BLOCK;
+    final int blockY = y / BLOCK;
+    for (int by = blockY - 1; by <= blockY + 1; by++) {
+      for (int bx = blockX - 1; bx <= blockX + 1; bx++) {
+        if (blocks[by * blockRow + bx]) {
+          return 0;
+        }
       }
     }
+
+    return BLOCK - 1;
+  }
+
+  protected void deposit(final int pos, final double pointWeight) {
+    long prev;
+    do {
+      prev = deposits.get(pos);
+    } while (!deposits.compareAndSet(pos, prev, Double.doubleToLongBits(Double.longBitsToDouble(prev) + pointWeight)));
+
+    //  concurrent walkers may miss this for a while, same as they may miss the deposit itself
+    blocks[(pos / gridSize / BLOCK) * blockRow + (pos % gridSize) / BLOCK] = true;
   }
 
   protected boolean isDep(int nextPos) {
-    return isPos(nextPos) && weights[nextPos] > 0;
+    return isPos(nextPos) && deposits.get(nextPos) != 0;
+  }
+
+  protected static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
   }
 
   public Point chooseLocation(final EntropySource eSource) {
@@ -180,4 +348,4 @@ public class LocationGeneratorFractalDLA extends LocationGeneratorBase {
   public double getDensity(Point location) {
     return weights[p2index(location)];
   }
-}
\ No newline at end of file
+}
@@ -21,6 +21,7 @@ package org.akraievoy.cnet.gen.domain;
 import org.akraievoy.base.Die;
 import org.akraievoy.cnet.metrics.api.MetricEData;
 import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataBuilder;
 import org.akraievoy.cnet.net.vo.EdgeDataFactory;
 
 import java.util.BitSet;
@@ -89,32 +90,40 @@ public class MetricEDataGenStructural extends MetricEData {
     return EdgeDataFactory.sparse(true, 0.0, netSize);
   }
 
-  public static EdgeData path(int netSize) {
-    final EdgeData result = empty(netSize);
+  protected static EdgeDataBuilder builder(int netSize) {
+    return new EdgeDataBuilder(empty(netSize));
+  }
+
+  protected static EdgeDataBuilder pathBuilder(int netSize) {
+    final EdgeDataBuilder result = builder(netSize);
 
     for (int i = 0; i < netSize - 1; i++) {
-      result.set(i, i + 1, 1.0);
+      result.add(i, i + 1, 1.0);
     }
 
     return result;
   }
 
+  public static EdgeData path(int netSize) {
+    return pathBuilder(netSize).build();
+  }
+
   public static EdgeData star(int netSize) {
-    final EdgeData result = empty(netSize);
+    final EdgeDataBuilder result = builder(netSize);
 
     for (int i = 1; i < netSize; i++) {
-      result.set(0, i, 1.0);
+      result.add(0, i, 1.0);
     }
 
-    return result;
+    return result.build();
   }
 
   public static EdgeData cycle(int netSize) {
-    final EdgeData result = path(netSize);
+    final EdgeDataBuilder result = pathBuilder(netSize);
 
-    result.set(0, netSize - 1, 1.0);
+    result.add(0, netSize - 1, 1.0);
 
-    return result;
+    return result.build();
   }
 
   public static EdgeData full(int netSize) {
@@ -126,19 +135,19 @@ public class MetricEDataGenStructural extends MetricEData {
       throw new IllegalStateException("netSize should be prime, equal to 1 mod 4");
     }
 
-    final EdgeData result = empty(netSize);
+    final EdgeDataBuilder result = builder(netSize);
 
     final BitSet residues = precompResidues(netSize);
 
     for (int from = 0; from < netSize - 1; from++) {
       for (int into = from + 1; into < netSize; into++) {
         if (residues.get(into - from)) {
-          result.set(from, into, 1.0);
+          result.add(from, into, 1.0);
         }
       }
     }
 
-    return result;
+    return result.build();
   }
 
   protected static BitSet precompResidues(int modulo) {
@@ -178,7 +187,7 @@ public class MetricEDataGenStructural extends MetricEData {
     Die.ifFalse("isSquare(netSize)", isSquare(netSize));
     final int root = (int) Math.floor(Math.sqrt(netSize));
 
-    final EdgeData result = empty(netSize);
+    final EdgeDataBuilder result = builder(netSize);
 
     for (int u = 0; u < netSize - 1; u++) {
       for (int v = u; v < netSize; v++) {
@@ -186,12 +195,12 @@ public class MetricEDataGenStructural extends MetricEData {
         int edges = countEdges(root, u, v) + countEdges(root, v, u);
 
         if (edges > 0) {
-          result.set(u, v, (double) edges);
+          result.add(u, v, (double) edges);
         }
       }
     }
 
-    return result;
+    return result.build();
   }
 
   protected static int countEdges(int root, int u, int v) {
@@ -28,6 +28,7 @@ import org.akraievoy.cnet.gen.vo.WeightedEventModel;
 import org.akraievoy.cnet.gen.vo.WeightedEventModelBase;
 import org.akraievoy.cnet.metrics.api.MetricVData;
 import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataBuilder;
 import org.akraievoy.cnet.net.vo.VertexData;
 
 import java.util.HashMap;
@@ -116,7 +117,7 @@ public class OverlayNetFactory extends MetricVData {
 
     for (RefRO<? extends EdgeData> sourceRef : edgeDataMap.keySet()) {
       final EdgeData eData = sourceRef.getValue();
-      final EdgeData vNodeEData = eData.proto(vNodeNum);
+      final EdgeDataBuilder vNodeEData = new EdgeDataBuilder(eData.proto(vNodeNum));
 
       for (int i = 0; i < vNodeNum; i++) {
         final double physI = indexes.get(i);
@@ -124,13 +125,15 @@ public class OverlayNetFactory extends MetricVData {
         for (int j = 0; j < vNodeNum; j++) {
           final double physJ = indexes.get(j);
 
-          //noinspection unchecked
-          vNodeEData.set(i, j, eData.get((int) physI, (int) physJ));
+          final double elem = eData.get((int) physI, (int) physJ);
+          if (!eData.isDef(elem)) {
+            vNodeEData.add(i, j, elem);
+          }
         }
       }
 
       final Ref<EdgeData> targetRef = edgeDataMap.get(sourceRef);
-      targetRef.setValue(vNodeEData);
+      targetRef.setValue(vNodeEData.build());
     }
   }
 }
\ No newline at end of file
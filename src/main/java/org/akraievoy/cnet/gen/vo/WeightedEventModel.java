@@ -102,6 +102,78 @@ public abstract class WeightedEventModel {
     extendSums(evtIndex, weight);
   }
 
+  /**
+   * Same as a sequence of {@link #add(int, double)} calls, but sorts the batch once and merges it
+   *   with present events in linear time, instead of a sorted insert per event.
+   * <p/>
+   * Events of equal weight keep the order they were added in.
+   */
+  public void addAll(final int[] newEvents, final double[] newWeights, final int count) {
+    final int[] order = new int[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = i;
+    }
+    sortByWeight(order, newWeights);
+
+    if (sums != null) {  //  already generating: sums have to be extended as usual
+      for (int i = 0; i < count; i++) {
+        add(newEvents[order[i]], newWeights[order[i]]);
+      }
+      return;
+    }
+
+    final int size = events.size();
+    final int[] mergedEvents = new int[size + count];
+    final double[] mergedWeights = new double[size + count];
+    int pos = 0;
+    int newPos = 0;
+    for (int merged = 0; merged < mergedEvents.length; merged++) {
+      if (newPos == count || pos < size && weights.get(pos) <= newWeights[order[newPos]]) {
+        mergedEvents[merged] = events.get(pos);
+        mergedWeights[merged] = weights.get(pos);
+        pos++;
+      } else {
+        mergedEvents[merged] = newEvents[order[newPos]];
+        mergedWeights[merged] = newWeights[order[newPos]];
+        newPos++;
+      }
+    }
+
+    events.clear();
+    events.add(mergedEvents);
+    weights.clear();
+    weights.add(mergedWeights);
+  }
+
+  /**
+   * Stable bottom-up merge sort of indexes by their weights.
+   */
+  protected static void sortByWeight(final int[] order, final double[] weights) {
+    int[] src = order;
+    int[] dest = new int[order.length];
+    for (int width = 1; width < order.length; width *= 2) {
+      for (int lo = 0; lo < order.length; lo += 2 * width) {
+        final int mid = Math.min(lo + width, order.length);
+        final int hi = Math.min(lo + 2 * width, order.length);
+        int left = lo;
+        int right = mid;
+        for (int pos = lo; pos < hi; pos++) {
+          if (right == hi || left < mid && weights[src[left]] <= weights[src[right]]) {
+            dest[pos] = src[left++];
+          } else {
+            dest[pos] = src[right++];
+          }
+        }
+      }
+      final int[] swap = src;
+      src = dest;
+      dest = swap;
+    }
+    if (src != order) {
+      System.arraycopy(src, 0, order, 0, order.length);
+    }
+  }
+
   protected abstract void extendSums(int evtIndex, double weight);
 
   public void remove(int val) {
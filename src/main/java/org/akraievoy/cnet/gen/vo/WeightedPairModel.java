@@ -0,0 +1,243 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.gen.vo;
+
+import gnu.trove.TDoubleArrayList;
+import gnu.trove.TIntArrayList;
+import org.akraievoy.base.Die;
+import org.akraievoy.cnet.net.vo.EdgeData;
+
+import static org.akraievoy.cnet.net.Net.toId;
+
+/**
+ * Weighted pair events of an edge data, limited to pairs of active vertices.
+ * <p/>
+ * Sampling is two-level: a row is picked by its weight over active columns,
+ * then a column within that row. Both levels are Fenwick trees, so activation
+ * or deactivation of a vertex costs <tt>O(degree * log(size))</tt> instead of
+ * rebuilding the whole event model.
+ */
+public class WeightedPairModel {
+  protected final int size;
+  protected final boolean[] active;
+
+  protected final int[][] rowCols;
+  protected final double[][] rowWeights;
+  protected final Fenwick[] rowTrees;
+  protected final double[] rowSums;
+  protected final int[] rowLive;
+
+  //  for each column: rows having it and slots within those rows
+  protected final int[][] colRows;
+  protected final int[][] colSlots;
+
+  protected final Fenwick rows;
+  protected int livePairs;
+
+  public WeightedPairModel(final EdgeData weights) {
+    size = weights.getSize();
+    active = new boolean[size];
+
+    final TIntArrayList[] cols = new TIntArrayList[size];
+    final TDoubleArrayList[] colWeights = new TDoubleArrayList[size];
+    final int[] colCounts = new int[size];
+    for (int i = 0; i < size; i++) {
+      cols[i] = new TIntArrayList();
+      colWeights[i] = new TDoubleArrayList();
+    }
+    weights.visitNonDef(new EdgeData.EdgeVisitor() {
+      public void visit(int from, int into, double e) {
+        Die.ifTrue("negative weight " + e, e < 0);
+        if (e > 0) {
+          cols[from].add(into);
+          colWeights[from].add(e);
+          colCounts[into]++;
+        }
+      }
+    });
+
+    rowCols = new int[size][];
+    rowWeights = new double[size][];
+    rowTrees = new Fenwick[size];
+    rowSums = new double[size];
+    rowLive = new int[size];
+    colRows = new int[size][];
+    colSlots = new int[size][];
+    for (int i = 0; i < size; i++) {
+      rowCols[i] = cols[i].toNativeArray();
+      rowWeights[i] = colWeights[i].toNativeArray();
+      rowTrees[i] = new Fenwick(rowCols[i].length);
+      colRows[i] = new int[colCounts[i]];
+      colSlots[i] = new int[colCounts[i]];
+      colCounts[i] = 0;
+    }
+    for (int row = 0; row < size; row++) {
+      for (int slot = 0; slot < rowCols[row].length; slot++) {
+        final int col = rowCols[row][slot];
+        colRows[col][colCounts[col]] = row;
+        colSlots[col][colCounts[col]] = slot;
+        colCounts[col]++;
+      }
+    }
+
+    rows = new Fenwick(size);
+  }
+
+  public boolean isActive(final int vertex) {
+    return active[vertex];
+  }
+
+  /**
+   * @return number of pairs of active vertices with positive weight
+   */
+  public int getSize() {
+    return livePairs;
+  }
+
+  public double getSum() {
+    return rows.total();
+  }
+
+  public void activate(final int vertex) {
+    if (active[vertex]) {
+      return;
+    }
+
+    for (int c = 0; c < colRows[vertex].length; c++) {
+      final int row = colRows[vertex][c];
+      final int slot = colSlots[vertex][c];
+      final double w = rowWeights[row][slot];
+      rowTrees[row].set(slot, w);
+      rowSums[row] += w;
+      rowLive[row]++;
+      if (active[row]) {
+        rows.set(row, rowSums[row]);
+        livePairs++;
+      }
+    }
+
+    active[vertex] = true;
+    rows.set(vertex, rowLive[vertex] > 0 ? rowSums[vertex] : 0);
+    livePairs += rowLive[vertex];
+  }
+
+  public void deactivate(final int vertex) {
+    if (!active[vertex]) {
+      return;
+    }
+
+    active[vertex] = false;
+    rows.set(vertex, 0);
+    livePairs -= rowLive[vertex];
+
+    for (int c = 0; c < colRows[vertex].length; c++) {
+      final int row = colRows[vertex][c];
+      final int slot = colSlots[vertex][c];
+      rowTrees[row].set(slot, 0);
+      rowLive[row]--;
+      //  no drift of sums for the empty rows
+      rowSums[row] = rowLive[row] > 0 ? rowSums[row] - rowWeights[row][slot] : 0;
+      if (active[row]) {
+        rows.set(row, rowSums[row]);
+        livePairs--;
+      }
+    }
+  }
+
+  /**
+   * Consumes single double of entropy, the same as {@link WeightedEventModel#generate}.
+   *
+   * @return pair id as per {@link org.akraievoy.cnet.net.Net#toId(int, int)}
+   */
+  public int generate(final EntropySource eSource) {
+    Die.ifTrue("no pairs of active vertices", livePairs == 0);
+
+    final double target = eSource.nextDouble() * rows.total();
+    final int row = rows.search(target);
+    final double rowTarget = target - rows.prefix(row);
+
+    final int slot = rowTrees[row].search(rowTarget);
+
+    return toId(row, rowCols[row][slot]);
+  }
+
+  /**
+   * Fenwick tree of non-negative weights, with the point weights kept exactly
+   * (so that zero-weighted items are never sampled whatever the rounding of sums).
+   */
+  protected static class Fenwick {
+    protected final double[] tree;
+    protected final double[] points;
+    protected final int highBit;
+
+    protected Fenwick(final int size) {
+      tree = new double[size + 1];
+      points = new double[size];
+      highBit = size == 0 ? 0 : Integer.highestOneBit(size);
+    }
+
+    protected void set(final int index, final double weight) {
+      final double diff = weight - points[index];
+      points[index] = weight;
+      for (int i = index + 1; i < tree.length; i += i & -i) {
+        tree[i] += diff;
+      }
+    }
+
+    /**
+     * @return sum of weights of items before the given one
+     */
+    protected double prefix(final int index) {
+      double sum = 0;
+      for (int i = index; i > 0; i -= i & -i) {
+        sum += tree[i];
+      }
+      return sum;
+    }
+
+    protected double total() {
+      return prefix(points.length);
+    }
+
+    /**
+     * @return first item with positive weight, for which prefix sum including the item exceeds target
+     */
+    protected int search(final double target) {
+      int pos = 0;
+      double rem = target;
+      for (int step = highBit; step > 0; step >>= 1) {
+        final int next = pos + step;
+        if (next < tree.length && tree[next] <= rem) {
+          pos = next;
+          rem -= tree[next];
+        }
+      }
+
+      //  rounding may land us on zero-weight items at the edges
+      int index = Math.min(pos, points.length - 1);
+      while (index < points.length - 1 && points[index] == 0) {
+        index++;
+      }
+      while (index > 0 && points[index] == 0) {
+        index--;
+      }
+      return index;
+    }
+  }
+}
@@ -20,6 +20,7 @@ package org.akraievoy.cnet.metrics.api;
 
 import org.akraievoy.base.ref.Ref;
 import org.akraievoy.base.ref.RefRO;
+import org.akraievoy.holonet.exp.probe.Probes;
 
 public abstract class Metric<T> implements Runnable, RefRO<T> {
   public abstract String getName();
@@ -29,13 +30,15 @@ public abstract class Metric<T> implements Runnable, RefRO<T> {
   public abstract void setTarget(Ref<? extends T> newTarget);
 
   public T getValue() {
-    run();
-
-    return getTarget().getValue();
+    return fetch(this);
   }
 
   public static <T> T fetch(Metric<T> m) {
+    final long start = Probes.start();
     m.run();
+    if (start != 0) {
+      Probes.stop("metric." + m.getClass().getSimpleName(), start);
+    }
 
     return m.getTarget().getValue();
   }
@@ -21,6 +21,9 @@ package org.akraievoy.cnet.metrics.domain;
 import gnu.trove.TIntArrayList;
 import org.akraievoy.base.Die;
 import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataFrozen;
+import org.akraievoy.holonet.exp.probe.Probe;
+import org.akraievoy.holonet.exp.probe.Probes;
 import org.netlib.lapack.LAPACK;
 import org.netlib.util.intW;
 import org.slf4j.Logger;
@@ -36,6 +39,7 @@ public class EigenMetric {
   }
 
   private static final Logger log = LoggerFactory.getLogger(EigenMetric.class);
+  private static final Probe probeSolve = Probes.probe("eigen.solve");
 
   protected int cachedNodes;
   protected double[] powers;
@@ -70,7 +74,17 @@ public class EigenMetric {
   }
 
   protected void eigensolve(final String mode, final int nodes, final EdgeData edgeData) {
+    final long start = Probes.start();
+    try {
+      eigensolveUnprobed(mode, nodes, edgeData);
+    } finally {
+      probeSolve.stop(start);
+    }
+  }
+
+  private void eigensolveUnprobed(final String mode, final int nodes, final EdgeData source) {
     Die.ifFalse("nodes > 1", nodes > 1);
+    final EdgeData edgeData = EdgeDataFrozen.forReads(source);
 
     init(nodes);
 
@@ -0,0 +1,81 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.metrics.domain;
+
+import org.akraievoy.base.ref.RefRO;
+import org.akraievoy.cnet.metrics.api.MetricEData;
+import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataBits;
+import org.akraievoy.cnet.net.vo.EdgeDataBuilder;
+import org.akraievoy.holonet.exp.store.RefObject;
+
+/**
+ * Counts of common neighbours for linked pairs (or for all pairs, if asked to),
+ *   pairs with no common neighbours are left at zero.
+ */
+public class MetricEDataCommonNeighbours extends MetricEData {
+  protected RefRO<? extends EdgeData> source = new RefObject<EdgeData>();
+  protected boolean allPairs = false;
+
+  public MetricEDataCommonNeighbours() {
+  }
+
+  public MetricEDataCommonNeighbours configure(
+      RefRO<? extends EdgeData> source0,
+      boolean allPairs0
+  ) {
+    setSource(source0);
+    setAllPairs(allPairs0);
+    return this;
+  }
+
+  public String getName() {
+    return "Common Neighbours";
+  }
+
+  public void setSource(RefRO<? extends EdgeData> source) {
+    this.source = source;
+  }
+
+  public void setAllPairs(boolean allPairs) {
+    this.allPairs = allPairs;
+  }
+
+  public void run() {
+    final EdgeDataBits bits = EdgeDataBits.of(source.getValue());
+    final boolean symmetric = bits.isSymmetric();
+
+    final int nodes = bits.getSize();
+    final EdgeDataBuilder result = new EdgeDataBuilder(symmetric, 0.0, nodes);
+    for (int from = 0; from < nodes; from++) {
+      //  symmetric builder mirrors the cells, so upper triangle is enough
+      for (int into = symmetric ? from : 0; into < nodes; into++) {
+        if (from == into || !allPairs && !bits.getBit(from, into)) {
+          continue;
+        }
+        final int common = bits.commonCount(from, into);
+        if (common > 0) {
+          result.add(from, into, common);
+        }
+      }
+    }
+
+    target.setValue(result.build());
+  }
+}
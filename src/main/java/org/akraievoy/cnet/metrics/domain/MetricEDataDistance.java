@@ -20,9 +20,11 @@ package org.akraievoy.cnet.metrics.domain;
 
 import org.akraievoy.base.ref.RefRO;
 import org.akraievoy.holonet.exp.store.RefObject;
+import org.akraievoy.cnet.gen.vo.MetricEuclidean;
 import org.akraievoy.cnet.gen.vo.Point;
 import org.akraievoy.cnet.metrics.api.MetricEData;
 import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataEuclidean;
 import org.akraievoy.cnet.net.vo.EdgeDataFactory;
 import org.akraievoy.cnet.net.vo.VertexData;
 
@@ -30,6 +32,7 @@ public class MetricEDataDistance extends MetricEData {
   protected final org.akraievoy.cnet.gen.vo.Metric metric;
 
   protected boolean symmetric = false;
+  protected boolean implicit = false;
 
   protected RefRO<VertexData> sourceX = new RefObject<VertexData>();
   protected RefRO<VertexData> sourceY = new RefObject<VertexData>();
@@ -42,6 +45,13 @@ public class MetricEDataDistance extends MetricEData {
     this.symmetric = symmetric;
   }
 
+  /**
+   * Euclidean distances are computed on access then, see {@link EdgeDataEuclidean}.
+   */
+  public void setImplicit(boolean implicit) {
+    this.implicit = implicit;
+  }
+
   public void setSourceX(RefRO<VertexData> sourceX) {
     this.sourceX = sourceX;
   }
@@ -55,15 +65,25 @@ public class MetricEDataDistance extends MetricEData {
     final VertexData locationX = sourceX.getValue();
     final VertexData locationY = sourceY.getValue();
 
+    if (implicit && metric instanceof MetricEuclidean) {
+      target.setValue(EdgeDataEuclidean.of(locationX, locationY));
+      return;
+    }
+
     final int size = Math.max(locationX.getSize(), locationY.getSize());
 
     final EdgeData data = EdgeDataFactory.dense(symmetric, Double.POSITIVE_INFINITY, size);
 
+    final Point[] points = new Point[size];
+    for (int i = 0; i < size; i++) {
+      points[i] = new Point(locationX.get(i), locationY.get(i));
+    }
+
     for (int i = 0; i < size; i++) {
-      final Point iPoint = new Point(locationX.get(i), locationY.get(i));
+      final Point iPoint = points[i];
 
       for (int j = 0; j < i; j++) {
-        final Point jPoint = new Point(locationX.get(j), locationY.get(j));
+        final Point jPoint = points[j];
 
         data.set(i, j, metric.dist(iPoint, jPoint));
         if (!symmetric) {
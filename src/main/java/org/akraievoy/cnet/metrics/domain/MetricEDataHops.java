@@ -0,0 +1,68 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.metrics.domain;
+
+import org.akraievoy.base.ref.RefRO;
+import org.akraievoy.cnet.metrics.api.MetricEData;
+import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataBits;
+import org.akraievoy.cnet.net.vo.EdgeDataFactory;
+import org.akraievoy.holonet.exp.store.RefObject;
+
+/**
+ * Hop distances of the structure, ignoring weights, via breadth-first searches over frontier bitsets;
+ *   unreachable pairs are infinitely far, the same as for {@link MetricEDataRouteLen}.
+ */
+public class MetricEDataHops extends MetricEData {
+  protected RefRO<? extends EdgeData> source = new RefObject<EdgeData>();
+
+  public MetricEDataHops() {
+  }
+
+  public MetricEDataHops configure(RefRO<? extends EdgeData> source0) {
+    setSource(source0);
+    return this;
+  }
+
+  public String getName() {
+    return "Hop Distances";
+  }
+
+  public void setSource(RefRO<? extends EdgeData> source) {
+    this.source = source;
+  }
+
+  public void run() {
+    final EdgeDataBits bits = EdgeDataBits.of(source.getValue());
+
+    final int nodes = bits.getSize();
+    final EdgeData result = EdgeDataFactory.dense(bits.isSymmetric(), Double.POSITIVE_INFINITY, nodes);
+    final int[] hops = new int[nodes];
+    for (int from = 0; from < nodes; from++) {
+      bits.hops(from, hops);
+      for (int into = bits.isSymmetric() ? from : 0; into < nodes; into++) {
+        if (hops[into] >= 0) {
+          result.set(from, into, hops[into]);
+        }
+      }
+    }
+
+    target.setValue(result);
+  }
+}
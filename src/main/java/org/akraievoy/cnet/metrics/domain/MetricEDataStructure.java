@@ -27,6 +27,7 @@ import org.akraievoy.cnet.gen.vo.WeightedEventModel;
 import org.akraievoy.cnet.gen.vo.WeightedEventModelBase;
 import org.akraievoy.cnet.metrics.api.MetricEData;
 import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataBuilder;
 
 public class MetricEDataStructure extends MetricEData {
   protected final ConnPreference preference;
@@ -58,19 +59,15 @@ public class MetricEDataStructure extends MetricEData {
     final int size = dist.getSize();
 
     final EdgeData structureOri = structureSource.getValue();
-    final EdgeData structure = structureOri.proto(size);
-
-    structureOri.visitNonDef(new EdgeData.EdgeVisitor() {
-      public void visit(int from, int into, double e) {
-        structure.set(from, into, e);
-      }
-    });
+    final EdgeDataBuilder structure =
+        new EdgeDataBuilder(structureOri.proto(size)).addAll(structureOri);
 
     final WeightedEventModel eventModel = new WeightedEventModelBase(Optional.of("structure"));
 
     double[] powers = new double[size];
     int startNode = 0;
-    while (startNode < size && (powers[startNode] = structure.power(startNode)) > 0) {
+    final int oriSize = structureOri.getSize();
+    while (startNode < oriSize && (powers[startNode] = structureOri.power(startNode)) > 0) {
       startNode++;
     }
 
@@ -86,13 +83,13 @@ public class MetricEDataStructure extends MetricEData {
 
       for (int k = 0; eventModel.getSize() > 0 && k < baseDegree; k++) {
         final Integer conn = eventModel.generate(eSource, true, null);
-        structure.set(i, conn, 1.0);
+        structure.add(i, conn, 1.0);
         powers[i] += 1;
         powers[conn] += 1;
       }
     }
 
-    target.setValue(structure);
+    target.setValue(structure.build());
   }
 
   public String getName() {
@@ -24,6 +24,7 @@ import org.akraievoy.base.ref.RefRO;
 import org.akraievoy.holonet.exp.store.RefObject;
 import org.akraievoy.cnet.metrics.api.MetricRoutes;
 import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataFrozen;
 import org.akraievoy.cnet.net.vo.Route;
 import org.akraievoy.cnet.net.vo.Routes;
 
@@ -60,8 +61,8 @@ public class MetricRoutesJohnson extends MetricRoutes {
   }
 
   public void run() {
-    final EdgeData struct = source.getValue();
-    final EdgeData dist = distSource.getValue() == null ? struct : distSource.getValue();
+    final EdgeData struct = EdgeDataFrozen.forReads(source.getValue());
+    final EdgeData dist = distSource.getValue() == null ? struct : EdgeDataFrozen.forReads(distSource.getValue());
 
     final int nodes = Math.max(struct.getSize(), dist == null ? 0 : dist.getSize());
 
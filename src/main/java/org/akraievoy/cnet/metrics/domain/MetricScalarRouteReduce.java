@@ -0,0 +1,328 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.metrics.domain;
+
+import gnu.trove.TIntArrayList;
+import org.akraievoy.base.ref.Ref;
+import org.akraievoy.base.ref.RefRO;
+import org.akraievoy.cnet.metrics.api.MetricScalar;
+import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataFrozen;
+import org.akraievoy.holonet.exp.store.RefObject;
+
+import java.util.Arrays;
+
+/**
+ * Effectiveness of shortest routes, the same as {@link MetricEDataRouteLen} piped into
+ *   {@link MetricScalarEffectiveness} yields, plus connectedness (as per {@link MetricScalarConnectedness}),
+ *   diameter and mean hop count of the very same routes.
+ * <p/>
+ * One Dijkstra pass per source over an indexed heap, each row of route lengths is reduced
+ *   as soon as it's complete, so neither routes nor route lengths are ever materialized:
+ *   scratch memory is <tt>O(nodes)</tt> on top of the adjacency.
+ * <p/>
+ * Of several shortest routes the one with least hops is counted.
+ */
+public class MetricScalarRouteReduce extends MetricScalar {
+  protected RefRO<? extends EdgeData> source = new RefObject<EdgeData>();
+  protected RefRO<? extends EdgeData> distSource = new RefObject<EdgeData>();
+  protected RefRO<? extends EdgeData> weightSource = new RefObject<EdgeData>();
+
+  protected double minThresh = 1e-9;
+  protected boolean includeReflexive = false;
+  protected double pow = -1;
+
+  protected Ref<Double> connectednessTarget = new RefObject<Double>(0.0);
+  protected Ref<Double> diameterTarget = new RefObject<Double>(0.0);
+  protected Ref<Double> hopsTarget = new RefObject<Double>(0.0);
+
+  public String getName() {
+    return "Route Reductions";
+  }
+
+  public MetricScalarRouteReduce configure(
+      RefRO<? extends EdgeData> source0,
+      RefRO<? extends EdgeData> distSource0,
+      RefRO<? extends EdgeData> weightSource0
+  ) {
+    setSource(source0);
+    setDistSource(distSource0);
+    setWeightSource(weightSource0);
+    return this;
+  }
+
+  public void setSource(RefRO<? extends EdgeData> source) {
+    this.source = source;
+  }
+
+  public void setDistSource(RefRO<? extends EdgeData> distSource) {
+    this.distSource = distSource;
+  }
+
+  public void setWeightSource(RefRO<? extends EdgeData> weightSource) {
+    this.weightSource = weightSource;
+  }
+
+  public void setMinThresh(double minThresh) {
+    this.minThresh = minThresh;
+  }
+
+  public void setIncludeReflexive(boolean includeReflexive) {
+    this.includeReflexive = includeReflexive;
+  }
+
+  public void setPow(double pow) {
+    this.pow = pow;
+  }
+
+  @SuppressWarnings("unchecked")
+  public void setConnectednessTarget(Ref<? extends Double> connectednessTarget) {
+    this.connectednessTarget = (Ref<Double>) connectednessTarget;
+  }
+
+  public Ref<? extends Double> getConnectednessTarget() {
+    return connectednessTarget;
+  }
+
+  @SuppressWarnings("unchecked")
+  public void setDiameterTarget(Ref<? extends Double> diameterTarget) {
+    this.diameterTarget = (Ref<Double>) diameterTarget;
+  }
+
+  public Ref<? extends Double> getDiameterTarget() {
+    return diameterTarget;
+  }
+
+  @SuppressWarnings("unchecked")
+  public void setHopsTarget(Ref<? extends Double> hopsTarget) {
+    this.hopsTarget = (Ref<Double>) hopsTarget;
+  }
+
+  public Ref<? extends Double> getHopsTarget() {
+    return hopsTarget;
+  }
+
+  public void run() {
+    final EdgeData struct = EdgeDataFrozen.forReads(source.getValue());
+    final EdgeData dist = distSource.getValue() == null ? struct : EdgeDataFrozen.forReads(distSource.getValue());
+    final EdgeData weights = weightSource.getValue() == null ? null : EdgeDataFrozen.forReads(weightSource.getValue());
+
+    final int nodes = Math.max(struct.getSize(), dist.getSize());
+    if (weights != null && weights.getSize() != nodes) {
+      throw new IllegalArgumentException(
+          "net.size(" + nodes + ") != weights.size(" + weights.getSize() + ")"
+      );
+    }
+
+    final int[][] intos = new int[nodes][];
+    final double[][] lens = new double[nodes][];
+    final TIntArrayList row = new TIntArrayList();
+    for (int from = 0; from < nodes; from++) {
+      row.clear();
+      if (from < struct.getSize()) {
+        struct.connVertexes(from, row);
+      }
+      intos[from] = row.toNativeArray();
+      lens[from] = new double[intos[from].length];
+      for (int pos = 0; pos < intos[from].length; pos++) {
+        lens[from][pos] = dist.get(from, intos[from][pos]);
+      }
+    }
+
+    final double[] length = new double[nodes];
+    final int[] hops = new int[nodes];
+    final Heap heap = new Heap(length, hops);
+    final double[] weightRow = new double[nodes];
+    final double defWeight = weights == null ? 1 : weights.weight(weights.getDefElem());
+
+    double effSum = 0;
+    double weightSum = 0;
+    long finiteOrNegative = 0;
+    long reachable = 0;
+    long hopSum = 0;
+    double diameter = 0;
+    for (int from = 0; from < nodes; from++) {
+      dijkstra(from, intos, lens, length, hops, heap);
+
+      Arrays.fill(weightRow, defWeight);
+      if (weights != null) {
+        row.clear();
+        weights.connVertexes(from, row);
+        for (int pos = 0; pos < row.size(); pos++) {
+          weightRow[row.get(pos)] = weights.weight(from, row.get(pos));
+        }
+      }
+
+      for (int into = 0; into < nodes; into++) {
+        if (!includeReflexive && from == into) {
+          continue;
+        }
+
+        final double e = length[into];
+        if (!(Double.isInfinite(e) && e > 0)) {
+          finiteOrNegative++;
+          if (from != into) {
+            reachable++;
+            hopSum += hops[into];
+            diameter = Math.max(diameter, e);
+          }
+        }
+
+        if (e < minThresh) {
+          continue;
+        }
+
+        final double w = weightRow[into];
+        effSum += w * Math.pow(e, pow);
+        weightSum += w;
+      }
+    }
+
+    final long links = includeReflexive ? (long) nodes * nodes : (long) nodes * (nodes - 1);
+    connectednessTarget.setValue((finiteOrNegative + .0) / links);
+    diameterTarget.setValue(diameter);
+    hopsTarget.setValue(reachable == 0 ? 0.0 : (double) hopSum / reachable);
+    target.setValue(weightSum == 0 ? 0 : effSum / weightSum);
+  }
+
+  protected static void dijkstra(
+      final int from,
+      final int[][] intos,
+      final double[][] lens,
+      final double[] length,
+      final int[] hops,
+      final Heap heap
+  ) {
+    Arrays.fill(length, Double.POSITIVE_INFINITY);
+    Arrays.fill(hops, 0);
+    heap.reset();
+
+    length[from] = 0;
+    heap.offer(from);
+    while (!heap.isEmpty()) {
+      final int node = heap.poll();
+      final int[] nodeIntos = intos[node];
+      final double[] nodeLens = lens[node];
+      for (int pos = 0; pos < nodeIntos.length; pos++) {
+        final int into = nodeIntos[pos];
+        if (heap.isSettled(into)) {
+          continue;
+        }
+
+        final double newLen = length[node] + nodeLens[pos];
+        final int newHops = hops[node] + 1;
+        if (newLen < length[into] || newLen == length[into] && newHops < hops[into]) {
+          length[into] = newLen;
+          hops[into] = newHops;
+          heap.offer(into);
+        }
+      }
+    }
+  }
+
+  /**
+   * Binary heap of nodes, ordered by length then by hops, with positions tracked for decrease-key.
+   */
+  protected static class Heap {
+    protected static final int ABSENT = -1;
+    protected static final int SETTLED = -2;
+
+    protected final double[] length;
+    protected final int[] hops;
+    protected final int[] nodes;
+    protected final int[] positions;
+    protected int size;
+
+    protected Heap(final double[] length, final int[] hops) {
+      this.length = length;
+      this.hops = hops;
+      this.nodes = new int[length.length];
+      this.positions = new int[length.length];
+    }
+
+    protected void reset() {
+      size = 0;
+      Arrays.fill(positions, ABSENT);
+    }
+
+    protected boolean isEmpty() {
+      return size == 0;
+    }
+
+    protected boolean isSettled(final int node) {
+      return positions[node] == SETTLED;
+    }
+
+    /**
+     * Inserts the node, or moves it up if its key was decreased.
+     */
+    protected void offer(final int node) {
+      int pos = positions[node];
+      if (pos == ABSENT) {
+        pos = size++;
+      }
+      while (pos > 0) {
+        final int parent = (pos - 1) >>> 1;
+        if (!less(node, nodes[parent])) {
+          break;
+        }
+        place(nodes[parent], pos);
+        pos = parent;
+      }
+      place(node, pos);
+    }
+
+    protected int poll() {
+      final int top = nodes[0];
+      positions[top] = SETTLED;
+
+      final int last = nodes[--size];
+      if (size > 0) {
+        int pos = 0;
+        while (true) {
+          int child = 2 * pos + 1;
+          if (child >= size) {
+            break;
+          }
+          if (child + 1 < size && less(nodes[child + 1], nodes[child])) {
+            child++;
+          }
+          if (!less(nodes[child], last)) {
+            break;
+          }
+          place(nodes[child], pos);
+          pos = child;
+        }
+        place(last, pos);
+      }
+
+      return top;
+    }
+
+    protected boolean less(final int nodeA, final int nodeB) {
+      final int lengthCompare = Double.compare(length[nodeA], length[nodeB]);
+      return lengthCompare < 0 || lengthCompare == 0 && hops[nodeA] < hops[nodeB];
+    }
+
+    protected void place(final int node, final int pos) {
+      nodes[pos] = node;
+      positions[node] = pos;
+    }
+  }
+}
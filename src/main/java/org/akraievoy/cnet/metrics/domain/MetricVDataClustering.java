@@ -0,0 +1,77 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.metrics.domain;
+
+import org.akraievoy.base.ref.RefRO;
+import org.akraievoy.cnet.metrics.api.MetricVData;
+import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataBits;
+import org.akraievoy.cnet.net.vo.VertexData;
+import org.akraievoy.holonet.exp.store.RefObject;
+
+/**
+ * Local clustering coefficients (or raw triangle counts) of the undirected structure,
+ *   counted with word-parallel intersections of neighbour bitsets.
+ */
+public class MetricVDataClustering extends MetricVData {
+  protected RefRO<? extends EdgeData> source = new RefObject<EdgeData>();
+  protected boolean triangles = false;
+
+  public MetricVDataClustering() {
+  }
+
+  public MetricVDataClustering configure(
+      RefRO<? extends EdgeData> source0,
+      boolean triangles0
+  ) {
+    setSource(source0);
+    setTriangles(triangles0);
+    return this;
+  }
+
+  public String getName() {
+    return triangles ? "Triangles" : "Clustering";
+  }
+
+  public void setSource(RefRO<? extends EdgeData> source) {
+    this.source = source;
+  }
+
+  public void setTriangles(boolean triangles) {
+    this.triangles = triangles;
+  }
+
+  public void run() {
+    final EdgeDataBits bits = EdgeDataBits.undirected(source.getValue());
+
+    final int nodes = bits.getSize();
+    final VertexData result = new VertexData(nodes);
+    for (int i = 0; i < nodes; i++) {
+      final int tri = bits.triangles(i);
+      if (triangles) {
+        result.set(i, tri);
+      } else {
+        final int degree = bits.degree(i);
+        result.set(i, degree < 2 ? 0 : 2.0 * tri / degree / (degree - 1));
+      }
+    }
+
+    target.setValue(result);
+  }
+}
@@ -18,6 +18,7 @@
 
 package org.akraievoy.cnet.metrics.domain;
 
+import gnu.trove.TIntArrayList;
 import org.akraievoy.base.ref.Ref;
 import org.akraievoy.base.ref.RefRO;
 import org.akraievoy.cnet.metrics.api.MetricVData;
@@ -27,8 +28,6 @@ import org.akraievoy.holonet.exp.store.RefObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
-
 public class MetricVDataCycleOrdering extends MetricVData {
   private static final Logger log = LoggerFactory.getLogger(MetricVDataCycleOrdering.class);
 
@@ -67,54 +66,56 @@ public class MetricVDataCycleOrdering extends MetricVData {
     final int[] indexing = new int[n];
     final boolean[] visited = new boolean[n];
     final int[] powers = new int[n];
+
+    //  each non-def element, as visited, counts for both its ends
+    final TIntArrayList[] outs = new TIntArrayList[n];
+    final TIntArrayList[] ins = new TIntArrayList[n];
+    for (int i = 0; i < n; i++) {
+      outs[i] = new TIntArrayList();
+      ins[i] = new TIntArrayList();
+    }
+    eData.visitNonDef(new EdgeData.EdgeVisitor() {
+      @Override
+      public void visit(int from, int into, double e) {
+        outs[from].add(into);
+        ins[into].add(from);
+        powers[from] += 1;
+        powers[into] += 1;
+      }
+    });
+
+    final PowerHeap heap = new PowerHeap(powers);
     //  most simple heuristic:
     //    next node always has least power within non-visited network
     for (int indexingLen = 0; indexingLen < n; indexingLen++) {
-      Arrays.fill(powers, 0);
-      eData.visitNonDef(new EdgeData.EdgeVisitor() {
-        @Override
-        public void visit(int from, int into, double e) {
-          if (!visited[from] && !visited[into]) {
-            powers[from] += 1;
-            powers[into] += 1;
-          }
-        }
-      });
-
-      int minPow = -1;
       int minPowIndex = -1;
 
       //  what is best of non-visited nodes reachable from last node?
       if (indexingLen > 0) {
-        for (int i = 0; i < n; i++) {
-          if (visited[i] || !eData.conn(indexing[indexingLen - 1], i)) {
+        final TIntArrayList lastOuts = outs[indexing[indexingLen - 1]];
+        for (int pos = 0; pos < lastOuts.size(); pos++) {
+          final int i = lastOuts.get(pos);
+          if (visited[i]) {
             continue;
           }
 
-          if (minPowIndex < 0 || powers[i] < minPow) {
+          if (minPowIndex < 0 || heap.less(i, minPowIndex)) {
             minPowIndex = i;
-            minPow = powers[i];
           }
         }
       }
       //  if nothing is found, then select weakest non-visited node as next
       if (minPowIndex < 0) {
-        for (int i = 0; i < n; i++) {
-          if (visited[i]) {
-            continue;
-          }
-
-          if (
-              minPowIndex < 0 || powers[i] < minPow
-          ) {
-            minPowIndex = i;
-            minPow = powers[i];
-          }
-        }
+        minPowIndex = heap.peek();
       }
 
       visited[minPowIndex] = true;
       indexing[indexingLen] = minPowIndex;
+      heap.remove(minPowIndex);
+
+      //  edges of the visited node no longer count for its non-visited peers
+      decrement(outs[minPowIndex], minPowIndex, visited, powers, heap);
+      decrement(ins[minPowIndex], minPowIndex, visited, powers, heap);
     }
 
     int nonConnectedCount = 0;
@@ -130,4 +131,104 @@ public class MetricVDataCycleOrdering extends MetricVData {
 
     target.setValue(result);
   }
+
+  protected static void decrement(
+      final TIntArrayList peers,
+      final int node,
+      final boolean[] visited,
+      final int[] powers,
+      final PowerHeap heap
+  ) {
+    for (int pos = 0; pos < peers.size(); pos++) {
+      final int peer = peers.get(pos);
+      if (peer != node && !visited[peer]) {
+        powers[peer] -= 1;
+        heap.decreased(peer);
+      }
+    }
+  }
+
+  /**
+   * Binary heap of all nodes ordered by power then by index, with positions tracked
+   *   for key decrease and removal of arbitrary nodes.
+   */
+  protected static class PowerHeap {
+    protected final int[] powers;
+    protected final int[] nodes;
+    protected final int[] positions;
+    protected int size;
+
+    protected PowerHeap(final int[] powers) {
+      this.powers = powers;
+      this.size = powers.length;
+      this.nodes = new int[size];
+      this.positions = new int[size];
+      for (int i = 0; i < size; i++) {
+        place(i, i);
+      }
+      for (int pos = size / 2 - 1; pos >= 0; pos--) {
+        siftDown(pos);
+      }
+    }
+
+    protected int peek() {
+      return nodes[0];
+    }
+
+    protected void decreased(final int node) {
+      siftUp(positions[node]);
+    }
+
+    protected void remove(final int node) {
+      final int pos = positions[node];
+      final int last = nodes[--size];
+      positions[node] = -1;
+      if (pos < size) {
+        place(last, pos);
+        siftUp(pos);
+        siftDown(positions[last]);
+      }
+    }
+
+    protected boolean less(final int nodeA, final int nodeB) {
+      return powers[nodeA] < powers[nodeB] || powers[nodeA] == powers[nodeB] && nodeA < nodeB;
+    }
+
+    protected void siftUp(int pos) {
+      final int node = nodes[pos];
+      while (pos > 0) {
+        final int parent = (pos - 1) >>> 1;
+        if (!less(node, nodes[parent])) {
+          break;
+        }
+        place(nodes[parent], pos);
+        pos = parent;
+      }
+      place(node, pos);
+    }
+
+    protected void siftDown(int pos) {
+      final int node = nodes[pos];
+      while (true) {
+        int child = 2 * pos + 1;
+        if (child >= size) {
+          break;
+        }
+        if (child + 1 < size && less(nodes[child + 1], nodes[child])) {
+          child++;
+        }
+        if (!less(nodes[child], node)) {
+          break;
+        }
+        place(nodes[child], pos);
+        pos = child;
+      }
+      place(node, pos);
+    }
+
+    protected void place(final int node, final int pos) {
+      nodes[pos] = node;
+      positions[node] = pos;
+    }
+  }
 }
@@ -19,6 +19,7 @@
 package org.akraievoy.cnet.net;
 
 import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataBuilder;
 import org.akraievoy.cnet.net.vo.EdgeDataFactory;
 
 public class Net {
@@ -62,16 +63,7 @@ public class Net {
   }
 
   public static EdgeData eClone(EdgeData eData) {
-    final EdgeData eClone = eData.proto(eData.getSize());
-    eData.visitNonDef(
-        new EdgeData.EdgeVisitor() {
-          @Override
-          public void visit(int from, int into, double e) {
-            eClone.set(from, into, e);
-          }
-        }
-    );
-    return eClone;
+    return new EdgeDataBuilder(eData.proto(eData.getSize())).addAll(eData).build();
   }
 
   public static EdgeData eSparseSymSum(EdgeData eData) {
@@ -0,0 +1,486 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.net.vo;
+
+import gnu.trove.TIntArrayList;
+import org.akraievoy.base.Die;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.akraievoy.cnet.net.vo.StoreUtils.*;
+
+/**
+ * Structural 0/1 edge data, each row is a bitset of <code>wordsPerRow</code> longs:
+ *   words: long[size * wordsPerRow] -> bit <code>into</code> of row <code>from</code> marks a link
+ * Any non-zero value sets a link, links read as 1.0.
+ * <p/>
+ * Symmetric data keeps both directions, so rows are neighbour sets,
+ *   and set operations on rows (intersections, unions, counts) go a word at a time.
+ */
+public class EdgeDataBits implements EdgeData {
+  protected boolean symmetric;
+  protected int size;
+  protected int wordsPerRow;
+  protected long[] words;
+  protected int nonDefElems;
+
+  public EdgeDataBits() {
+    this(true, 0);
+  }
+
+  public EdgeDataBits(final boolean symmetric, final int size) {
+    this.symmetric = symmetric;
+    init(size);
+  }
+
+  protected void init(final int newSize) {
+    size = newSize;
+    wordsPerRow = (newSize + 63) >>> 6;
+    words = new long[newSize * wordsPerRow];
+    nonDefElems = 0;
+  }
+
+  /**
+   * @return the source itself if it's a bitset already, its links otherwise
+   */
+  public static EdgeDataBits of(final EdgeData source) {
+    if (source instanceof EdgeDataBits) {
+      return (EdgeDataBits) source;
+    }
+
+    final EdgeDataBits result = new EdgeDataBits(source.isSymmetric(), source.getSize());
+    source.visitNonDef(new EdgeVisitor() {
+      public void visit(int from, int into, double e) {
+        result.setBit(from, into);
+      }
+    });
+
+    return result;
+  }
+
+  /**
+   * @return symmetric links of the source, with no self-loops, as needed for clustering and triangles
+   */
+  public static EdgeDataBits undirected(final EdgeData source) {
+    final EdgeDataBits result = new EdgeDataBits(true, source.getSize());
+    source.visitNonDef(new EdgeVisitor() {
+      public void visit(int from, int into, double e) {
+        if (from != into) {
+          result.setBit(from, into);
+          result.setBit(into, from);
+        }
+      }
+    });
+
+    return result;
+  }
+
+  public EdgeDataBits fromStream(InputStream in) throws IOException {
+    symmetric = unescapeByte(in) > 0;
+    init(unescapeInt(in));
+    for (int pos = 0; pos < words.length; pos++) {
+      words[pos] = unescapeLong(in);
+      nonDefElems += Long.bitCount(words[pos]);
+    }
+    return this;
+  }
+
+  public InputStream createStream() {
+    return new InputStream() {
+      //  symmetric flag, then size, then the words
+      int item = -2;
+      final byte[] bits = new byte[8];
+      int bitsPos = 0;
+      int bitsLen = 0;
+
+      @Override
+      public int read() throws IOException {
+        if (bitsPos == bitsLen) {
+          if (item == words.length) {
+            return -1;
+          }
+          if (item == -2) {
+            bits[0] = symmetric ? (byte) 1 : (byte) 0;
+            bitsLen = 1;
+          } else if (item == -1) {
+            intBits(size, bits);
+            bitsLen = 4;
+          } else {
+            longBits(words[item], bits);
+            bitsLen = 8;
+          }
+          bitsPos = 0;
+          item++;
+        }
+
+        return escapeByte(bits[bitsPos++]);
+      }
+    };
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public boolean isSymmetric() {
+    return symmetric;
+  }
+
+  public boolean isDef(double elem) {
+    return elem == 0;
+  }
+
+  public double weight(double elem) {
+    return elem;
+  }
+
+  public double getDefElem() {
+    return 0;
+  }
+
+  public EdgeData proto(int protoSize) {
+    return new EdgeDataBits(symmetric, protoSize);
+  }
+
+  public int getWordsPerRow() {
+    return wordsPerRow;
+  }
+
+  /**
+   * @return word of the row, bit <code>i</code> of it marks link to <code>word * 64 + i</code>
+   */
+  public long getWord(final int from, final int word) {
+    return words[from * wordsPerRow + word];
+  }
+
+  public boolean getBit(final int from, final int into) {
+    validateAccess(from, into);
+    return (words[from * wordsPerRow + (into >>> 6)] & (1L << into)) != 0;
+  }
+
+  protected boolean setBit(final int from, final int into) {
+    final int pos = from * wordsPerRow + (into >>> 6);
+    final long word = words[pos];
+    final long updated = word | (1L << into);
+    words[pos] = updated;
+    if (updated != word) {
+      nonDefElems++;
+      return false;
+    }
+    return true;
+  }
+
+  protected boolean clearBit(final int from, final int into) {
+    final int pos = from * wordsPerRow + (into >>> 6);
+    final long word = words[pos];
+    final long updated = word & ~(1L << into);
+    words[pos] = updated;
+    if (updated != word) {
+      nonDefElems--;
+      return true;
+    }
+    return false;
+  }
+
+  protected void validateAccess(int from, int into) {
+    if (from < 0 || from >= size) {
+      throw new IllegalArgumentException(
+          "from(" + from + ") not in [0, " + size + ")"
+      );
+    }
+    if (into < 0 || into >= size) {
+      throw new IllegalArgumentException(
+          "into(" + into + ") not in [0, " + size + ")"
+      );
+    }
+  }
+
+  public double get(int from, int into) {
+    return getBit(from, into) ? 1.0 : 0.0;
+  }
+
+  public double set(int from, int into, double elem) {
+    validateAccess(from, into);
+
+    final boolean link = elem != 0;
+    if (symmetric && from != into) {
+      if (link) {
+        setBit(into, from);
+      } else {
+        clearBit(into, from);
+      }
+    }
+
+    final boolean prev = link ? setBit(from, into) : clearBit(from, into);
+    return prev ? 1.0 : 0.0;
+  }
+
+  public boolean conn(int from, int into) {
+    return getBit(from, into);
+  }
+
+  public TIntArrayList connVertexes(int index) {
+    return connVertexes(index, new TIntArrayList());
+  }
+
+  public TIntArrayList connVertexes(int index, TIntArrayList result) {
+    final int rowStart = index * wordsPerRow;
+    for (int word = 0; word < wordsPerRow; word++) {
+      long bits = words[rowStart + word];
+      while (bits != 0) {
+        result.add((word << 6) + Long.numberOfTrailingZeros(bits));
+        bits &= bits - 1;
+      }
+    }
+    return result;
+  }
+
+  public double weight(int from, int into) {
+    return get(from, into);
+  }
+
+  public boolean isDef(int from, int into) {
+    return !getBit(from, into);
+  }
+
+  public double power(int index) {
+    return degree(index);
+  }
+
+  public int degree(final int index) {
+    final int rowStart = index * wordsPerRow;
+    int degree = 0;
+    for (int word = 0; word < wordsPerRow; word++) {
+      degree += Long.bitCount(words[rowStart + word]);
+    }
+    return degree;
+  }
+
+  /**
+   * @return size of the intersection of two rows
+   */
+  public int commonCount(final int fromA, final int fromB) {
+    final int rowA = fromA * wordsPerRow;
+    final int rowB = fromB * wordsPerRow;
+    int common = 0;
+    for (int word = 0; word < wordsPerRow; word++) {
+      common += Long.bitCount(words[rowA + word] & words[rowB + word]);
+    }
+    return common;
+  }
+
+  /**
+   * @return size of the union of two rows
+   */
+  public int unionCount(final int fromA, final int fromB) {
+    final int rowA = fromA * wordsPerRow;
+    final int rowB = fromB * wordsPerRow;
+    int union = 0;
+    for (int word = 0; word < wordsPerRow; word++) {
+      union += Long.bitCount(words[rowA + word] | words[rowB + word]);
+    }
+    return union;
+  }
+
+  /**
+   * Number of links among neighbours of the vertex, which is the number of triangles
+   *   through it for symmetric data with no self-loops, see {@link #undirected(EdgeData)}.
+   */
+  public int triangles(final int index) {
+    final int rowStart = index * wordsPerRow;
+    int pairs = 0;
+    for (int word = 0; word < wordsPerRow; word++) {
+      long bits = words[rowStart + word];
+      while (bits != 0) {
+        final int neighbour = (word << 6) + Long.numberOfTrailingZeros(bits);
+        pairs += commonCount(index, neighbour);
+        bits &= bits - 1;
+      }
+    }
+    //  each triangle is seen from both of its other vertices
+    return pairs / 2;
+  }
+
+  /**
+   * Breadth-first search with frontier bitsets.
+   *
+   * @param hops filled with hop distance from the source, -1 for unreachable vertices
+   */
+  public void hops(final int source, final int[] hops) {
+    Die.ifTrue("hops.length < size", hops.length < size);
+    Arrays.fill(hops, 0, size, -1);
+
+    final long[] visited = new long[wordsPerRow];
+    long[] frontier = new long[wordsPerRow];
+    long[] next = new long[wordsPerRow];
+
+    visited[source >>> 6] |= 1L << source;
+    frontier[source >>> 6] |= 1L << source;
+    hops[source] = 0;
+
+    int hop = 0;
+    boolean expanded = true;
+    while (expanded) {
+      hop++;
+      Arrays.fill(next, 0);
+      for (int word = 0; word < wordsPerRow; word++) {
+        long bits = frontier[word];
+        while (bits != 0) {
+          final int rowStart = ((word << 6) + Long.numberOfTrailingZeros(bits)) * wordsPerRow;
+          for (int nextWord = 0; nextWord < wordsPerRow; nextWord++) {
+            next[nextWord] |= words[rowStart + nextWord];
+          }
+          bits &= bits - 1;
+        }
+      }
+
+      expanded = false;
+      for (int word = 0; word < wordsPerRow; word++) {
+        long fresh = next[word] & ~visited[word];
+        next[word] = fresh;
+        if (fresh != 0) {
+          expanded = true;
+          visited[word] |= fresh;
+          while (fresh != 0) {
+            hops[(word << 6) + Long.numberOfTrailingZeros(fresh)] = hop;
+            fresh &= fresh - 1;
+          }
+        }
+      }
+
+      final long[] swap = frontier;
+      frontier = next;
+      next = swap;
+    }
+  }
+
+  public double weight(Route route, double emptyWeight) {
+    return weight(route.getIndexes(), emptyWeight);
+  }
+
+  public double weight(TIntArrayList indexes, double emptyWeight) {
+    if (indexes.isEmpty()) {
+      return emptyWeight;
+    }
+    Die.ifTrue("indexes.size == 1", indexes.size() == 1);
+
+    double weight = 0;
+    for (int i = 0; i < indexes.size() - 1; i++) {
+      weight += weight(indexes.get(i), indexes.get(i + 1));
+    }
+
+    return weight;
+  }
+
+  public int getNonDefCount() {
+    return nonDefElems;
+  }
+
+  public void visitNonDef(EdgeVisitor visitor) {
+    for (int from = 0; from < size; from++) {
+      final int rowStart = from * wordsPerRow;
+      for (int word = 0; word < wordsPerRow; word++) {
+        long bits = words[rowStart + word];
+        while (bits != 0) {
+          visitor.visit(from, (word << 6) + Long.numberOfTrailingZeros(bits), 1.0);
+          bits &= bits - 1;
+        }
+      }
+    }
+  }
+
+  public ElemIterator nonDefIterator() {
+    return new BitsElemIterator();
+  }
+
+  class BitsElemIterator implements ElemIterator, IteratorTuple {
+    int pos = 0;
+    long bits = words.length > 0 ? words[0] : 0;
+    int from = -1;
+    int into = -1;
+
+    public boolean hasNext() {
+      while (bits == 0 && pos + 1 < words.length) {
+        bits = words[++pos];
+      }
+      return bits != 0;
+    }
+
+    public IteratorTuple next() {
+      hasNext();
+      from = pos / wordsPerRow;
+      into = ((pos % wordsPerRow) << 6) + Long.numberOfTrailingZeros(bits);
+      bits &= bits - 1;
+      return this;
+    }
+
+    public int from() {
+      return from;
+    }
+
+    public int into() {
+      return into;
+    }
+
+    public double value() {
+      return 1.0;
+    }
+  }
+
+  public double total() {
+    return nonDefElems;
+  }
+
+  public double similarity(EdgeData that) {
+    final EdgeDataBits thatBits = of(that);
+    Die.ifFalse("same size", size == thatBits.size);
+
+    int same = 0;
+    for (int pos = 0; pos < words.length; pos++) {
+      same += Long.bitCount(words[pos] & thatBits.words[pos]);
+    }
+
+    return (double) same / nonDefElems;
+  }
+
+  public void clear() {
+    Arrays.fill(words, 0);
+    nonDefElems = 0;
+  }
+
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof EdgeDataBits)) return false;
+
+    final EdgeDataBits that = (EdgeDataBits) o;
+    return symmetric == that.symmetric && size == that.size && Arrays.equals(words, that.words);
+  }
+
+  public int hashCode() {
+    return 31 * (31 * (symmetric ? 1 : 0) + size) + Arrays.hashCode(words);
+  }
+
+  public String toString() {
+    final double density = (double) nonDefElems / size / size;
+
+    return "EdgeDataBits[" + nonDefElems + "/" + size + "^2 = " + density + "]";
+  }
+}
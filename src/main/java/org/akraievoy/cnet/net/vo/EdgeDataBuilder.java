@@ -0,0 +1,251 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.net.vo;
+
+import org.akraievoy.base.Die;
+import org.akraievoy.util.Workers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects unsorted (from, into, value) cells into primitive buffers,
+ *   then sorts and dedups them in one go, instead of a sorted insert per cell.
+ * <p/>
+ * Semantics are those of a sequence of {@link EdgeData#set(int, int, double)} calls:
+ *   the last value added for a cell wins, and default values remove the cell.
+ * <p/>
+ * Cells are bucketed by rows with a counting sort, then each row is sorted by columns,
+ *   which is <tt>O(m log(m))</tt> in the worst case; rows may be sorted in parallel.
+ */
+public class EdgeDataBuilder {
+  protected static final int PARALLEL_MIN_CELLS = 1 << 16;
+
+  protected final EdgeData proto;
+  protected final boolean symmetric;
+  protected final double defElem;
+  protected final int size;
+
+  protected int[] froms = new int[16];
+  protected int[] intos = new int[16];
+  protected double[] values = new double[16];
+  protected int count = 0;
+
+  protected boolean parallel = false;
+
+  public EdgeDataBuilder(final boolean symmetric, final double defElem, final int size) {
+    this(EdgeDataFactory.sparse(symmetric, defElem, size));
+  }
+
+  /**
+   * @param proto empty data, as returned by {@link EdgeData#proto(int)}, defining the kind of the result
+   */
+  public EdgeDataBuilder(final EdgeData proto) {
+    this.proto = proto;
+    this.symmetric = proto.isSymmetric();
+    this.defElem = proto.getDefElem();
+    this.size = proto.getSize();
+  }
+
+  public EdgeDataBuilder parallel(final boolean parallel) {
+    this.parallel = parallel;
+    return this;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public EdgeDataBuilder add(final int from, final int into, final double value) {
+    if (from < 0 || from >= size) {
+      throw new IllegalArgumentException("from(" + from + ") not in [0, " + size + ")");
+    }
+    if (into < 0 || into >= size) {
+      throw new IllegalArgumentException("into(" + into + ") not in [0, " + size + ")");
+    }
+
+    //  same as EdgeDataSparse: symmetric cells are stored in both directions
+    if (symmetric && from != into) {
+      append(into, from, value);
+    }
+    append(from, into, value);
+
+    return this;
+  }
+
+  /**
+   * Adds all the non-default cells of the source.
+   */
+  public EdgeDataBuilder addAll(final EdgeData source) {
+    source.visitNonDef(new EdgeData.EdgeVisitor() {
+      public void visit(int from, int into, double e) {
+        add(from, into, e);
+      }
+    });
+
+    return this;
+  }
+
+  protected void append(final int from, final int into, final double value) {
+    if (count == froms.length) {
+      final int capacity = count * 2;
+      froms = Arrays.copyOf(froms, capacity);
+      intos = Arrays.copyOf(intos, capacity);
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    froms[count] = from;
+    intos[count] = into;
+    values[count] = value;
+    count++;
+  }
+
+  /**
+   * @return data of the same kind as the proto: sparse data is assembled directly,
+   *   any other kind is filled cell by cell in sorted order
+   */
+  public EdgeData build() {
+    if (!(proto instanceof EdgeDataSparse)) {
+      final Rows rows = sort();
+      for (int from = 0; from < size; from++) {
+        for (int pos = rows.offsets[from]; pos < rows.offsets[from + 1]; pos++) {
+          proto.set(from, rows.cols[pos], rows.values[pos]);
+        }
+      }
+      return proto;
+    }
+
+    Die.ifFalse("proto is empty", proto.getNonDefCount() == 0);
+    final Rows rows = sort();
+    return new EdgeDataSparse(symmetric, defElem, rows.offsets, rows.cols, rows.values);
+  }
+
+  public EdgeDataFrozen buildFrozen() {
+    final Rows rows = sort();
+    return new EdgeDataFrozen(symmetric, defElem, rows.offsets, rows.cols, rows.values);
+  }
+
+  protected static class Rows {
+    final int[] offsets;
+    final int[] cols;
+    final double[] values;
+
+    protected Rows(int[] offsets, int[] cols, double[] values) {
+      this.offsets = offsets;
+      this.cols = cols;
+      this.values = values;
+    }
+  }
+
+  protected Rows sort() {
+    //  counting sort by rows, stable, so insertion order is kept within a row
+    final int[] bucketOffsets = new int[size + 1];
+    for (int i = 0; i < count; i++) {
+      bucketOffsets[froms[i] + 1]++;
+    }
+    for (int from = 0; from < size; from++) {
+      bucketOffsets[from + 1] += bucketOffsets[from];
+    }
+
+    //  column in the high bits, insertion index in the low ones
+    final long[] keys = new long[count];
+    final int[] fill = Arrays.copyOf(bucketOffsets, size);
+    for (int i = 0; i < count; i++) {
+      keys[fill[froms[i]]++] = ((long) intos[i] << 32) | i;
+    }
+
+    final int[] kept = new int[size];
+    if (parallel && count >= PARALLEL_MIN_CELLS && Workers.parallelism() > 1) {
+      sortRowsParallel(bucketOffsets, keys, kept);
+    } else {
+      sortRows(0, size, bucketOffsets, keys, kept);
+    }
+
+    final int[] offsets = new int[size + 1];
+    for (int from = 0; from < size; from++) {
+      offsets[from + 1] = offsets[from] + kept[from];
+    }
+    final int[] cols = new int[offsets[size]];
+    final double[] rowValues = new double[offsets[size]];
+    for (int from = 0; from < size; from++) {
+      for (int k = 0; k < kept[from]; k++) {
+        final long key = keys[bucketOffsets[from] + k];
+        cols[offsets[from] + k] = (int) (key >>> 32);
+        rowValues[offsets[from] + k] = values[(int) key];
+      }
+    }
+
+    return new Rows(offsets, cols, rowValues);
+  }
+
+  /**
+   * Sorts each row by columns and compacts the cells to keep at the start of the row.
+   */
+  protected void sortRows(
+      final int fromIncl, final int uptoExcl,
+      final int[] bucketOffsets, final long[] keys, final int[] kept
+  ) {
+    for (int from = fromIncl; from < uptoExcl; from++) {
+      final int rowStart = bucketOffsets[from];
+      final int rowEnd = bucketOffsets[from + 1];
+      Arrays.sort(keys, rowStart, rowEnd);
+
+      int keep = rowStart;
+      for (int pos = rowStart; pos < rowEnd; pos++) {
+        final long key = keys[pos];
+        //  the last one added wins: it's the last of the same column after sorting
+        if (pos + 1 < rowEnd && (keys[pos + 1] >>> 32) == (key >>> 32)) {
+          continue;
+        }
+        if (Double.compare(values[(int) key], defElem) != 0) {
+          keys[keep++] = key;
+        }
+      }
+      kept[from] = keep - rowStart;
+    }
+  }
+
+  protected void sortRowsParallel(
+      final int[] bucketOffsets, final long[] keys, final int[] kept
+  ) {
+    final int chunks = Workers.parallelism() * 4;
+    final int chunkCells = count / chunks + 1;
+
+    final List<Runnable> tasks = new ArrayList<Runnable>();
+    int chunkStart = 0;
+    while (chunkStart < size) {
+      int chunkEnd = chunkStart + 1;
+      while (chunkEnd < size && bucketOffsets[chunkEnd] - bucketOffsets[chunkStart] < chunkCells) {
+        chunkEnd++;
+      }
+
+      final int fromIncl = chunkStart;
+      final int uptoExcl = chunkEnd;
+      tasks.add(new Runnable() {
+        public void run() {
+          sortRows(fromIncl, uptoExcl, bucketOffsets, keys, kept);
+        }
+      });
+      chunkStart = chunkEnd;
+    }
+
+    Workers.runAll("sorting rows", tasks);
+  }
+}
@@ -31,7 +31,7 @@ public class EdgeDataDense implements EdgeData {
   protected boolean symmetric;
   protected int size;
   protected double defElem;
-  protected Store edgeStore;  //  LATER rename to data
+  protected StoreDouble edgeStore;  //  LATER rename to data
 
   public EdgeDataDense() {
     this(true, 0.0, 32);
@@ -61,7 +61,7 @@ public class EdgeDataDense implements EdgeData {
     size = unescapeInt(in);
     defElem = Double.longBitsToDouble(unescapeLong(in));
     Store.Width width = Store.Width.values()[unescapeByte(in)];
-    edgeStore = width.create().fromStream(in);
+    edgeStore = StoreDouble.widen(width.create().fromStream(in));
     readonly = true;
     return this;
   }
@@ -159,7 +159,7 @@ public class EdgeDataDense implements EdgeData {
   public double get(int from, int into) {
     final int index = getIndex(into, from);
 
-    return edgeStore.get(index, .0);
+    return edgeStore.getDouble(index);
   }
 
   protected int getIndex(int from, int into) {
@@ -180,7 +180,7 @@ public class EdgeDataDense implements EdgeData {
     }
 
     final int index = getIndex(into, from);
-    final double prevElem = edgeStore.get(index, .0);
+    final double prevElem = edgeStore.getDouble(index);
 
     edgeStore.set(index, elem);
 
@@ -0,0 +1,334 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.net.vo;
+
+import gnu.trove.TIntArrayList;
+import org.akraievoy.base.Die;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.akraievoy.cnet.net.vo.StoreUtils.*;
+
+/**
+ * Read-only euclidean distances between points, computed on access from vertex coordinates:
+ *   x: double[size], y: double[size]
+ * So <code>16 * size</code> bytes are kept instead of <code>8 * size * size</code>
+ *   for a dense matrix, with the same values as {@link org.akraievoy.cnet.metrics.domain.MetricEDataDistance}
+ *   computes for {@link org.akraievoy.cnet.gen.vo.MetricEuclidean}.
+ * <p/>
+ * Coordinates have to be finite, so every cell is a non-default one,
+ *   and the default element is positive infinity, as it is for materialized distances.
+ */
+public class EdgeDataEuclidean implements EdgeData {
+  protected double[] x;
+  protected double[] y;
+
+  public EdgeDataEuclidean() {
+    this(new double[0], new double[0]);
+  }
+
+  public EdgeDataEuclidean(final double[] x, final double[] y) {
+    Die.ifFalse("x.length == y.length", x.length == y.length);
+    for (int i = 0; i < x.length; i++) {
+      Die.ifFalse("finite coords of " + i, finite(x[i]) && finite(y[i]));
+    }
+
+    this.x = x;
+    this.y = y;
+  }
+
+  protected static boolean finite(final double coord) {
+    return !Double.isInfinite(coord) && !Double.isNaN(coord);
+  }
+
+  public static EdgeDataEuclidean of(final VertexData locX, final VertexData locY) {
+    final int size = locX.getSize();
+    final double[] x = new double[size];
+    final double[] y = new double[locY.getSize()];
+    for (int i = 0; i < x.length; i++) {
+      x[i] = locX.get(i);
+    }
+    for (int i = 0; i < y.length; i++) {
+      y[i] = locY.get(i);
+    }
+
+    return new EdgeDataEuclidean(x, y);
+  }
+
+  public EdgeDataEuclidean fromStream(InputStream in) throws IOException {
+    final int size = unescapeInt(in);
+    x = new double[size];
+    y = new double[size];
+    for (int i = 0; i < size; i++) {
+      x[i] = Double.longBitsToDouble(unescapeLong(in));
+    }
+    for (int i = 0; i < size; i++) {
+      y[i] = Double.longBitsToDouble(unescapeLong(in));
+    }
+    return this;
+  }
+
+  public InputStream createStream() {
+    return new InputStream() {
+      //  size, then all of x, then all of y
+      int item = -1;
+      final byte[] bits = new byte[8];
+      int bitsPos = 0;
+      int bitsLen = 0;
+
+      @Override
+      public int read() throws IOException {
+        if (bitsPos == bitsLen) {
+          if (item == 2 * x.length) {
+            return -1;
+          }
+          if (item == -1) {
+            intBits(x.length, bits);
+            bitsLen = 4;
+          } else {
+            final double coord = item < x.length ? x[item] : y[item - x.length];
+            longBits(Double.doubleToLongBits(coord), bits);
+            bitsLen = 8;
+          }
+          bitsPos = 0;
+          item++;
+        }
+
+        return escapeByte(bits[bitsPos++]);
+      }
+    };
+  }
+
+  public int getSize() {
+    return x.length;
+  }
+
+  public boolean isSymmetric() {
+    return true;
+  }
+
+  public boolean isDef(double elem) {
+    return Double.compare(elem, Double.POSITIVE_INFINITY) == 0;
+  }
+
+  public double weight(double elem) {
+    return elem;
+  }
+
+  public double getDefElem() {
+    return Double.POSITIVE_INFINITY;
+  }
+
+  public EdgeData proto(final int protoSize) {
+    return EdgeDataFactory.dense(true, Double.POSITIVE_INFINITY, protoSize);
+  }
+
+  public double get(int from, int into) {
+    validateAccess(from, into);
+
+    return dist(from, into);
+  }
+
+  protected double dist(int from, int into) {
+    final double dx = x[from] - x[into];
+    final double dy = y[from] - y[into];
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+
+  /**
+   * Bulk access for the tight loops: whole row in one pass, no checks per cell.
+   *
+   * @return dest, if it's large enough, newly allocated array otherwise
+   */
+  public double[] row(final int from, final double[] dest) {
+    validateAccess(from, from);
+
+    final double[] res = dest != null && dest.length >= x.length ? dest : new double[x.length];
+    final double fromX = x[from];
+    final double fromY = y[from];
+    for (int into = 0; into < x.length; into++) {
+      final double dx = fromX - x[into];
+      final double dy = fromY - y[into];
+      res[into] = Math.sqrt(dx * dx + dy * dy);
+    }
+    return res;
+  }
+
+  protected void validateAccess(int from, int into) {
+    final int size = getSize();
+    if (from < 0 || from >= size) {
+      throw new IllegalArgumentException(
+          "from(" + from + ") not in [0, " + size + ")"
+      );
+    }
+    if (into < 0 || into >= size) {
+      throw new IllegalArgumentException(
+          "into(" + into + ") not in [0, " + size + ")"
+      );
+    }
+  }
+
+  public double set(int from, int into, double elem) {
+    throw new IllegalStateException("read-only mode");
+  }
+
+  public boolean conn(int from, int into) {
+    validateAccess(from, into);
+    return true;
+  }
+
+  public TIntArrayList connVertexes(int index) {
+    return connVertexes(index, new TIntArrayList(x.length));
+  }
+
+  public TIntArrayList connVertexes(int index, TIntArrayList result) {
+    validateAccess(index, index);
+    for (int into = 0; into < x.length; into++) {
+      result.add(into);
+    }
+    return result;
+  }
+
+  public double weight(int from, int into) {
+    return get(from, into);
+  }
+
+  public boolean isDef(int from, int into) {
+    validateAccess(from, into);
+    return false;
+  }
+
+  public double power(int index) {
+    validateAccess(index, index);
+
+    double power = 0;
+    for (int into = 0; into < x.length; into++) {
+      power += dist(index, into);
+    }
+    return power;
+  }
+
+  public double weight(Route route, double emptyWeight) {
+    return weight(route.getIndexes(), emptyWeight);
+  }
+
+  public double weight(TIntArrayList indexes, double emptyWeight) {
+    if (indexes.isEmpty()) {
+      return emptyWeight;
+    }
+    Die.ifTrue("indexes.size == 1", indexes.size() == 1);
+
+    double weight = 0;
+    for (int i = 0; i < indexes.size() - 1; i++) {
+      weight += get(indexes.get(i), indexes.get(i + 1));
+    }
+
+    return weight;
+  }
+
+  public int getNonDefCount() {
+    return x.length * x.length;
+  }
+
+  public void visitNonDef(EdgeVisitor visitor) {
+    final double[] row = new double[x.length];
+    for (int from = 0; from < x.length; from++) {
+      row(from, row);
+      for (int into = 0; into < x.length; into++) {
+        visitor.visit(from, into, row[into]);
+      }
+    }
+  }
+
+  public ElemIterator nonDefIterator() {
+    return new EuclideanElemIterator();
+  }
+
+  class EuclideanElemIterator implements ElemIterator, IteratorTuple {
+    int from = 0;
+    int into = -1;
+
+    public boolean hasNext() {
+      return into + 1 < x.length || from + 1 < x.length;
+    }
+
+    public IteratorTuple next() {
+      into++;
+      if (into == x.length) {
+        into = 0;
+        from++;
+      }
+      return this;
+    }
+
+    public int from() {
+      return from;
+    }
+
+    public int into() {
+      return into;
+    }
+
+    public double value() {
+      return dist(from, into);
+    }
+  }
+
+  public double total() {
+    double total = 0;
+    for (int from = 0; from < x.length; from++) {
+      total += power(from);
+    }
+    return total;
+  }
+
+  public double similarity(EdgeData that) {
+    final int size = x.length;
+    final int[] thatNonDef = {0};
+    final int[] similar = {0};
+    that.visitNonDef(new EdgeVisitor() {
+      public void visit(int from, int into, double e) {
+        thatNonDef[0]++;
+        if (from < size && into < size) {
+          similar[0]++;
+        }
+      }
+    });
+
+    return similar[0] / (double) Math.max(getNonDefCount(), thatNonDef[0]);
+  }
+
+  public void clear() {
+    throw new IllegalStateException("read-only mode");
+  }
+
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    final EdgeDataEuclidean that = (EdgeDataEuclidean) o;
+    return Arrays.equals(x, that.x) && Arrays.equals(y, that.y);
+  }
+
+  public int hashCode() {
+    return 31 * Arrays.hashCode(x) + Arrays.hashCode(y);
+  }
+}
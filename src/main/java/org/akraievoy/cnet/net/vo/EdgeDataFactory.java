@@ -34,6 +34,13 @@ public class EdgeDataFactory {
     return new EdgeDataSparse(symmetric, nullElement, size);
   }
 
+  /**
+   * @return read-only compressed-sparse-row copy of the source, or the source itself if it's frozen already
+   */
+  public static EdgeDataFrozen frozen(final EdgeData source) {
+    return EdgeDataFrozen.freeze(source);
+  }
+
   public static EdgeData constant(final int size, final double value) {
     return new EdgeDataConstant(size, value);
   }
@@ -0,0 +1,514 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.net.vo;
+
+import gnu.trove.TDoubleArrayList;
+import gnu.trove.TIntArrayList;
+import org.akraievoy.base.Die;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.akraievoy.cnet.net.vo.StoreUtils.*;
+
+/**
+ * Immutable compressed-sparse-row edge data:
+ *   offsets: int[size + 1] -> row of <code>from</code> spans [offsets[from], offsets[from + 1])
+ *   cols: int[nonDef] -> sorted column indexes of each row
+ *   values: double[nonDef] -> values of the cells
+ * Rows are laid out back-to-back, with no slack capacity in between.
+ * <p/>
+ * Symmetric data is stored in both directions, same as {@link EdgeDataSparse} does,
+ *   for asymmetric data an index of the incoming links is built on first use,
+ *   see {@link #transpose()}.
+ * <p/>
+ * Stream format is that of {@link EdgeDataSparse}, so streams of either class
+ *   may be loaded by the other one.
+ */
+public class EdgeDataFrozen implements EdgeData {
+  protected boolean symmetric;
+  protected double defElem;
+  protected int[] offsets;
+  protected int[] cols;
+  protected double[] values;
+
+  protected volatile EdgeDataFrozen transposed;
+
+  public EdgeDataFrozen() {
+    this(true, 0.0, new int[1], new int[0], new double[0]);
+  }
+
+  protected EdgeDataFrozen(
+      final boolean symmetric,
+      final double defElem,
+      final int[] offsets,
+      final int[] cols,
+      final double[] values
+  ) {
+    this.symmetric = symmetric;
+    this.defElem = defElem;
+    this.offsets = offsets;
+    this.cols = cols;
+    this.values = values;
+  }
+
+  /**
+   * @return source itself if it's frozen already, frozen copy of the source otherwise
+   */
+  public static EdgeDataFrozen freeze(final EdgeData source) {
+    if (source instanceof EdgeDataFrozen) {
+      return (EdgeDataFrozen) source;
+    }
+    if (source instanceof EdgeDataSparse) {
+      return ((EdgeDataSparse) source).freeze();
+    }
+
+    final int size = source.getSize();
+    final int[] offsets = new int[size + 1];
+    final TIntArrayList cols = new TIntArrayList();
+    final TDoubleArrayList values = new TDoubleArrayList();
+    final TIntArrayList row = new TIntArrayList();
+    for (int from = 0; from < size; from++) {
+      row.clear();
+      source.connVertexes(from, row);
+      row.sort();
+      for (int pos = 0; pos < row.size(); pos++) {
+        final int into = row.get(pos);
+        if (pos > 0 && row.get(pos - 1) == into) {
+          continue;
+        }
+        final double elem = source.get(from, into);
+        if (!source.isDef(elem)) {
+          cols.add(into);
+          values.add(elem);
+        }
+      }
+      offsets[from + 1] = cols.size();
+    }
+
+    return new EdgeDataFrozen(
+        source.isSymmetric(), source.getDefElem(),
+        offsets, cols.toNativeArray(), values.toNativeArray()
+    );
+  }
+
+  /**
+   * Sparse data is frozen, for any other kind (dense first of all) element access is fast enough as is.
+   */
+  public static EdgeData forReads(final EdgeData source) {
+    if (source instanceof EdgeDataSparse) {
+      return ((EdgeDataSparse) source).freeze();
+    }
+
+    return source;
+  }
+
+  public EdgeDataFrozen fromStream(InputStream in) throws IOException {
+    symmetric = unescapeByte(in) > 0;
+    final int size = unescapeInt(in);
+    defElem = Double.longBitsToDouble(unescapeLong(in));
+    final int nonDefElems = unescapeInt(in);
+
+    final int[] leads = new int[2 * size];
+    for (int lead = 0; lead < leads.length; lead++) {
+      leads[lead] = unescapeInt(in);
+    }
+    final StoreInt trails = new StoreInt().fromStream(in);
+    final Store.Width width = Store.Width.values()[unescapeByte(in)];
+    final StoreDouble data = StoreDouble.widen(width.create().fromStream(in));
+
+    offsets = new int[size + 1];
+    cols = new int[nonDefElems];
+    values = new double[nonDefElems];
+    int pos = 0;
+    for (int from = 0; from < size; from++) {
+      for (int trailPos = leads[2 * from]; trailPos < leads[2 * from + 1]; trailPos++) {
+        cols[pos] = trails.getInt(trailPos);
+        values[pos] = data.getDouble(trailPos);
+        pos++;
+      }
+      offsets[from + 1] = pos;
+    }
+    Die.ifFalse("nonDefElems == " + nonDefElems + " but " + pos + " stored", pos == nonDefElems);
+    transposed = null;
+
+    return this;
+  }
+
+  public InputStream createStream() {
+    final int size = getSize();
+    final int nonDef = cols.length;
+    //  scalars, leads, trails with their size, width, values with their size
+    final int[] fieldEnds = {1, 2, 3, 4, 4 + 2 * size, 5 + 2 * size, 5 + 2 * size + nonDef, 6 + 2 * size + nonDef, 7 + 2 * size + nonDef, 7 + 2 * size + 2 * nonDef};
+
+    return new InputStream() {
+      int field = 0;
+      int item = 0;
+      final byte[] bits = new byte[8];
+      int bitsPos = 0;
+      int bitsLen = 0;
+
+      @Override
+      public int read() throws IOException {
+        if (bitsPos == bitsLen) {
+          while (field < fieldEnds.length && item == fieldEnds[field]) {
+            field++;
+          }
+          if (field == fieldEnds.length) {
+            return -1;
+          }
+          bitsLen = fill(field, item - (field == 0 ? 0 : fieldEnds[field - 1]));
+          bitsPos = 0;
+          item++;
+        }
+
+        return escapeByte(bits[bitsPos++]);
+      }
+
+      protected int fill(final int field, final int index) {
+        switch (field) {
+          case 0:
+            bits[0] = symmetric ? (byte) 1 : (byte) 0;
+            return 1;
+          case 1:
+            intBits(size, bits);
+            return 4;
+          case 2:
+            longBits(Double.doubleToLongBits(defElem), bits);
+            return 8;
+          case 3:
+            intBits(nonDef, bits);
+            return 4;
+          case 4:
+            intBits(offsets[index / 2 + index % 2], bits);
+            return 4;
+          case 5:
+            intBits(nonDef, bits);
+            return 4;
+          case 6:
+            intBits(cols[index], bits);
+            return 4;
+          case 7:
+            bits[0] = (byte) Store.Width.DOUBLE.ordinal();
+            return 1;
+          case 8:
+            intBits(nonDef, bits);
+            return 4;
+          case 9:
+            longBits(Double.doubleToLongBits(values[index]), bits);
+            return 8;
+          default:
+            throw new IllegalStateException("implement handling field " + field);
+        }
+      }
+    };
+  }
+
+  public int getSize() {
+    return offsets.length - 1;
+  }
+
+  public boolean isSymmetric() {
+    return symmetric;
+  }
+
+  public boolean isDef(double elem) {
+    return Double.compare(elem, defElem) == 0;
+  }
+
+  public double weight(double elem) {
+    return elem;
+  }
+
+  public double getDefElem() {
+    return defElem;
+  }
+
+  public EdgeData proto(final int protoSize) {
+    return EdgeDataFactory.sparse(symmetric, defElem, protoSize);
+  }
+
+  /**
+   * @return index of the first cell of the row, see {@link #getCol(int)} and {@link #getValue(int)}
+   */
+  public int rowFrom(final int from) {
+    return offsets[from];
+  }
+
+  /**
+   * @return index after the last cell of the row
+   */
+  public int rowUpto(final int from) {
+    return offsets[from + 1];
+  }
+
+  public int getCol(final int pos) {
+    return cols[pos];
+  }
+
+  public double getValue(final int pos) {
+    return values[pos];
+  }
+
+  public double get(int from, int into) {
+    validateAccess(from, into);
+
+    final int pos = Arrays.binarySearch(cols, offsets[from], offsets[from + 1], into);
+    return pos >= 0 ? values[pos] : defElem;
+  }
+
+  protected void validateAccess(int from, int into) {
+    final int size = getSize();
+    if (from < 0 || from >= size) {
+      throw new IllegalArgumentException(
+          "from(" + from + ") not in [0, " + size + ")"
+      );
+    }
+    if (into < 0 || into >= size) {
+      throw new IllegalArgumentException(
+          "into(" + into + ") not in [0, " + size + ")"
+      );
+    }
+  }
+
+  public double set(int from, int into, double elem) {
+    throw new IllegalStateException("read-only mode");
+  }
+
+  public boolean conn(int from, int into) {
+    return !isDef(from, into);
+  }
+
+  public TIntArrayList connVertexes(int index) {
+    return connVertexes(index, new TIntArrayList(offsets[index + 1] - offsets[index]));
+  }
+
+  public TIntArrayList connVertexes(int index, TIntArrayList result) {
+    final int fromIncl = offsets[index];
+    result.add(cols, fromIncl, offsets[index + 1] - fromIncl);
+    return result;
+  }
+
+  public double weight(int from, int into) {
+    return weight(get(from, into));
+  }
+
+  public boolean isDef(int from, int into) {
+    return isDef(get(from, into));
+  }
+
+  public double power(int index) {
+    double power = 0;
+    for (int pos = offsets[index], uptoExcl = offsets[index + 1]; pos < uptoExcl; pos++) {
+      power += values[pos];
+    }
+    return power;
+  }
+
+  public double weight(Route route, double emptyWeight) {
+    return weight(route.getIndexes(), emptyWeight);
+  }
+
+  public double weight(TIntArrayList indexes, double emptyWeight) {
+    if (indexes.isEmpty()) {
+      return emptyWeight;
+    }
+    Die.ifTrue("indexes.size == 1", indexes.size() == 1);
+
+    double weight = 0;
+    for (int i = 0; i < indexes.size() - 1; i++) {
+      weight += weight(indexes.get(i), indexes.get(i + 1));
+    }
+
+    return weight;
+  }
+
+  public int getNonDefCount() {
+    return cols.length;
+  }
+
+  public void visitNonDef(EdgeVisitor visitor) {
+    for (int from = 0, size = getSize(); from < size; from++) {
+      for (int pos = offsets[from], uptoExcl = offsets[from + 1]; pos < uptoExcl; pos++) {
+        visitor.visit(from, cols[pos], values[pos]);
+      }
+    }
+  }
+
+  public ElemIterator nonDefIterator() {
+    return new FrozenElemIterator();
+  }
+
+  class FrozenElemIterator implements ElemIterator, IteratorTuple {
+    int from = 0;
+    int pos = -1;
+
+    public boolean hasNext() {
+      return pos + 1 < cols.length;
+    }
+
+    public IteratorTuple next() {
+      pos++;
+      while (offsets[from + 1] <= pos) {
+        from++;
+      }
+      return this;
+    }
+
+    public int from() {
+      return from;
+    }
+
+    public int into() {
+      return cols[pos];
+    }
+
+    public double value() {
+      return values[pos];
+    }
+  }
+
+  public double total() {
+    double total = 0;
+    for (double value : values) {
+      total += value;
+    }
+    return total;
+  }
+
+  public double similarity(EdgeData that) {
+    final EdgeDataFrozen thatFrozen = freeze(that);
+
+    double sameLinkCount = 0.0;
+    for (int from = 0, maxFrom = Math.min(getSize(), thatFrozen.getSize()); from < maxFrom; from++) {
+      int thisPos = offsets[from];
+      int thatPos = thatFrozen.offsets[from];
+      final int thisUptoExcl = offsets[from + 1];
+      final int thatUptoExcl = thatFrozen.offsets[from + 1];
+      while (thisPos < thisUptoExcl && thatPos < thatUptoExcl) {
+        final int thisIdx = cols[thisPos];
+        final int thatIdx = thatFrozen.cols[thatPos];
+
+        if (thisIdx == thatIdx) {
+          sameLinkCount += 1;
+          thisPos++;
+          thatPos++;
+        } else if (thisIdx > thatIdx) {
+          thatPos++;
+        } else {
+          thisPos++;
+        }
+      }
+    }
+
+    return sameLinkCount / cols.length;
+  }
+
+  public void clear() {
+    throw new IllegalStateException("read-only mode");
+  }
+
+  /**
+   * @return data with links reversed, built once and cached, this for symmetric data
+   */
+  public EdgeDataFrozen transpose() {
+    if (symmetric) {
+      return this;
+    }
+
+    EdgeDataFrozen result = transposed;
+    if (result == null) {
+      final int size = getSize();
+      final int[] tOffsets = new int[size + 1];
+      for (int col : cols) {
+        tOffsets[col + 1]++;
+      }
+      for (int into = 0; into < size; into++) {
+        tOffsets[into + 1] += tOffsets[into];
+      }
+
+      //  rows are visited in order, so columns of the transposed come out sorted
+      final int[] fill = Arrays.copyOf(tOffsets, size);
+      final int[] tCols = new int[cols.length];
+      final double[] tValues = new double[cols.length];
+      for (int from = 0; from < size; from++) {
+        for (int pos = offsets[from], uptoExcl = offsets[from + 1]; pos < uptoExcl; pos++) {
+          final int tPos = fill[cols[pos]]++;
+          tCols[tPos] = from;
+          tValues[tPos] = values[pos];
+        }
+      }
+
+      result = new EdgeDataFrozen(false, defElem, tOffsets, tCols, tValues);
+      result.transposed = this;
+      transposed = result;
+    }
+
+    return result;
+  }
+
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof EdgeData)) return false;
+
+    final EdgeData edgeData = (EdgeData) o;
+
+    if (Double.compare(edgeData.getDefElem(), defElem) != 0) return false;
+    if (symmetric != edgeData.isSymmetric()) return false;
+    if (getNonDefCount() != edgeData.getNonDefCount()) return false;
+    if (getSize() != edgeData.getSize()) return false;
+
+    final ElemIterator thisNDI = nonDefIterator();
+    final ElemIterator thatNDI = edgeData.nonDefIterator();
+    while (thisNDI.hasNext() && thatNDI.hasNext()) {
+      if (!Util.eq(thisNDI.next(), thatNDI.next())) {
+        return false;
+      }
+    }
+
+    return !thisNDI.hasNext() && !thatNDI.hasNext();
+  }
+
+  //  same as EdgeDataSparse.hashCode, so equal instances of the two have equal hashes
+  public int hashCode() {
+    int result;
+    long temp;
+    temp = defElem != +0.0d ? Double.doubleToLongBits(defElem) : 0L;
+    result = (int) (temp ^ (temp >>> 32));
+    result = 31 * result + (symmetric ? 1 : 0);
+    result = 13 * result + (getNonDefCount());
+    for (int from = 0, size = getSize(); from < size; from++) {
+      for (int pos = offsets[from], uptoExcl = offsets[from + 1]; pos < uptoExcl; pos++) {
+        result = 101 * result + from;
+        result = 107 * result + cols[pos];
+      }
+    }
+
+    return result;
+  }
+
+  public String toString() {
+    final int nonDefCount = getNonDefCount();
+    final int size = getSize();
+    final double density = (double) nonDefCount / size / size;
+
+    return "EdgeDataFrozen[" + nonDefCount + "/" + size + "^2 = " + density + "]";
+  }
+}
@@ -42,9 +42,11 @@ public class EdgeDataSparse implements EdgeData {
   protected double defElem;
   protected int nonDefElems;
   protected int[][] leads;
-  protected Store trails;
-  protected Store data;
+  protected StoreInt trails;
+  protected StoreDouble data;
   protected boolean readonly;
+  //  sum of cell hashes, see EdgeSketch.edgeHash
+  protected long edgeHash;
 
   public EdgeDataSparse() {
     this(true, 0.0, 0);
@@ -59,6 +61,25 @@ public class EdgeDataSparse implements EdgeData {
     this.data = new StoreDouble();
   }
 
+  /**
+   * Rows of trails/data are expected to be sorted and back-to-back, as {@link EdgeDataBuilder} emits them.
+   */
+  protected EdgeDataSparse(
+      boolean symmetric, double defElem, final int[] offsets, final int[] cols, final double[] values
+  ) {
+    this.symmetric = symmetric;
+    this.defElem = defElem;
+    this.nonDefElems = cols.length;
+    this.leads = new int[offsets.length - 1][2];
+    for (int lead = 0; lead < leads.length; lead++) {
+      leads[lead][0] = offsets[lead];
+      leads[lead][1] = offsets[lead + 1];
+    }
+    this.trails = new StoreInt(cols);
+    this.data = new StoreDouble(values);
+    this.edgeHash = rehash();
+  }
+
   static enum StreamState {SYMM, SIZE, DEF, NONDEF_ELEMS, LEADS, TRAILS, WIDTH, DATA, COMPLETE}
 
   public EdgeDataSparse fromStream(InputStream in) throws IOException {
@@ -73,8 +94,9 @@ public class EdgeDataSparse implements EdgeData {
     }
     trails.fromStream(in);
     Store.Width width = Store.Width.values()[unescapeByte(in)];
-    data = width.create().fromStream(in);
+    data = StoreDouble.widen(width.create().fromStream(in));
     readonly = true;
+    edgeHash = rehash();
     return this;
   }
 
@@ -211,6 +233,29 @@ public class EdgeDataSparse implements EdgeData {
       }
     };
   }
+
+  /**
+   * @return immutable compressed-sparse-row copy of this data, to be used in heavy read-only loops
+   */
+  public EdgeDataFrozen freeze() {
+    final int size = leads.length;
+    final int[] offsets = new int[size + 1];
+    for (int lead = 0; lead < size; lead++) {
+      offsets[lead + 1] = offsets[lead] + leads[lead][1] - leads[lead][0];
+    }
+
+    final int[] cols = new int[offsets[size]];
+    final double[] values = new double[offsets[size]];
+    for (int lead = 0; lead < size; lead++) {
+      for (int trailPos = leads[lead][0], pos = offsets[lead]; pos < offsets[lead + 1]; trailPos++, pos++) {
+        cols[pos] = trails.getInt(trailPos);
+        values[pos] = data.getDouble(trailPos);
+      }
+    }
+
+    return new EdgeDataFrozen(symmetric, defElem, offsets, cols, values);
+  }
+
   public boolean isSymmetric() {
     return symmetric;
   }
@@ -246,7 +291,7 @@ public class EdgeDataSparse implements EdgeData {
 
     final int dataIdx = trails.bSearch(fromIncl, uptoExcl, trail);
     if (dataIdx >= 0) {
-      return data.get(dataIdx, .0);
+      return data.getDouble(dataIdx);
     }
 
     return defElem;
@@ -344,6 +389,7 @@ public class EdgeDataSparse implements EdgeData {
       if (count) {
         nonDefElems += 1;
       }
+      edgeHash += EdgeSketch.cellHash(from, into, elem);
 
       return defElem;
     }
@@ -358,6 +404,7 @@ public class EdgeDataSparse implements EdgeData {
       if (count) {
         nonDefElems -= 1;
       }
+      edgeHash -= EdgeSketch.cellHash(from, into, ori);
 
       if (size * 4 < capacity) { //  leave at most size*2 capacity
         int delFromIncl = uptoExcl + size;
@@ -373,7 +420,9 @@ public class EdgeDataSparse implements EdgeData {
       return ori;
     }
 
-    return data.set(elemPos, elem); //  overwrite existing position
+    final double ori = data.set(elemPos, elem); //  overwrite existing position
+    edgeHash += EdgeSketch.cellHash(from, into, elem) - EdgeSketch.cellHash(from, into, ori);
+    return ori;
   }
 
   public int getSize() {
@@ -397,7 +446,7 @@ public class EdgeDataSparse implements EdgeData {
     }
 
     for (int trailPos = fromIncl; trailPos < uptoExcl; trailPos++) {
-      result.add(trails.get(trailPos, 0));
+      result.add(trails.getInt(trailPos));
     }
 
     return result;
@@ -421,7 +470,7 @@ public class EdgeDataSparse implements EdgeData {
 
     double power = 0;
     for (int trailPos = fromIncl; trailPos < uptoExcl; trailPos++) {
-      power += weight(data.get(trailPos, .0));
+      power += weight(data.getDouble(trailPos));
     }
 
     return power;
@@ -449,13 +498,27 @@ public class EdgeDataSparse implements EdgeData {
     return nonDefElems;
   }
 
+  public long getEdgeHash() {
+    return edgeHash;
+  }
+
+  protected long rehash() {
+    long hash = 0;
+    for (int lead = 0; lead < leads.length; lead++) {
+      for (int pos = leads[lead][0]; pos < leads[lead][1]; pos++) {
+        hash += EdgeSketch.cellHash(lead, trails.getInt(pos), data.getDouble(pos));
+      }
+    }
+    return hash;
+  }
+
   public void visitNonDef(EdgeVisitor visitor) {
     for (int lead = 0; lead < leads.length; lead++) {
       final int fromIncl = leads[lead][0];
       final int uptoExcl = leads[lead][1];
       for (int pos = fromIncl; pos < uptoExcl; pos++) {
-        final int trail = trails.get(pos, 0);
-        final double elem = data.get(pos, .0);
+        final int trail = trails.getInt(pos);
+        final double elem = data.getDouble(pos);
         //  TODO this means that we have only one visit for symmetric EdgeDataSparse, HOUSTON?
         visitor.visit(lead, trail, elem);
       }
@@ -499,11 +562,11 @@ public class EdgeDataSparse implements EdgeData {
     }
 
     public int into() {
-      return trails.get(posTuple, 0);
+      return trails.getInt(posTuple);
     }
 
     public double value() {
-      return data.get(posTuple, .0);
+      return data.getDouble(posTuple);
     }
   }
 
@@ -573,8 +636,8 @@ public class EdgeDataSparse implements EdgeData {
   public double similarity(EdgeData that) {
     final int[][] thisLeads = leads;
     final int[][] thatLeads = ((EdgeDataSparse) that).leads;
-    final Store thisTrails = trails;
-    final Store thatTrails = ((EdgeDataSparse) that).trails;
+    final StoreInt thisTrails = trails;
+    final StoreInt thatTrails = ((EdgeDataSparse) that).trails;
 
 
     double sameLinkCount = 0.0;
@@ -587,8 +650,8 @@ public class EdgeDataSparse implements EdgeData {
       int thisPos = thisFromIncl;
       int thatPos = thatFromIncl;
       while (thisPos < thisUptoExcl && thatPos < thatUptoExcl) {
-        final int thisIdx = thisTrails.get(thisPos, 0);
-        final int thatIdx = thatTrails.get(thatPos, 0);
+        final int thisIdx = thisTrails.getInt(thisPos);
+        final int thatIdx = thatTrails.getInt(thatPos);
 
         if (thisIdx == thatIdx) {
           //	LATER: the data might be different too
@@ -608,6 +671,7 @@ public class EdgeDataSparse implements EdgeData {
 
   public void clear() {
     nonDefElems = 0;
+    edgeHash = 0;
     trails.del(0, trails.size());
     data.del(0, data.size());
     for (int i = 0; i < leads.length; i++) {
@@ -0,0 +1,324 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.net.vo;
+
+import org.akraievoy.base.soft.Soft;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compact edge list format, for exports of large sparse graphs:
+ *   header: magic, version, symmetric flag, value width, size, default element, cell count;
+ *   pairs: cells in (from, into) order, each as a varint delta of <code>from</code>,
+ *     followed by a varint delta of <code>into</code> (counted from the row start on row change);
+ *   values: cell values of the selected width, bits are packed eight per byte.
+ * <p/>
+ * Values are narrowed the same way {@link Store#set(int, double)} of that width does,
+ *   cells which narrow to the default element are not written at all.
+ * Symmetric data is written as its upper triangle, diagonal included.
+ * <p/>
+ * Streams are neither buffered nor closed here, that's up to the caller.
+ */
+public class EdgeListCodec {
+  public static final int MAGIC = 0x484C4544;
+  public static final int VERSION = 1;
+
+  protected EdgeListCodec() {
+    //  static methods only
+  }
+
+  /**
+   * @return number of cells written
+   */
+  public static int write(
+      final EdgeData source, final Store.Width width, final OutputStream out
+  ) throws IOException {
+    final EdgeDataFrozen frozen = EdgeDataFrozen.freeze(source);
+    final boolean symmetric = frozen.isSymmetric();
+    final int size = frozen.getSize();
+
+    int count = 0;
+    for (int from = 0; from < size; from++) {
+      for (int pos = rowStart(frozen, from), upto = frozen.rowUpto(from); pos < upto; pos++) {
+        if (!frozen.isDef(narrow(width, frozen.getValue(pos)))) {
+          count++;
+        }
+      }
+    }
+
+    final DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeByte(VERSION);
+    data.writeByte(symmetric ? 1 : 0);
+    data.writeByte(width.ordinal());
+    writeVarInt(data, size);
+    data.writeDouble(frozen.getDefElem());
+    writeVarInt(data, count);
+
+    int prevFrom = 0;
+    int prevInto = -1;
+    for (int from = 0; from < size; from++) {
+      for (int pos = rowStart(frozen, from), upto = frozen.rowUpto(from); pos < upto; pos++) {
+        if (frozen.isDef(narrow(width, frozen.getValue(pos)))) {
+          continue;
+        }
+        final int into = frozen.getCol(pos);
+        writeVarInt(data, from - prevFrom);
+        if (from != prevFrom || prevInto < 0) {
+          writeVarInt(data, into - (symmetric ? from : 0));
+        } else {
+          writeVarInt(data, into - prevInto - 1);
+        }
+        prevFrom = from;
+        prevInto = into;
+      }
+    }
+
+    int bits = 0;
+    int bitCount = 0;
+    for (int from = 0; from < size; from++) {
+      for (int pos = rowStart(frozen, from), upto = frozen.rowUpto(from); pos < upto; pos++) {
+        final double value = narrow(width, frozen.getValue(pos));
+        if (frozen.isDef(value)) {
+          continue;
+        }
+        switch (width) {
+          case BIT:
+            bits |= (value > 0 ? 1 : 0) << bitCount;
+            if (++bitCount == 8) {
+              data.writeByte(bits);
+              bits = 0;
+              bitCount = 0;
+            }
+            break;
+          case BYTE:
+            data.writeByte((int) value);
+            break;
+          case INT:
+            data.writeInt((int) value);
+            break;
+          case LONG:
+            data.writeLong((long) value);
+            break;
+          case FLOAT:
+            data.writeFloat((float) value);
+            break;
+          case DOUBLE:
+            data.writeDouble(value);
+            break;
+          default:
+            throw new IllegalStateException("implement handling width " + width);
+        }
+      }
+    }
+    if (bitCount > 0) {
+      data.writeByte(bits);
+    }
+    data.flush();
+
+    return count;
+  }
+
+  /**
+   * Loads the cells straight into compressed-sparse-row arrays, with no per-cell objects:
+   *   for asymmetric data these are the arrays of the result, symmetric data
+   *   has its upper triangle loaded first and then mirrored.
+   */
+  public static EdgeDataFrozen read(final InputStream in) throws IOException {
+    final DataInputStream data = new DataInputStream(in);
+    final int magic = data.readInt();
+    if (magic != MAGIC) {
+      throw new IOException("not an edge list: magic " + Integer.toHexString(magic));
+    }
+    final int version = data.readUnsignedByte();
+    if (version != VERSION) {
+      throw new IOException("edge list version " + version + " is not supported");
+    }
+    final boolean symmetric = data.readUnsignedByte() > 0;
+    final int widthOrdinal = data.readUnsignedByte();
+    if (widthOrdinal >= Store.Width.values().length) {
+      throw new IOException("width ordinal " + widthOrdinal + " is not known");
+    }
+    final Store.Width width = Store.Width.values()[widthOrdinal];
+    final int size = readVarInt(data);
+    final double defElem = data.readDouble();
+    final int count = readVarInt(data);
+
+    final int[] offsets = new int[size + 1];
+    final int[] cols = new int[count];
+    int from = 0;
+    int prevInto = -1;
+    for (int pos = 0; pos < count; pos++) {
+      final int fromDelta = readVarInt(data);
+      final int into;
+      if (fromDelta > 0 || prevInto < 0) {
+        for (int row = from; row < from + fromDelta; row++) {
+          offsets[row + 1] = pos;
+        }
+        from += fromDelta;
+        into = readVarInt(data) + (symmetric ? from : 0);
+      } else {
+        into = prevInto + 1 + readVarInt(data);
+      }
+      if (from >= size || into >= size) {
+        throw new IOException("cell (" + from + ", " + into + ") out of size " + size);
+      }
+      cols[pos] = into;
+      prevInto = into;
+    }
+    for (int row = from; row < size; row++) {
+      offsets[row + 1] = count;
+    }
+
+    final double[] values = new double[count];
+    int bits = 0;
+    for (int pos = 0; pos < count; pos++) {
+      switch (width) {
+        case BIT:
+          if (pos % 8 == 0) {
+            bits = data.readUnsignedByte();
+          }
+          values[pos] = (bits >> (pos % 8) & 1) > 0 ? 1.0 : 0.0;
+          break;
+        case BYTE:
+          values[pos] = data.readByte();
+          break;
+        case INT:
+          values[pos] = data.readInt();
+          break;
+        case LONG:
+          values[pos] = data.readLong();
+          break;
+        case FLOAT:
+          values[pos] = data.readFloat();
+          break;
+        case DOUBLE:
+          values[pos] = data.readDouble();
+          break;
+        default:
+          throw new IllegalStateException("implement handling width " + width);
+      }
+    }
+
+    if (!symmetric) {
+      return new EdgeDataFrozen(false, defElem, offsets, cols, values);
+    }
+
+    return mirror(defElem, offsets, cols, values);
+  }
+
+  /**
+   * Rows of the upper triangle are visited in order, so each row receives
+   *   its lower cells sorted, and all of them before its own upper cells.
+   */
+  protected static EdgeDataFrozen mirror(
+      final double defElem, final int[] upperOffsets, final int[] upperCols, final double[] upperValues
+  ) {
+    final int size = upperOffsets.length - 1;
+    final int[] offsets = new int[size + 1];
+    for (int from = 0; from < size; from++) {
+      for (int pos = upperOffsets[from]; pos < upperOffsets[from + 1]; pos++) {
+        offsets[from + 1]++;
+        if (upperCols[pos] != from) {
+          offsets[upperCols[pos] + 1]++;
+        }
+      }
+    }
+    for (int row = 0; row < size; row++) {
+      offsets[row + 1] += offsets[row];
+    }
+
+    final int[] fill = new int[size];
+    System.arraycopy(offsets, 0, fill, 0, size);
+    final int[] cols = new int[offsets[size]];
+    final double[] values = new double[offsets[size]];
+    for (int from = 0; from < size; from++) {
+      for (int pos = upperOffsets[from]; pos < upperOffsets[from + 1]; pos++) {
+        final int into = upperCols[pos];
+        cols[fill[from]] = into;
+        values[fill[from]++] = upperValues[pos];
+        if (into != from) {
+          cols[fill[into]] = from;
+          values[fill[into]++] = upperValues[pos];
+        }
+      }
+    }
+
+    return new EdgeDataFrozen(true, defElem, offsets, cols, values);
+  }
+
+  protected static int rowStart(final EdgeDataFrozen frozen, final int from) {
+    final int fromIncl = frozen.rowFrom(from);
+    if (!frozen.isSymmetric()) {
+      return fromIncl;
+    }
+
+    //  skipping the lower triangle, columns are sorted
+    int pos = fromIncl;
+    final int uptoExcl = frozen.rowUpto(from);
+    while (pos < uptoExcl && frozen.getCol(pos) < from) {
+      pos++;
+    }
+    return pos;
+  }
+
+  public static double narrow(final Store.Width width, final double value) {
+    switch (width) {
+      case BIT:
+        return Soft.PICO.positive(value) ? 1.0 : 0.0;
+      case BYTE:
+        return (byte) value;
+      case INT:
+        return (int) value;
+      case LONG:
+        return (long) value;
+      case FLOAT:
+        return (float) value;
+      case DOUBLE:
+        return value;
+      default:
+        throw new IllegalStateException("implement handling width " + width);
+    }
+  }
+
+  protected static void writeVarInt(final DataOutputStream data, final int value) throws IOException {
+    int rem = value;
+    while ((rem & ~0x7F) != 0) {
+      data.writeByte((rem & 0x7F) | 0x80);
+      rem >>>= 7;
+    }
+    data.writeByte(rem);
+  }
+
+  protected static int readVarInt(final DataInputStream data) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      final int b = data.readUnsignedByte();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("varint is longer than five bytes");
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.net.vo;
+
+import org.akraievoy.base.Die;
+
+import java.util.Arrays;
+
+/**
+ * Bottom-k MinHash sketch of the set of non-default edges.
+ * <p/>
+ * Keeps <tt>k</tt> smallest hashes of edge ids, so Jaccard similarity of two edge sets
+ * is estimated in <tt>O(k)</tt> with standard error about <tt>1/sqrt(k)</tt>;
+ * sets not larger than <tt>k</tt> are kept whole and compared exactly.
+ */
+public class EdgeSketch {
+  public static final int DEFAULT_SIZE = 256;
+
+  protected final long[] hashes;
+  protected final int count;
+  protected final int capacity;
+
+  protected EdgeSketch(long[] hashes, int count, int capacity) {
+    this.hashes = hashes;
+    this.count = count;
+    this.capacity = capacity;
+  }
+
+  public static EdgeSketch of(final EdgeData data, final int capacity) {
+    Die.ifFalse("capacity > 0", capacity > 0);
+
+    //  max-heap of the smallest hashes seen so far
+    final long[] heap = new long[capacity];
+    final int[] heapSize = {0};
+    final int[] visited = {0};
+    data.visitNonDef(new EdgeData.EdgeVisitor() {
+      public void visit(int from, int into, double e) {
+        visited[0]++;
+        final long hash = hash(from, into);
+        if (heapSize[0] < capacity) {
+          heap[heapSize[0]] = hash;
+          siftUp(heap, heapSize[0]++);
+        } else if (hash < heap[0]) {
+          heap[0] = hash;
+          siftDown(heap, heapSize[0]);
+        }
+      }
+    });
+
+    final long[] hashes = Arrays.copyOf(heap, heapSize[0]);
+    Arrays.sort(hashes);
+
+    return new EdgeSketch(hashes, visited[0], capacity);
+  }
+
+  /**
+   * @param error standard error of the Jaccard estimate
+   * @return sketch capacity providing that error
+   */
+  public static int capacityFor(final double error) {
+    Die.ifFalse("error in (0, 1]", error > 0 && error <= 1);
+    return (int) Math.ceil(1 / (error * error));
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public boolean isExact() {
+    return count <= capacity;
+  }
+
+  /**
+   * @return estimated <tt>|A &cap; B| / |A &cup; B|</tt>, exact when both sketches are
+   */
+  public double jaccard(final EdgeSketch that) {
+    if (count == 0 && that.count == 0) {
+      return 1;
+    }
+
+    final int limit = Math.min(capacity, that.capacity);
+    final long[] a = hashes;
+    final long[] b = that.hashes;
+    int posA = 0;
+    int posB = 0;
+    int taken = 0;
+    int shared = 0;
+    while (taken < limit && (posA < a.length || posB < b.length)) {
+      if (posB == b.length || posA < a.length && a[posA] < b[posB]) {
+        posA++;
+      } else if (posA == a.length || a[posA] > b[posB]) {
+        posB++;
+      } else {
+        posA++;
+        posB++;
+        shared++;
+      }
+      taken++;
+    }
+
+    return (double) shared / taken;
+  }
+
+  /**
+   * Same as {@link EdgeData#similarity(EdgeData)}: estimated <tt>|A &cap; B| / |A|</tt>,
+   * derived from Jaccard estimate and exact set sizes.
+   */
+  public double containment(final EdgeSketch that) {
+    final double jaccard = jaccard(that);
+    final double intersection = jaccard * (count + that.count) / (1 + jaccard);
+
+    return intersection / count;
+  }
+
+  /**
+   * Sketches of different capacities are compared by the hashes both of them keep:
+   * the bottom-k of a set is a prefix of its bottom-m for any <tt>m &gt; k</tt>.
+   *
+   * @return false if edge sets are surely different, true if they might be the same
+   */
+  public boolean sameAs(final EdgeSketch that) {
+    if (count != that.count) {
+      return false;
+    }
+
+    final int shared = Math.min(hashes.length, that.hashes.length);
+    for (int pos = 0; pos < shared; pos++) {
+      if (hashes[pos] != that.hashes[pos]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Order-independent hash of non-default cells with their values: equal for equal edge sets,
+   * and updated in <tt>O(1)</tt> per cell change by {@link EdgeDataSparse}.
+   */
+  public static long edgeHash(final EdgeData data) {
+    if (data instanceof EdgeDataSparse) {
+      return ((EdgeDataSparse) data).getEdgeHash();
+    }
+
+    final long[] sum = {0};
+    data.visitNonDef(new EdgeData.EdgeVisitor() {
+      public void visit(int from, int into, double e) {
+        sum[0] += cellHash(from, into, e);
+      }
+    });
+    return sum[0];
+  }
+
+  /**
+   * Cell hashes are summed modulo <tt>2^64</tt>, so cells are added and removed in any order.
+   */
+  public static long cellHash(final int from, final int into, final double elem) {
+    return mix(hash(from, into) ^ Double.doubleToLongBits(elem));
+  }
+
+  protected static long hash(final int from, final int into) {
+    return mix(((long) from << 32 | into & 0xFFFFFFFFL) + 0x9E3779B97F4A7C15L);
+  }
+
+  protected static long mix(final long bits) {
+    //  finalizer of splitmix64, well-spread even for dense runs of edge ids
+    long z = bits;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  protected static void siftUp(final long[] heap, final int index) {
+    int pos = index;
+    final long elem = heap[pos];
+    while (pos > 0) {
+      final int parent = (pos - 1) >>> 1;
+      if (heap[parent] >= elem) {
+        break;
+      }
+      heap[pos] = heap[parent];
+      pos = parent;
+    }
+    heap[pos] = elem;
+  }
+
+  protected static void siftDown(final long[] heap, final int size) {
+    int pos = 0;
+    final long elem = heap[0];
+    while (true) {
+      int child = 2 * pos + 1;
+      if (child >= size) {
+        break;
+      }
+      if (child + 1 < size && heap[child + 1] > heap[child]) {
+        child++;
+      }
+      if (heap[child] <= elem) {
+        break;
+      }
+      heap[pos] = heap[child];
+      pos = child;
+    }
+    heap[pos] = elem;
+  }
+}
@@ -27,7 +27,7 @@ import java.util.BitSet;
 import static org.akraievoy.cnet.net.vo.StoreUtils.*;
 
 @SuppressWarnings("UnusedDeclaration")
-public class StoreBit implements Store {
+public final class StoreBit implements Store {
   private BitSet bits;
   private int size;
 
@@ -25,7 +25,7 @@ import java.util.Arrays;
 import static org.akraievoy.cnet.net.vo.StoreUtils.*;
 
 @SuppressWarnings("UnusedDeclaration")
-public class StoreByte implements Store {
+public final class StoreByte implements Store {
   private byte[] arr;
   private int size;
 
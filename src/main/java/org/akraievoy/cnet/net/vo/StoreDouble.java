@@ -25,7 +25,7 @@ import java.util.Arrays;
 import static org.akraievoy.cnet.net.vo.StoreUtils.*;
 
 @SuppressWarnings("UnusedDeclaration")
-public class StoreDouble implements Store {
+public final class StoreDouble implements Store {
   private double[] arr;
   private int size;
 
@@ -40,6 +40,14 @@ public class StoreDouble implements Store {
     Arrays.fill(arr, 0, size, newDef);
   }
 
+  /**
+   * Wraps the array as is, with no copying.
+   */
+  StoreDouble(final double[] wrapped) {
+    arr = wrapped;
+    size = wrapped.length;
+  }
+
   public Width width() {
     return Width.DOUBLE;
   }
@@ -170,6 +178,34 @@ public class StoreDouble implements Store {
     size -= subSize;
   }
 
+  /**
+   * Same as {@link #get(int, double)}, without the type hint.
+   */
+  public double getDouble(int pos) {
+    StoreUtils.validateAccess(pos, size);
+
+    return arr[pos];
+  }
+
+  public double[] toNativeArray() {
+    return Arrays.copyOf(arr, size);
+  }
+
+  /**
+   * @return the store itself if it's a StoreDouble, its copy widened to doubles otherwise
+   */
+  public static StoreDouble widen(final Store store) {
+    if (store instanceof StoreDouble) {
+      return (StoreDouble) store;
+    }
+
+    final double[] widened = new double[store.size()];
+    for (int pos = 0; pos < widened.length; pos++) {
+      widened[pos] = store.get(pos, .0);
+    }
+    return new StoreDouble(widened);
+  }
+
   public double get(int pos, double typeHint) {
     StoreUtils.validateAccess(pos, size);
 
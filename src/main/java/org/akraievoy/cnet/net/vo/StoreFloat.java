@@ -25,7 +25,7 @@ import java.util.Arrays;
 import static org.akraievoy.cnet.net.vo.StoreUtils.*;
 
 @SuppressWarnings("UnusedDeclaration")
-public class StoreFloat implements Store {
+public final class StoreFloat implements Store {
   private float[] arr;
   private int size;
 
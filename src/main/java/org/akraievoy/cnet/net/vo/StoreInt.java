@@ -25,7 +25,7 @@ import java.util.Arrays;
 import static org.akraievoy.cnet.net.vo.StoreUtils.*;
 
 @SuppressWarnings("UnusedDeclaration")
-public class StoreInt implements Store {
+public final class StoreInt implements Store {
   private int[] arr;
   private int size;
 
@@ -40,6 +40,14 @@ public class StoreInt implements Store {
     Arrays.fill(arr, 0, size, newDef);
   }
 
+  /**
+   * Wraps the array as is, with no copying.
+   */
+  StoreInt(final int[] wrapped) {
+    arr = wrapped;
+    size = wrapped.length;
+  }
+
   public Width width() {
     return Width.INT;
   }
@@ -194,6 +202,15 @@ public class StoreInt implements Store {
     return set(pos, (int) val);
   }
 
+  /**
+   * Same as {@link #get(int, int)}, without the type hint.
+   */
+  public int getInt(int pos) {
+    StoreUtils.validateAccess(pos, size);
+
+    return arr[pos];
+  }
+
   public int get(int pos, int typeHint) {
     StoreUtils.validateAccess(pos, size);
 
@@ -25,7 +25,7 @@ import java.util.Arrays;
 import static org.akraievoy.cnet.net.vo.StoreUtils.*;
 
 @SuppressWarnings("UnusedDeclaration")
-public class StoreLong implements Store {
+public final class StoreLong implements Store {
   private long[] arr;
   private int size;
 
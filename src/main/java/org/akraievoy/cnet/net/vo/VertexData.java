@@ -29,7 +29,7 @@ import static org.akraievoy.cnet.net.vo.StoreUtils.escapeByte;
 import static org.akraievoy.cnet.net.vo.StoreUtils.longBits;
 
 public class VertexData implements Streamable {
-  protected Store data = new StoreDouble();
+  protected StoreDouble data = new StoreDouble();
   protected double nullElement;
   protected boolean readonly;
 
@@ -48,11 +48,7 @@ public class VertexData implements Streamable {
   }
 
   public double[] getData() {
-    final double[] nativeArr = new double[data.size()];
-    for (int pos = 0; pos < data.size(); pos++) {
-      nativeArr[pos] = data.get(pos, .0);
-    }
-    return nativeArr;
+    return data.toNativeArray();
   }
 
   static enum StreamState {DEF, WIDTH, DATA, COMPLETE}
@@ -111,7 +107,7 @@ public class VertexData implements Streamable {
   public VertexData fromStream(InputStream in) throws IOException {
     nullElement = Double.longBitsToDouble(unescapeLong(in));
     final Store.Width width = Store.Width.values()[unescapeByte(in)];
-    data = width.create().fromStream(in);
+    data = StoreDouble.widen(width.create().fromStream(in));
     readonly = true;
     return this;
   }
@@ -137,7 +133,7 @@ public class VertexData implements Streamable {
       return getNullElement();
     }
 
-    return data.get(index, .0);
+    return data.getDouble(index);
   }
 
   public double set(int index, double elem) {
@@ -22,9 +22,30 @@ import org.akraievoy.cnet.soo.domain.GenomeSoo;
 
 import java.util.Collection;
 
+/**
+ * Rejects children duplicating some genome of the generation, and optionally
+ * near-duplicates: those with estimated Jaccard similarity of edge sets reaching the threshold.
+ */
 public class ConditionUnique implements Condition<GenomeSoo> {
+  protected double jaccardMax = 1;
+
+  public ConditionUnique() {
+  }
+
+  public ConditionUnique(double jaccardMax) {
+    this.jaccardMax = jaccardMax;
+  }
+
+  public void setJaccardMax(double jaccardMax) {
+    this.jaccardMax = jaccardMax;
+  }
+
   public boolean isValid(GeneticStrategy<GenomeSoo> strategy, GenomeSoo child, Collection<GenomeSoo> generation, int generationIndex) {
+    final boolean nearDupes = jaccardMax < 1;
     for (GenomeSoo added : generation) {
+      if (nearDupes && child.getSketch().jaccard(added.getSketch()) >= jaccardMax) {
+        return false;
+      }
       if (child.isDupeOf(added)) {
         return false;
       }
@@ -34,6 +55,6 @@ public class ConditionUnique implements Condition<GenomeSoo> {
   }
 
   public String toString() {
-    return "[ Unique ]";
+    return jaccardMax < 1 ? "[ Unique " + jaccardMax + " ]" : "[ Unique ]";
   }
 }
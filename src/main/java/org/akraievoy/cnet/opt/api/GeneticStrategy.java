@@ -41,4 +41,13 @@ public interface GeneticStrategy<G extends Genome> {
       StoreLens<Integer> generationLens,
       SortedMap<FitnessKey, G> children
   );
+
+  /**
+   * Persist whatever should survive into the next generation, {@link #init} picks it up there.
+   *
+   * @param generationLens the lens of generation param
+   */
+  void storeToContext(
+      StoreLens<Integer> generationLens
+  );
 }
@@ -19,7 +19,6 @@
 package org.akraievoy.cnet.opt.domain;
 
 import com.google.common.base.Optional;
-import gnu.trove.TDoubleArrayList;
 import org.akraievoy.base.Format;
 import org.akraievoy.base.ref.Ref;
 import org.akraievoy.base.ref.RefSimple;
@@ -28,7 +27,9 @@ import org.akraievoy.cnet.gen.vo.EntropySourceRandom;
 import org.akraievoy.cnet.gen.vo.WeightedEventModelRenorm;
 import org.akraievoy.cnet.metrics.domain.EigenMetric;
 import org.akraievoy.cnet.opt.api.*;
-import org.akraievoy.gear.G4Stat;
+import org.akraievoy.cnet.stat.vo.Moments;
+import org.akraievoy.holonet.exp.probe.Probe;
+import org.akraievoy.holonet.exp.probe.Probes;
 import org.akraievoy.holonet.exp.store.StoreLens;
 import org.akraievoy.util.Interpolate;
 import org.slf4j.Logger;
@@ -38,6 +39,10 @@ import java.util.*;
 
 public class ExperimentGeneticOpt implements Runnable {
   private static final Logger log = LoggerFactory.getLogger(ExperimentGeneticOpt.class);
+  private static final Probe probeBreed = Probes.probe("ga.breed");
+  private static final Probe probeMutate = Probes.probe("ga.mutate");
+  private static final Probe probeValidate = Probes.probe("ga.validate");
+  private static final Probe probeFitness = Probes.probe("ga.fitness");
 
   protected final SortedMap<FitnessKey, Genome> parents = new TreeMap<FitnessKey, Genome>();
   protected final SortedMap<FitnessKey, Genome> children = new TreeMap<FitnessKey, Genome>();
@@ -71,6 +76,12 @@ public class ExperimentGeneticOpt implements Runnable {
   protected StoreLens<Integer> generationLens;
   protected StoreLens<Double> genomeLens;
 
+  //  island model: populations along the island axis exchange elites every migrationPeriod generations
+  protected StoreLens<Integer> islandLens;
+  protected int migrationPeriod = 0;
+  protected int migrationCount = 1;
+  protected long migrationSeed = 0;
+
   protected long specimenLimit;
   protected int eliteLimit;
 
@@ -122,6 +133,25 @@ public class ExperimentGeneticOpt implements Runnable {
     this.specimenLens = specimenLens;
   }
 
+  public void setIslandLens(StoreLens<Integer> islandLens) {
+    this.islandLens = islandLens;
+  }
+
+  public void setMigrationPeriod(int migrationPeriod) {
+    this.migrationPeriod = migrationPeriod;
+  }
+
+  public void setMigrationCount(int migrationCount) {
+    this.migrationCount = migrationCount;
+  }
+
+  /**
+   * Should be the same for all islands, so that they agree on migration schedule.
+   */
+  public void setMigrationSeed(long migrationSeed) {
+    this.migrationSeed = migrationSeed;
+  }
+
   public void setCrossoverRatio(double crossoverRatio) {
     this.crossoverRatio = crossoverRatio;
   }
@@ -171,9 +201,11 @@ public class ExperimentGeneticOpt implements Runnable {
         if (validate(genome)) {
           storeToPopulation(children, genome);
         } else {
+          final long mutateStart = Probes.start();
           for (int i = 0; i < adaptMutators.elems.size(); i++) {
             adaptMutators.elems.get(i).mutate(strategy, genome, state, eSource);
           }
+          probeMutate.stop(mutateStart);
           if (validate(genome)) {
             storeToPopulation(children, genome);
           }
@@ -181,6 +213,7 @@ public class ExperimentGeneticOpt implements Runnable {
       }
       strategy.initOnSeeds(generationLens, children);
       storeToContext(children);
+      strategy.storeToContext(generationLens);
       log.info(
           "Initialized: fitness {}, seed conditions:\n{}",
           fitnessReport(children),
@@ -190,6 +223,7 @@ public class ExperimentGeneticOpt implements Runnable {
     }
 
     loadGen(parents);
+    migrate(parents);
 
     if (parents.isEmpty()) {
       log.info("Generation #{} empty: specimens died-out", generation);
@@ -284,6 +318,7 @@ public class ExperimentGeneticOpt implements Runnable {
     report(null);
 
     storeToContext(children);
+    strategy.storeToContext(generationLens);
     adaptMutators.storeRatios(generationLens);
     mutators.storeRatios(generationLens);
     breeders.storeRatios(generationLens);
@@ -297,7 +332,9 @@ public class ExperimentGeneticOpt implements Runnable {
       final SortedMap<FitnessKey, Genome> population,
       final Genome genome
   ) {
+    final long start = Probes.start();
     final double fitness = genome.getOrComputeFitness(strategy);
+    probeFitness.stop(start);
     if (Double.isNaN(fitness)) {
       return Optional.absent();
     }
@@ -370,14 +407,18 @@ public class ExperimentGeneticOpt implements Runnable {
       parentB = parents.get(fKeyA);
     }
 
+    final long breedStart = Probes.start();
     breeder.setValue(breeders.select(eSource));
     final Genome child = breeder.getValue().crossover(strategy, parentA, parentB, state, eSource);
+    probeBreed.stop(breedStart);
 
+    final long mutateStart = Probes.start();
     mutator.setValue(mutators.select(eSource));
     mutator.getValue().mutate(strategy, child, state, eSource);
 
     adaptMutator.setValue(adaptMutators.select(eSource));
     adaptMutator.getValue().mutate(strategy, child, state, eSource);
+    probeMutate.stop(mutateStart);
 
     return child;
   }
@@ -387,43 +428,49 @@ public class ExperimentGeneticOpt implements Runnable {
       return "empty";
     }
 
-    final TDoubleArrayList fitnesses = fitnesses(population);
+    final Moments fitnessStats = fitnessStats(population);
 
-    final double max = G4Stat.max(fitnesses);
-    final double min = G4Stat.min(fitnesses);
-
-    return Format.format6(min) + " .. " + max;
+    return Format.format6(fitnessStats.min()) + " .. " + fitnessStats.max();
   }
 
   protected static double fitnessDeviation(SortedMap<FitnessKey, Genome> population) {
-    final TDoubleArrayList fitnesses = fitnesses(population);
-    final double mean = G4Stat.mean(fitnesses);
-    final double dev = G4Stat.meanDeviation(fitnesses, mean);
+    final double mean = fitnessStats(population).mean();
+
+    //  mean absolute deviation needs the mean upfront, so we walk the keys twice
+    double deviationSum = 0;
+    for (FitnessKey fitnessKey : population.keySet()) {
+      deviationSum += Math.abs(fitnessKey.getFitness() - mean);
+    }
 
-    return dev;
+    return deviationSum / population.size();
   }
 
-  protected static TDoubleArrayList fitnesses(SortedMap<FitnessKey, Genome> population) {
-    final TDoubleArrayList fitnesses = new TDoubleArrayList(population.size());
+  protected static Moments fitnessStats(SortedMap<FitnessKey, Genome> population) {
+    final Moments fitnessStats = new Moments();
     for (FitnessKey fitnessKey : population.keySet()) {
-      fitnesses.add(fitnessKey.getFitness());
+      fitnessStats.add(fitnessKey.getFitness());
     }
-    return fitnesses;
+    return fitnessStats;
   }
 
   protected boolean validate(Genome child) {
-    for (int i = 0, conditionsSize = conditions.size(); i < conditionsSize; i++) {
-      final Condition<Genome> cond = conditions.wrap(i);
+    final long start = Probes.start();
+    try {
+      for (int i = 0, conditionsSize = conditions.size(); i < conditionsSize; i++) {
+        final Condition<Genome> cond = conditions.wrap(i);
 
-      final boolean valid = cond.isValid(strategy, child, children.values(), generation);
+        final boolean valid = cond.isValid(strategy, child, children.values(), generation);
 
-      if (!valid) {
-        conditions.onFailure(cond);
-        return false;
+        if (!valid) {
+          conditions.onFailure(cond);
+          return false;
+        }
       }
-    }
 
-    return true;
+      return true;
+    } finally {
+      probeValidate.stop(start);
+    }
   }
 
   protected void loadGen(final SortedMap<FitnessKey, Genome> gen) {
@@ -442,6 +489,52 @@ public class ExperimentGeneticOpt implements Runnable {
     }
   }
 
+  /**
+   * Each island receives elites of exactly one other island: the ring is rotated
+   * by a shift drawn from migration seed and generation, so the schedule is the same
+   * for all islands and for any rerun, whatever the order islands are executed in.
+   */
+  protected void migrate(final SortedMap<FitnessKey, Genome> gen) {
+    if (islandLens == null || migrationPeriod <= 0 || generation % migrationPeriod != 0) {
+      return;
+    }
+    final int islands = islandLens.fullCount();
+    if (islands < 2) {
+      return;
+    }
+
+    final int island = islandLens.paramPos().pos();
+    final int source = (island + migrationShift(islands)) % islands;
+
+    //  islands are stored best-first, just like single populations
+    final StoreLens<Integer>[] specimenAxis = specimenLens
+        .offset(generationLens.paramName(), -1)
+        .offset(islandLens.paramName(), source - island)
+        .axisArr();
+    int migrants = 0;
+    for (int i = 0; i < specimenAxis.length && migrants < migrationCount; i++) {
+      final StoreLens<Double> migrantLens =
+          specimenAxis[i].forTypeName(Double.class, genomeLens.paramName());
+      final Genome value = strategy.createGenome();
+      if (value.read(migrantLens) == null) {
+        break;
+      }
+      gen.put(new FitnessKey(gen.size(), value.getFitness()), value);
+      migrants++;
+    }
+
+    log.info(
+        "Generation #{}: island {} received {} migrants from island {}",
+        new Object[] {generation, island, migrants, source}
+    );
+  }
+
+  protected int migrationShift(final int islands) {
+    final EntropySourceRandom schedule = new EntropySourceRandom();
+    schedule.setSeed(migrationSeed ^ generation * 0x9E3779B97F4A7C15L);
+    return 1 + schedule.nextInt(islands - 1);
+  }
+
   protected void storeToContext(Map<FitnessKey, Genome> genomes) {
     if (genomes.size() == 0) {
       return;
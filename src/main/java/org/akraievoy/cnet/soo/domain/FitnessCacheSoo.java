@@ -0,0 +1,215 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.soo.domain;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeSketch;
+import org.akraievoy.holonet.exp.store.Streamable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.akraievoy.cnet.net.vo.StoreUtils.*;
+
+/**
+ * Bounded memo of fitness and effectiveness of solutions, keyed by {@link EdgeSketch#edgeHash}.
+ * <p/>
+ * Elite copies, no-op mutations and crossovers of near-identical parents reproduce
+ * already evaluated solutions, so their eigensolver and routing runs are skipped.
+ * NaN marks a value not computed yet, failed computations are thus never memoized.
+ */
+public class FitnessCacheSoo implements Streamable {
+  public static final int DEFAULT_LIMIT = 1 << 14;
+
+  protected static final int FITNESS = 0;
+  protected static final int EFF = 1;
+
+  protected final int limit;
+  protected final Cache<Long, double[]> entries;
+  /**
+   * Keys stored or hit since the last {@link #drainAdded()}, entries just adopted from other caches are not here.
+   */
+  protected final Set<Long> added =
+      Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+
+  protected final AtomicLong hits = new AtomicLong();
+  protected final AtomicLong misses = new AtomicLong();
+
+  public FitnessCacheSoo() {
+    this(DEFAULT_LIMIT);
+  }
+
+  public FitnessCacheSoo(final int limit) {
+    this.limit = limit;
+    this.entries = CacheBuilder.newBuilder()
+        .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+        .maximumSize(limit)
+        .build();
+  }
+
+  public double getFitness(final EdgeData solution) {
+    return lookup(EdgeSketch.edgeHash(solution), FITNESS);
+  }
+
+  public void putFitness(final EdgeData solution, final double fitness) {
+    store(EdgeSketch.edgeHash(solution), FITNESS, fitness);
+  }
+
+  public double getEff(final EdgeData solution) {
+    return lookup(EdgeSketch.edgeHash(solution), EFF);
+  }
+
+  public void putEff(final EdgeData solution, final double eff) {
+    store(EdgeSketch.edgeHash(solution), EFF, eff);
+  }
+
+  protected double lookup(final long key, final int slot) {
+    final double[] entry = entries.getIfPresent(key);
+    final double value = entry == null ? Double.NaN : entry[slot];
+
+    if (Double.isNaN(value)) {
+      misses.incrementAndGet();
+    } else {
+      hits.incrementAndGet();
+      //  entries still in use are stored again, so these outlive the generations they came from
+      added.add(key);
+    }
+
+    return value;
+  }
+
+  protected void store(final long key, final int slot, final double value) {
+    if (Double.isNaN(value)) {
+      return;
+    }
+
+    double[] entry = entries.getIfPresent(key);
+    if (entry == null) {
+      final double[] created = {Double.NaN, Double.NaN};
+      entry = entries.asMap().putIfAbsent(key, created);
+      if (entry == null) {
+        entry = created;
+      }
+    }
+    entry[slot] = value;
+    added.add(key);
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long size() {
+    return entries.size();
+  }
+
+  public boolean isFull() {
+    return entries.size() >= limit;
+  }
+
+  /**
+   * Adopts entries of the other cache, keeping our own values on conflicts
+   *   and filling in only those we have not computed yet.
+   */
+  public void putAll(final FitnessCacheSoo that) {
+    for (Map.Entry<Long, double[]> e : that.entries.asMap().entrySet()) {
+      final double[] own = entries.asMap().putIfAbsent(e.getKey(), e.getValue().clone());
+      if (own == null) {
+        continue;
+      }
+      for (int slot = FITNESS; slot <= EFF; slot++) {
+        if (Double.isNaN(own[slot])) {
+          own[slot] = e.getValue()[slot];
+        }
+      }
+    }
+  }
+
+  /**
+   * @return entries stored or hit since the previous call, still present in this cache
+   */
+  public FitnessCacheSoo drainAdded() {
+    final FitnessCacheSoo drained = new FitnessCacheSoo(limit);
+    for (Iterator<Long> keyIt = added.iterator(); keyIt.hasNext(); ) {
+      final Long key = keyIt.next();
+      keyIt.remove();
+      final double[] entry = entries.getIfPresent(key);
+      if (entry != null) {
+        drained.entries.put(key, entry.clone());
+      }
+    }
+    return drained;
+  }
+
+  public FitnessCacheSoo fromStream(InputStream in) throws IOException {
+    final int count = unescapeInt(in);
+    for (int i = 0; i < count; i++) {
+      final long key = unescapeLong(in);
+      final double fitness = Double.longBitsToDouble(unescapeLong(in));
+      final double eff = Double.longBitsToDouble(unescapeLong(in));
+      entries.asMap().putIfAbsent(key, new double[]{fitness, eff});
+    }
+    return this;
+  }
+
+  public InputStream createStream() {
+    //  snapshot first: the count has to match the entries which follow
+    final Map<Long, double[]> snapshot = entries.asMap();
+    final long[] keys = new long[snapshot.size()];
+    final double[][] values = new double[keys.length][];
+    int count = 0;
+    for (Map.Entry<Long, double[]> e : snapshot.entrySet()) {
+      if (count == keys.length) {
+        break;
+      }
+      keys[count] = e.getKey();
+      values[count] = e.getValue();
+      count++;
+    }
+
+    final byte[] bytes = new byte[4 + count * 24];
+    final byte[] bits = new byte[8];
+    intBits(count, bits);
+    System.arraycopy(bits, 0, bytes, 0, 4);
+    for (int i = 0; i < count; i++) {
+      final int offset = 4 + i * 24;
+      longBits(keys[i], bits);
+      System.arraycopy(bits, 0, bytes, offset, 8);
+      longBits(Double.doubleToLongBits(values[i][FITNESS]), bits);
+      System.arraycopy(bits, 0, bytes, offset + 8, 8);
+      longBits(Double.doubleToLongBits(values[i][EFF]), bits);
+      System.arraycopy(bits, 0, bytes, offset + 16, 8);
+    }
+
+    return new ByteArrayInputStream(bytes);
+  }
+}
@@ -20,14 +20,14 @@ package org.akraievoy.cnet.soo.domain;
 
 import org.akraievoy.base.ref.RefRO;
 import org.akraievoy.cnet.metrics.api.Metric;
-import org.akraievoy.holonet.exp.store.RefObject;
 import org.akraievoy.cnet.metrics.api.MetricRoutes;
+import org.akraievoy.holonet.exp.store.RefObject;
 import org.akraievoy.cnet.metrics.domain.EigenMetric;
-import org.akraievoy.cnet.metrics.domain.MetricEDataRouteLen;
-import org.akraievoy.cnet.metrics.domain.MetricScalarEffectiveness;
 import org.akraievoy.cnet.metrics.domain.MetricScalarEigenGap;
+import org.akraievoy.cnet.metrics.domain.MetricScalarRouteReduce;
 import org.akraievoy.cnet.net.vo.EdgeData;
 import org.akraievoy.cnet.net.vo.EdgeDataFactory;
+import org.akraievoy.cnet.net.vo.EdgeSketch;
 import org.akraievoy.cnet.opt.api.GeneticStrategy;
 import org.akraievoy.cnet.opt.domain.FitnessKey;
 import org.akraievoy.holonet.exp.store.StoreLens;
@@ -42,8 +42,7 @@ public class GeneticStrategySoo implements GeneticStrategy<GenomeSoo> {
   
   protected final MetricScalarEigenGap metricScalarEigenGap;
 
-  protected final MetricEDataRouteLen metricEDataRouteLen;
-  protected final MetricScalarEffectiveness metricEff;
+  protected final MetricScalarRouteReduce metricEff;
 
   public static final String MODE_REGULAR = "R";
 
@@ -87,15 +86,35 @@ public class GeneticStrategySoo implements GeneticStrategy<GenomeSoo> {
   public double getFitnessCap() { return fitnessCap; }
   public void setFitnessCap(double fitnessCap) { this.fitnessCap = fitnessCap; }
 
+  //	standard error of genome similarity estimates
+  protected int sketchCapacity = EdgeSketch.DEFAULT_SIZE;
+  public void setSketchError(double sketchError) {
+    this.sketchCapacity = EdgeSketch.capacityFor(sketchError);
+  }
+
   protected RefRO<? extends EdgeData> distSource = new RefObject<EdgeData>();
   protected RefRO<? extends EdgeData> requestSource = new RefObject<EdgeData>();
 
   protected int steps = 1;
 
-  public GeneticStrategySoo(final MetricRoutes metricRoutes) {
+  protected FitnessCacheSoo fitnessCache = new FitnessCacheSoo();
+  public void setFitnessCacheLimit(int limit) { this.fitnessCache = new FitnessCacheSoo(limit); }
+  public FitnessCacheSoo getFitnessCache() { return fitnessCache; }
+
+  //	previous generations adopting fitness cache entries from, on init
+  protected int fitnessCacheDepth = 8;
+  public void setFitnessCacheDepth(int fitnessCacheDepth) { this.fitnessCacheDepth = fitnessCacheDepth; }
+
+  public GeneticStrategySoo() {
     this.metricScalarEigenGap = new MetricScalarEigenGap();
-    this.metricEDataRouteLen = new MetricEDataRouteLen(metricRoutes);
-    this.metricEff = new MetricScalarEffectiveness();
+    this.metricEff = new MetricScalarRouteReduce();
+  }
+
+  /**
+   * @param metricRoutes is not used, effectiveness is reduced right from the shortest path runs
+   */
+  public GeneticStrategySoo(final MetricRoutes metricRoutes) {
+    this();
   }
 
   public void setDistSource(RefRO<? extends EdgeData> distSource) {
@@ -140,6 +159,33 @@ public class GeneticStrategySoo implements GeneticStrategy<GenomeSoo> {
     }
 
     generationNum = generationLens.fullCount();
+
+    //  each generation stores only entries it added or hit, newest ones are adopted first
+    final long depth = Math.min(generation, fitnessCacheDepth);
+    for (int offset = -1; offset >= -depth && !fitnessCache.isFull(); offset--) {
+      final FitnessCacheSoo prevAdded = generationLens
+          .offset(generationLens.paramName(), offset)
+          .forTypeName(FitnessCacheSoo.class, "fitnessCache")
+          .getValue();
+      if (prevAdded != null) {
+        fitnessCache.putAll(prevAdded);
+      }
+    }
+  }
+
+  public void storeToContext(StoreLens<Integer> generationLens) {
+    generationLens.forTypeName(FitnessCacheSoo.class, "fitnessCache").set(fitnessCache.drainAdded());
+
+    final StoreLens<Long> reportLens =
+        generationLens.forTypeName(Long.class, "fitnessCache.hits");
+    reportLens.set(fitnessCache.getHits());
+    reportLens.forName("fitnessCache.misses").set(fitnessCache.getMisses());
+    reportLens.forName("fitnessCache.size").set(fitnessCache.size());
+
+    log.info(
+        "fitness cache: {} hits, {} misses, {} entries",
+        new Object[]{fitnessCache.getHits(), fitnessCache.getMisses(), fitnessCache.size()}
+    );
   }
 
   protected int getTotalLinkUpperLimit() {
@@ -176,9 +222,10 @@ public class GeneticStrategySoo implements GeneticStrategy<GenomeSoo> {
   }
 
   public GenomeSoo createGenome() {
-    return new GenomeSoo(EdgeDataFactory.sparse(
-        true, 0.0, distSource.getValue().getSize()
-    ));
+    return new GenomeSoo(
+        EdgeDataFactory.sparse(true, 0.0, distSource.getValue().getSize()),
+        sketchCapacity
+    );
   }
 
   public void initOnSeeds(
@@ -201,9 +248,16 @@ public class GeneticStrategySoo implements GeneticStrategy<GenomeSoo> {
   }
 
   public double computeFitness(GenomeSoo genome) {
+    final double cached = fitnessCache.getFitness(genome.getSolution());
+    if (!Double.isNaN(cached)) {
+      return cached;
+    }
+
     metricScalarEigenGap.setSource(new RefObject<EdgeData>(genome.getSolution()));
     try {
-      return Metric.fetch(metricScalarEigenGap);
+      final double fitness = Metric.fetch(metricScalarEigenGap);
+      fitnessCache.putFitness(genome.getSolution(), fitness);
+      return fitness;
     } catch (EigenMetric.EigenSolverException e) {
       log.warn("IGNORING eigensolver failure: marking child as invalid", e);
       return Double.NaN;
@@ -211,15 +265,21 @@ public class GeneticStrategySoo implements GeneticStrategy<GenomeSoo> {
   }
 
   public Double computeEff(GenomeSoo child) {
-    metricEDataRouteLen.getRoutes().setDistSource(distSource);
-    metricEDataRouteLen.getRoutes().setSource(new RefObject<EdgeData>(child.getSolution()));
-
-    final EdgeData lenEData = Metric.fetch(metricEDataRouteLen);
+    final double cached = fitnessCache.getEff(child.getSolution());
+    if (!Double.isNaN(cached)) {
+      return cached;
+    }
 
-    metricEff.setSource(new RefObject<EdgeData>(lenEData));
-    metricEff.setWeightSource(requestSource);
+    metricEff.configure(
+        new RefObject<EdgeData>(child.getSolution()),
+        distSource,
+        requestSource
+    );
 
     final Double eff = Metric.fetch(metricEff);
+    if (eff != null) {
+      fitnessCache.putEff(child.getSolution(), eff);
+    }
     return eff;
   }
 }
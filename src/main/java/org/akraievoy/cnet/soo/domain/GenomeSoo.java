@@ -21,11 +21,15 @@ package org.akraievoy.cnet.soo.domain;
 import org.akraievoy.base.Die;
 import org.akraievoy.cnet.net.vo.EdgeData;
 import org.akraievoy.cnet.net.vo.EdgeDataSparse;
+import org.akraievoy.cnet.net.vo.EdgeSketch;
 import org.akraievoy.cnet.opt.api.Genome;
 import org.akraievoy.holonet.exp.store.StoreLens;
 
 public class GenomeSoo extends Genome {
   protected EdgeData solution;
+  protected int sketchCapacity = EdgeSketch.DEFAULT_SIZE;
+  protected EdgeSketch sketch;
+  protected long sketchEdgeHash;
 
   public GenomeSoo(EdgeData solution) {
     super(new Object[]{solution});
@@ -33,6 +37,12 @@ public class GenomeSoo extends Genome {
     this.solution = solution;
   }
 
+  public GenomeSoo(EdgeData solution, int sketchCapacity) {
+    this(solution);
+
+    this.sketchCapacity = sketchCapacity;
+  }
+
   @Deprecated
   //	this no-arg constructor is required
   public GenomeSoo() {
@@ -50,6 +60,28 @@ public class GenomeSoo extends Genome {
   public void setSolution(EdgeData solution) {
     this.solution = solution;
     genomeData[0] = solution;
+    sketch = null;
+  }
+
+  /**
+   * Mutators reset fitness after altering the solution, the sketch is stale by then as well.
+   */
+  @Override
+  public void resetFitness() {
+    super.resetFitness();
+    sketch = null;
+  }
+
+  public EdgeSketch getSketch() {
+    final EdgeData sol = getSolution();
+    //  guarding against changes made without resetting the fitness, even those keeping the edge count
+    final long edgeHash = EdgeSketch.edgeHash(sol);
+    if (sketch == null || sketchEdgeHash != edgeHash) {
+      sketch = EdgeSketch.of(sol, sketchCapacity);
+      sketchEdgeHash = edgeHash;
+    }
+
+    return sketch;
   }
 
   public Object[] getGenomeData() {
@@ -64,7 +96,12 @@ public class GenomeSoo extends Genome {
   }
 
   public double similarity(Genome that) {
-    return solution.similarity(((GenomeSoo) that).solution);
+    return getSketch().containment(((GenomeSoo) that).getSketch());
+  }
+
+  @Override
+  public boolean isDupeOf(Genome that) {
+    return getSketch().sameAs(((GenomeSoo) that).getSketch()) && super.isDupeOf(that);
   }
 
   @Override
@@ -18,14 +18,13 @@
 
 package org.akraievoy.cnet.soo.domain;
 
+import gnu.trove.TIntArrayList;
 import org.akraievoy.cnet.gen.vo.EntropySource;
 import org.akraievoy.cnet.net.vo.EdgeData;
 import org.akraievoy.cnet.opt.api.GeneticState;
 import org.akraievoy.cnet.opt.api.GeneticStrategy;
 import org.akraievoy.cnet.opt.api.Mutator;
 
-import java.util.*;
-
 public class MutatorSooClusterize implements Mutator<GenomeSoo> {
   protected int clusterNum = 2;
 
@@ -64,127 +63,192 @@ public class MutatorSooClusterize implements Mutator<GenomeSoo> {
     child.resetFitness();
   }
 
+  /**
+   * Aggregates per node are kept in primitive arrays and refreshed only for the three nodes
+   *   touched by each rewire, so a round costs a scan of those arrays plus a walk over
+   *   the adjacency of the rewired node and the members of the receiving cluster.
+   */
   public int apply(
-      final Map<Integer, Integer> nodeToCluster,
+      final int[] nodeToCluster,
       final int rewireLimitOuter,
       final EdgeData solution,
       final EdgeData distance
   ) {
     final int size = solution.getSize();
 
-    final double[] clusterMinPowVal = new double[clusterNum];
-    final int[] clusterMinPowPos = new int[clusterNum];
+    final int[][] clusterNodes = clusterNodes(nodeToCluster);
     final double[] interclusterLinkCount = new double[size];
-    final double[] clusterCapacity = new double[size];
-    boolean moarRewires;
-    int rewireLimit = rewireLimitOuter;
-    do {
-      Arrays.fill(interclusterLinkCount, 0);
-      Arrays.fill(clusterCapacity, 0);
-      for (int nodeFrom = 0; nodeFrom < size; nodeFrom++) {
-        for (int nodeInto = 0; nodeInto < size; nodeInto++) {
-          if (nodeToCluster.get(nodeFrom).equals(nodeToCluster.get(nodeInto))) {
-            double link = solution.get(nodeFrom, nodeInto);
-            if (nodeFrom != nodeInto && link < 1.0) {
-              clusterCapacity[nodeFrom] += 1 - link;
-            }
-            continue;
-          }
-          if (!solution.conn(nodeFrom, nodeInto)) { //  FIXME hotspot of about 15%
-            continue;
-          }
-          interclusterLinkCount[nodeFrom] += solution.get(nodeFrom, nodeInto);
-        }
-      }
+    //  number of same-cluster nodes there's still capacity to link to
+    final int[] clusterCapacity = new int[size];
+    final double[] powers = new double[size];
+    final boolean[] linked = new boolean[size];
+    final TIntArrayList conns = new TIntArrayList();
+    for (int node = 0; node < size; node++) {
+      aggregate(node, nodeToCluster, clusterNodes, solution, conns, interclusterLinkCount, clusterCapacity, powers);
+    }
 
-      Arrays.fill(clusterMinPowPos, -1);
-      Arrays.fill(clusterMinPowVal, Double.POSITIVE_INFINITY);
+    int rewireLimit = rewireLimitOuter;
+    while (rewireLimit > 0) {
       double icLinkMaxVal = Double.NEGATIVE_INFINITY;
       int icLinkMaxPos = -1;
       for (int node = 0; node < size; node++) {
-        double nodeICLinks = interclusterLinkCount[node];
-        if (clusterCapacity[node] > 0 && icLinkMaxVal < nodeICLinks) {
-          icLinkMaxVal = nodeICLinks;
+        if (clusterCapacity[node] > 0 && icLinkMaxVal < interclusterLinkCount[node]) {
+          icLinkMaxVal = interclusterLinkCount[node];
           icLinkMaxPos = node;
         }
-        final double pow = solution.power(node);
-        final Integer cluster = nodeToCluster.get(node);
-        if (clusterMinPowVal[cluster] > pow) {
-          clusterMinPowVal[cluster] = pow;
-          clusterMinPowPos[cluster] = node;
+      }
+      if (!(icLinkMaxVal > 0)) {
+        break;
+      }
+
+      final int nodeRewire = icLinkMaxPos;
+      final int receivingCluster = nodeToCluster[nodeRewire];
+      final int[] receivingNodes = clusterNodes[receivingCluster];
+
+      int nodeReceiver = -1;
+      double minPow = Double.POSITIVE_INFINITY;
+      for (int node : receivingNodes) {
+        if (minPow > powers[node]) {
+          minPow = powers[node];
+          nodeReceiver = node;
         }
       }
+      if (nodeReceiver == nodeRewire || nodeReceiver != -1 && solution.conn(nodeRewire, nodeReceiver)) {
+        nodeReceiver = -1;
+      }
 
-      moarRewires = rewireLimit > 0 && icLinkMaxVal > 0;
-      if (moarRewires) {
-        @SuppressWarnings("UnnecessaryLocalVariable")
-        final int nodeRewire = icLinkMaxPos;
-        final int receivingCluster = nodeToCluster.get(nodeRewire);
-        int nodeDonor = -1;
-        int nodeReceiver = clusterMinPowPos[receivingCluster];
-        if (nodeReceiver == nodeRewire || solution.conn(nodeRewire, nodeReceiver)) {
-          nodeReceiver = -1;
+      int nodeDonor = -1;
+      conns.clear();
+      solution.connVertexes(nodeRewire, conns);
+      for (int pos = 0; pos < conns.size(); pos++) {
+        final int node = conns.get(pos);
+        if (node == nodeRewire || !solution.conn(nodeRewire, node)) {
+          continue;
         }
-        for (int node = 0; node < size; node++) {
-          if (node == nodeRewire) {
-            continue;
-          }
-          final int nodeCluster = nodeToCluster.get(node);
-          if (
-              nodeDonor == -1 &&
-              nodeCluster != receivingCluster &&
-              solution.conn(nodeRewire, node)
-          ) {
-            nodeDonor = node;
-          }
-          if (
-              nodeCluster == receivingCluster &&
-              !solution.conn(nodeRewire, node) &&
-              (
-                  nodeReceiver == -1 ||
-                  distance.get(nodeRewire, nodeReceiver) > distance.get(nodeRewire, node)
-              )
-          ) {
-            nodeReceiver = node;
-          }
+        linked[node] = true;
+        if (nodeDonor == -1 && nodeToCluster[node] != receivingCluster) {
+          nodeDonor = node;
         }
-        if (nodeReceiver != -1 && nodeDonor != -1) {
-          rewireLimit -= 1;
-          final double delta = solution.get(nodeRewire, nodeDonor);
-          solution.set(nodeRewire, nodeDonor, 0);
-          solution.set(nodeRewire, nodeReceiver, delta);
-        } else {
-          moarRewires = false;
+      }
+
+      for (int node : receivingNodes) {
+        if (
+            node != nodeRewire &&
+            !linked[node] &&
+            (
+                nodeReceiver == -1 ||
+                distance.get(nodeRewire, nodeReceiver) > distance.get(nodeRewire, node)
+            )
+        ) {
+          nodeReceiver = node;
         }
       }
-    } while (moarRewires);
+
+      for (int pos = 0; pos < conns.size(); pos++) {
+        linked[conns.get(pos)] = false;
+      }
+
+      if (nodeReceiver == -1 || nodeDonor == -1) {
+        break;
+      }
+
+      rewireLimit -= 1;
+      final double delta = solution.get(nodeRewire, nodeDonor);
+      solution.set(nodeRewire, nodeDonor, 0);
+      solution.set(nodeRewire, nodeReceiver, delta);
+
+      for (int node : new int[]{nodeRewire, nodeDonor, nodeReceiver}) {
+        aggregate(node, nodeToCluster, clusterNodes, solution, conns, interclusterLinkCount, clusterCapacity, powers);
+      }
+    }
 
     return rewireLimit;
   }
 
-  protected Map<Integer, Integer> assignNodeToClusters(
-      final EdgeData solution
+  protected static int[][] clusterNodes(final int[] nodeToCluster) {
+    int clusters = 0;
+    for (int cluster : nodeToCluster) {
+      clusters = Math.max(clusters, cluster + 1);
+    }
+
+    final int[] counts = new int[clusters];
+    for (int cluster : nodeToCluster) {
+      counts[cluster]++;
+    }
+
+    final int[][] clusterNodes = new int[clusters][];
+    for (int cluster = 0; cluster < clusters; cluster++) {
+      clusterNodes[cluster] = new int[counts[cluster]];
+      counts[cluster] = 0;
+    }
+    for (int node = 0; node < nodeToCluster.length; node++) {
+      final int cluster = nodeToCluster[node];
+      clusterNodes[cluster][counts[cluster]++] = node;
+    }
+
+    return clusterNodes;
+  }
+
+  /**
+   * Refreshes aggregates of the node, summing over its non-def elements in ascending order,
+   *   the same as a full row scan would.
+   */
+  protected static void aggregate(
+      final int node,
+      final int[] nodeToCluster,
+      final int[][] clusterNodes,
+      final EdgeData solution,
+      final TIntArrayList conns,
+      final double[] interclusterLinkCount,
+      final int[] clusterCapacity,
+      final double[] powers
   ) {
-    final int size = solution.getSize();
+    final int cluster = nodeToCluster[node];
 
-    final Set<Integer> starRoots = new TreeSet<Integer>();
-    for (int node = 0; node < size; node++) {
-      if (solution.power(node) * 3 > size * 2) {
-        starRoots.add(node);
+    double icLinks = 0;
+    int capacity = 0;
+    int sameConns = 0;
+    conns.clear();
+    solution.connVertexes(node, conns);
+    for (int pos = 0; pos < conns.size(); pos++) {
+      final int peer = conns.get(pos);
+      if (!solution.conn(node, peer)) {
+        continue;
+      }
+
+      final double link = solution.get(node, peer);
+      if (nodeToCluster[peer] != cluster) {
+        icLinks += link;
+      } else if (peer != node) {
+        sameConns++;
+        if (link < 1.0) {
+          capacity++;
+        }
       }
     }
+    if (solution.getDefElem() < 1.0) {
+      capacity += clusterNodes[cluster].length - 1 - sameConns;
+    }
 
-    final Map<Integer, Integer> nodeToCluster =
-        new HashMap<Integer, Integer>();
+    interclusterLinkCount[node] = icLinks;
+    clusterCapacity[node] = capacity;
+    powers[node] = solution.power(node);
+  }
 
+  protected int[] assignNodeToClusters(
+      final EdgeData solution
+  ) {
+    final int size = solution.getSize();
+
+    final int[] nodeToCluster = new int[size];
     int starCluster = 0;
     int coronaCluster = 0;
     for (int node = 0; node < size; node++) {
-      if (starRoots.contains(node)) {
-        nodeToCluster.put(node, starCluster);
+      if (solution.power(node) * 3 > size * 2) {
+        nodeToCluster[node] = starCluster;
         starCluster = ( starCluster + 1 ) % clusterNum;
       } else {
-        nodeToCluster.put(node, coronaCluster);
+        nodeToCluster[node] = coronaCluster;
         coronaCluster = ( coronaCluster + 1 ) % clusterNum;
       }
     }
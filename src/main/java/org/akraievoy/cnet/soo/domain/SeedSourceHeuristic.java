@@ -136,8 +136,7 @@ public class SeedSourceHeuristic implements SeedSource<GenomeSoo> {
         new HashMap<Integer, GenomeSoo>();
     storeSeed(seedRange, solution, eigenGapScalar);
 
-    final Map<Integer, Integer> nodeToCluster =
-        clusterize.assignNodeToClusters(solution);
+    final int[] nodeToCluster = clusterize.assignNodeToClusters(solution);
     while (clusterize.apply(nodeToCluster, 1, solution, dist) == 0) {
       storeSeed(seedRange, solution, eigenGapScalar);
     }
@@ -0,0 +1,220 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.stat.vo;
+
+/**
+ * Single-pass, mergeable accumulator of count, min/max and first four central moments.
+ * <p/>
+ * Updates follow Welford/Terriberry, merges follow Pebay (SAND2008-6212),
+ * so that partial accumulators of parallel runs may be combined without
+ * revisiting the samples.
+ * <p/>
+ * Derived values are defined exactly as their list-based counterparts
+ * in {@link org.akraievoy.gear.G4Stat}: population variance, sample variance,
+ * skew/kurtosis (aka excess) and their sample variants.
+ */
+public class Moments {
+  protected long count;
+  protected double min = Double.POSITIVE_INFINITY;
+  protected double max = Double.NEGATIVE_INFINITY;
+  protected double mean;
+  protected double m2;
+  protected double m3;
+  protected double m4;
+
+  public Moments() {
+    //  nothing to do
+  }
+
+  public Moments add(final double x) {
+    final double n1 = count;
+    count += 1;
+    final double n = count;
+
+    final double delta = x - mean;
+    final double deltaN = delta / n;
+    final double deltaN2 = deltaN * deltaN;
+    final double term1 = delta * deltaN * n1;
+
+    mean += deltaN;
+    m4 += term1 * deltaN2 * (n * n - 3 * n + 3) + 6 * deltaN2 * m2 - 4 * deltaN * m3;
+    m3 += term1 * deltaN * (n - 2) - 3 * deltaN * m2;
+    m2 += term1;
+
+    if (x < min) {
+      min = x;
+    }
+    if (x > max) {
+      max = x;
+    }
+
+    return this;
+  }
+
+  public Moments addAll(final double[] xs) {
+    for (double x : xs) {
+      add(x);
+    }
+    return this;
+  }
+
+  public Moments merge(final Moments that) {
+    if (that.count == 0) {
+      return this;
+    }
+    if (count == 0) {
+      count = that.count;
+      min = that.min;
+      max = that.max;
+      mean = that.mean;
+      m2 = that.m2;
+      m3 = that.m3;
+      m4 = that.m4;
+      return this;
+    }
+
+    final double na = count;
+    final double nb = that.count;
+    final double n = na + nb;
+
+    final double delta = that.mean - mean;
+    final double delta2 = delta * delta;
+    final double delta3 = delta2 * delta;
+    final double delta4 = delta2 * delta2;
+
+    final double m2new =
+        m2 + that.m2 + delta2 * na * nb / n;
+    final double m3new =
+        m3 + that.m3 +
+        delta3 * na * nb * (na - nb) / (n * n) +
+        3 * delta * (na * that.m2 - nb * m2) / n;
+    final double m4new =
+        m4 + that.m4 +
+        delta4 * na * nb * (na * na - na * nb + nb * nb) / (n * n * n) +
+        6 * delta2 * (na * na * that.m2 + nb * nb * m2) / (n * n) +
+        4 * delta * (na * that.m3 - nb * m3) / n;
+
+    count += that.count;
+    mean += delta * nb / n;
+    m2 = m2new;
+    m3 = m3new;
+    m4 = m4new;
+    min = Math.min(min, that.min);
+    max = Math.max(max, that.max);
+
+    return this;
+  }
+
+  public void clear() {
+    count = 0;
+    min = Double.POSITIVE_INFINITY;
+    max = Double.NEGATIVE_INFINITY;
+    mean = m2 = m3 = m4 = 0;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  public double min() {
+    return count > 0 ? min : Double.NaN;
+  }
+
+  public double max() {
+    return count > 0 ? max : Double.NaN;
+  }
+
+  public double sum() {
+    return mean * count;
+  }
+
+  public double mean() {
+    return count > 0 ? mean : Double.NaN;
+  }
+
+  /**
+   * Central moment of given order, same as <tt>G4Stat.moment(data, k, mean)</tt>.
+   */
+  public double moment(final int k) {
+    if (count == 0) {
+      return Double.NaN;
+    }
+    switch (k) {
+      case 0: return 1;
+      case 1: return 0;
+      case 2: return m2 / count;
+      case 3: return m3 / count;
+      case 4: return m4 / count;
+      default:
+        throw new IllegalArgumentException("central moment of order " + k + " is not tracked");
+    }
+  }
+
+  public double variance() {
+    return moment(2);
+  }
+
+  public double standardDeviation() {
+    return Math.sqrt(variance());
+  }
+
+  public double sampleVariance() {
+    return m2 / (count - 1);
+  }
+
+  public double sampleStandardDeviation() {
+    return Math.sqrt(sampleVariance());
+  }
+
+  public double standardError() {
+    return Math.sqrt(variance() / count);
+  }
+
+  public double skew() {
+    final double sd = standardDeviation();
+    return moment(3) / (sd * sd * sd);
+  }
+
+  public double kurtosis() {
+    final double var = variance();
+    return -3 + moment(4) / (var * var);
+  }
+
+  public double sampleSkew() {
+    final double n = count;
+    final double s = sampleStandardDeviation();
+    return n * m3 / ((n - 1) * (n - 2) * s * s * s);
+  }
+
+  public double sampleKurtosis() {
+    final double n = count;
+    final double s2 = sampleVariance();
+    return m4 * n * (n + 1) / ((n - 1) * (n - 2) * (n - 3) * s2 * s2)
+        - 3.0 * (n - 1) * (n - 1) / ((n - 2) * (n - 3));
+  }
+
+  public String toString() {
+    return "Moments[n=" + count + ", mean=" + mean() + ", sd=" + standardDeviation() +
+        ", range=" + min() + ".." + max() + "]";
+  }
+}
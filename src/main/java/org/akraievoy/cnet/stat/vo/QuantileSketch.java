@@ -0,0 +1,243 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.stat.vo;
+
+import gnu.trove.TDoubleArrayList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mergeable quantile sketch after Karnin, Lang, Liberty (KLL, FOCS 2016).
+ * <p/>
+ * Level <tt>h</tt> holds items of weight <tt>2<sup>h</sup></tt>, each level has capacity
+ * decaying geometrically from the top level down. Until first compaction the sketch
+ * keeps all the samples, so quantiles are exactly those of
+ * {@link org.akraievoy.gear.G4Stat#quantile(gnu.trove.TDoubleArrayList, double)}.
+ * <p/>
+ * Compactions alternate the kept half deterministically, so that
+ * the same sequence of samples always yields the same sketch.
+ */
+public class QuantileSketch {
+  public static final int K_DEFAULT = 256;
+  protected static final double CAPACITY_DECAY = 2.0 / 3;
+
+  protected final int k;
+  protected final List<TDoubleArrayList> levels = new ArrayList<TDoubleArrayList>();
+  protected long count;
+  protected double min = Double.POSITIVE_INFINITY;
+  protected double max = Double.NEGATIVE_INFINITY;
+  protected int compactions;
+
+  public QuantileSketch() {
+    this(K_DEFAULT);
+  }
+
+  public QuantileSketch(final int k) {
+    if (k < 8) {
+      throw new IllegalArgumentException("k(" + k + ") < 8");
+    }
+    this.k = k;
+    levels.add(new TDoubleArrayList(k));
+  }
+
+  public QuantileSketch add(final double x) {
+    levels.get(0).add(x);
+    count += 1;
+    if (x < min) {
+      min = x;
+    }
+    if (x > max) {
+      max = x;
+    }
+    compress();
+    return this;
+  }
+
+  public QuantileSketch merge(final QuantileSketch that) {
+    for (int h = 0; h < that.levels.size(); h++) {
+      while (levels.size() <= h) {
+        levels.add(new TDoubleArrayList());
+      }
+      levels.get(h).add(that.levels.get(h).toNativeArray());
+    }
+    count += that.count;
+    min = Math.min(min, that.min);
+    max = Math.max(max, that.max);
+    compress();
+    return this;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public boolean isExact() {
+    return levels.size() == 1;
+  }
+
+  protected int capacity(final int level) {
+    final int depth = levels.size() - level - 1;
+    return Math.max(2, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+  }
+
+  protected void compress() {
+    while (true) {
+      int overflow = -1;
+      int retained = 0;
+      int capacity = 0;
+      for (int h = 0; h < levels.size(); h++) {
+        final int levelSize = levels.get(h).size();
+        retained += levelSize;
+        capacity += capacity(h);
+        if (overflow < 0 && levelSize >= capacity(h)) {
+          overflow = h;
+        }
+      }
+      if (retained < capacity || overflow < 0) {
+        return;
+      }
+      compact(overflow);
+    }
+  }
+
+  protected void compact(final int h) {
+    if (h + 1 == levels.size()) {
+      levels.add(new TDoubleArrayList());
+    }
+    final TDoubleArrayList level = levels.get(h);
+    final TDoubleArrayList upper = levels.get(h + 1);
+
+    level.sort();
+    final int size = level.size();
+    //  odd-sized levels keep their largest item in place
+    final int pairs = size / 2;
+    final int offset = compactions & 1;
+    compactions += 1;
+    for (int i = 0; i < pairs; i++) {
+      upper.add(level.getQuick(2 * i + offset));
+    }
+    if (size % 2 == 1) {
+      final double kept = level.getQuick(size - 1);
+      level.resetQuick();
+      level.add(kept);
+    } else {
+      level.resetQuick();
+    }
+  }
+
+  /**
+   * Same definition of quantile as <tt>G4Stat.quantile(sortedData, phi)</tt>,
+   * with each retained item standing for <tt>2<sup>level</sup></tt> samples.
+   */
+  public double quantile(final double phi) {
+    if (count == 0) {
+      return 0.0;
+    }
+    if (phi <= 0) {
+      return min;
+    }
+    if (phi >= 1) {
+      return max;
+    }
+
+    final Weighted sorted = sorted();
+
+    final double index = phi * (count - 1);
+    final long lhs = (long) index;
+    final double delta = index - lhs;
+
+    final double lhsItem = sorted.itemAt(lhs);
+    if (lhs == count - 1) {
+      return lhsItem;
+    }
+    return (1 - delta) * lhsItem + delta * sorted.itemAt(lhs + 1);
+  }
+
+  public double median() {
+    return quantile(0.5);
+  }
+
+  public TDoubleArrayList quantiles(TDoubleArrayList percentages) {
+    final TDoubleArrayList result = new TDoubleArrayList(percentages.size());
+    for (int i = 0; i < percentages.size(); i++) {
+      result.add(quantile(percentages.getQuick(i)));
+    }
+    return result;
+  }
+
+  protected Weighted sorted() {
+    int retained = 0;
+    for (TDoubleArrayList level : levels) {
+      retained += level.size();
+    }
+
+    final double[][] sortedLevels = new double[levels.size()][];
+    for (int h = 0; h < levels.size(); h++) {
+      sortedLevels[h] = levels.get(h).toNativeArray();
+      Arrays.sort(sortedLevels[h]);
+    }
+
+    final Weighted res = new Weighted(retained);
+    final int[] heads = new int[sortedLevels.length];
+    for (int pos = 0; pos < retained; pos++) {
+      int minLevel = -1;
+      for (int h = 0; h < sortedLevels.length; h++) {
+        if (heads[h] < sortedLevels[h].length) {
+          if (minLevel < 0 || sortedLevels[h][heads[h]] < sortedLevels[minLevel][heads[minLevel]]) {
+            minLevel = h;
+          }
+        }
+      }
+      res.items[pos] = sortedLevels[minLevel][heads[minLevel]++];
+      res.cumulative[pos] = (pos > 0 ? res.cumulative[pos - 1] : 0) + (1L << minLevel);
+    }
+
+    return res;
+  }
+
+  protected static class Weighted {
+    protected final double[] items;
+    protected final long[] cumulative;
+
+    protected Weighted(final int size) {
+      items = new double[size];
+      cumulative = new long[size];
+    }
+
+    protected double itemAt(final long rank) {
+      int lo = 0;
+      int hi = cumulative.length - 1;
+      while (lo < hi) {
+        final int mid = (lo + hi) >>> 1;
+        if (cumulative[mid] > rank) {
+          hi = mid;
+        } else {
+          lo = mid + 1;
+        }
+      }
+      return items[lo];
+    }
+  }
+
+  public String toString() {
+    return "QuantileSketch[n=" + count + ", k=" + k + ", levels=" + levels.size() + "]";
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.holonet.exp.probe;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear latency histogram, in the spirit of HDR histograms:
+ *   values under 16 get exact buckets, then each power of two is split
+ *   into 16 sub-buckets, which keeps the relative error under 1/16.
+ * <p/>
+ * Count and total are striped over cache-line-padded cells by thread,
+ * so concurrent recorders rarely contend on the same word.
+ */
+public class Histogram {
+  protected static final int SUB_BITS = 4;
+  protected static final int SUB_COUNT = 1 << SUB_BITS;
+  protected static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT + SUB_COUNT;
+
+  protected static final int STRIPES = 8;
+  //  two longs per stripe padded to 64 bytes
+  protected static final int PAD = 8;
+
+  protected final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  protected final AtomicLongArray cells = new AtomicLongArray(STRIPES * PAD);
+
+  public void record(final long nanos) {
+    final long value = nanos < 0 ? 0 : nanos;
+    buckets.incrementAndGet(bucket(value));
+
+    final int cell = stripe() * PAD;
+    cells.incrementAndGet(cell);
+    cells.addAndGet(cell + 1, value);
+  }
+
+  /**
+   * Zeroes all the counters in place, samples recorded concurrently may be partially kept.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets.set(i, 0);
+    }
+    for (int i = 0; i < cells.length(); i++) {
+      cells.set(i, 0);
+    }
+  }
+
+  public long getCount() {
+    long count = 0;
+    for (int stripe = 0; stripe < STRIPES; stripe++) {
+      count += cells.get(stripe * PAD);
+    }
+    return count;
+  }
+
+  public long getTotal() {
+    long total = 0;
+    for (int stripe = 0; stripe < STRIPES; stripe++) {
+      total += cells.get(stripe * PAD + 1);
+    }
+    return total;
+  }
+
+  /**
+   * @param quantile in [0, 1]
+   * @return midpoint of the bucket holding the quantile, zero if nothing was recorded
+   */
+  public long quantile(final double quantile) {
+    long count = 0;
+    final long[] snapshot = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = buckets.get(i);
+      count += snapshot[i];
+    }
+    if (count == 0) {
+      return 0;
+    }
+
+    final long rank = Math.max(1, (long) Math.ceil(quantile * count));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return midpoint(i);
+      }
+    }
+
+    return midpoint(BUCKETS - 1);
+  }
+
+  protected static int bucket(final long value) {
+    if (value < SUB_COUNT) {
+      return (int) value;
+    }
+    final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    return (shift + 1) * SUB_COUNT + (int) (value >>> shift) - SUB_COUNT;
+  }
+
+  protected static long lowest(final int bucket) {
+    if (bucket < SUB_COUNT) {
+      return bucket;
+    }
+    final int shift = bucket / SUB_COUNT - 1;
+    return (long) (bucket % SUB_COUNT + SUB_COUNT) << shift;
+  }
+
+  protected static long midpoint(final int bucket) {
+    if (bucket < SUB_COUNT) {
+      return bucket;
+    }
+    final int shift = bucket / SUB_COUNT - 1;
+    return lowest(bucket) + ((1L << shift) >>> 1);
+  }
+
+  protected static int stripe() {
+    final long id = Thread.currentThread().getId();
+    return (int) ((id ^ (id >>> 3)) & (STRIPES - 1));
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.holonet.exp.probe;
+
+/**
+ * Named timer of some hot-path stage, obtained via {@link Probes#probe(String)}.
+ * <p/>
+ * Usage: <code>final long start = Probes.start(); ... PROBE.stop(start);</code>,
+ *   with disabled probes start is zero and stop returns right away.
+ */
+public class Probe {
+  protected final String name;
+  protected final Histogram global = new Histogram();
+
+  protected Probe(final String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return all the samples since start or last {@link Probes#reset()}, over all threads
+   */
+  public Histogram getGlobal() {
+    return global;
+  }
+
+  protected void reset() {
+    global.reset();
+  }
+
+  public void stop(final long start) {
+    if (start == 0) {
+      return;
+    }
+
+    record(System.nanoTime() - start);
+  }
+
+  public void record(final long nanos) {
+    global.record(nanos);
+
+    final Probes.Scope scope = Probes.scope();
+    if (scope != null) {
+      scope.histogram(name).record(nanos);
+    }
+  }
+}
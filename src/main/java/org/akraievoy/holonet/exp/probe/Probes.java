@@ -0,0 +1,157 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.holonet.exp.probe;
+
+import org.akraievoy.base.Format;
+
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of hot-path probes: per-stage call counts and latency histograms.
+ * <p/>
+ * Probes are off unless <code>-Dholonet.probes=true</code> is given
+ *   or {@link #setEnabled(boolean)} is called, and then cost a single volatile read per call.
+ * <p/>
+ * Samples go to process-wide histograms and, if a scope is open on the recording thread,
+ *   to the scope as well: that is how samples are attributed to a param space position.
+ *   Work handed over to other threads is only seen by the process-wide histograms.
+ */
+public class Probes {
+  private static volatile boolean enabled = Boolean.getBoolean("holonet.probes");
+
+  private static final ConcurrentMap<String, Probe> probes =
+      new ConcurrentHashMap<String, Probe>();
+  private static final ThreadLocal<Scope> scopes = new ThreadLocal<Scope>();
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  public static void setEnabled(final boolean enabled) {
+    Probes.enabled = enabled;
+  }
+
+  public static Probe probe(final String name) {
+    final Probe probe = probes.get(name);
+    if (probe != null) {
+      return probe;
+    }
+
+    final Probe created = new Probe(name);
+    final Probe existing = probes.putIfAbsent(name, created);
+    return existing != null ? existing : created;
+  }
+
+  /**
+   * @return start timestamp, or zero if probes are disabled
+   */
+  public static long start() {
+    if (!enabled) {
+      return 0;
+    }
+
+    final long start = System.nanoTime();
+    //  zero is reserved for disabled probes
+    return start != 0 ? start : 1;
+  }
+
+  /**
+   * Same as <code>probe(name).stop(start)</code>, but without the name lookup for disabled probes.
+   */
+  public static void stop(final String name, final long start) {
+    if (start == 0) {
+      return;
+    }
+
+    probe(name).stop(start);
+  }
+
+  public static void openScope() {
+    scopes.set(new Scope());
+  }
+
+  /**
+   * @return samples recorded on this thread since {@link #openScope()}, null if no scope was open
+   */
+  public static Scope closeScope() {
+    final Scope scope = scopes.get();
+    scopes.remove();
+    return scope;
+  }
+
+  protected static Scope scope() {
+    return scopes.get();
+  }
+
+  public static SortedMap<String, Probe> snapshot() {
+    return Collections.unmodifiableSortedMap(new TreeMap<String, Probe>(probes));
+  }
+
+  /**
+   * Clears samples of all the probes, those stay registered:
+   *   call sites keep the probes they obtained once, see {@link #probe(String)}.
+   */
+  public static void reset() {
+    for (Probe probe : probes.values()) {
+      probe.reset();
+    }
+  }
+
+  public static String report() {
+    final StringBuilder report = new StringBuilder();
+    for (Probe probe : snapshot().values()) {
+      final Histogram h = probe.getGlobal();
+      report.append(
+          String.format(
+              "%s: %d calls, %s ms total, p50 %d ns, p99 %d ns%n",
+              probe.getName(),
+              h.getCount(),
+              Format.format2(h.getTotal() / 1e6),
+              h.quantile(0.5),
+              h.quantile(0.99)
+          )
+      );
+    }
+    return report.toString();
+  }
+
+  /**
+   * Thread-confined samples of a single param space position.
+   */
+  public static class Scope {
+    protected final SortedMap<String, Histogram> histograms = new TreeMap<String, Histogram>();
+
+    protected Histogram histogram(final String name) {
+      Histogram histogram = histograms.get(name);
+      if (histogram == null) {
+        histogram = new Histogram();
+        histograms.put(name, histogram);
+      }
+      return histogram;
+    }
+
+    public SortedMap<String, Histogram> getHistograms() {
+      return Collections.unmodifiableSortedMap(histograms);
+    }
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single pool of daemon threads, sized to the cores, for all the parallel parts of the code.
+ * <p/>
+ * Tasks fanned out from a pooled thread run inline, so parallel parts may call each other freely.
+ * Experiment runs which are parallel themselves are wrapped with {@link #runOuter(Runnable)},
+ *   then each of those fans out only to its share of the cores, see {@link #parallelism()}.
+ */
+public class Workers {
+  private Workers() { /* sealed */ }
+
+  public static final int CORES = Runtime.getRuntime().availableProcessors();
+
+  private static final ThreadLocal<Boolean> pooled = new ThreadLocal<Boolean>();
+  private static final ThreadLocal<Boolean> outer = new ThreadLocal<Boolean>();
+  private static final AtomicInteger outerActive = new AtomicInteger();
+
+  private static final ExecutorService executor = Executors.newFixedThreadPool(
+      CORES,
+      new ThreadFactory() {
+        private final AtomicInteger threadNum = new AtomicInteger();
+
+        public Thread newThread(final Runnable r) {
+          final Thread thread = new Thread(
+              new Runnable() {
+                public void run() {
+                  pooled.set(Boolean.TRUE);
+                  r.run();
+                }
+              },
+              "Workers-" + threadNum.incrementAndGet()
+          );
+          thread.setDaemon(true);
+          return thread;
+        }
+      }
+  );
+
+  /**
+   * @return number of tasks worth fanning out to from the current thread, one means running inline
+   */
+  public static int parallelism() {
+    if (pooled.get() != null) {
+      return 1;
+    }
+
+    if (outer.get() != null) {
+      return Math.max(1, CORES / Math.max(1, outerActive.get()));
+    }
+
+    return CORES;
+  }
+
+  /**
+   * Marks the current thread as running one of the parallel experiment runs for the duration.
+   */
+  public static void runOuter(final Runnable run) {
+    if (outer.get() != null) {
+      run.run();
+      return;
+    }
+
+    outer.set(Boolean.TRUE);
+    outerActive.incrementAndGet();
+    try {
+      run.run();
+    } finally {
+      outerActive.decrementAndGet();
+      outer.remove();
+    }
+  }
+
+  public static void runAll(final String what, final List<? extends Runnable> tasks) {
+    final List<Callable<Object>> callables = new ArrayList<Callable<Object>>(tasks.size());
+    for (Runnable task : tasks) {
+      callables.add(Executors.callable(task));
+    }
+
+    invokeAll(what, callables);
+  }
+
+  /**
+   * Runs the tasks on the pool, or inline if there's one task or no parallelism left.
+   *
+   * @param what is done by the tasks, for the error messages
+   * @return task results, in the order of tasks
+   */
+  public static <T> List<T> invokeAll(final String what, final List<? extends Callable<T>> tasks) {
+    final List<T> results = new ArrayList<T>(tasks.size());
+
+    if (tasks.size() <= 1 || parallelism() == 1) {
+      for (Callable<T> task : tasks) {
+        try {
+          results.add(task.call());
+        } catch (RuntimeException e) {
+          throw e;
+        } catch (Exception e) {
+          throw new IllegalStateException("failed while " + what, e);
+        }
+      }
+      return results;
+    }
+
+    final List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+    for (Callable<T> task : tasks) {
+      futures.add(executor.submit(task));
+    }
+
+    try {
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while " + what, e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("failed while " + what, e.getCause());
+    }
+
+    return results;
+  }
+}
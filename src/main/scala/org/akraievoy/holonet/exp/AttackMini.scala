@@ -18,9 +18,9 @@
 
 package org.akraievoy.holonet.exp
 
-import org.akraievoy.cnet.net.vo.{EdgeDataFactory, EdgeData}
+import org.akraievoy.cnet.net.vo.{EdgeDataEuclidean, EdgeDataFactory, EdgeData}
 import java.util.Random
-import scala.math.{pow, sqrt, floor}
+import scala.math.{pow, floor}
 import org.akraievoy.cnet.gen.vo.{EntropySourceRandom, WeightedEventModelBase}
 import com.google.common.base.Optional
 import org.akraievoy.cnet.net.Net.{toId, toFrom, toInto, eClone}
@@ -52,30 +52,22 @@ object AttackMini extends App {
       val locX: Array[Double] = range.map(i => (i + .0) / size + locRng.nextDouble() / size).toArray
       val locY: Array[Double] = range.map(i => locRng.nextDouble()).toArray
 
-      val dist: EdgeData = EdgeDataFactory.dense(true, 0, size)
+      val dist: EdgeData = new EdgeDataEuclidean(locX, locY)
       val distRef: RefObject[EdgeData] = new RefObject(dist)
-      for (f <- range; t <- range if f < t) {
-        dist.set(f, t, sqrt(pow(locX(f) - locX(t), 2) + pow(locY(f) - locY(t), 2)))
-      }
 
       val links: EdgeData = EdgeDataFactory.sparse(true, 0, size)
       val linksRef: RefObject[EdgeData] = new RefObject(links)
       val linkModel = new WeightedEventModelBase(Optional.of("linkModel"))
 
       val lambdaMetric = new MetricScalarEigenGap()
-      val routeLenMetric: MetricEDataRouteLen = new MetricEDataRouteLen(
-        new MetricRoutesJohnson().configure(linksRef, distRef)
-      )
-      val effMetric = new MetricScalarEffectiveness()
-      val connMetric = new MetricScalarConnectedness()
+      val reduceMetric = new MetricScalarRouteReduce()
 
       val linkESource = new EntropySourceRandom().seed(linkRngSeed + linkStruct)
       initLinks(powExp, distExp, linkESource, dist, links, linkModel)
 
       val lambdaInit = Metric.fetch(lambdaMetric.configure(linksRef))
-      val routeLen = Metric.fetch(routeLenMetric)
-      val effInit = Metric.fetch(effMetric.configure(new RefObject(routeLen), new RefObject[EdgeData](null)))
-      val connInit = Metric.fetch(connMetric.configure(new RefObject(routeLen), false))
+      val effInit = Metric.fetch(reduceMetric.configure(linksRef, distRef, new RefObject[EdgeData](null)))
+      val connInit = reduceMetric.getConnectednessTarget.getValue
 
       for (a <- 0 until attackNum) {
         performAttack(a, eClone(links)) {
@@ -83,17 +75,14 @@ object AttackMini extends App {
             val linksCompactRef = new RefObject(compact(linksAttack, lambdaIndex))
             val distCompactRef = new RefObject(compact(dist, lambdaIndex))
             val lambdaAttack = Metric.fetch(lambdaMetric.configure(linksCompactRef))
-            val routeLenMetricAttack = new MetricEDataRouteLen(
-              new MetricRoutesJohnson().configure(linksCompactRef, distCompactRef)
-            )
-            val routeLenAttack = Metric.fetch(routeLenMetricAttack)
             val effAttack = Metric.fetch(
-              effMetric.configure(
-                new RefObject(routeLenAttack),
+              reduceMetric.configure(
+                linksCompactRef,
+                distCompactRef,
                 new RefObject[EdgeData](null)
               )
             )
-            val connAttack = Metric.fetch(connMetric.configure(new RefObject(routeLenAttack), false))
+            val connAttack = reduceMetric.getConnectednessTarget.getValue
 
             println(
               Seq(
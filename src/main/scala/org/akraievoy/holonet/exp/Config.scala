@@ -36,26 +36,15 @@ case class Config(
     }
   }
 
-  def spacePosStreams(
+  def spacePosIndex(
     chained: Boolean,
     expIndex: Int
-  ): Map[Boolean, Stream[Seq[ParamPos]]] = {
-    val posSeqMap = spacePosAxis(chained).mapValues{
-      paramSeq => paramSeq.map(_.toPosSeq(chained, expIndex))
-    }
-
-    posSeqMap.mapValues{
-      posSeq => posSeq.foldLeft(SPACE_EMPTY) {
-      (seqSeq, seq) =>
-        for (
-          posSeq <- seqSeq.toStream;
-          pos <- seq
-        ) yield {
-          posSeq :+ pos
-        }
-      }
-    }.withDefaultValue(SPACE_EMPTY)
-
+  ): Map[Boolean, SpaceIndex] = {
+    spacePosAxis(chained).mapValues{
+      paramSeq => new SpaceIndex(
+        paramSeq.map(_.toPosSeq(chained, expIndex).toIndexedSeq)
+      )
+    }.withDefaultValue(SpaceIndex.EMPTY)
   }
 
   def spacePosCount(
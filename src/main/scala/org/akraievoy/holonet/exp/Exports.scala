@@ -2,9 +2,10 @@ package org.akraievoy.holonet.exp
 
 import store.{FileSystem, ExperimentStore}
 import java.text.{DecimalFormat, NumberFormat}
-import org.akraievoy.cnet.net.vo.{StoreUtils, EdgeData, VertexData}
+import org.akraievoy.cnet.net.vo.{EdgeListCodec, StoreUtils, EdgeData, VertexData}
 import java.io._
 import com.google.common.io.ByteStreams
+import gnu.trove.TIntArrayList
 import scala.Some
 import org.slf4j.LoggerFactory
 import org.akraievoy.holonet.exp.space.ParamSpaceNav
@@ -13,68 +14,130 @@ import scala.collection.BitSet
 trait Exports extends ParamSpaceNav {
   private val log = LoggerFactory.getLogger(classOf[RegistryData])
 
+  /**
+   * Rows are rendered in parallel, chunk by chunk, and written out in position order,
+   *   numeric params of the stores are read straight from their columns, with tab separator output is TSV.
+   *
+   * @param incremental append only the rows of positions not yet exported
+   */
   def exportPrimitives(
     expStore: ExperimentStore,
     subchain: Seq[Registry.ExpConfPair],
     requiredIndexes: BitSet,
     fs: FileSystem,
     primitives: Seq[ParamName[_]],
-    exportName: String = "primitives"
+    exportName: String = "primitives",
+    separator: String = ";",
+    incremental: Boolean = false
   ) {
     val axisSorted = spaceAxis(subchain, requiredIndexes).sortBy(_.name)
     val primitivesSorted = primitives.sortBy(_.name)
-    val primitiveExport =
-      Stream(
-        Seq("spacePos") ++
-          axisSorted.map(_.name) ++
-          primitivesSorted.map(_.name)
-      ) ++ spacePosMap(
+    val readers =
+      axisSorted.map(p => expStore.reader(p.name)(p.mt)) ++
+        primitivesSorted.map(pn => expStore.reader(pn.name)(pn.mt))
+
+    val fName = "export/%s.%s".format(exportName, if (separator == "\t") "tsv" else "csv")
+    val appending = incremental && fs.fileForUid(expStore.uid, fName).isFile
+    val marks = expStore.exportMarks(fName, !appending)
+    val out =
+      if (appending) {
+        fs.openAppendCSV(expStore.uid, fName)
+      } else {
+        fs.openDumpCSV(expStore.uid, fName)
+      }
+    try {
+      if (!appending) {
+        out.println(
+          fs.csvLine(
+            Seq("spacePos") ++ axisSorted.map(_.name) ++ primitivesSorted.map(_.name),
+            separator
+          )
+        )
+      }
+      spacePosMapChunked[Option[(Long, String)]](
         subchain, requiredIndexes, expStore, {
           runStore =>
-            val rowSeq = Seq[Option[Any]](Some(runStore.posNumber)) ++
-                axisSorted.map(p => expStore.get(p.name, runStore.spacePos, runStore.posNumbers)(p.mt)) ++
-                primitivesSorted.map{
-                  pn =>
-                    expStore.get(pn.name, runStore.spacePos, runStore.posNumbers)(pn.mt)
-                }
-            rowSeq.map(elem => elem.map(String.valueOf).getOrElse(""))
-        }, false
+            if (appending && marks.read(runStore.posNumber).isDefined) {
+              None
+            } else {
+              val row = new StringBuilder()
+              row.append(runStore.posNumber)
+              readers.foreach {
+                reader =>
+                  row.append(separator)
+                  reader(runStore.spacePos, runStore.posNumbers).foreach {
+                    value => row.append(String.valueOf(value))
+                  }
+              }
+              Some((runStore.posNumber, row.toString()))
+            }
+        }, {
+          rows =>
+            val rendered = rows.flatten
+            rendered.foreach {
+              case (posNum, row) => out.println(row)
+            }
+            out.flush()
+            if (out.checkError()) {
+              throw new IOException(
+                "failed to export %s of %s".format(exportName, expStore.uid.dirName)
+              )
+            }
+            //  marking only the rows flushed already
+            rendered.foreach {
+              case (posNum, row) => marks.write(posNum, 1)
+            }
+        }
       )
+    } finally {
+      out.close()
+      marks.seal()
+    }
+    if (out.checkError()) {
+      throw new IOException(
+        "failed to export %s of %s".format(exportName, expStore.uid.dirName)
+      )
+    }
+  }
 
-    fs.dumpCSV(
-      expStore.uid,
-      "export/%s.csv".format(exportName),
-      Map.empty
-    )(primitiveExport)
+  //  formats are not thread-safe, and positions are exported in parallel
+  private val nfLocal = new ThreadLocal[NumberFormat] {
+    override def initialValue() = new DecimalFormat("0.##")
   }
 
-  private val nf: NumberFormat = new DecimalFormat("0.##")
+  private def nf = nfLocal.get
 
   private def rangeVData(vData: VertexData) = {
-    val range = (0 until vData.getSize).foldLeft(
-      (Double.PositiveInfinity, Double.NegativeInfinity)
-    ) {
-      case ((min0, max0), index) =>
-        val elem = vData.get(index)
-        (min0 min elem, max0 max elem)
+    var min = Double.PositiveInfinity
+    var max = Double.NegativeInfinity
+    var index = 0
+    while (index < vData.getSize) {
+      val elem = vData.get(index)
+      min = min min elem
+      max = max max elem
+      index += 1
     }
-    range
+    (min, max)
   }
 
+  /**
+   * Single pass over the non-default elements, default one counts only if some cell has it.
+   */
   private def rangeEData(eData: EdgeData) = {
-    val size = eData.getSize
-    val elems = for (
-      f <- 0 until size;
-      t <- 0 until size
-    ) yield {
-      eData.get(f,t)
-    }
-    elems.foldLeft(
-      (Double.PositiveInfinity, Double.NegativeInfinity)
-    ) {
-      case ((min0, max0), elem) =>
-        (min0 min elem, max0 max elem)
+    var min = Double.PositiveInfinity
+    var max = Double.NegativeInfinity
+    eData.visitNonDef(new EdgeData.EdgeVisitor {
+      def visit(from: Int, into: Int, e: Double) {
+        min = min min e
+        max = max max e
+      }
+    })
+    val size = eData.getSize.toLong
+    if (eData.getNonDefCount < size * size) {
+      min = min min eData.getDefElem
+      max = max max eData.getDefElem
     }
+    (min, max)
   }
 
   private def normalize(range: Pair[Double, Double])(v: Double) = {
@@ -105,19 +168,27 @@ trait Exports extends ParamSpaceNav {
 
   val fullPathToDot = "/usr/bin/dot"
 
+  /**
+   * Positions are exported in parallel, each dot file is written as it's rendered.
+   *
+   * @param incremental skip positions exported already
+   */
   def exportGraphvis(
     expStore: ExperimentStore,
     subchain: Seq[Registry.ExpConfPair],
     requiredIndexes: BitSet,
-    fs: FileSystem
+    fs: FileSystem,
+    incremental: Boolean = false
   ) {
     val graphvisExecutable = new File(fullPathToDot).isFile
 
     expStore.experiment.graphvisExports.foreach{
       case (exportName, export) =>
-        spacePosMap(
+        val exportDir = "export/graphviz_%s".format(exportName)
+        val marks = expStore.exportMarks(exportDir, !incremental)
+        spacePosForeach(
           subchain, requiredIndexes, expStore, {
-            rs => try {
+            rs => if (!incremental || marks.read(rs.posNumber).isEmpty) try {
               val structureRef = export.edgeStructure(rs)
               Option(structureRef.getValue).map{
                 structure =>
@@ -131,184 +202,180 @@ trait Exports extends ParamSpaceNav {
                         3
                       }
                     )
-                  val out = new StringWriter()
-                  val p = new PrintWriter(out)
-
-                  val (graphToken, linkToken) = if (structure.isSymmetric) {
-                    ("graph", "--")
-                  } else {
-                    ("digraph", "->")
-                  }
+                  val fileName = "%s.dot".format(rs.posNumber)
+                  val filePath = "%s/%s".format(exportDir, fileName)
+                  val p = fs.openDump(expStore.uid, filePath)
+                  try {
+                    val (graphToken, linkToken) = if (structure.isSymmetric) {
+                      ("graph", "--")
+                    } else {
+                      ("digraph", "->")
+                    }
 
-                  val optVertexCoords = for (
-                    refX <- export.vertexCoordX(rs);
-                    refY <- export.vertexCoordY(rs);
-                    xData <- Option(refX.getValue);
-                    yData <- Option(refY.getValue)
-                  ) yield {
-                    (xData, yData)
-                  }
-                  val optVertexRadiusRange = for (
-                    refVertexRadius <- export.vertexRadius(rs);
-                    vertexRadius <- Option(refVertexRadius.getValue)
-                  ) yield {
-                    (vertexRadius, rangeVData(vertexRadius))
-                  }
-                  val optVertexColorRange = for (
-                    refVertexColor <- export.vertexColor(rs);
-                    vertexColor <- Option(refVertexColor.getValue)
-                  ) yield {
-                     (vertexColor, rangeVData(vertexColor))
-                  }
-                  val optVertexLabel = for (
-                    refVertexLabel <- export.vertexLabel(rs);
-                    vertexLabel <- Option(refVertexLabel.getValue)
-                  ) yield {
-                    vertexLabel
-                  }
+                    val optVertexCoords = for (
+                      refX <- export.vertexCoordX(rs);
+                      refY <- export.vertexCoordY(rs);
+                      xData <- Option(refX.getValue);
+                      yData <- Option(refY.getValue)
+                    ) yield {
+                      (xData, yData)
+                    }
+                    val optVertexRadiusRange = for (
+                      refVertexRadius <- export.vertexRadius(rs);
+                      vertexRadius <- Option(refVertexRadius.getValue)
+                    ) yield {
+                      (vertexRadius, rangeVData(vertexRadius))
+                    }
+                    val optVertexColorRange = for (
+                      refVertexColor <- export.vertexColor(rs);
+                      vertexColor <- Option(refVertexColor.getValue)
+                    ) yield {
+                       (vertexColor, rangeVData(vertexColor))
+                    }
+                    val optVertexLabel = for (
+                      refVertexLabel <- export.vertexLabel(rs);
+                      vertexLabel <- Option(refVertexLabel.getValue)
+                    ) yield {
+                      vertexLabel
+                    }
 
-                  val optEdgeLabel = for (
-                    refEdgeLabel <- export.edgeLabel(rs);
-                    edgeLabel <- Option(refEdgeLabel.getValue)
-                  ) yield {
-                    edgeLabel
-                  }
-                  val optEdgeWidthRange = for (
-                    refEdgeWidth <- export.edgeWidth(rs);
-                    edgeWidth <- Option(refEdgeWidth.getValue)
-                  ) yield {
-                    (edgeWidth, rangeEData(edgeWidth))
-                  }
-                  val optEdgeColorRange = for (
-                    refEdgeColor <- export.edgeColor(rs);
-                    edgeColor <- Option(refEdgeColor.getValue)
-                  ) yield {
-                    (edgeColor, rangeEData(edgeColor))
-                  }
+                    val optEdgeLabel = for (
+                      refEdgeLabel <- export.edgeLabel(rs);
+                      edgeLabel <- Option(refEdgeLabel.getValue)
+                    ) yield {
+                      edgeLabel
+                    }
+                    val optEdgeWidthRange = for (
+                      refEdgeWidth <- export.edgeWidth(rs);
+                      edgeWidth <- Option(refEdgeWidth.getValue)
+                    ) yield {
+                      (edgeWidth, rangeEData(edgeWidth))
+                    }
+                    val optEdgeColorRange = for (
+                      refEdgeColor <- export.edgeColor(rs);
+                      edgeColor <- Option(refEdgeColor.getValue)
+                    ) yield {
+                      (edgeColor, rangeEData(edgeColor))
+                    }
 
-                  p.println("%s %s {".format(graphToken, rs.posNumber))
-                  p.println(
-                    """  size="%s,%s!"; ratio="fill"; splines="true"; bgcolor="#99CCFF";
-                      |  node [fixedsize=true, fontsize=%d, style=filled,
-                      |          shape="circle", colorscheme="%s"];
-                      |  edge [colorscheme="%s"];
-                      | """.stripMargin.format(
-                    nf.format(pageFullSize(pageSize) * pointToInch),
-                    nf.format(pageFullSize(pageSize) * pointToInch),
-                    nodeFont,
-                    export.vertexColorScheme.toString,
-                    export.edgeColorScheme.toString
-                  ))
-
-                  val size = structure.getSize
-                  for (
-                    nodeIdx <- 0 until size
-                  ) yield {
-                    val nodeAttrs = Seq.empty[String] ++
-                      optVertexCoords.map{
-                        case (coordX, coordY) =>
-                          val (pagePosX, pagePosY) = locToPagePos(pageSize)(
-                            coordX.get(nodeIdx),
-                            coordY.get(nodeIdx)
-                          )
-                          "pos=\"%s,%s\"".format(
-                            nf.format(pagePosX),
-                            nf.format(pagePosY)
-                          )
-                      }.toSeq ++
-                      optVertexRadiusRange.map{
-                        case (radius, range) =>
-                          val r_0_1 = normalize(range)(
-                            radius.get(nodeIdx)
-                          )
-                          "width=%s".format(
-                            nf.format(
-                              (
-                                nodeSizeMin + r_0_1*(nodeSizeMax-nodeSizeMin)
-                              ) * pointToInch
+                    p.println("%s %s {".format(graphToken, rs.posNumber))
+                    p.println(
+                      """  size="%s,%s!"; ratio="fill"; splines="true"; bgcolor="#99CCFF";
+                        |  node [fixedsize=true, fontsize=%d, style=filled,
+                        |          shape="circle", colorscheme="%s"];
+                        |  edge [colorscheme="%s"];
+                        | """.stripMargin.format(
+                      nf.format(pageFullSize(pageSize) * pointToInch),
+                      nf.format(pageFullSize(pageSize) * pointToInch),
+                      nodeFont,
+                      export.vertexColorScheme.toString,
+                      export.edgeColorScheme.toString
+                    ))
+
+                    val size = structure.getSize
+                    for (
+                      nodeIdx <- 0 until size
+                    ) {
+                      val nodeAttrs = Seq.empty[String] ++
+                        optVertexCoords.map{
+                          case (coordX, coordY) =>
+                            val (pagePosX, pagePosY) = locToPagePos(pageSize)(
+                              coordX.get(nodeIdx),
+                              coordY.get(nodeIdx)
                             )
-                          )
-                      }.toSeq ++
-                      optVertexColorRange.map{
-                        case (color, range) =>
-                          val color_1_11 = 1 + math.round(10 * normalize(range)(
-                            color.get(nodeIdx)
-                          ))
-                          "fillcolor=\"%d\"".format(12 - color_1_11)
-                      }.toSeq :+
-                      "label=\"%s\"".format(
-                        optVertexLabel.map{
-                          vertexLabel =>
-                            nf.format(vertexLabel.get(nodeIdx))
-                        }.getOrElse {
-                          "%d".format(nodeIdx)
-                        }
+                            "pos=\"%s,%s\"".format(
+                              nf.format(pagePosX),
+                              nf.format(pagePosY)
+                            )
+                        }.toSeq ++
+                        optVertexRadiusRange.map{
+                          case (radius, range) =>
+                            val r_0_1 = normalize(range)(
+                              radius.get(nodeIdx)
+                            )
+                            "width=%s".format(
+                              nf.format(
+                                (
+                                  nodeSizeMin + r_0_1*(nodeSizeMax-nodeSizeMin)
+                                ) * pointToInch
+                              )
+                            )
+                        }.toSeq ++
+                        optVertexColorRange.map{
+                          case (color, range) =>
+                            val color_1_11 = 1 + math.round(10 * normalize(range)(
+                              color.get(nodeIdx)
+                            ))
+                            "fillcolor=\"%d\"".format(12 - color_1_11)
+                        }.toSeq :+
+                        "label=\"%s\"".format(
+                          optVertexLabel.map{
+                            vertexLabel =>
+                              nf.format(vertexLabel.get(nodeIdx))
+                          }.getOrElse {
+                            "%d".format(nodeIdx)
+                          }
+                        )
+
+                      p.println(
+                        "    n%s [%s];".format(nodeIdx, nodeAttrs.mkString(", "))
                       )
+                    }
 
-                    p.println(
-                      "    n%s [%s];".format(nodeIdx, nodeAttrs.mkString(", "))
-                    )
-                  }
-
-                  for (
-                    fromIdx <- 0 until size;
-                    toIdx <- (if (structure.isSymmetric) {
-                      fromIdx
-                    } else {
-                      0
-                    }) until size if structure.conn(fromIdx, toIdx)
-                  ) yield {
-                    val edgeAttrs = Seq.empty[String] ++
-                      optEdgeLabel.map{
-                        edgeLabel =>
-                          "xlabel=\"%s\"".format(
-                            nf.format(edgeLabel.get(fromIdx, toIdx))
-                          )
-                      }.toSeq ++
-                      optEdgeWidthRange.map{
-                        case (width, range) =>
-                          val w = normalize(range)(
-                            width.get(fromIdx, toIdx)
-                          )
-                          "penwidth=\"%s\"".format(
-                            nf.format(
-                              (edgeSizeMin + w*(edgeSizeMax-edgeSizeMin))
+                    val conns = new TIntArrayList()
+                    for (fromIdx <- 0 until size) {
+                      conns.clear()
+                      structure.connVertexes(fromIdx, conns)
+                      conns.toNativeArray.filter {
+                        toIdx =>
+                          (!structure.isSymmetric || toIdx >= fromIdx) &&
+                            structure.conn(fromIdx, toIdx)
+                      }.foreach {
+                        toIdx =>
+                          val edgeAttrs = Seq.empty[String] ++
+                            optEdgeLabel.map{
+                              edgeLabel =>
+                                "xlabel=\"%s\"".format(
+                                  nf.format(edgeLabel.get(fromIdx, toIdx))
+                                )
+                            }.toSeq ++
+                            optEdgeWidthRange.map{
+                              case (width, range) =>
+                                val w = normalize(range)(
+                                  width.get(fromIdx, toIdx)
+                                )
+                                "penwidth=\"%s\"".format(
+                                  nf.format(
+                                    (edgeSizeMin + w*(edgeSizeMax-edgeSizeMin))
+                                  )
+                                )
+                            }.toSeq ++
+                            optEdgeColorRange.map{
+                              case (color, range) =>
+                                val color_1_11 = 1 + math.round(
+                                  10 * normalize(range)(
+                                    color.get(fromIdx,toIdx)
+                                  )
+                                )
+                                "color=\"%d\"".format(12 - color_1_11)
+                            }.toSeq
+
+                          p.println(
+                            "    n%s %s n%s [%s];".format(
+                              fromIdx, linkToken, toIdx,
+                              edgeAttrs.mkString(", ")
                             )
                           )
-                      }.toSeq ++
-                      optEdgeColorRange.map{
-                        case (color, range) =>
-                          val color_1_11 = 1 + math.round(
-                            10 * normalize(range)(
-                              color.get(fromIdx,toIdx)
-                            )
-                          )
-                          "color=\"%d\"".format(12 - color_1_11)
-                      }.toSeq
+                      }
+                    }
 
-                    p.println(
-                      "    n%s %s n%s [%s];".format(
-                        fromIdx, linkToken, toIdx,
-                        edgeAttrs.mkString(", ")
-                      )
-                    )
+                    p.println("}")
+                  } finally {
+                    p.close()
+                  }
+                  if (p.checkError()) {
+                    throw new IOException("failed to write '%s'".format(filePath))
                   }
-
-                  p.println("}")
-                  p.flush()
-                  p.close()
-
-                  val fileName = "%s.dot".format(rs.posNumber)
-                  val filePath =
-                    "export/graphviz_%s/%s".format(exportName, fileName)
-
-                  fs.appendBinary(
-                    expStore.uid,
-                    filePath,
-                    Map.empty
-                  )(
-                    new ByteArrayInputStream(out.toString.getBytes)
-                  )
 
                   val file = fs.fileForUid(expStore.uid, filePath)
 
@@ -335,10 +402,12 @@ trait Exports extends ParamSpaceNav {
                     }
                   }
               }
+              marks.write(rs.posNumber, 1)
         } catch {
           case e: Exception => log.warn("export failed for pos %s".format(rs.spacePos), e)
-        } }, false
+        } }
       )
+      marks.seal()
       log.info("GraphViz export {} completed", export.desc)
     }
   }
@@ -351,59 +420,107 @@ trait Exports extends ParamSpaceNav {
   ) = {
     expStore.experiment.storeExports.foreach{
       case (exportName, export) =>
-        val stores = export.paramNames
-        val axis = spaceAxis(subchain, requiredIndexes)
-        val storeExport =
-          Stream(
-            Seq("spacePos") ++ axis.map(_.name) ++ stores.map(_.name)
-          ) ++ spacePosMap(
-            subchain, requiredIndexes, expStore, {
-              runStore =>
-                val storeValues = stores.map(
-                  p =>
-                    expStore.get(p.name, runStore.spacePos, runStore.posNumbers)(p.mt).map {
-                      store =>
-                        for (pos <- 0 until store.size()) yield {
-                          StoreUtils.get(store, pos)
-                        }
-                    }
-                )
+        if (export.paramNames.nonEmpty) {
+          exportStoreColumns(expStore, subchain, requiredIndexes, fs, export)
+        }
+        if (export.edgeParamNames.nonEmpty) {
+          exportEdgeLists(expStore, subchain, requiredIndexes, fs, export)
+        }
+        log.info("Store export {} completed", export.desc)
+    }
+  }
 
-                val maxLen = storeValues.foldLeft(0){
-                  (l,optSeq) => optSeq.map(_.length max l).getOrElse(l)
-                }
-                val storeValuesRect = storeValues.map{
-                  _.map{
-                    valueSeq =>
-                      valueSeq.map(String.valueOf) ++ (valueSeq.length until maxLen).map {idx => ""}
-                  }.getOrElse{
-                    (0 until maxLen).map{idx => ""}
-                  }
+  private def exportStoreColumns(
+    expStore: ExperimentStore,
+    subchain: Seq[Registry.ExpConfPair],
+    requiredIndexes: BitSet,
+    fs: FileSystem,
+    export: StoreExport
+  ) {
+    val stores = export.paramNames
+    val axis = spaceAxis(subchain, requiredIndexes)
+    val storeExport =
+      Stream(
+        Seq("spacePos") ++ axis.map(_.name) ++ stores.map(_.name)
+      ) ++ spacePosMap(
+        subchain, requiredIndexes, expStore, {
+          runStore =>
+            val storeValues = stores.map(
+              p =>
+                expStore.get(p.name, runStore.spacePos, runStore.posNumbers)(p.mt).map {
+                  store =>
+                    for (pos <- 0 until store.size()) yield {
+                      StoreUtils.get(store, pos)
+                    }
                 }
+            )
+
+            val maxLen = storeValues.foldLeft(0){
+              (l,optSeq) => optSeq.map(_.length max l).getOrElse(l)
+            }
+            val storeValuesRect = storeValues.map{
+              _.map{
+                valueSeq =>
+                  valueSeq.map(String.valueOf) ++ (valueSeq.length until maxLen).map {idx => ""}
+              }.getOrElse{
+                (0 until maxLen).map{idx => ""}
+              }
+            }
 
-                val rowHeader =
-                  Seq[String](String.valueOf(runStore.posNumber)) ++
-                    axis.map(
-                      p =>
-                        expStore.get(p.name, runStore.spacePos, runStore.posNumbers)(p.mt).map(
-                          String.valueOf
-                        ).getOrElse("")
-                    )
+            val rowHeader =
+              Seq[String](String.valueOf(runStore.posNumber)) ++
+                axis.map(
+                  p =>
+                    expStore.get(p.name, runStore.spacePos, runStore.posNumbers)(p.mt).map(
+                      String.valueOf
+                    ).getOrElse("")
+                )
 
-                storeValuesRect.transpose.map {
-                  row =>
-                    rowHeader ++ row
-                }
-            }, false
-          ).flatten
+            storeValuesRect.transpose.map {
+              row =>
+                rowHeader ++ row
+            }
+        }, false
+      ).flatten
 
-        fs.dumpCSV(
-          expStore.uid,
-          "export/store_%s.csv".format(export.name),
-          Map.empty
-        )(storeExport)
+    fs.dumpCSV(
+      expStore.uid,
+      "export/store_%s.csv".format(export.name),
+      Map.empty
+    )(storeExport)
+  }
 
-        log.info("Store export {} completed", export.desc)
-    }
+  /**
+   * Edge data of each position is written to its own file as it's read, positions are exported in parallel.
+   */
+  private def exportEdgeLists(
+    expStore: ExperimentStore,
+    subchain: Seq[Registry.ExpConfPair],
+    requiredIndexes: BitSet,
+    fs: FileSystem,
+    export: StoreExport
+  ) {
+    spacePosForeach(
+      subchain, requiredIndexes, expStore, {
+        rs =>
+          export.edgeParamNames.foreach {
+            p =>
+              val filePath = "export/store_%s/%s/%s.edges".format(export.name, p.name, rs.posNumber)
+              try {
+                expStore.get(p.name, rs.spacePos, rs.posNumbers)(p.mt).foreach {
+                  eData =>
+                    val out = fs.openDumpBinary(expStore.uid, filePath)
+                    try {
+                      EdgeListCodec.write(eData, export.edgeWidth, out)
+                    } finally {
+                      out.close()
+                    }
+                }
+              } catch {
+                case e: IOException => log.warn("export failed for %s".format(filePath), e)
+              }
+          }
+      }
+    )
   }
 }
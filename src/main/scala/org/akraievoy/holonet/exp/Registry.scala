@@ -24,6 +24,8 @@ import java.io.File
 import org.slf4j.LoggerFactory
 import org.akraievoy.holonet.exp.space.ParamSpaceNav
 import scala.collection.BitSet
+import java.security.MessageDigest
+import org.akraievoy.holonet.exp.probe.Probes
 
 object Registry extends RegistryData with Exports with ParamSpaceNav {
   private val log = LoggerFactory.getLogger(classOf[RegistryData])
@@ -119,7 +121,38 @@ object Registry extends RegistryData with Exports with ParamSpaceNav {
     require(BitSet(pairs.size - 1), BitSet.empty)
   }
 
-  private def execute(expPairSeq: Seq[ExpConfPair]) = {
+  /**
+   * Digest of experiment and config definitions of the whole subchain,
+   *   so a stage matches only if all of its upstream stages match as well,
+   *   and of the upstream runs actually used, as those may have been re-run since.
+   */
+  private def fingerprint(
+    subchain: Seq[ExpConfPair],
+    runChain: Seq[ExperimentStore]
+  ): String = {
+    val digest = MessageDigest.getInstance("SHA-1")
+    subchain.foreach {
+      case (exp, conf) =>
+        val confStr = conf.params.values.toSeq.sortBy(_.name).map {
+          param =>
+            "%s:%s:%s:%s:%s".format(
+              param.name,
+              param.mt.erasure.getName,
+              param.valueSpec.mkString(","),
+              param.strategy,
+              param.chainStrategy
+            )
+        }.mkString("%s/%s{".format(exp.name, conf.name), ";", "}")
+        digest.update(confStr.getBytes("UTF-8"))
+    }
+    runChain.foreach {
+      upstream =>
+        digest.update("run:%s;".format(upstream.uid.dirName).getBytes("UTF-8"))
+    }
+    digest.digest().map(b => "%02x".format(b & 0xff)).mkString
+  }
+
+  private def execute(expPairSeq: Seq[ExpConfPair], resume: Boolean) = {
     val fs = new FileSystem(new File("data"))
     val registryStore = new RegistryStore(fs)
 
@@ -136,10 +169,25 @@ object Registry extends RegistryData with Exports with ParamSpaceNav {
           currentExpPair._2.name
         )
 
-        val currentUID = registryStore.registerRun(
-          currentExpPair._1.name,
-          currentExpPair._2.name
-        )
+        val stageFingerprint = fingerprint(subchain, runChain)
+        val prevRun =
+          if (resume) {
+            registryStore.findRun(
+              currentExpPair._1.name,
+              currentExpPair._2.name,
+              stageFingerprint
+            )
+          } else {
+            None
+          }
+
+        val currentUID = prevRun.map(_._1).getOrElse {
+          registryStore.registerRun(
+            currentExpPair._1.name,
+            currentExpPair._2.name,
+            stageFingerprint
+          )
+        }
 
         val expStore = new ExperimentStore(
           fs,
@@ -150,47 +198,88 @@ object Registry extends RegistryData with Exports with ParamSpaceNav {
           requiredIndexes
         )
 
-        spacePosMap(
-          subchain,
-          requiredIndexes,
-          expStore,
-          {
-            runStore =>
-              log.info(
-                "spacePos = {}",
-                ParamPos.seqToString(runStore.spacePos, requiredIndexes)
-              )
-              currentExpPair._1.executeFun(runStore)
+        if (prevRun.exists(_._2)) {
+          log.info("reusing complete run {}", currentUID.dirName)
+          expStore.lockWrites()
+        } else {
+          prevRun.foreach {
+            case (prevUID, complete) =>
+              log.info("resuming run {}", prevUID.dirName)
           }
-        )
 
-        log.info("write shutdown for {}", currentExpPair._1.name)
-        expStore.writeShutdown()
+          spacePosForeach(
+            subchain,
+            requiredIndexes,
+            expStore,
+            {
+              runStore =>
+                if (expStore.isDone(runStore.posNumber)) {
+                  log.debug(
+                    "spacePos = {} is complete",
+                    ParamPos.seqToString(runStore.spacePos, requiredIndexes)
+                  )
+                } else {
+                  log.info(
+                    "spacePos = {}",
+                    ParamPos.seqToString(runStore.spacePos, requiredIndexes)
+                  )
+                  if (Probes.isEnabled) {
+                    Probes.openScope()
+                    try {
+                      currentExpPair._1.executeFun(runStore)
+                    } finally {
+                      expStore.storeProbes(
+                        Probes.closeScope(), runStore.spacePos, runStore.posNumber
+                      )
+                    }
+                  } else {
+                    currentExpPair._1.executeFun(runStore)
+                  }
+                  expStore.markDone(runStore.posNumber)
+                }
+            }
+          )
+
+          log.info("write shutdown for {}", currentExpPair._1.name)
+          expStore.writeShutdown()
 
-        exportPrimitives(
-          expStore, subchain, requiredIndexes, fs,
-          expStore.primitives
-        )
-        exportPrimitives(
-          expStore, subchain, requiredIndexes, fs,
-          (runChain :+ expStore).map(_.primitives).flatten, "primitives_deep"
-        )
-        exportGraphvis(expStore, subchain, requiredIndexes, fs)
-        exportStore(expStore, subchain, requiredIndexes, fs)
+          //  resumed runs may have been interrupted while exporting
+          val incremental = prevRun.isDefined
+          exportPrimitives(
+            expStore, subchain, requiredIndexes, fs,
+            expStore.primitives, incremental = incremental
+          )
+          exportPrimitives(
+            expStore, subchain, requiredIndexes, fs,
+            (runChain :+ expStore).map(_.primitives).flatten, "primitives_deep",
+            incremental = incremental
+          )
+          exportGraphvis(expStore, subchain, requiredIndexes, fs, incremental)
+          exportStore(expStore, subchain, requiredIndexes, fs)
+
+          registryStore.markComplete(currentUID, stageFingerprint)
+        }
 
         runChain :+ expStore
     }
 
     //  LATER port smoke testing
     log.info("chain complete")
+    if (Probes.isEnabled) {
+      log.info("probes:\n{}", Probes.report())
+    }
   }
 
-  private def execute(targetExpName: String, configFun: Experiment => Config) {
+  private def execute(targetExpName: String, configFun: Experiment => Config, resume: Boolean) {
     val chain = dependencyChain(targetExpName, configFun)
-    execute(chain)
+    execute(chain, resume)
   }
 
-  def execute(targetExpName: String, configMap: Map[String, String]) {
+  /**
+   * @param resume reuse complete runs with same configs of the chain,
+   *               continue the incomplete ones from the positions not yet done
+   */
+  def execute(targetExpName: String, configMap: Map[String, String], resume: Boolean = false) {
     execute(
       targetExpName,
       {
@@ -198,7 +287,8 @@ object Registry extends RegistryData with Exports with ParamSpaceNav {
           exp.configs(
             configMap.getOrElse(exp.name, "default")
           )
-      }
+      },
+      resume
     )
   }
 }
@@ -18,8 +18,15 @@
 
 package org.akraievoy.holonet.exp
 
+import org.akraievoy.holonet.exp.probe.Probes
+
 object Runner extends App {
-  args match {
+  val resume = args.contains("--resume")
+  if (args.contains("--probes")) {
+    Probes.setEnabled(true)
+  }
+
+  args.filterNot(a => a == "--resume" || a == "--probes") match {
     case Array("attack-mini") =>
       AttackMini.main(args)
     case Array("curr-smoke") =>
@@ -32,7 +39,8 @@ object Runner extends App {
           "p2p-stage1-seed" -> "42x3",
           "p2p-stage2-paramSpace" -> "corrStudy-large-16",
           "p2p-stage3-attack-chained" -> "default"
-        )
+        ),
+        resume
       )
     case Array("curr-full") =>
       Registry.execute(
@@ -44,28 +52,51 @@ object Runner extends App {
           "p2p-stage1-seed" -> "42x3",
           "p2p-stage2-paramSpace" -> "corrStudy-large-256",
           "p2p-stage3-attack-chained" -> "default"
-        )
+        ),
+        resume
+      )
+    case Array("curr-islands") =>
+      Registry.execute(
+        "p2p-stage3-attack-chained",
+        Map(
+          "overlayGO-1-physDataset" -> "phys-1024",
+          "overlayGO-2-ovlDataset" -> "nu25",
+          "overlayGO-3-genetics" -> "corrStudy-islands",
+          "p2p-stage1-seed" -> "42x3",
+          "p2p-stage2-paramSpace" -> "corrStudy-large-256",
+          "p2p-stage3-attack-chained" -> "default"
+        ),
+        resume
       )
     case Array("dla") =>
       Registry.execute(
         "dlaGenImages",
-        Map("dlaGenImages" -> "dimensions")
+        Map("dlaGenImages" -> "dimensions"),
+        resume
       )
     case Array("ovlenum") =>
       Registry.execute(
         "overlayEnum",
-        Map("overlayEnum" -> "default")
+        Map("overlayEnum" -> "default"),
+        resume
       )
     case other =>
       println(
         """Usage:
-          |  sbt 'run batchName'
+          |  sbt 'run batchName [--resume] [--probes]'
           |
           |Available experiment batchNames:
-          | dla        - dla model with varying dimensions
-          | ovlenum    - overlay enumeration
-          | curr-smoke - current experiment; smoke testing version
-          | curr-full  - current experiment; full version (takes time)
+          | dla          - dla model with varying dimensions
+          | ovlenum      - overlay enumeration
+          | curr-smoke   - current experiment; smoke testing version
+          | curr-full    - current experiment; full version (takes time)
+          | curr-islands - current experiment; full version, island-model genetics
+          |
+          |With --resume complete runs of same configs are reused
+          |  and incomplete ones continue from the positions not yet done.
+          |
+          |With --probes hot-path stages are timed, per-position timings are stored
+          |  as experiment.probe.stage.{count,nanos,p50,p99} primitives.
         """.stripMargin
       )
   }
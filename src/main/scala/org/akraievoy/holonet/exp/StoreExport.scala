@@ -18,11 +18,19 @@
 
 package org.akraievoy.holonet.exp
 
-import org.akraievoy.cnet.net.vo.Store
+import org.akraievoy.cnet.net.vo.{EdgeData, Store}
 import store.StoreLens
 
+/**
+ * @param paramNames stores to be dumped as columns of a single csv
+ * @param edgeParamNames edge data to be dumped as binary edge lists, one file per position,
+ *   see [[org.akraievoy.cnet.net.vo.EdgeListCodec]]
+ * @param edgeWidth width of edge list values
+ */
 case class StoreExport (
   name: String,
   desc: String,
-  paramNames: Seq[ParamName[_ <: Store]]
+  paramNames: Seq[ParamName[_ <: Store]] = Nil,
+  edgeParamNames: Seq[ParamName[_ <: EdgeData]] = Nil,
+  edgeWidth: Store.Width = Store.Width.DOUBLE
 ) extends Named
@@ -25,7 +25,7 @@ import algores.holonet.core.{Network, EnvCNet}
 import algores.holonet.testbench.Testbench
 import algores.holonet.core.events._
 import org.akraievoy.cnet.metrics.domain.MetricVDataPowers
-import org.akraievoy.cnet.net.vo.{EdgeDataSparse, EdgeDataDense, VertexData}
+import org.akraievoy.cnet.net.vo.{Store, EdgeDataSparse, EdgeDataDense, VertexData}
 import org.akraievoy.holonet.exp.GraphvizExport.ColorScheme
 import algores.holonet.core.api.tier1.delivery.LookupService.Mode
 
@@ -49,6 +49,9 @@ object DhtSim {
     val p5attackProb = ParamName[JDouble]("p5attackProb")
     val p5routingRedundancy = ParamName[JDouble]("p5routingRedundancy")
     val p5maxFingerFlavorNum = ParamName[JInt]("p5maxFingerFlavorNum")
+    val p5fingerRepair = ParamName[String]("p5fingerRepair")
+    val p5fingerBatch = ParamName[JInt]("p5fingerBatch")
+    val p5rounds = ParamName[String]("p5rounds")
     //  stage 3 outputs
     val p6report = ParamName[JDouble]("p6report")
 
@@ -98,7 +101,10 @@ object DhtSim {
       Param(p5stabilizeProb, "0.01"),
       Param(p5attackProb, "0.01"),
       Param(p5routingRedundancy, "1.0"),
-      Param(p5maxFingerFlavorNum, "32")
+      Param(p5maxFingerFlavorNum, "32"),
+      Param(p5fingerRepair, "all"),
+      Param(p5fingerBatch, "0"),
+      Param(p5rounds, "sequential")
     ),
     Config(
       "extraLoops",
@@ -167,6 +173,17 @@ object DhtSim {
       "attackProf",
       "attacks profiling",
       Param(p5attackProb, "0.0;0.01;0.02;0.04;0.08;0.16;0.32;0.64")
+    ),
+    Config(
+      "fingerProf",
+      "finger repair profiling, compare FixfingersCount",
+      Param(p5fingerRepair, "all;covered"),
+      Param(p5fingerBatch, "0;8")
+    ),
+    Config(
+      "roundsParallel",
+      "whole-network stabilize and reflavor rounds on all cores",
+      Param(p5rounds, "parallel")
     )
   )
 
@@ -188,7 +205,7 @@ object DhtSim {
                 math.ceil(rs.lens(p5nodes).get.get * rs.lens(p5attackProb).get.get).asInstanceOf[Long]
               )
             ),
-            new EventNetStabilize(),
+            new EventNetStabilize().withParallel(parallelRounds(rs)),
             new EventNetDiscover().mode(Mode.FIXFINGERS),
             new EventNetDiscover().excludeOffgridNodes(true).mode(Mode.GET)
           )
@@ -239,6 +256,12 @@ object DhtSim {
         edgeColorScheme = ColorScheme.VIOLET_RED,
         vertexColorScheme = ColorScheme.VIOLET_RED
       )
+    ).withStoreExport(
+      StoreExport(
+        "counts", desc = "overlay stats - rpc and lookup counts as edge lists",
+        edgeParamNames = Seq(p6rpcCounts, p6lookupCounts),
+        edgeWidth = Store.Width.INT
+      )
     )
 
     Seq(
@@ -322,7 +345,7 @@ object DhtSim {
                   new EventNodeLeave()
                 )
               ).withProbabilityRef(rs.lens(p5joinProb)),
-              new EventNetStabilize().withProbabilityRef(rs.lens(p5stabilizeProb)),
+              new EventNetStabilize().withParallel(parallelRounds(rs)).withProbabilityRef(rs.lens(p5stabilizeProb)),
               new EventCompositeLoop(
                 new EventNetLookup()
               ).withCountRef(rs.lens(p5nodes))
@@ -348,7 +371,7 @@ object DhtSim {
             new EventCompositeLoop(
               new EventNetPutEntry().withCountRef(rs.lens(p5Elems))
             ).withCountRef(rs.lens(p5nodes)),
-            new EventNetStabilize(),
+            new EventNetStabilize().withParallel(parallelRounds(rs)),
             new EventCompositeLoop(
               new EventNodeFail().withProbabilityRef(rs.lens(p5attackProb))
             ).withCountRef(rs.lens(p5nodes))
@@ -370,7 +393,7 @@ object DhtSim {
                   new EventNodeLeave()
                 )
               ).withProbabilityRef(rs.lens(p5joinProb)),
-              new EventNetStabilize().withProbabilityRef(rs.lens(p5stabilizeProb)),
+              new EventNetStabilize().withParallel(parallelRounds(rs)).withProbabilityRef(rs.lens(p5stabilizeProb)),
               new EventCompositeLoop(
                 new EventNetLookup().withRetries(3)
               ).withCountRef(rs.lens(p5nodes))
@@ -400,9 +423,9 @@ object DhtSim {
     new EventCompositeSequence(
       Seq(
         new EventNodeJoin().withCountRef(rs.lens(p5nodes)),
-        new EventNetStabilize(),
+        new EventNetStabilize().withParallel(parallelRounds(rs)),
         new EventNetDiscover(),
-        new EventNetReflavor(),
+        new EventNetReflavor().withParallel(parallelRounds(rs)),
         new EventCompositeLoop(
           new EventNetPutEntry().withCountRef(rs.lens(p5Elems))
         ).withCountRef(rs.lens(p5nodes)),
@@ -411,6 +434,16 @@ object DhtSim {
     )
   }
 
+  private def parallelRounds(rs: RunStore): Boolean = {
+    //  older chains have no rounds param
+    rs.lens(p5rounds).get.getOrElse("sequential") match {
+      case "sequential" => false
+      case "parallel" => true
+      case other =>
+        throw new IllegalArgumentException("rounds '%s' are not known".format(other))
+    }
+  }
+
   private def createTestBench(
     rs: RunStore,
     initEvent: Event[_],
@@ -431,6 +464,15 @@ object DhtSim {
         rs.lens(p5routingRedundancy).get.get
       ).maxFingerFlavorNum(
         rs.lens(p5maxFingerFlavorNum).get.get
+      ).fingerRepair(
+        //  older chains have no finger repair params
+        rs.lens(p5fingerRepair).get.getOrElse("all") match {
+          case "all" => false
+          case "covered" => true
+          case other =>
+            throw new IllegalArgumentException("finger repair '%s' is not known".format(other))
+        },
+        rs.lens(p5fingerBatch).get.getOrElse(0: JInt).intValue
       )
     )
 
@@ -28,6 +28,7 @@ import org.akraievoy.base.ref.{RefRO, Ref}
 import org.akraievoy.cnet.opt.api._
 import org.akraievoy.cnet.soo.domain._
 import org.akraievoy.cnet.opt.domain.ExperimentGeneticOpt
+import org.akraievoy.holonet.exp.store.{StreamSerializer, ExperimentStore}
 import scala.Some
 import org.akraievoy.cnet.net.vo.Store.Width
 
@@ -49,7 +50,7 @@ object OverlayGA {
     //  stage 1 outputs
     val p1physInit = ParamName[EdgeDataSparse]("p1physInit")
     val p1phys = ParamName[EdgeDataSparse]("p1phys")
-    val p1dist = ParamName[EdgeDataDense]("p1dist")
+    val p1dist = ParamName[EdgeDataEuclidean]("p1dist")
     val p1routeLen = ParamName[EdgeDataDense]("p1routeLen")
     val p1locX = ParamName[VertexData]("p1locX")
     val p1locY = ParamName[VertexData]("p1locY")
@@ -98,6 +99,11 @@ object OverlayGA {
     val p3minEff = ParamName[JDouble]("p3minEff")
     val p3flags = ParamName[String]("p3flags")
     val p3fitCap = ParamName[JDouble]("p3fitCap")
+    val p3island = ParamName[JInt]("p3island")
+    val p3migratePeriod = ParamName[JInt]("p3migratePeriod")
+    val p3migrateCount = ParamName[JInt]("p3migrateCount")
+    val p3sketchError = ParamName[JDouble]("p3sketchError")
+    val p3jaccardMax = ParamName[JDouble]("p3jaccardMax")
     //  stage 3 outputs
     val p3genome = ParamName[JDouble]("p3genome")
     val p3genomeBest = ParamName[EdgeDataSparse]("p3genomeBest.0")
@@ -149,6 +155,7 @@ object OverlayGA {
         )
         distMetric.setSourceX(rs.lens(p1locX))
         distMetric.setSourceY(rs.lens(p1locY))
+        distMetric.setImplicit(true)
         distMetric.setTarget(rs.lens(p1dist))
 
         val entropySource = new EntropySourceRandom()
@@ -280,17 +287,17 @@ object OverlayGA {
   ).withStoreExport(
     StoreExport(
       "powers", desc = "physical network, power distribution",
-      Seq(p1powers)
+      paramNames = Seq(p1powers)
     )
   ).withStoreExport(
     StoreExport(
       "distances", desc = "physical network, distance distribution",
-      Seq(p1distances)
+      paramNames = Seq(p1distances)
     )
   ).withStoreExport(
     StoreExport(
       "densities", desc = "physical network, density distribution",
-      Seq(p1densities)
+      paramNames = Seq(p1densities)
     )
   )
 
@@ -425,7 +432,16 @@ object OverlayGA {
   ).withStoreExport(
     StoreExport(
       "requests", desc = "overlay network, request distribution",
-      Seq(p2reqStoreVol, p2reqStoreDist, p2reqStoreFromDensity, p2reqStoreIntoDensity)
+      paramNames = Seq(p2reqStoreVol, p2reqStoreDist, p2reqStoreFromDensity, p2reqStoreIntoDensity)
+    )
+  )
+
+  //  fitness cache of the genetics stage is stored with the generations
+  ExperimentStore.registerStreamable(
+    StreamSerializer[FitnessCacheSoo](
+      "FitnessCacheSoo",
+      input => new FitnessCacheSoo().fromStream(input),
+      (cache: FitnessCacheSoo) => cache.createStream()
     )
   )
 
@@ -436,8 +452,9 @@ object OverlayGA {
     {
       rs =>
         val entropySourceGenetics = new EntropySourceRandom()
+        //  island zero keeps the seed of the single-population runs
         entropySourceGenetics.setSeed(
-          rs.lens(p3seed).get.get
+          rs.lens(p3seed).get.get ^ (rs.lens(p3island).get.get.longValue << 32)
         )
 
         val gaState = new GeneticState()
@@ -449,9 +466,7 @@ object OverlayGA {
         gaState.setMaxElemFitPow(rs.lens(p3stateFitPowMax).get.get)
         gaState.setMaxMutation(rs.lens(p3stateMutateMax).get.get)
 
-        val gaStrategy = new GeneticStrategySoo(
-          new MetricRoutesFloydWarshall()
-        )
+        val gaStrategy = new GeneticStrategySoo()
         gaStrategy.setMinEff(rs.lens(p3minEff).get.get)
         gaStrategy.setNetDensityMax(rs.lens(p3netDensityMax).get.get)
         gaStrategy.setNodeDensityMin(rs.lens(p3nodeDensityMin).get.get)
@@ -461,6 +476,7 @@ object OverlayGA {
         gaStrategy.setDistSource(rs.lens(p2nodeDist))
         gaStrategy.setRequestSource(rs.lens(p2req))
         gaStrategy.setFitnessCap(rs.lens(p3fitCap).get.get)
+        gaStrategy.setSketchError(rs.lens(p3sketchError).get.get)
 
         val ga = new ExperimentGeneticOpt(
           gaStrategy.asInstanceOf[GeneticStrategy[Genome]],
@@ -493,7 +509,7 @@ object OverlayGA {
             new ConditionSooVertexDensity(),
             new ConditionSooEffectiveness(),
             new ConditionSooDensity(),
-            new ConditionUnique()
+            new ConditionUnique(rs.lens(p3jaccardMax).get.get)
           ).map(_.asInstanceOf[Condition[Genome]])
         )
         ga.setEliteRatio(rs.lens(p3elite).get.get)
@@ -504,6 +520,10 @@ object OverlayGA {
         ga.setSpecimenLens(rs.lens(p3specimen))
         ga.setGenerationLens(rs.lens(p3generation))
         ga.setGenomeLens(rs.lens(p3genome))
+        ga.setIslandLens(rs.lens(p3island))
+        ga.setMigrationPeriod(rs.lens(p3migratePeriod).get.get)
+        ga.setMigrationCount(rs.lens(p3migrateCount).get.get)
+        ga.setMigrationSeed(rs.lens(p3seed).get.get)
 
         val timing = new ExperimentTiming(ga)
         timing.setDurationTextRef(rs.lens(p3time))
@@ -548,7 +568,12 @@ object OverlayGA {
       Param(p3stepDelta, "1"),
       Param(p3flags, ""),
       Param(p3minEff, "1.25"),
-      Param(p3fitCap, "1")
+      Param(p3fitCap, "1"),
+      Param(p3island, "0", Strategy.SPAWN, Strategy.USE_FIRST),
+      Param(p3migratePeriod, "4"),
+      Param(p3migrateCount, "2"),
+      Param(p3sketchError, "0.0625"),
+      Param(p3jaccardMax, "1")
     ),
     Config(
       "corrStudy-smoke",
@@ -588,6 +613,49 @@ object OverlayGA {
       Param(p3generation, "0--22", Strategy.ITERATE, Strategy.USE_LAST),
       Param(p3elite, "0.2")
     ),
+    Config(
+      "corrStudy-islands",
+      "Correlation study --- full, four islands (chained stages see the first one)",
+      Param(p3minEff, "0.6"),
+      Param(p3seed, "42600--42607"),
+      Param(p3flags, "R"),
+      Param(p3specimen, "0--21", Strategy.USE_FIRST, Strategy.USE_FIRST),
+      Param(
+        p3fitCap,
+        "0.55;0.1;0.15;0.2;0.3"
+      ),
+      Param(p3generateMax, "64"),
+      Param(p3generatePow, "3"),
+      Param(p3netDensityMax, "0.75"),
+      Param(p3nodeDensityMin, "0.75"),
+      Param(p3nodeDensityMax, "0.75"),
+      Param(p3generation, "0--22", Strategy.ITERATE, Strategy.USE_LAST),
+      Param(p3elite, "0.2"),
+      Param(p3island, "0--3", Strategy.SPAWN, Strategy.USE_FIRST),
+      Param(p3migratePeriod, "3"),
+      Param(p3migrateCount, "2")
+    ),
+    Config(
+      "corrStudy-nearDupes",
+      "Correlation study --- full, near-duplicates rejected",
+      Param(p3minEff, "0.6"),
+      Param(p3seed, "42600--42607"),
+      Param(p3flags, "R"),
+      Param(p3specimen, "0--21", Strategy.USE_FIRST, Strategy.USE_FIRST),
+      Param(
+        p3fitCap,
+        "0.55;0.1;0.15;0.2;0.3"
+      ),
+      Param(p3generateMax, "64"),
+      Param(p3generatePow, "3"),
+      Param(p3netDensityMax, "0.75"),
+      Param(p3nodeDensityMin, "0.75"),
+      Param(p3nodeDensityMax, "0.75"),
+      Param(p3generation, "0--22", Strategy.ITERATE, Strategy.USE_LAST),
+      Param(p3elite, "0.2"),
+      Param(p3sketchError, "0.05"),
+      Param(p3jaccardMax, "0.9;0.95;1")
+    ),
     Config(
       "minEff12x2x3",
       "MinEff: 1.2 * 2 seeds * 3 gens (debug)",
@@ -660,15 +728,21 @@ object OverlayGA {
       },
       vertexLabel = {rs => Some(rs.lens(p2nodeIndex))}
     )
+  ).withStoreExport(
+    StoreExport(
+      "genomes", desc = "overlay network, best specimen as edge list",
+      edgeParamNames = Seq(p3genomeBest),
+      edgeWidth = Width.FLOAT
+    )
   )/*.withStoreExport(  //  FIXME breaks with out of memory
     StoreExport(
       "distances", desc = "overlay network, distance distribution",
-      Seq(p3genomeBestDist)
+      paramNames = Seq(p3genomeBestDist)
     )
   ).withStoreExport(
     StoreExport(
       "powers", desc = "overlay network, power distribution",
-      Seq(p3genomeBestPowers)
+      paramNames = Seq(p3genomeBestPowers)
     )
   )*/
 }
@@ -24,6 +24,8 @@ import org.slf4j.LoggerFactory
 import java.util.Date
 import scala.collection.BitSet
 import java.util.concurrent.atomic.AtomicLong
+import scala.concurrent.forkjoin.{ForkJoinTask, RecursiveAction, ForkJoinPool}
+import org.akraievoy.util.Workers
 
 trait ParamSpaceNav {
   private val log = LoggerFactory.getLogger(classOf[ParamSpaceNav])
@@ -46,91 +48,198 @@ trait ParamSpaceNav {
     axisMap(false) ++ axisMap(true)
   }
 
-  private def spacePosStreams(
+  private def spacePosIndex(
     subchain: Seq[Registry.ExpConfPair],
     requiredIndexes: BitSet
-  ): Map[Boolean, Stream[Seq[ParamPos]]] = {
+  ): Map[Boolean, SpaceIndex] = {
     subchain.zipWithIndex.filter {
       case (expPair, index) =>
         requiredIndexes.contains(index)
     }.map {
       case ((exp, conf), index) =>
-        conf.spacePosStreams(
+        conf.spacePosIndex(
           index < subchain.length - 1,
           index
         )
-    }.foldLeft(PAR_SPACE_EMPTY) {
+    }.foldLeft(PAR_INDEX_EMPTY) {
       case (mapChained, mapCurrent) =>
         mapChained.map {
-          case (parallelFlag, paramPosSeq) =>
-            (
-                parallelFlag,
-                for (
-                  chainedPoses <- paramPosSeq;
-                  currentPoses <- mapCurrent.getOrElse(
-                    parallelFlag,
-                    SPACE_EMPTY
-                  )
-                ) yield {
-                  val posSeq = chainedPoses ++ currentPoses
-                  posSeq
-                }
-            )
+          case (parallelFlag, index) =>
+            (parallelFlag, index ++ mapCurrent(parallelFlag))
         }
     }
   }
 
-  private def spacePosCount(
+  /**
+   * Visits all positions, sequential ones in order, parallel ones
+   *   dispatched as ranges to the work-stealing pool.
+   *
+   * Positions are decoded from their indexes as the visit goes,
+   *   so nothing is retained besides the tasks in flight.
+   */
+  def spacePosForeach(
     subchain: Seq[Registry.ExpConfPair],
-    requiredIndexes: BitSet
-  ): Long = {
-    subchain.zipWithIndex.filter {
-      case (expPair, index) =>
-        requiredIndexes.contains(index)
-    }.map {
-      case ((exp, conf), index) =>
-        conf.spacePosCount(index < subchain.length - 1, index)
-    }.product
+    requiredIndexes: BitSet,
+    expStore: ExperimentStore,
+    visitFun: RunStore => Unit,
+    parallel: Boolean = true
+  ) {
+    spacePosForeachNum(
+      subchain, requiredIndexes, expStore, (num, runStore) => visitFun(runStore), parallel
+    )
   }
 
-  def spacePosMap[T](
+  /**
+   * @param visitFun also receives the number of the position in visiting order
+   */
+  def spacePosForeachNum(
     subchain: Seq[Registry.ExpConfPair],
     requiredIndexes: BitSet,
     expStore: ExperimentStore,
-    visitFun: RunStore => T,
+    visitFun: (Long, RunStore) => Unit,
     parallel: Boolean = true
-  ): IndexedSeq[T] = {
-    val posCount = spacePosCount(subchain, requiredIndexes)
-    val posStreams = spacePosStreams(subchain, requiredIndexes)
+  ) {
+    val posIndex = spacePosIndex(subchain, requiredIndexes)
+    val sequentialIndex = posIndex(false)
+    val parallelIndex = posIndex(true)
+    val posCount = sequentialIndex.size * parallelIndex.size
     val mapStart = System.currentTimeMillis
     val posMapped = new AtomicLong(0)
-    posStreams.getOrElse(
-      false,
-      SPACE_EMPTY
-    ).flatMap {
-      sequentialPos =>
-        val stream = posStreams.getOrElse(true, SPACE_EMPTY)
-        def visitFun0(parallelPos: Seq[ParamPos]) = {
-          try {
-            visitFun(RunStore(expStore, sequentialPos ++ parallelPos))
-          } finally {
-            val posMappedLocal: Long = posMapped.incrementAndGet()
-            val mapNow = System.currentTimeMillis
-            val progress = (0.0 + posMappedLocal) / posCount
-            val spent = mapNow - mapStart
-            val left = math.ceil(spent / progress).toLong
-            if (math.max(spent, left) > 30 * 1000) {
-              val eta = mapStart + left
-              log.warn("%.6g complete --- ETA %s".format(progress, new Date(eta)))
-            }
 
-          }
+    def visitFun0(sequentialNum: Long, sequentialPos: Seq[ParamPos], parallelNum: Long) {
+      try {
+        visitFun(
+          sequentialNum * parallelIndex.size + parallelNum,
+          RunStore(expStore, sequentialPos ++ parallelIndex(parallelNum))
+        )
+      } finally {
+        val posMappedLocal: Long = posMapped.incrementAndGet()
+        val mapNow = System.currentTimeMillis
+        val progress = (0.0 + posMappedLocal) / posCount
+        val spent = mapNow - mapStart
+        val left = math.ceil(spent / progress).toLong
+        if (math.max(spent, left) > 30 * 1000) {
+          val eta = mapStart + left
+          log.warn("%.6g complete --- ETA %s".format(progress, new Date(eta)))
         }
-        if (parallel) {
-          stream.par.map(visitFun0)
-        } else {
-          stream.map(visitFun0)
+      }
+    }
+
+    var sequentialNum = 0L
+    while (sequentialNum < sequentialIndex.size) {
+      val seqNum = sequentialNum
+      val sequentialPos = sequentialIndex(seqNum)
+      if (parallel && parallelIndex.size > 1) {
+        ParamSpaceNav.pool.invoke(
+          new ParamSpaceNav.RangeVisit(
+            0, parallelIndex.size,
+            parallelNum => visitFun0(seqNum, sequentialPos, parallelNum)
+          )
+        )
+      } else {
+        var parallelNum = 0L
+        while (parallelNum < parallelIndex.size) {
+          visitFun0(seqNum, sequentialPos, parallelNum)
+          parallelNum += 1
         }
-    }.toIndexedSeq
+      }
+      sequentialNum += 1
+    }
+  }
+
+  /**
+   * Same as spacePosForeach, results are collected in position order.
+   */
+  def spacePosMap[T](
+    subchain: Seq[Registry.ExpConfPair],
+    requiredIndexes: BitSet,
+    expStore: ExperimentStore,
+    visitFun: RunStore => T,
+    parallel: Boolean = true
+  ): IndexedSeq[T] = {
+    val posIndex = spacePosIndex(subchain, requiredIndexes)
+    val posCount = posIndex(false).size * posIndex(true).size
+    if (posCount > Int.MaxValue) {
+      throw new IllegalStateException(
+        "%d positions would not fit into results, use spacePosForeach".format(posCount)
+      )
+    }
+
+    val results = new Array[Any](posCount.toInt)
+    spacePosForeachNum(
+      subchain, requiredIndexes, expStore, {
+        (num, runStore) =>
+          results(num.toInt) = visitFun(runStore)
+      },
+      parallel
+    )
+
+    results.toIndexedSeq.asInstanceOf[IndexedSeq[T]]
+  }
+
+  /**
+   * Maps positions in parallel a chunk at a time, handing results of each chunk over
+   *   in position order, so that no more than chunkSize results are retained at once.
+   *
+   * Unlike spacePosForeach, sequential positions are not awaited one by one:
+   *   meant for reading the store, not for running the experiment.
+   */
+  def spacePosMapChunked[T](
+    subchain: Seq[Registry.ExpConfPair],
+    requiredIndexes: BitSet,
+    expStore: ExperimentStore,
+    visitFun: RunStore => T,
+    chunkFun: IndexedSeq[T] => Unit,
+    chunkSize: Int = 1 << 10
+  ) {
+    val posIndex = spacePosIndex(subchain, requiredIndexes)
+    //  parallel axes vary faster, same numbering as with spacePosForeachNum
+    val index = posIndex(false) ++ posIndex(true)
+
+    var chunkStart = 0L
+    while (chunkStart < index.size) {
+      val start = chunkStart
+      val end = math.min(index.size, start + chunkSize)
+      val results = new Array[Any]((end - start).toInt)
+      ParamSpaceNav.pool.invoke(
+        new ParamSpaceNav.RangeVisit(
+          start, end,
+          num => results((num - start).toInt) = visitFun(RunStore(expStore, index(num)))
+        )
+      )
+      chunkFun(results.toIndexedSeq.asInstanceOf[IndexedSeq[T]])
+      chunkStart = end
+    }
+  }
+}
+
+object ParamSpaceNav {
+  lazy val pool = new ForkJoinPool(Workers.CORES)
+
+  /**
+   * Splits the range in halves down to single positions:
+   *   each position is a whole experiment run, so no need to batch them.
+   * Runs are marked as outer ones, so their own parallel parts share the cores.
+   */
+  class RangeVisit(
+    from: Long,
+    until: Long,
+    visitFun: Long => Unit
+  ) extends RecursiveAction {
+    protected def compute() {
+      if (until - from == 1) {
+        Workers.runOuter(new Runnable {
+          def run() {
+            visitFun(from)
+          }
+        })
+      } else {
+        val mid = (from + until) >>> 1
+        ForkJoinTask.invokeAll(
+          new RangeVisit(from, mid, visitFun),
+          new RangeVisit(mid, until, visitFun)
+        )
+      }
+    }
   }
 }
@@ -0,0 +1,62 @@
+/*
+ Copyright 2013 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.holonet.exp.space
+
+import org.akraievoy.holonet.exp.ParamPos
+
+/**
+ * Mixed-radix numbering of the cartesian product of axes,
+ *   last axis varies fastest, just as with nested for-comprehensions over the axes.
+ *
+ * Positions are decoded on demand, so only the axes themselves are kept in memory.
+ */
+class SpaceIndex(
+  val axes: IndexedSeq[IndexedSeq[ParamPos]]
+) {
+  val size: Long = axes.foldLeft(1L)(_ * _.size)
+
+  def apply(index: Long): IndexedSeq[ParamPos] = {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(
+        "index(%d) not in [0, %d)".format(index, size)
+      )
+    }
+
+    val res = new Array[ParamPos](axes.size)
+    var rem = index
+    var axisIndex = axes.size - 1
+    while (axisIndex >= 0) {
+      val axis = axes(axisIndex)
+      res(axisIndex) = axis((rem % axis.size).toInt)
+      rem /= axis.size
+      axisIndex -= 1
+    }
+
+    res
+  }
+
+  /**
+   * Axes of that space vary faster than axes of this one.
+   */
+  def ++(that: SpaceIndex) = new SpaceIndex(axes ++ that.axes)
+}
+
+object SpaceIndex {
+  val EMPTY = new SpaceIndex(IndexedSeq.empty)
+}
@@ -20,16 +20,14 @@ package org.akraievoy.holonet.exp
 
 package object space {
 
-  val SPACE_EMPTY = Seq(Seq.empty[ParamPos]).toStream
-
   val PAR_AXIS_EMPTY = Map(
     false -> Seq.empty[Param],
     true -> Seq.empty[Param]
   )
 
-  val PAR_SPACE_EMPTY = Map(
-    true -> SPACE_EMPTY,
-    false -> SPACE_EMPTY
+  val PAR_INDEX_EMPTY = Map(
+    true -> SpaceIndex.EMPTY,
+    false -> SpaceIndex.EMPTY
   )
 
 }
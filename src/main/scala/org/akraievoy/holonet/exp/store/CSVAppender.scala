@@ -0,0 +1,127 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.holonet.exp.store
+
+import java.io.{IOException, PrintWriter}
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.locks.{ReentrantLock, ReentrantReadWriteLock}
+
+/**
+ * Write-behind appender for a single CSV file.
+ *
+ * Writers only enqueue their rows, whoever crosses the flushRows threshold
+ * (and is not racing another flusher) writes all the pending rows out
+ * and flushes them to disk in one go. Periodic and final flushes are up to the owner.
+ *
+ * Appends share the read side of openLock, close takes its write side,
+ * so no row gets enqueued after the final drain.
+ */
+class CSVAppender(
+  fs: FileSystem,
+  runUID: RunUID,
+  fName: String,
+  flushRows: Int
+) {
+  private val queue = new ConcurrentLinkedQueue[Seq[String]]()
+  private val pending = new AtomicInteger(0)
+  private val writeLock = new ReentrantLock()
+  private val openLock = new ReentrantReadWriteLock()
+  private var writer: Option[PrintWriter] = None
+  @volatile private var closed = false
+
+  def append(row: Seq[String]) {
+    val pendingNow = {
+      openLock.readLock().lock()
+      try {
+        if (closed) {
+          throw new IllegalStateException(
+            "appending to closed '%s'".format(fName)
+          )
+        }
+
+        queue.offer(row)
+        pending.incrementAndGet()
+      } finally {
+        openLock.readLock().unlock()
+      }
+    }
+
+    if (pendingNow >= flushRows && writeLock.tryLock()) {
+      try {
+        drain()
+      } finally {
+        writeLock.unlock()
+      }
+    }
+  }
+
+  def pendingRows = pending.get
+
+  def flush() {
+    writeLock.lock()
+    try {
+      drain()
+    } finally {
+      writeLock.unlock()
+    }
+  }
+
+  def close() {
+    openLock.writeLock().lock()
+    try {
+      closed = true
+    } finally {
+      openLock.writeLock().unlock()
+    }
+
+    writeLock.lock()
+    try {
+      drain()
+      writer.foreach(_.close())
+      writer = None
+    } finally {
+      writeLock.unlock()
+    }
+  }
+
+  private def drain() {
+    var row = queue.poll()
+    if (row != null) {
+      val w = writer.getOrElse {
+        val opened = fs.openAppendCSV(runUID, fName)
+        writer = Some(opened)
+        opened
+      }
+
+      while (row != null) {
+        pending.decrementAndGet()
+        w.println(fs.csvLine(row))
+        row = queue.poll()
+      }
+
+      w.flush()
+      if (w.checkError()) {
+        throw new IOException(
+          "failed to append to '%s'".format(fs.fileForUid(runUID, fName).getAbsolutePath)
+        )
+      }
+    }
+  }
+}
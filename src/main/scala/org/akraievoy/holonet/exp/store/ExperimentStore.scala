@@ -25,9 +25,12 @@ import org.akraievoy.cnet.net.vo.EdgeDataFactory.EdgeDataConstant
 import org.akraievoy.holonet.exp.{ParamName, Experiment, Config, ParamPos}
 import java.util.concurrent.atomic.AtomicBoolean
 import scala.collection.BitSet
-import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent._
 import scala.collection.JavaConversions.asScalaConcurrentMap
+import scala.collection.JavaConversions.asScalaSet
 import com.google.common.cache.CacheBuilder
+import org.slf4j.LoggerFactory
+import org.akraievoy.holonet.exp.probe.Probes
 
 class ExperimentStore(
   val fs: FileSystem,
@@ -45,11 +48,26 @@ class ExperimentStore(
       Runtime.getRuntime.availableProcessors()
     )
 
+  private val log = LoggerFactory.getLogger(classOf[ExperimentStore])
+
   private val openStreamsMonitor = new Object()
   private var openStreams: Map[File, Closeable] = Map.empty
 
-  private val cachedCSVMoninor = new Object()
-  private var cachedCSV: Map[String, Map[Long, String]] = Map.empty
+  private val csvAppenders = new ConcurrentHashMap[String, CSVAppender]()
+  private val csvFlushStarted = new AtomicBoolean(false)
+  @volatile private var csvFlushTask: Option[ScheduledFuture[_]] = None
+  @volatile private var csvFlushHook: Option[Thread] = None
+
+  private val cachedCSV = new ConcurrentHashMap[String, ExperimentStore.CachedCSV]()
+
+  private val columns = new ConcurrentHashMap[String, PrimitiveColumn]()
+
+  //  positions are marked done only after their rows got flushed
+  private val doneMonitor = new Object()
+  private val donePending = new ConcurrentLinkedQueue[java.lang.Long]()
+  private val doneColumn = new PrimitiveColumn(fs.fileForUid(uid, "done.col"), 1)
+
+  private val schemaMonitor = new Object()
 
   private val cachedBinaries =
     (
@@ -78,6 +96,22 @@ class ExperimentStore(
     posNum: Long
   )(
     implicit mt: Manifest[T]
+  ) {
+    val start = Probes.start()
+    try {
+      write(paramName, value, spacePos, posNum)
+    } finally {
+      ExperimentStore.probeWrite.stop(start)
+    }
+  }
+
+  private def write[T](
+    paramName: String,
+    value: T,
+    spacePos: Seq[ParamPos],
+    posNum: Long
+  )(
+    implicit mt: Manifest[T]
   ) {
     if (!mt.erasure.isInstance(value)) {
       throw new IllegalArgumentException(
@@ -117,32 +151,19 @@ class ExperimentStore(
 
     val posStr = posNumStr(posNum)
     val paramFName = paramKey(paramName, mt, extendSchema = true).get
-    if (ExperimentStore.primitiveSerializers.contains(mt.erasure.getName)) {
+    val codecOpt = columnCodec(mt)
+    if (codecOpt.isDefined) {
+      val codec = codecOpt.get
+      column(paramFName, codec).write(posNum, codec.toBits(value))
+    } else if (ExperimentStore.primitiveSerializers.contains(mt.erasure.getName)) {
         val lens = ExperimentStore.primitiveSerializers(mt.erasure.getName).lens
         val serialized = lens.asInstanceOf[Lens[String, T]].set("", value)
-        openStreamsMonitor.synchronized {
-          fs.appendCSV(
-            uid,
-            paramFName,
-            openStreams
-          )(
-            Seq(Seq(posStr, serialized)).toStream
-          ).map {
-            case (file, closeable) =>
-              openStreams = openStreams.updated(file, closeable)
-          }
-        }
-        cachedCSVMoninor.synchronized{
-          if (cachedCSV.contains(paramFName)) {
-            val cachedParamData = cachedCSV(paramFName)
-            cachedCSV = cachedCSV.updated(
-              paramFName,
-              cachedParamData.updated(
-                posNum,
-                serialized
-              )
-            )
-          }
+        //  enqueue first, so that concurrent cache load either
+        //    sees our row flushed to disk or sees our cache update
+        csvAppender(paramFName).append(Seq(posStr, serialized))
+        val cached = cachedCSV.get(paramFName)
+        if (cached != null) {
+          cached.values.put(posNum, serialized)
         }
     } else if (ExperimentStore.streamableSerializers.contains(mt.erasure.getName)) {
       val binaryParamFName = "%s/%s".format(paramFName, posStr)
@@ -164,6 +185,178 @@ class ExperimentStore(
     }
   }
 
+  private def columnCodec(mt: Manifest[_]): Option[ExperimentStore.ColumnCodec] = {
+    ExperimentStore.primitiveSerializers.get(mt.erasure.getName).flatMap {
+      serializer => ExperimentStore.columnCodecs.get(serializer.alias)
+    }
+  }
+
+  private def column(paramFName: String, codec: ExperimentStore.ColumnCodec): PrimitiveColumn = {
+    val existing = columns.get(paramFName)
+    if (existing != null) {
+      existing
+    } else {
+      val created = new PrimitiveColumn(
+        fs.fileForUid(uid, paramFName + ".col"),
+        codec.width
+      )
+      if (writeLocked.get) {
+        created.seal()
+      }
+      val raced = columns.putIfAbsent(paramFName, created)
+      if (raced != null) raced else created
+    }
+  }
+
+  private def csvAppender(paramFName: String): CSVAppender = {
+    val existing = csvAppenders.get(paramFName)
+    if (existing != null) {
+      existing
+    } else {
+      startCSVFlush()
+      val created = new CSVAppender(fs, uid, paramFName, ExperimentStore.csvFlushRows)
+      val raced = csvAppenders.putIfAbsent(paramFName, created)
+      if (raced != null) raced else created
+    }
+  }
+
+  private def startCSVFlush() {
+    if (csvFlushStarted.compareAndSet(false, true)) {
+      val flushRunnable = new Runnable {
+        def run() {
+          try {
+            flushCSV()
+          } catch {
+            case e: Exception =>
+              log.warn("periodic flush failed for %s".format(uid.dirName), e)
+          }
+        }
+      }
+      csvFlushTask = Some(
+        ExperimentStore.csvFlushTimer.scheduleWithFixedDelay(
+          flushRunnable,
+          ExperimentStore.csvFlushMillis,
+          ExperimentStore.csvFlushMillis,
+          TimeUnit.MILLISECONDS
+        )
+      )
+      val hook = new Thread(flushRunnable, "flush " + uid.dirName)
+      Runtime.getRuntime.addShutdownHook(hook)
+      csvFlushHook = Some(hook)
+    }
+  }
+
+  private def flushCSV() {
+    doneMonitor.synchronized {
+      val done = drainDone()
+      val appenderIt = csvAppenders.values().iterator()
+      while (appenderIt.hasNext) {
+        appenderIt.next().flush()
+      }
+      done.foreach(posNum => doneColumn.write(posNum, 1))
+    }
+  }
+
+  private def drainDone(): Seq[Long] = {
+    val done = Seq.newBuilder[Long]
+    var posNum = donePending.poll()
+    while (posNum != null) {
+      done += posNum.longValue
+      posNum = donePending.poll()
+    }
+    done.result()
+  }
+
+  /**
+   * Marks the position complete, so that resumed run would skip it.
+   *   The mark is persisted with the next flush, after all the values set before it.
+   */
+  def markDone(posNum: Long) {
+    startCSVFlush()
+    donePending.offer(posNum)
+  }
+
+  /**
+   * Stores probe samples of a position as Long primitives, named
+   *   <code>experiment.probe.name.stat</code>, so that they're exported with the rest of primitives.
+   */
+  def storeProbes(scope: Probes.Scope, spacePos: Seq[ParamPos], posNum: Long) {
+    asScalaSet(scope.getHistograms.entrySet()).foreach {
+      entry =>
+        val prefix = "%s.probe.%s".format(experiment.name, entry.getKey)
+        val histogram = entry.getValue
+        Seq(
+          "count" -> histogram.getCount,
+          "nanos" -> histogram.getTotal,
+          "p50" -> histogram.quantile(0.5),
+          "p99" -> histogram.quantile(0.99)
+        ).foreach {
+          case (stat, value) =>
+            write(prefix + "." + stat, java.lang.Long.valueOf(value), spacePos, posNum)
+        }
+    }
+  }
+
+  def isDone(posNum: Long): Boolean = {
+    doneColumn.read(posNum).isDefined
+  }
+
+  /**
+   * Positions already written to the export file, kept next to it, so that
+   *   an interrupted export may be resumed without starting over.
+   *
+   * @param fresh drop marks of previous exports, for exports starting over
+   */
+  def exportMarks(exportFName: String, fresh: Boolean): PrimitiveColumn = {
+    val file = fs.fileForUid(uid, exportFName + ".exported.col")
+    if (fresh && file.isFile && !file.delete()) {
+      throw new IOException(
+        "failed to drop export marks '%s'".format(file.getAbsolutePath)
+      )
+    }
+    new PrimitiveColumn(file, 1)
+  }
+
+  /**
+   * For stores of complete runs reused as chain stages.
+   */
+  def lockWrites() {
+    writeLocked.set(true)
+    doneColumn.seal()
+  }
+
+  private def csvCache(paramFName: String): ExperimentStore.CachedCSV = {
+    val cached = {
+      val fresh = new ExperimentStore.CachedCSV
+      val raced = cachedCSV.putIfAbsent(paramFName, fresh)
+      if (raced != null) raced else fresh
+    }
+
+    if (!cached.loaded) {
+      cached.synchronized {
+        if (!cached.loaded) {
+          Option(csvAppenders.get(paramFName)).foreach(_.flush())
+          fs.readCSV(uid, paramFName).foreach {
+            lineSeq =>
+              //  last line wins, rows cut short by a crash are skipped
+              val groupedLines = lineSeq.filter(_.size >= 2).groupBy {
+                columnSeq => java.lang.Long.parseLong(columnSeq.head, 16)
+              }.mapValues {
+                _.last.last
+              }
+              groupedLines.foreach {
+                case (posNum, str) =>
+                  cached.values.putIfAbsent(posNum, str)
+              }
+          }
+          cached.loaded = true
+        }
+      }
+    }
+
+    cached
+  }
+
   private def posNumStr[T](posNum: Long): String = {
     java.lang.Long.toString(posNum, 16)
   }
@@ -192,32 +385,99 @@ class ExperimentStore(
     }
   }
 
+  /**
+   * Same as get, but with param lookup and store resolution done once,
+   *   for repeated reads of the same param over many positions.
+   */
+  def reader[T](
+    paramName: String
+  )(
+    implicit mt: Manifest[T]
+  ): (Seq[ParamPos], Map[String, Long]) => Option[T] = {
+    val directStore = chain.find {
+      prevExp =>
+        prevExp.schema.contains(paramName)
+    }.getOrElse {
+      this
+    }
+    val direct = directStore.directReader[T](paramName)
+    val expName = directStore.experiment.name
+
+    {
+      (spacePos, posNumbers) =>
+        spacePos.find {
+          paramPos => paramPos.name == paramName
+        }.map {
+          paramPos =>
+            val lens = ExperimentStore.paramSerializers(paramPos.mt.erasure.getName).lens
+            lens.get(paramPos.value).asInstanceOf[T]
+        }.orElse {
+          direct(posNumbers(expName))
+        }
+    }
+  }
+
+  private def directReader[T](
+    paramName: String
+  )(
+    implicit mt: Manifest[T]
+  ): Long => Option[T] = {
+    val columnOpt = for (
+      paramFName <- paramKey(paramName, mt, extendSchema = false);
+      codec <- columnCodec(mt);
+      col = column(paramFName, codec) if col.exists
+    ) yield {
+      (col, codec)
+    }
+
+    columnOpt.map {
+      case (col, codec) =>
+        (posNum: Long) =>
+          val start = Probes.start()
+          try {
+            col.read(posNum).map(codec.fromBits(_).asInstanceOf[T])
+          } finally {
+            ExperimentStore.probeRead.stop(start)
+          }
+    }.getOrElse {
+      (posNum: Long) => getDirect[T](paramName, Seq.empty, posNum)
+    }
+  }
+
   private def getDirect[T](
     paramName: String,
     spacePos: Seq[ParamPos],
     posNum: Long
   )(
     implicit mt: Manifest[T]
+  ): Option[T] = {
+    val start = Probes.start()
+    try {
+      read[T](paramName, spacePos, posNum)
+    } finally {
+      ExperimentStore.probeRead.stop(start)
+    }
+  }
+
+  private def read[T](
+    paramName: String,
+    spacePos: Seq[ParamPos],
+    posNum: Long
+  )(
+    implicit mt: Manifest[T]
   ): Option[T] = {
     paramKey(paramName, mt, extendSchema = false).flatMap {
       paramFName =>
-        if (ExperimentStore.primitiveSerializers.contains(mt.erasure.getName)) {
-          cachedCSVMoninor.synchronized {
-            cachedCSV.get(paramFName).orElse {
-              fs.readCSV(uid, paramFName).map {
-                lineSeq =>
-                  val groupedLines = lineSeq.groupBy {
-                    columnSeq => java.lang.Long.parseLong(columnSeq.head, 16)
-                  }.mapValues {
-                    _.last.last
-                  }
-                  cachedCSV = cachedCSV.updated(paramFName, groupedLines)
-                  groupedLines
-              }
-            }
-          }.flatMap {
-            _.get(posNum)
-          }.map {
+        val columnOpt = columnCodec(mt).map {
+          codec => (column(paramFName, codec), codec)
+        }.filter(_._1.exists)
+
+        if (columnOpt.isDefined) {
+          val (col, codec) = columnOpt.get
+          col.read(posNum).map(codec.fromBits(_).asInstanceOf[T])
+        } else if (ExperimentStore.primitiveSerializers.contains(mt.erasure.getName)) {
+          //  numeric params of runs predating the columns, and all the strings
+          Option(csvCache(paramFName).values.get(posNum)).map {
             str =>
               val lens = ExperimentStore.primitiveSerializers(mt.erasure.getName).lens
               lens.get(str).asInstanceOf[T]
@@ -295,7 +555,16 @@ class ExperimentStore(
         if (writeLocked.get) {
           throw new IllegalStateException("attempting to add param %s after write shutdown".format(paramName))
         }
-        schema.putIfAbsent(paramName, alias)
+        val prevAlias = schema.putIfAbsent(paramName, alias)
+        if (prevAlias.isEmpty) {
+          //  resumed runs need the schema of params stored before the crash
+          schemaMonitor.synchronized {
+            fs.appendCSV(uid, "schema.csv", Map.empty)(
+              Stream(Seq(paramName, alias))
+            ).foreach(_._2.close())
+          }
+        }
+        prevAlias
       } else {
         schema.get(paramName)
       }
@@ -320,26 +589,54 @@ class ExperimentStore(
   }
 
   def readShutdown() {
-    cachedCSVMoninor.synchronized{
-      cachedCSV = Map.empty
+    cachedCSV.clear()
+    val columnIt = columns.values().iterator()
+    while (columnIt.hasNext) {
+      columnIt.next().release()
     }
   }
 
   def writeShutdown() {
     writeLocked.set(true)
 
+    csvFlushTask.foreach(_.cancel(false))
+    doneMonitor.synchronized {
+      val done = drainDone()
+      val appenderIt = csvAppenders.values().iterator()
+      while (appenderIt.hasNext) {
+        appenderIt.next().close()
+      }
+      done.foreach(posNum => doneColumn.write(posNum, 1))
+      doneColumn.seal()
+    }
+    val columnIt = columns.values().iterator()
+    while (columnIt.hasNext) {
+      columnIt.next().seal()
+    }
+    csvFlushHook.foreach {
+      hook =>
+        try {
+          Runtime.getRuntime.removeShutdownHook(hook)
+        } catch {
+          case e: IllegalStateException =>
+            //  JVM is shutting down already, hook is running or has completed
+        }
+    }
+
     fs.dumpCSV(uid, "chain.csv", Map.empty)(
       chain.toStream.map(
         store => Seq(store.uid.expName, store.uid.confName, store.uid.stamp)
       )
     )
 
-    fs.dumpCSV(uid, "schema.csv", Map.empty)(
-      schema.map {
-        case (pName, pAlias) =>
-          Seq(pName, pAlias)
-      }.toStream
-    )
+    schemaMonitor.synchronized {
+      fs.dumpCSV(uid, "schema.csv", Map.empty)(
+        schema.map {
+          case (pName, pAlias) =>
+            Seq(pName, pAlias)
+        }.toStream
+      )
+    }
 
     openStreamsMonitor.synchronized {
       openStreams.values.foreach {
@@ -377,11 +674,78 @@ class ExperimentStore(
 }
 
 object ExperimentStore {
+  private val probeRead = Probes.probe("store.read")
+  private val probeWrite = Probes.probe("store.write")
+
+  /**
+   * Rows pending in a CSVAppender before a writer flushes them itself.
+   */
+  val csvFlushRows = 256
+
+  /**
+   * Period of background flushes, limits the amount of rows lost on a crash.
+   */
+  val csvFlushMillis = 1000L
+
+  protected lazy val csvFlushTimer =
+    Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactory {
+        def newThread(r: Runnable) = {
+          val thread = new Thread(r, "ExperimentStore CSV flush")
+          thread.setDaemon(true)
+          thread
+        }
+      }
+    )
+
+  protected class CachedCSV {
+    val values = new ConcurrentHashMap[java.lang.Long, String]()
+    @volatile var loaded = false
+  }
+
   import java.lang.{
     Byte => JByte, Integer => JInt, Long => JLong,
     Float => JFloat, Double => JDouble
   }
 
+  /**
+   * Numeric primitives are stored as raw bits in fixed-width columns,
+   *   the fromBits results are boxed, so they cast to both scala and java types.
+   */
+  protected case class ColumnCodec(
+    width: Int,
+    toBits: Any => Long,
+    fromBits: Long => Any
+  )
+
+  protected lazy val columnCodecs: Map[String, ColumnCodec] = Map(
+    "Byte" -> ColumnCodec(
+      1,
+      v => v.asInstanceOf[Number].longValue,
+      bits => JByte.valueOf(bits.toByte)
+    ),
+    "Int" -> ColumnCodec(
+      4,
+      v => v.asInstanceOf[Number].longValue,
+      bits => JInt.valueOf(bits.toInt)
+    ),
+    "Long" -> ColumnCodec(
+      8,
+      v => v.asInstanceOf[Number].longValue,
+      bits => JLong.valueOf(bits)
+    ),
+    "Float" -> ColumnCodec(
+      4,
+      v => JFloat.floatToRawIntBits(v.asInstanceOf[Number].floatValue).toLong,
+      bits => JFloat.valueOf(JFloat.intBitsToFloat(bits.toInt))
+    ),
+    "Double" -> ColumnCodec(
+      8,
+      v => JDouble.doubleToRawLongBits(v.asInstanceOf[Number].doubleValue),
+      bits => JDouble.valueOf(JDouble.longBitsToDouble(bits))
+    )
+  )
+
   protected lazy val primitiveSerializers: Map[String, ValueSerializer[String, _]] =
     Seq[ValueSerializer[String, _]](
       ValueSerializer(
@@ -576,7 +940,11 @@ object ExperimentStore {
       serSeq.head
     }
 
-  protected lazy val streamableSerializers: Map[String, StreamSerializer[_ <: Streamable]] =
+  /**
+   * Streamable types of experiment domains are added via registerStreamable.
+   */
+  @volatile
+  protected var streamableSerializers: Map[String, StreamSerializer[_ <: Streamable]] =
     Seq[StreamSerializer[_ <: Streamable]](
       StreamSerializer[VertexData](
         "VertexData",
@@ -593,6 +961,21 @@ object ExperimentStore {
         input => new EdgeDataSparse().fromStream(input),
         (eData: EdgeDataSparse) => eData.createStream()
       ),
+      StreamSerializer[EdgeDataFrozen](
+        "EdgeDataFrozen",
+        input => new EdgeDataFrozen().fromStream(input),
+        (eData: EdgeDataFrozen) => eData.createStream()
+      ),
+      StreamSerializer[EdgeDataBits](
+        "EdgeDataBits",
+        input => new EdgeDataBits().fromStream(input),
+        (eData: EdgeDataBits) => eData.createStream()
+      ),
+      StreamSerializer[EdgeDataEuclidean](
+        "EdgeDataEuclidean",
+        input => new EdgeDataEuclidean().fromStream(input),
+        (eData: EdgeDataEuclidean) => eData.createStream()
+      ),
       StreamSerializer[EdgeDataConstant](
         "EdgeDataConstant",
         input => new EdgeDataConstant().fromStream(input),
@@ -637,7 +1020,32 @@ object ExperimentStore {
       serSeq.head
     }
 
-  protected lazy val allSerializers: Map[String, Serializer[Any]] = {
+  /**
+   * Registering a serializer for a type or alias already known to the store fails,
+   *   unless it is the same type under the same alias.
+   */
+  def registerStreamable(serializer: StreamSerializer[_ <: Streamable]) {
+    synchronized {
+      val typeName = serializer.mt.erasure.getName
+      streamableSerializers.get(typeName) match {
+        case Some(prev) if prev.alias == serializer.alias =>
+          //  already registered
+        case Some(prev) =>
+          throw new IllegalArgumentException(
+            "multiple serializers for %s".format(typeName)
+          )
+        case None =>
+          if (streamableSerializers.values.exists(_.alias == serializer.alias)) {
+            throw new IllegalArgumentException(
+              "multiple serializers for alias %s".format(serializer.alias)
+            )
+          }
+          streamableSerializers = streamableSerializers.updated(typeName, serializer)
+      }
+    }
+  }
+
+  protected def allSerializers: Map[String, Serializer[Any]] = {
     primitiveSerializers.withDefault(streamableSerializers.map{
       case (m, s) =>
         (
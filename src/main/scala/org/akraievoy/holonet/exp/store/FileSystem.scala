@@ -46,7 +46,7 @@ class FileSystem(
       (new PrintWriter(new FileWriter(destFile, true)), true)
     }
 
-    data.foreach(rowSeq => w.println(rowSeq.mkString(";")))
+    data.foreach(rowSeq => w.println(csvLine(rowSeq)))
     w.flush()
 
     if (opened) {
@@ -56,6 +56,46 @@ class FileSystem(
     }
   }
 
+  def openAppendCSV(
+    runUID: RunUID,
+    fName: String
+  ): PrintWriter = {
+    val destFile = fileForUid(runUID, fName)
+    destFile.getParentFile.mkdirs()
+    new PrintWriter(new BufferedWriter(new FileWriter(destFile, true)))
+  }
+
+  def openDumpCSV(
+    runUID: RunUID,
+    fName: String
+  ): PrintWriter = openDump(runUID, fName)
+
+  /**
+   * Buffered writer over a truncated file, for text exports written as they're rendered.
+   */
+  def openDump(
+    runUID: RunUID,
+    fName: String
+  ): PrintWriter = {
+    val destFile = fileForUid(runUID, fName)
+    destFile.getParentFile.mkdirs()
+    new PrintWriter(new BufferedWriter(new FileWriter(destFile, false), 1 << 16))
+  }
+
+  /**
+   * Buffered stream over a truncated file, for binary exports.
+   */
+  def openDumpBinary(
+    runUID: RunUID,
+    fName: String
+  ): OutputStream = {
+    val destFile = fileForUid(runUID, fName)
+    destFile.getParentFile.mkdirs()
+    new BufferedOutputStream(new FileOutputStream(destFile, false), 1 << 16)
+  }
+
+  def csvLine(rowSeq: Seq[String], separator: String = ";") = rowSeq.mkString(separator)
+
   def readCSV(
     runUID: RunUID,
     fName: String
@@ -92,7 +132,7 @@ class FileSystem(
     destFile.getParentFile.mkdirs()
 
     val w = new PrintWriter(new FileWriter(destFile, false))
-    data.foreach(rowSeq => w.println(rowSeq.mkString(";")))
+    data.foreach(rowSeq => w.println(csvLine(rowSeq)))
     w.flush()
     w.close()
   }
@@ -170,6 +210,12 @@ class FileSystem(
     }
   }
 
+  def listRuns: Seq[RunUID] = {
+    Option(baseDir.listFiles()).map(_.toSeq).getOrElse(Seq.empty).filter(_.isDirectory).flatMap {
+      dir => RunUID.parse(dir.getName)
+    }
+  }
+
   def expDir(runUID: RunUID): File = {
     new File(baseDir, runUID.dirName)
   }
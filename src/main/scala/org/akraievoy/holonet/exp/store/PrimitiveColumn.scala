@@ -0,0 +1,211 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.holonet.exp.store
+
+import java.io.{IOException, RandomAccessFile, File}
+import java.nio.{MappedByteBuffer, ByteBuffer}
+import java.nio.channels.FileChannel
+
+/**
+ * Fixed-width binary column of a single numeric primitive, indexed by posNum.
+ *
+ * Each slot is a presence byte followed by <code>width</code> bytes of value bits,
+ * slot of posNum starts at <code>posNum * (width + 1)</code>, so holes are
+ * simply zero-filled (and thus absent) slots of a sparse file.
+ *
+ * While the owning store is writable slots are written and read with positional
+ * channel IO (which is safe for concurrent use), once the column is sealed
+ * reads go through read-only memory mappings.
+ */
+class PrimitiveColumn(
+  val file: File,
+  val width: Int
+) {
+  if (width != 1 && width != 4 && width != 8) {
+    throw new IllegalArgumentException("width(%d) is not 1, 4 or 8".format(width))
+  }
+
+  val slotWidth = width + 1
+
+  //  keeping chunks under 1G and aligned to slots, so no slot spans two chunks
+  private val chunkSlots = (1L << 30) / slotWidth
+
+  private var channel: Option[FileChannel] = None
+  @volatile private var readOnly = false
+  @volatile private var chunks: Option[Array[MappedByteBuffer]] = None
+
+  def exists = channel.isDefined || file.isFile
+
+  def write(posNum: Long, bits: Long) {
+    if (readOnly) {
+      throw new IllegalStateException(
+        "writing to sealed '%s'".format(file.getAbsolutePath)
+      )
+    }
+
+    val slot = ByteBuffer.allocate(slotWidth)
+    slot.put(1: Byte)
+    width match {
+      case 1 => slot.put(bits.toByte)
+      case 4 => slot.putInt(bits.toInt)
+      case 8 => slot.putLong(bits)
+    }
+    slot.flip()
+
+    val ch = writeChannel
+    var offset = posNum * slotWidth
+    while (slot.hasRemaining) {
+      offset += ch.write(slot, offset)
+    }
+  }
+
+  def read(posNum: Long): Option[Long] = {
+    if (readOnly) {
+      readMapped(posNum)
+    } else {
+      readChannel(posNum)
+    }
+  }
+
+  /**
+   * Number of slots, present or not, up to the last written one.
+   */
+  def slots: Long = {
+    val length = synchronized(channel).map(_.size).getOrElse(file.length)
+    length / slotWidth
+  }
+
+  /**
+   * Forces pending writes to disk, all further reads are memory-mapped.
+   */
+  def seal() {
+    synchronized {
+      readOnly = true
+      channel.foreach {
+        ch =>
+          try {
+            ch.force(false)
+          } finally {
+            ch.close()
+          }
+      }
+      channel = None
+    }
+  }
+
+  /**
+   * Drops the mappings, to be re-created lazily on next read.
+   */
+  def release() {
+    chunks = None
+  }
+
+  private def writeChannel: FileChannel = synchronized {
+    channel.getOrElse {
+      file.getParentFile.mkdirs()
+      val opened = new RandomAccessFile(file, "rw").getChannel
+      channel = Some(opened)
+      opened
+    }
+  }
+
+  private def readChannel(posNum: Long): Option[Long] = {
+    val chOpt = synchronized {
+      if (channel.isEmpty && file.isFile) Some(writeChannel) else channel
+    }
+    chOpt.flatMap {
+      ch =>
+        val slot = ByteBuffer.allocate(slotWidth)
+        var offset = posNum * slotWidth
+        var eof = false
+        while (slot.hasRemaining && !eof) {
+          val read = ch.read(slot, offset)
+          if (read < 0) {
+            eof = true
+          } else {
+            offset += read
+          }
+        }
+        if (slot.hasRemaining) {
+          None
+        } else {
+          slotValue(slot, 0)
+        }
+    }
+  }
+
+  private def readMapped(posNum: Long): Option[Long] = {
+    val mapped = chunks.getOrElse(map())
+    val chunkIndex = posNum / chunkSlots
+    if (chunkIndex >= mapped.length) {
+      None
+    } else {
+      val chunk = mapped(chunkIndex.toInt)
+      val offset = ((posNum % chunkSlots) * slotWidth).toInt
+      if (offset + slotWidth > chunk.limit()) {
+        None
+      } else {
+        slotValue(chunk, offset)
+      }
+    }
+  }
+
+  private def slotValue(buffer: ByteBuffer, offset: Int): Option[Long] = {
+    //  absolute gets only: mapped buffers are shared among reader threads
+    if (buffer.get(offset) == 0) {
+      None
+    } else {
+      width match {
+        case 1 => Some(buffer.get(offset + 1).toLong)
+        case 4 => Some(buffer.getInt(offset + 1).toLong)
+        case 8 => Some(buffer.getLong(offset + 1))
+      }
+    }
+  }
+
+  private def map(): Array[MappedByteBuffer] = synchronized {
+    chunks.getOrElse {
+      val mapped =
+        if (!file.isFile) {
+          Array.empty[MappedByteBuffer]
+        } else {
+          val raf = new RandomAccessFile(file, "r")
+          try {
+            val ch = raf.getChannel
+            val length = ch.size
+            val chunkBytes = chunkSlots * slotWidth
+            val chunkCount = ((length + chunkBytes - 1) / chunkBytes).toInt
+            Array.tabulate(chunkCount) {
+              chunkIndex =>
+                val start = chunkIndex * chunkBytes
+                ch.map(FileChannel.MapMode.READ_ONLY, start, math.min(chunkBytes, length - start))
+            }
+          } catch {
+            case e: IOException =>
+              throw new IOException("failed to map '%s'".format(file.getAbsolutePath), e)
+          } finally {
+            //  mappings stay valid after the channel is closed
+            raf.close()
+          }
+        }
+      chunks = Some(mapped)
+      mapped
+    }
+  }
+}
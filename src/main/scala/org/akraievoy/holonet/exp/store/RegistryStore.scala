@@ -56,4 +56,50 @@ class RegistryStore(
       dateFormat.format(new Date(generateStamp))
     )
   }
+
+  /**
+   * @param fingerprint of the experiment and configs of its chain, recorded for later resume
+   */
+  def registerRun(
+    expName: String,
+    confName: String,
+    fingerprint: String
+  ): RunUID = {
+    val runUID = registerRun(expName, confName)
+    fs.dumpCSV(runUID, "fingerprint.csv", Map.empty)(
+      Stream(Seq(fingerprint))
+    )
+    runUID
+  }
+
+  def markComplete(runUID: RunUID, fingerprint: String) {
+    fs.dumpCSV(runUID, "complete.csv", Map.empty)(
+      Stream(Seq(fingerprint))
+    )
+  }
+
+  /**
+   * @return latest run with same fingerprint, and whether it has completed
+   */
+  def findRun(
+    expName: String,
+    confName: String,
+    fingerprint: String
+  ): Option[(RunUID, Boolean)] = {
+    def hasFingerprint(runUID: RunUID, fName: String) =
+      fs.readCSV(runUID, fName).exists {
+        lineSeq => lineSeq.exists(_.headOption == Some(fingerprint))
+      }
+
+    fs.listRuns.filter {
+      runUID =>
+        runUID.expName == expName && runUID.confName == confName
+    }.sortBy(_.stamp).reverse.find {
+      runUID =>
+        hasFingerprint(runUID, "fingerprint.csv")
+    }.map {
+      runUID =>
+        (runUID, hasFingerprint(runUID, "complete.csv"))
+    }
+  }
 }
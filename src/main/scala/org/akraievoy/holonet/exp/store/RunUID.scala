@@ -25,3 +25,14 @@ case class RunUID (
 ) {
   def dirName = "%s--%s--%s".format(stamp, expName, confName)
 }
+
+object RunUID {
+  def parse(dirName: String): Option[RunUID] = {
+    dirName.split("--", 3) match {
+      case Array(stamp, expName, confName) =>
+        Some(RunUID(expName, confName, stamp))
+      case other =>
+        None
+    }
+  }
+}
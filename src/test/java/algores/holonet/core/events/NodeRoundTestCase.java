@@ -0,0 +1,70 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algores.holonet.core.events;
+
+import algores.holonet.core.CommunicationException;
+import algores.holonet.core.Network;
+import algores.holonet.core.Node;
+import algores.holonet.core.api.tier1.overlay.StagedStabilize;
+import algores.holonet.protocols.Context;
+import algores.holonet.protocols.ContextMeta;
+import junit.framework.TestCase;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+
+public class NodeRoundTestCase extends TestCase {
+  protected static final NodeRound.Work FINGERS = new NodeRound.Work() {
+    public void run(Node node) throws CommunicationException {
+      ((StagedStabilize) node.getServices().getOverlay()).stabilizeFingers();
+    }
+  };
+
+  public void testWorkersReleaseNetwork() {
+    final WeakReference<Network> firstRef = new WeakReference<Network>(fingerRound(136350));
+    fingerRound(136348);
+
+    for (int attempt = 0; attempt < 50 && firstRef.get() != null; attempt++) {
+      System.gc();
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        fail("interrupted");
+      }
+    }
+
+    assertNull("network is still referenced after its round", firstRef.get());
+  }
+
+  /**
+   * @return the network, disposed for the calling thread
+   */
+  protected static Network fingerRound(final long seed) {
+    final Context ctx = new ContextMeta().create(seed);
+    final Network net = ctx.net();
+    net.insertNodes(32, ctx.getNetFailCount(), ctx.getEntropy());
+
+    //  more nodes than workers, so that every worker makes some rpc calls
+    NodeRound.run(net, new ArrayList<Node>(net.getAllNodes()), FINGERS);
+
+    net.dispose();
+    return net;
+  }
+}
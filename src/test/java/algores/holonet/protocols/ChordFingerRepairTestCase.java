@@ -0,0 +1,92 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package algores.holonet.protocols;
+
+import algores.holonet.core.Network;
+import algores.holonet.core.Node;
+import algores.holonet.core.api.Key;
+import algores.holonet.core.api.tier1.delivery.LookupService;
+import algores.holonet.protocols.chord.ChordRoutingServiceImpl;
+import algores.holonet.protocols.chord.ChordServiceBase;
+import algores.holonet.testbench.Metrics;
+
+public class ChordFingerRepairTestCase extends DhtProtocolTestCase {
+  protected boolean skipCovered = true;
+  protected int batch = 0;
+
+  @Override
+  protected ContextMeta createContextMeta() {
+    return new ContextMeta()
+        .routing(new ChordRoutingServiceImpl())
+        .routingRedundancy(2)
+        .maxFingerFlavorNum(9)
+        .overlay(new ChordServiceBase().fingerSkipCovered(skipCovered).fingerBatch(batch));
+  }
+
+  public void testHopCount() throws Throwable {
+    testHopCount0(135930, 16, 4);
+    testHopCount0(874934, 32, 5);
+    testHopCount0(830388, 64, 6);
+  }
+
+  public void testJoinLeave() throws Throwable {
+    testJoinLeave0(145391, 5);
+    testJoinLeave0(230474, 16);
+    testJoinLeave0(129874, 32);
+  }
+
+  public void testJoinLeaveBatch() throws Throwable {
+    batch = 8;
+    testJoinLeave0(145391, 5);
+    testJoinLeave0(230474, 16);
+    testJoinLeave0(129874, 32);
+  }
+
+  public void testFixfingersCount() throws Throwable {
+    final int nodes = 64;
+
+    skipCovered = false;
+    final long all = fixfingersCount(830388, nodes);
+    assertEquals(nodes * Key.BITNESS, all);
+
+    skipCovered = true;
+    final long covered = fixfingersCount(830388, nodes);
+    assertTrue("covered " + covered + " vs all " + all, covered < all / 2);
+
+    batch = 8;
+    final long coveredBatch = fixfingersCount(830388, nodes);
+    assertTrue("batch " + coveredBatch + " vs covered " + covered, coveredBatch <= nodes * batch);
+  }
+
+  protected long fixfingersCount(final long seed, final int nodes) {
+    final Context ctx = createContextMeta().create(seed);
+    final Network net = ctx.net();
+    net.generateNode(null, ctx.getEntropy(), null);
+    net.insertNodes(nodes - 1, ctx.getNetFailCount(), ctx.getEntropy());
+    assertEquals(0, ctx.getNetFailCount().get());
+
+    final Metrics testMetrics = Metrics.createInstance(net, "test");
+    net.setInterceptor(testMetrics);
+    for (Node node : net.getAllNodes()) {
+      node.getServices().getOverlay().stabilize();
+    }
+
+    return testMetrics.modeToLookups(LookupService.Mode.FIXFINGERS).getLookupCount();
+  }
+}
@@ -77,6 +77,13 @@ public class ChordProtocolTestCase extends DhtProtocolTestCase {
     testFailStabilize0(136380, 8);
   }
 
+  public void testFailStabilizeParallel() throws Throwable {
+    testFailStabilizeParallel0(136350, 8);
+    testFailStabilizeParallel0(136348, 8);
+    testFailStabilizeParallel0(136290, 16);
+    testFailStabilizeParallel0(136380, 64);
+  }
+
   public void testFailStabilizePerformance() throws Throwable {
 /*
     Thread.sleep(20000);
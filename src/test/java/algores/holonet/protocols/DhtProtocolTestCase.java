@@ -22,10 +22,13 @@ import algores.holonet.core.*;
 import algores.holonet.core.api.API;
 import algores.holonet.core.api.Address;
 import algores.holonet.core.api.Key;
+import algores.holonet.core.api.tier0.routing.RoutingService;
+import algores.holonet.core.api.tier0.routing.Routing.RoutingEntry;
 import algores.holonet.core.api.tier0.routing.RoutingServiceBase;
 import algores.holonet.core.api.tier0.storage.StorageService;
 import algores.holonet.core.api.tier1.delivery.LookupService;
 import algores.holonet.core.events.EventNetDiscover;
+import algores.holonet.core.events.EventNetReflavor;
 import algores.holonet.core.events.EventNetStabilize;
 import algores.holonet.testbench.Metrics;
 import com.google.common.base.Optional;
@@ -34,6 +37,10 @@ import junit.framework.TestCase;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public abstract class DhtProtocolTestCase extends TestCase {
   protected abstract ContextMeta createContextMeta();
@@ -198,6 +205,7 @@ public abstract class DhtProtocolTestCase extends TestCase {
       System.err.println(String.format("route redundancy change (%d nodes) = %g", nodes, getMetrics.getRoutingServiceRedundancyChangeAvg()));
     }
     assertEquals(0, ctx.getNetFailCount().get());
+    assertLinksLive(net);
   }
 
   protected void testFail0(final long seed, final int nodes) {
@@ -293,6 +301,60 @@ public abstract class DhtProtocolTestCase extends TestCase {
     assertEquals(1.0f, secondDiscover.successRatio());
   }
 
+  /**
+   * Same as {@link #testFailStabilize0(long, int)}, with parallel rounds,
+   *   which should also yield the same routes and metrics when repeated with the same seed.
+   */
+  protected void testFailStabilizeParallel0(final long seed, final int nodes) {
+    final String digest = failStabilizeParallel(seed, nodes);
+    assertEquals(digest, failStabilizeParallel(seed, nodes));
+  }
+
+  protected String failStabilizeParallel(final long seed, final int nodes) {
+    final Context ctx = createContextMeta().routingRedundancy(1).maxFingerFlavorNum(1).create(seed);
+    final Network net = ctx.net();
+
+    net.insertNodes(nodes, ctx.getNetFailCount(), ctx.getEntropy());
+    new EventNetDiscover().execute(net, ctx.getEntropy());
+
+    final double failRatio = 0.125;
+    final Collection<Node> allNodes = new ArrayList<Node>(net.getAllNodes());
+    int failedCount = 0;
+    for (Node n : allNodes) {
+      if (ctx.getEntropy().nextDouble() > failRatio || failedCount > allNodes.size() * failRatio) {
+        continue;
+      }
+
+      net.removeNode(n, true);
+      failedCount++;
+    }
+
+    final Metrics testMetrics = Metrics.createInstance(net, "test");
+    net.setInterceptor(testMetrics);
+    new EventNetStabilize().withParallel(true).execute(net, ctx.getEntropy());
+    new EventNetReflavor().withParallel(true).execute(net, ctx.getEntropy());
+    assertLinksLive(net);
+
+    final StringBuilder digest = new StringBuilder();
+    digest.append(net.getElapsedTime()).append(" / ");
+    digest.append(testMetrics.modeToLookups(LookupService.Mode.FIXFINGERS).getLookupCount()).append('\n');
+    for (Node node : net.getAllNodes()) {
+      digest.append(node.getAddress()).append(" ->");
+      final List<String> routes = new ArrayList<String>();
+      for (RoutingEntry re : node.getServices().getRouting().routes().routes()) {
+        routes.add(re.getAddress() + ":" + re.liveness());
+      }
+      Collections.sort(routes);
+      digest.append(' ').append(routes).append('\n');
+    }
+
+    final EventNetDiscover secondDiscover = new EventNetDiscover();
+    secondDiscover.execute(net, ctx.getEntropy());
+    assertEquals(1.0f, secondDiscover.successRatio());
+
+    return digest.toString();
+  }
+
   protected void testFailStabilizePerf0(final long seed, final int nodes, final int dataElems, final double failRatio) {
     final Context ctx = createContextMeta().routingRedundancy(1).maxFingerFlavorNum(1).create(seed);
     final Network net = ctx.net();
@@ -332,4 +394,39 @@ public abstract class DhtProtocolTestCase extends TestCase {
     System.out.println("get@discover: " + sw.toString()); sw.reset(); sw.start();
   }
 
+
+  /**
+   * Link graphs maintained by the network match the routes among the nodes present.
+   */
+  protected static void assertLinksLive(final Network net) {
+    final Env env = net.getEnv();
+    final LinkGraph links = net.getLinks();
+    for (Node nodeFrom : net.getAllNodes()) {
+      final int fromIndex = env.indexOf(nodeFrom.getAddress());
+      final Set<Integer> dhtLinks = new HashSet<Integer>();
+      for (int intoIndex : links.dhtLinks(fromIndex)) {
+        dhtLinks.add(intoIndex);
+      }
+      final Set<Integer> seedLinks = new HashSet<Integer>();
+      for (int intoIndex : links.seedLinks(fromIndex)) {
+        seedLinks.add(intoIndex);
+      }
+
+      final RoutingService routing = nodeFrom.getServices().getRouting();
+      for (Node nodeInto : net.getAllNodes()) {
+        final Address intoAddr = nodeInto.getAddress();
+        final int intoIndex = env.indexOf(intoAddr);
+        assertEquals(
+            fromIndex + " -> " + intoIndex,
+            routing.hasRouteFor(intoAddr, true, false),
+            dhtLinks.contains(intoIndex)
+        );
+        assertEquals(
+            fromIndex + " -> " + intoIndex,
+            routing.hasRouteFor(intoAddr, false, true),
+            seedLinks.contains(intoIndex)
+        );
+      }
+    }
+  }
 }
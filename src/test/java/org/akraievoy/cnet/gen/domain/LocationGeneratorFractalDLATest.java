@@ -0,0 +1,166 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.gen.domain;
+
+import junit.framework.TestCase;
+import org.akraievoy.cnet.gen.vo.EntropySource;
+import org.akraievoy.cnet.gen.vo.EntropySourceRandom;
+
+import java.util.Arrays;
+
+public class LocationGeneratorFractalDLATest extends TestCase {
+  protected static final int GRID_SIZE = 128;
+  protected static final long SEED = 1123581321L;
+
+  /**
+   * The original single walker, checking for deposits at every step.
+   */
+  protected static double[] referenceWeights(final LocationGeneratorFractalDLA gen) {
+    final int gridSize = gen.getGridSize();
+    final int cells = gridSize * gridSize;
+    final EntropySource eSource = new EntropySourceRandom().seed(SEED);
+    final double[] weights = new double[cells];
+    final int[] dirs = new int[]{-gridSize - 1, -gridSize, -gridSize + 1, 1, gridSize + 1, gridSize, gridSize - 1, -1};
+
+    final double totalWeight = Math.pow(gridSize, gen.getDimensionRatio());
+    final double totalArea = totalWeight / gen.getDensityRatio();
+
+    double sum = 0;
+    for (int g = 0; g < gen.getGenerationNum(); g++) {
+      sum += Math.pow(gen.getGenPointsRatio(), g);
+    }
+
+    final double genWeight = totalWeight / gen.getGenerationNum();
+    double points = totalArea / sum;
+
+    for (int g = 0; g < gen.getGenerationNum(); g++) {
+      if (g > 0) {
+        points *= gen.getGenPointsRatio();
+      }
+      final double pointWeight = genWeight / points;
+
+      int tries = gen.getTryNum();
+      for (int p = 0; p < points; tries--) {
+        final int pos = eSource.nextInt(cells);
+
+        if (g == 0 || tries == 0) {
+          weights[pos] += pointWeight;
+          p++;
+          tries = gen.getTryNum();
+          continue;
+        }
+
+        int dir = eSource.nextInt(dirs.length) % 8;
+
+        int curPos = pos;
+        while (isDep(weights, curPos)) {
+          curPos += dirs[dir];
+        }
+        if (curPos < 0 || curPos >= cells) {
+          continue;
+        }
+
+        int stepCounter = 0;
+        while (0 <= curPos && curPos < cells) {
+          final int nextPos = curPos + dirs[dir];
+          final int nextPosL = curPos + dirs[(dir + 1) % 8];
+          final int nextPosR = curPos + dirs[(dir + 7) % 8];
+
+          if (isDep(weights, nextPos) || isDep(weights, nextPosL) || isDep(weights, nextPosR)) {
+            break;
+          }
+
+          curPos = nextPos;
+          if (stepCounter % 8 == 0) {
+            dir = (dir + eSource.nextInt(3) + 7) % 8;
+          }
+          stepCounter++;
+        }
+
+        if (curPos < 0 || curPos >= cells) {
+          continue;
+        }
+
+        weights[curPos] += pointWeight;
+        p++;
+        tries = gen.getTryNum();
+      }
+    }
+
+    return weights;
+  }
+
+  protected static boolean isDep(final double[] weights, final int pos) {
+    return 0 <= pos && pos < weights.length && weights[pos] > 0;
+  }
+
+  protected static LocationGeneratorFractalDLA generator(final int walkerNum, final boolean deterministic) {
+    final LocationGeneratorFractalDLA gen = new LocationGeneratorFractalDLA(new EntropySourceRandom().seed(SEED));
+    gen.setGridSize(GRID_SIZE);
+    gen.setGenerationNum(6);
+    gen.setWalkerNum(walkerNum);
+    gen.setDeterministic(deterministic);
+    return gen;
+  }
+
+  protected static double sum(final double[] weights) {
+    double sum = 0;
+    for (double w : weights) {
+      sum += w;
+    }
+    return sum;
+  }
+
+  public void testSingleWalkerSameAsReference() {
+    final LocationGeneratorFractalDLA gen = generator(1, true);
+    gen.run();
+
+    assertTrue(Arrays.equals(referenceWeights(gen), gen.weights));
+  }
+
+  public void testSingleWalkerSameAsReferenceWithFewTries() {
+    final LocationGeneratorFractalDLA gen = generator(1, true);
+    //  walkers get clipped off often enough to run out of tries
+    gen.setTryNum(2);
+    gen.run();
+
+    assertTrue(Arrays.equals(referenceWeights(gen), gen.weights));
+  }
+
+  public void testDeterministicWalkers() {
+    final LocationGeneratorFractalDLA genA = generator(16, true);
+    genA.run();
+    final LocationGeneratorFractalDLA genB = generator(16, true);
+    genB.run();
+
+    assertTrue(Arrays.equals(genA.weights, genB.weights));
+
+    final double expected = sum(referenceWeights(genA));
+    assertEquals(expected, sum(genA.weights), expected * 1e-9);
+    genA.chooseLocation(new EntropySourceRandom().seed(SEED));
+  }
+
+  public void testConcurrentWalkersKeepWeight() {
+    final LocationGeneratorFractalDLA gen = generator(64, false);
+    gen.run();
+
+    final double expected = sum(referenceWeights(gen));
+    assertEquals(expected, sum(gen.weights), expected * 1e-9);
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.gen.vo;
+
+import junit.framework.TestCase;
+import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataFactory;
+
+import static org.akraievoy.cnet.net.Net.toFrom;
+import static org.akraievoy.cnet.net.Net.toInto;
+
+public class WeightedPairModelTest extends TestCase {
+  protected static EdgeData requests(final int size) {
+    final EdgeData req = EdgeDataFactory.sparse(false, 0.0, size);
+    for (int from = 0; from < size; from++) {
+      for (int into = 0; into < size; into++) {
+        if ((from + into) % 3 != 0) {
+          req.set(from, into, 1 + from + 2 * into);
+        }
+      }
+    }
+    return req;
+  }
+
+  public void testEmpty() {
+    final WeightedPairModel model = new WeightedPairModel(requests(6));
+    assertEquals(0, model.getSize());
+    assertEquals(0.0, model.getSum());
+
+    model.activate(3);
+    //  (3,3) is the only pair over active vertices and it is a default one
+    assertEquals(0, model.getSize());
+    assertEquals(0.0, model.getSum());
+  }
+
+  public void testChurn() {
+    final int size = 6;
+    final EdgeData req = requests(size);
+    final WeightedPairModel model = new WeightedPairModel(req);
+
+    model.activate(0);
+    model.activate(1);
+    model.activate(4);
+    model.activate(5);
+    model.deactivate(1);
+    model.activate(3);
+    model.activate(1);
+    model.deactivate(4);
+    model.deactivate(4);
+
+    final boolean[] active = {true, true, false, true, false, true};
+    int pairs = 0;
+    double sum = 0;
+    for (int from = 0; from < size; from++) {
+      for (int into = 0; into < size; into++) {
+        if (active[from] && active[into] && req.get(from, into) > 0) {
+          pairs++;
+          sum += req.get(from, into);
+        }
+      }
+    }
+    assertEquals(pairs, model.getSize());
+    assertEquals(sum, model.getSum(), 1e-9);
+
+    final int samples = 200000;
+    final int[][] counts = new int[size][size];
+    final EntropySource eSource = new EntropySourceRandom().seed(31337);
+    for (int i = 0; i < samples; i++) {
+      final int pairId = model.generate(eSource);
+      counts[toFrom(pairId)][toInto(pairId)]++;
+    }
+
+    for (int from = 0; from < size; from++) {
+      for (int into = 0; into < size; into++) {
+        final boolean live = active[from] && active[into] && req.get(from, into) > 0;
+        if (!live) {
+          assertEquals(0, counts[from][into]);
+        } else {
+          final double expected = req.get(from, into) / sum;
+          assertEquals(expected, (double) counts[from][into] / samples, 0.01);
+        }
+      }
+    }
+  }
+}
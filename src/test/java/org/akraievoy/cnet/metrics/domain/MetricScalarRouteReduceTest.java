@@ -0,0 +1,138 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.metrics.domain;
+
+import junit.framework.TestCase;
+import org.akraievoy.cnet.gen.vo.EntropySource;
+import org.akraievoy.cnet.gen.vo.EntropySourceRandom;
+import org.akraievoy.cnet.metrics.api.Metric;
+import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataEuclidean;
+import org.akraievoy.cnet.net.vo.EdgeDataFactory;
+import org.akraievoy.holonet.exp.store.RefObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MetricScalarRouteReduceTest extends TestCase {
+  protected static EdgeData links(final EntropySource eSource, final int size, final double density) {
+    final EdgeData links = EdgeDataFactory.sparse(true, 0.0, size);
+    for (int from = 0; from < size; from++) {
+      for (int into = from + 1; into < size; into++) {
+        if (eSource.nextDouble() < density) {
+          links.set(from, into, 1.0);
+        }
+      }
+    }
+    return links;
+  }
+
+  protected static EdgeData dist(final EntropySource eSource, final int size) {
+    final double[] x = new double[size];
+    final double[] y = new double[size];
+    for (int i = 0; i < size; i++) {
+      x[i] = eSource.nextDouble();
+      y[i] = eSource.nextDouble();
+    }
+    return new EdgeDataEuclidean(x, y);
+  }
+
+  protected static EdgeData requests(final EntropySource eSource, final int size) {
+    final EdgeData req = EdgeDataFactory.sparse(false, 0.0, size);
+    for (int from = 0; from < size; from++) {
+      for (int into = 0; into < size; into++) {
+        if (from != into && eSource.nextDouble() < 0.3) {
+          req.set(from, into, 1 + eSource.nextInt(5));
+        }
+      }
+    }
+    return req;
+  }
+
+  public void testSameAsChain() {
+    final EntropySource eSource = new EntropySourceRandom().seed(271828);
+    final int size = 48;
+
+    for (double density : new double[]{0.02, 0.05, 0.2}) {
+      final RefObject<EdgeData> linksRef = new RefObject<EdgeData>(links(eSource, size, density));
+      final RefObject<EdgeData> distRef = new RefObject<EdgeData>(dist(eSource, size));
+      final RefObject<EdgeData> reqRef = new RefObject<EdgeData>(requests(eSource, size));
+
+      final EdgeData routeLen = Metric.fetch(
+          new MetricEDataRouteLen(new MetricRoutesJohnson().configure(linksRef, distRef))
+      );
+      final RefObject<EdgeData> routeLenRef = new RefObject<EdgeData>(routeLen);
+
+      final List<RefObject<EdgeData>> weightRefs = new ArrayList<RefObject<EdgeData>>();
+      weightRefs.add(reqRef);
+      //  no weights at all
+      weightRefs.add(new RefObject<EdgeData>());
+
+      final MetricScalarRouteReduce reduce = new MetricScalarRouteReduce();
+      for (RefObject<EdgeData> weightRef : weightRefs) {
+        final double eff = Metric.fetch(
+            new MetricScalarEffectiveness().configure(routeLenRef, weightRef)
+        );
+        final double conn = Metric.fetch(
+            new MetricScalarConnectedness().configure(routeLenRef, false)
+        );
+
+        assertEquals(eff, Metric.fetch(reduce.configure(linksRef, distRef, weightRef)), 1e-12);
+        assertEquals(conn, reduce.getConnectednessTarget().getValue(), 1e-12);
+      }
+
+      double diameter = 0;
+      for (int from = 0; from < size; from++) {
+        for (int into = 0; into < size; into++) {
+          final double len = routeLen.get(from, into);
+          if (from != into && !Double.isInfinite(len)) {
+            diameter = Math.max(diameter, len);
+          }
+        }
+      }
+      assertEquals(diameter, reduce.getDiameterTarget().getValue(), 1e-12);
+    }
+  }
+
+  /*
+    0 --- 1 --- 2 --- 3      4
+     \               /
+      ------[3]------
+   */
+  public void testHops() {
+    final EdgeData links = EdgeDataFactory.sparse(true, Double.POSITIVE_INFINITY, 5);
+    links.set(0, 1, 1.0);
+    links.set(1, 2, 1.0);
+    links.set(2, 3, 1.0);
+    links.set(0, 3, 3.0);
+
+    final MetricScalarRouteReduce reduce = new MetricScalarRouteReduce();
+    reduce.configure(
+        new RefObject<EdgeData>(links),
+        new RefObject<EdgeData>(),
+        new RefObject<EdgeData>()
+    );
+    Metric.fetch(reduce);
+
+    //  12 of 20 ordered pairs are connected, 0 <-> 3 ties at 3.0 and takes the single hop
+    assertEquals(12 / 20.0, reduce.getConnectednessTarget().getValue(), 1e-12);
+    assertEquals(3.0, reduce.getDiameterTarget().getValue(), 1e-12);
+    assertEquals((2 * (1 + 1 + 1 + 2 + 2 + 1)) / 12.0, reduce.getHopsTarget().getValue(), 1e-12);
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.metrics.domain;
+
+import junit.framework.TestCase;
+import org.akraievoy.cnet.gen.vo.EntropySource;
+import org.akraievoy.cnet.gen.vo.EntropySourceRandom;
+import org.akraievoy.cnet.metrics.api.Metric;
+import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataFactory;
+import org.akraievoy.cnet.net.vo.VertexData;
+import org.akraievoy.holonet.exp.store.RefObject;
+
+import java.util.Arrays;
+
+public class MetricVDataCycleOrderingTest extends TestCase {
+  /**
+   * The original quadratic greedy, recomputing all powers for each chosen node.
+   */
+  protected static int[] referenceOrdering(final EdgeData eData) {
+    final int n = eData.getSize();
+    final int[] indexing = new int[n];
+    final boolean[] visited = new boolean[n];
+    final int[] powers = new int[n];
+    for (int indexingLen = 0; indexingLen < n; indexingLen++) {
+      Arrays.fill(powers, 0);
+      eData.visitNonDef(new EdgeData.EdgeVisitor() {
+        public void visit(int from, int into, double e) {
+          if (!visited[from] && !visited[into]) {
+            powers[from] += 1;
+            powers[into] += 1;
+          }
+        }
+      });
+
+      int minPowIndex = -1;
+      if (indexingLen > 0) {
+        for (int i = 0; i < n; i++) {
+          if (!visited[i] && eData.conn(indexing[indexingLen - 1], i)) {
+            if (minPowIndex < 0 || powers[i] < powers[minPowIndex]) {
+              minPowIndex = i;
+            }
+          }
+        }
+      }
+      if (minPowIndex < 0) {
+        for (int i = 0; i < n; i++) {
+          if (!visited[i] && (minPowIndex < 0 || powers[i] < powers[minPowIndex])) {
+            minPowIndex = i;
+          }
+        }
+      }
+
+      visited[minPowIndex] = true;
+      indexing[indexingLen] = minPowIndex;
+    }
+    return indexing;
+  }
+
+  protected static EdgeData random(
+      final EntropySource eSource, final EdgeData eData, final double density
+  ) {
+    for (int from = 0; from < eData.getSize(); from++) {
+      for (int into = 0; into < eData.getSize(); into++) {
+        if (eSource.nextDouble() < density) {
+          eData.set(from, into, 1.0);
+        }
+      }
+    }
+    return eData;
+  }
+
+  public void testSameAsReference() {
+    final EntropySource eSource = new EntropySourceRandom().seed(141421);
+    final int size = 64;
+    for (double density : new double[]{0.01, 0.05, 0.3}) {
+      final EdgeData[] samples = {
+          random(eSource, EdgeDataFactory.sparse(true, 0.0, size), density),
+          random(eSource, EdgeDataFactory.sparse(false, 0.0, size), density),
+          random(eSource, EdgeDataFactory.dense(false, 0.0, size), density)
+      };
+      for (EdgeData eData : samples) {
+        final VertexData ordering = Metric.fetch(
+            new MetricVDataCycleOrdering(new RefObject<EdgeData>(eData))
+        );
+
+        final int[] expected = referenceOrdering(eData);
+        for (int i = 0; i < size; i++) {
+          assertEquals(i, (int) ordering.get(expected[i]));
+        }
+      }
+    }
+  }
+}
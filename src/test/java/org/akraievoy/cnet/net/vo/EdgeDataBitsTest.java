@@ -0,0 +1,121 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.net.vo;
+
+import com.google.common.io.ByteStreams;
+import gnu.trove.TIntArrayList;
+import junit.framework.TestCase;
+import org.akraievoy.cnet.gen.domain.MetricEDataGenStructural;
+import org.akraievoy.cnet.metrics.api.Metric;
+import org.akraievoy.cnet.metrics.domain.MetricEDataHops;
+import org.akraievoy.cnet.metrics.domain.MetricVDataClustering;
+import org.akraievoy.holonet.exp.store.RefObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+public class EdgeDataBitsTest extends TestCase {
+  public void testSameAsSparse() throws IOException {
+    for (boolean symmetric : new boolean[]{true, false}) {
+      final int size = 131;
+      final EdgeData sparse = EdgeDataFactory.sparse(symmetric, 0.0, size);
+      final EdgeDataBits bits = new EdgeDataBits(symmetric, size);
+      final Random random = new Random(42);
+      for (int i = 0; i < size * 8; i++) {
+        final int from = random.nextInt(size);
+        final int into = random.nextInt(size);
+        final double elem = random.nextInt(3) > 0 ? 1.0 : 0.0;
+        sparse.set(from, into, elem);
+        bits.set(from, into, elem);
+      }
+
+      assertEquals(sparse.getNonDefCount(), bits.getNonDefCount());
+      assertEquals(bits, EdgeDataBits.of(sparse));
+      for (int from = 0; from < size; from++) {
+        assertEquals(sparse.connVertexes(from), bits.connVertexes(from));
+        assertEquals(sparse.power(from), bits.power(from));
+      }
+
+      int visited = 0;
+      final EdgeData.ElemIterator ndi = bits.nonDefIterator();
+      while (ndi.hasNext()) {
+        final EdgeData.IteratorTuple tuple = ndi.next();
+        assertEquals(1.0, sparse.get(tuple.from(), tuple.into()));
+        visited++;
+      }
+      assertEquals(bits.getNonDefCount(), visited);
+
+      final byte[] bytes = ByteStreams.toByteArray(bits.createStream());
+      assertEquals(bits, new EdgeDataBits().fromStream(new ByteArrayInputStream(bytes)));
+    }
+  }
+
+  public void testTriangles() {
+    //  K4 plus a pendant vertex
+    final EdgeData eData = EdgeDataFactory.sparse(true, 0.0, 5);
+    for (int from = 0; from < 4; from++) {
+      for (int into = from + 1; into < 4; into++) {
+        eData.set(from, into, 1.0);
+      }
+    }
+    eData.set(3, 4, 1.0);
+    eData.set(2, 2, 1.0);
+
+    final EdgeDataBits bits = EdgeDataBits.undirected(eData);
+    assertEquals(3, bits.triangles(0));
+    assertEquals(3, bits.triangles(3));
+    assertEquals(0, bits.triangles(4));
+    assertEquals(2, bits.commonCount(0, 1));
+    assertEquals(5, bits.unionCount(3, 0));
+
+    final RefObject<VertexData> clustering = new RefObject<VertexData>();
+    final MetricVDataClustering metric = new MetricVDataClustering().configure(new RefObject<EdgeData>(eData), false);
+    metric.setTarget(clustering);
+    Metric.fetch(metric);
+    assertEquals(1.0, clustering.getValue().get(0), 1e-12);
+    assertEquals(0.5, clustering.getValue().get(3), 1e-12);
+    assertEquals(0.0, clustering.getValue().get(4), 1e-12);
+  }
+
+  public void testHops() {
+    final RefObject<EdgeData> hops = new RefObject<EdgeData>();
+    final MetricEDataHops metric = new MetricEDataHops().configure(
+        new RefObject<EdgeData>(MetricEDataGenStructural.path(70))
+    );
+    metric.setTarget(hops);
+    Metric.fetch(metric);
+
+    assertEquals(69.0, hops.getValue().get(0, 69));
+    assertEquals(5.0, hops.getValue().get(64, 69));
+    assertEquals(0.0, hops.getValue().get(3, 3));
+
+    final EdgeDataBits directed = new EdgeDataBits(false, 3);
+    directed.set(0, 1, 1.0);
+    final int[] dist = new int[3];
+    directed.hops(1, dist);
+    assertEquals(-1, dist[0]);
+    assertEquals(0, dist[1]);
+    assertEquals(-1, dist[2]);
+    directed.hops(0, dist);
+    assertEquals(1, dist[1]);
+
+    assertEquals(new TIntArrayList(new int[]{1}), directed.connVertexes(0));
+  }
+}
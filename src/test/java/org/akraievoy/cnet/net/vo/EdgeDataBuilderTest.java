@@ -0,0 +1,79 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.net.vo;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+public class EdgeDataBuilderTest extends TestCase {
+  protected static void fill(EdgeData eData, EdgeDataBuilder builder, int cells, long seed) {
+    final Random random = new Random(seed);
+    final int size = eData.getSize();
+    for (int i = 0; i < cells; i++) {
+      final int from = random.nextInt(size);
+      final int into = random.nextInt(size);
+      //  zeroes remove cells set before
+      final double elem = random.nextInt(4);
+      eData.set(from, into, elem);
+      builder.add(from, into, elem);
+    }
+  }
+
+  public void testSameAsSets() {
+    for (boolean symmetric : new boolean[]{true, false}) {
+      final EdgeData sparse = EdgeDataFactory.sparse(symmetric, 0.0, 23);
+      final EdgeDataBuilder builder = new EdgeDataBuilder(symmetric, 0.0, 23);
+      fill(sparse, builder, 400, 42);
+
+      final EdgeData built = builder.build();
+      assertTrue(built instanceof EdgeDataSparse);
+      assertEquals(sparse, built);
+      assertEquals(sparse.getNonDefCount(), built.getNonDefCount());
+      assertTrue(builder.buildFrozen().equals(sparse));
+
+      //  built data stays writable
+      built.set(1, 2, 5.0);
+      sparse.set(1, 2, 5.0);
+      assertEquals(sparse, built);
+    }
+  }
+
+  public void testDenseProto() {
+    final EdgeData dense = EdgeDataFactory.dense(false, 0.0, 11);
+    final EdgeDataBuilder builder = new EdgeDataBuilder(dense.proto(11));
+    fill(dense, builder, 100, 7);
+
+    final EdgeData built = builder.build();
+    assertTrue(built instanceof EdgeDataDense);
+    for (int from = 0; from < 11; from++) {
+      for (int into = 0; into < 11; into++) {
+        assertEquals(dense.get(from, into), built.get(from, into));
+      }
+    }
+  }
+
+  public void testParallel() {
+    final EdgeData sparse = EdgeDataFactory.sparse(false, 0.0, 512);
+    final EdgeDataBuilder builder = new EdgeDataBuilder(false, 0.0, 512).parallel(true);
+    fill(sparse, builder, EdgeDataBuilder.PARALLEL_MIN_CELLS * 2, 31337);
+
+    assertEquals(sparse, builder.build());
+  }
+}
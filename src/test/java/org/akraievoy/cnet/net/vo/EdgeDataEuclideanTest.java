@@ -0,0 +1,111 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.net.vo;
+
+import junit.framework.TestCase;
+import org.akraievoy.cnet.gen.vo.MetricEuclidean;
+import org.akraievoy.cnet.metrics.domain.MetricEDataDistance;
+import org.akraievoy.holonet.exp.store.RefObject;
+
+import java.io.IOException;
+import java.util.Random;
+
+public class EdgeDataEuclideanTest extends TestCase {
+  protected VertexData locX;
+  protected VertexData locY;
+
+  public void setUp() {
+    final Random random = new Random(31337);
+    locX = new VertexData(12);
+    locY = new VertexData(12);
+    for (int i = 0; i < 12; i++) {
+      locX.set(i, random.nextDouble());
+      locY.set(i, random.nextDouble());
+    }
+  }
+
+  protected EdgeData distances(final boolean implicit) {
+    final MetricEDataDistance metric = new MetricEDataDistance(new MetricEuclidean());
+    metric.setSourceX(new RefObject<VertexData>(locX));
+    metric.setSourceY(new RefObject<VertexData>(locY));
+    metric.setImplicit(implicit);
+    final RefObject<EdgeData> target = new RefObject<EdgeData>();
+    metric.setTarget(target);
+    metric.run();
+    return target.getValue();
+  }
+
+  public void testSameAsMaterialized() {
+    final EdgeData dense = distances(false);
+    final EdgeData implicit = distances(true);
+    assertTrue(implicit instanceof EdgeDataEuclidean);
+
+    assertEquals(dense.getSize(), implicit.getSize());
+    assertEquals(dense.getNonDefCount(), implicit.getNonDefCount());
+    assertEquals(dense.getDefElem(), implicit.getDefElem());
+    for (int from = 0; from < dense.getSize(); from++) {
+      for (int into = 0; into < dense.getSize(); into++) {
+        assertEquals(dense.get(from, into), implicit.get(from, into), 1e-12);
+      }
+      assertEquals(dense.power(from), implicit.power(from), 1e-9);
+      assertEquals(dense.connVertexes(from), implicit.connVertexes(from));
+    }
+    assertEquals(dense.total(), implicit.total(), 1e-9);
+
+    final double[] sum = {0};
+    implicit.visitNonDef(new EdgeData.EdgeVisitor() {
+      public void visit(int from, int into, double e) {
+        sum[0] += e;
+      }
+    });
+    assertEquals(implicit.total(), sum[0], 1e-9);
+
+    int count = 0;
+    final EdgeData.ElemIterator it = implicit.nonDefIterator();
+    while (it.hasNext()) {
+      final EdgeData.IteratorTuple tuple = it.next();
+      assertEquals(dense.get(tuple.from(), tuple.into()), tuple.value(), 1e-12);
+      count++;
+    }
+    assertEquals(implicit.getNonDefCount(), count);
+  }
+
+  public void testStream() throws IOException {
+    final EdgeDataEuclidean implicit = EdgeDataEuclidean.of(locX, locY);
+    final EdgeDataEuclidean read = new EdgeDataEuclidean().fromStream(implicit.createStream());
+    assertEquals(implicit, read);
+    assertEquals(implicit.get(3, 7), read.get(3, 7));
+  }
+
+  public void testReadOnly() {
+    final EdgeDataEuclidean implicit = EdgeDataEuclidean.of(locX, locY);
+    try {
+      implicit.set(0, 1, 1.0);
+      fail("read-only data accepted a write");
+    } catch (IllegalStateException e) {
+      //  expected
+    }
+    try {
+      implicit.get(0, 12);
+      fail("out of bounds access accepted");
+    } catch (IllegalArgumentException e) {
+      //  expected
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.net.vo;
+
+import com.google.common.io.ByteStreams;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+public class EdgeDataFrozenTest extends TestCase {
+  protected static EdgeDataSparse random(final boolean symmetric, final int size, final long seed) {
+    final EdgeDataSparse eData = (EdgeDataSparse) EdgeDataFactory.sparse(symmetric, 0.0, size);
+    final Random random = new Random(seed);
+    for (int i = 0; i < size * 3; i++) {
+      eData.set(random.nextInt(size), random.nextInt(size), 1 + random.nextInt(5));
+    }
+    //  some removals to leave slack capacity in the rows
+    for (int i = 0; i < size; i++) {
+      eData.set(random.nextInt(size), random.nextInt(size), 0.0);
+    }
+    return eData;
+  }
+
+  public void testFreeze() {
+    for (boolean symmetric : new boolean[]{true, false}) {
+      final EdgeDataSparse sparse = random(symmetric, 17, 42);
+      final EdgeDataFrozen frozen = sparse.freeze();
+
+      assertEquals(sparse.getNonDefCount(), frozen.getNonDefCount());
+      assertEquals(sparse.total(), frozen.total(), 1e-9);
+      assertEquals(sparse.hashCode(), frozen.hashCode());
+      assertTrue(frozen.equals(sparse));
+      for (int from = 0; from < sparse.getSize(); from++) {
+        assertEquals(sparse.connVertexes(from), frozen.connVertexes(from));
+        assertEquals(sparse.power(from), frozen.power(from), 1e-9);
+        for (int into = 0; into < sparse.getSize(); into++) {
+          assertEquals(sparse.get(from, into), frozen.get(from, into));
+          assertEquals(sparse.get(from, into), frozen.transpose().get(into, from));
+        }
+      }
+
+      final EdgeDataFrozen generic = EdgeDataFrozen.freeze(EdgeDataFactory.dense(symmetric, 0.0, 17));
+      assertEquals(0, generic.getNonDefCount());
+      assertEquals(0.0, generic.get(3, 5));
+    }
+  }
+
+  public void testStreams() throws IOException {
+    final EdgeDataSparse sparse = random(false, 13, 31337);
+    final EdgeDataFrozen frozen = sparse.freeze();
+
+    final byte[] frozenBytes = ByteStreams.toByteArray(frozen.createStream());
+    final EdgeDataSparse sparseRead = new EdgeDataSparse().fromStream(new ByteArrayInputStream(frozenBytes));
+    final EdgeDataFrozen frozenRead = new EdgeDataFrozen().fromStream(new ByteArrayInputStream(frozenBytes));
+    assertTrue(frozen.equals(sparseRead));
+    assertTrue(frozen.equals(frozenRead));
+
+    final byte[] sparseBytes = ByteStreams.toByteArray(sparse.createStream());
+    assertTrue(frozen.equals(new EdgeDataFrozen().fromStream(new ByteArrayInputStream(sparseBytes))));
+
+    final EdgeDataFrozen empty = new EdgeDataFrozen().fromStream(
+        new ByteArrayInputStream(ByteStreams.toByteArray(new EdgeDataFrozen().createStream()))
+    );
+    assertEquals(0, empty.getSize());
+  }
+
+  public void testReadOnly() {
+    final EdgeDataFrozen frozen = random(true, 5, 1).freeze();
+    try {
+      frozen.set(1, 2, 3.0);
+      fail("frozen data accepted a write");
+    } catch (IllegalStateException e) {
+      //  expected
+    }
+  }
+}
@@ -174,6 +174,29 @@ public class EdgeDataSparseTest extends TestCase {
     assertEquals(0, d.getNonDefCount());
   }
 
+  public void testEdgeHash() throws IOException {
+    final EdgeDataSparse sparse = (EdgeDataSparse) EdgeDataFactory.sparse(true, 0.0, 16);
+    final Random random = new Random(31337);
+    for (int i = 0; i < 1000; i++) {
+      //  mostly inserts, overwrites and removals of the same few cells
+      final double elem = random.nextInt(3) == 0 ? 0.0 : random.nextInt(4);
+      sparse.set(random.nextInt(16), random.nextInt(16), elem);
+      assertEquals(sparse.rehash(), sparse.getEdgeHash());
+    }
+    assertEquals(sparse.getEdgeHash(), EdgeSketch.edgeHash(sparse.freeze()));
+
+    final EdgeDataSparse read =
+        new EdgeDataSparse().fromStream(new ByteArrayInputStream(ByteStreams.toByteArray(sparse.createStream())));
+    assertEquals(sparse.getEdgeHash(), read.getEdgeHash());
+
+    final long hash = sparse.getEdgeHash();
+    sparse.set(1, 2, sparse.get(1, 2) + 1);
+    assertTrue(hash != sparse.getEdgeHash());
+
+    sparse.clear();
+    assertEquals(0, sparse.getEdgeHash());
+  }
+
   public void testJsonSerialization() throws IOException {
     EdgeData edd = EdgeDataFactory.sparse(false, Double.POSITIVE_INFINITY, 4);
 
@@ -0,0 +1,120 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.net.vo;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+public class EdgeListCodecTest extends TestCase {
+  protected static EdgeDataFrozen roundTrip(
+      final EdgeData source, final Store.Width width
+  ) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    EdgeListCodec.write(source, width, out);
+    return EdgeListCodec.read(new ByteArrayInputStream(out.toByteArray()));
+  }
+
+  public void testRoundTrip() throws IOException {
+    for (boolean symmetric : new boolean[]{true, false}) {
+      final EdgeDataSparse sparse = EdgeDataFrozenTest.random(symmetric, 300, 31337);
+      //  wide gaps and far columns, for multi-byte varints
+      sparse.set(0, 299, 7);
+      sparse.set(299, 299, 3);
+      sparse.set(150, 150, 2);
+
+      final EdgeDataFrozen read = roundTrip(sparse, Store.Width.DOUBLE);
+      assertEquals(symmetric, read.isSymmetric());
+      assertEquals(sparse.getSize(), read.getSize());
+      assertTrue(read.equals(sparse));
+      for (int from = 0; from < sparse.getSize(); from++) {
+        assertEquals(sparse.connVertexes(from), read.connVertexes(from));
+        for (int into = 0; into < sparse.getSize(); into++) {
+          assertEquals(sparse.get(from, into), read.get(from, into));
+        }
+      }
+    }
+  }
+
+  public void testDense() throws IOException {
+    final EdgeData dense = EdgeDataFactory.dense(false, 0.0, 9);
+    dense.set(8, 0, 1.5);
+    dense.set(2, 3, -2.25);
+    dense.set(2, 7, 4);
+
+    final EdgeDataFrozen read = roundTrip(dense, Store.Width.FLOAT);
+    assertEquals(3, read.getNonDefCount());
+    assertEquals(1.5, read.get(8, 0));
+    assertEquals(-2.25, read.get(2, 3));
+    assertEquals(4.0, read.get(2, 7));
+    assertEquals(0.0, read.get(3, 2));
+  }
+
+  public void testNarrowing() throws IOException {
+    final EdgeData eData = EdgeDataFactory.sparse(false, 0.0, 5);
+    eData.set(0, 1, 2.7);
+    eData.set(1, 2, 0.4);
+    eData.set(3, 4, 300);
+    eData.set(4, 0, -1);
+
+    final EdgeDataFrozen bytes = roundTrip(eData, Store.Width.BYTE);
+    //  0.4 narrows to the default element and is dropped
+    assertEquals(3, bytes.getNonDefCount());
+    assertEquals(2.0, bytes.get(0, 1));
+    assertEquals(0.0, bytes.get(1, 2));
+    assertEquals((double) (byte) 300, bytes.get(3, 4));
+
+    final EdgeDataFrozen bits = roundTrip(eData, Store.Width.BIT);
+    assertEquals(3, bits.getNonDefCount());
+    assertEquals(1.0, bits.get(0, 1));
+    assertEquals(1.0, bits.get(1, 2));
+    assertEquals(1.0, bits.get(3, 4));
+    assertEquals(0.0, bits.get(4, 0));
+  }
+
+  public void testBits() throws IOException {
+    final EdgeDataSparse sparse = (EdgeDataSparse) EdgeDataFactory.sparse(true, -1.0, 40);
+    final Random random = new Random(42);
+    for (int i = 0; i < 200; i++) {
+      sparse.set(random.nextInt(40), random.nextInt(40), random.nextBoolean() ? 1.0 : 0.0);
+    }
+
+    final EdgeDataFrozen read = roundTrip(sparse, Store.Width.BIT);
+    assertTrue(read.equals(sparse));
+    assertEquals(sparse.total(), read.total());
+  }
+
+  public void testEmpty() throws IOException {
+    final EdgeDataFrozen read = roundTrip(EdgeDataFactory.sparse(true, 0.0, 4), Store.Width.INT);
+    assertEquals(4, read.getSize());
+    assertEquals(0, read.getNonDefCount());
+  }
+
+  public void testCorrupt() {
+    try {
+      EdgeListCodec.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5}));
+      fail("magic is not checked");
+    } catch (IOException e) {
+      //  expected
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.net.vo;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+public class EdgeSketchTest extends TestCase {
+  public void testExactSmall() {
+    final EdgeData a = EdgeDataFactory.sparse(false, 0.0, 8);
+    final EdgeData b = EdgeDataFactory.sparse(false, 0.0, 8);
+    a.set(0, 1, 1);
+    a.set(1, 2, 1);
+    a.set(2, 3, 1);
+    a.set(3, 4, 1);
+    b.set(0, 1, 2);
+    b.set(1, 2, 2);
+    b.set(5, 6, 2);
+
+    final EdgeSketch sa = EdgeSketch.of(a, 16);
+    final EdgeSketch sb = EdgeSketch.of(b, 16);
+    assertTrue(sa.isExact());
+    assertEquals(2 / 5.0, sa.jaccard(sb), 1e-12);
+    assertEquals(a.similarity(b), sa.containment(sb), 1e-12);
+    assertEquals(b.similarity(a), sb.containment(sa), 1e-12);
+    assertFalse(sa.sameAs(sb));
+    assertTrue(sa.sameAs(EdgeSketch.of(a, 16)));
+  }
+
+  public void testEstimate() {
+    final int size = 200;
+    final EdgeData a = EdgeDataFactory.sparse(false, 0.0, size);
+    final EdgeData b = EdgeDataFactory.sparse(false, 0.0, size);
+    final Random random = new Random(31337);
+    for (int from = 0; from < size; from++) {
+      for (int into = 0; into < size; into++) {
+        final double dice = random.nextDouble();
+        if (dice < 0.1) {
+          a.set(from, into, 1);
+          b.set(from, into, 1);
+        } else if (dice < 0.15) {
+          a.set(from, into, 1);
+        } else if (dice < 0.2) {
+          b.set(from, into, 1);
+        }
+      }
+    }
+
+    final double error = 0.05;
+    final int capacity = EdgeSketch.capacityFor(error);
+    assertEquals(400, capacity);
+
+    final EdgeSketch sa = EdgeSketch.of(a, capacity);
+    final EdgeSketch sb = EdgeSketch.of(b, capacity);
+    assertFalse(sa.isExact());
+    assertEquals(a.getNonDefCount(), sa.getCount());
+    //  four standard errors are more than enough for a fixed seed
+    assertEquals(0.5, sa.jaccard(sb), 4 * error);
+    assertEquals(a.similarity(b), sa.containment(sb), 4 * error);
+    assertEquals(1.0, sa.jaccard(sa), 1e-12);
+  }
+
+  public void testSameAsMixedCapacities() {
+    final EdgeData a = EdgeDataFactory.sparse(false, 0.0, 16);
+    final EdgeData b = EdgeDataFactory.sparse(false, 0.0, 16);
+    for (int from = 0; from < 16; from++) {
+      a.set(from, (from + 1) % 16, 1);
+      a.set(from, (from + 5) % 16, 1);
+      b.set(from, (from + 1) % 16, 1);
+      b.set(from, (from + 5) % 16, 1);
+    }
+    //  same edge count, one edge moved
+    b.set(0, 1, 0);
+    b.set(0, 2, 1);
+
+    final EdgeSketch small = EdgeSketch.of(a, 8);
+    final EdgeSketch large = EdgeSketch.of(a, 64);
+    assertFalse(small.isExact());
+    assertTrue(large.isExact());
+    assertTrue(small.sameAs(large));
+    assertTrue(large.sameAs(small));
+    assertFalse(EdgeSketch.of(b, 64).sameAs(large));
+  }
+
+  public void testEmpty() {
+    final EdgeSketch empty = EdgeSketch.of(EdgeDataFactory.sparse(false, 0.0, 4), 8);
+    assertEquals(0, empty.getCount());
+    assertEquals(1.0, empty.jaccard(empty));
+  }
+}
@@ -237,6 +237,22 @@ public class StoreTest {
     System.out.println("bitset-based storage MAY work");
   }
 
+  @Test
+  public void testWiden() {
+    final StoreBit bits = new StoreBit();
+    bits.ins(0, 5, false);
+    bits.set(1, true);
+    bits.set(4, true);
+
+    final StoreDouble widened = StoreDouble.widen(bits);
+    assert widened.size() == 5;
+    assert widened.getDouble(0) == 0.0;
+    assert widened.getDouble(1) == 1.0;
+    assert widened.getDouble(4) == 1.0;
+
+    assert StoreDouble.widen(widened) == widened;
+  }
+
   @Test
   public void testBitStreaming() throws IOException {
     for (int size = 0; size < 1024; size++) {
@@ -0,0 +1,127 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.soo.domain;
+
+import junit.framework.TestCase;
+import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataFactory;
+
+import java.io.IOException;
+
+public class FitnessCacheSooTest extends TestCase {
+  public void testHitsAndMisses() {
+    final FitnessCacheSoo cache = new FitnessCacheSoo(4);
+    final EdgeData solution = EdgeDataFactory.sparse(true, 0.0, 4);
+    solution.set(0, 1, 1);
+
+    assertTrue(Double.isNaN(cache.getFitness(solution)));
+    cache.putFitness(solution, 0.25);
+    assertEquals(0.25, cache.getFitness(solution));
+    assertTrue(Double.isNaN(cache.getEff(solution)));
+    cache.putEff(solution, 0.5);
+    assertEquals(0.5, cache.getEff(solution));
+
+    //  same edges built in other order hit the same entry
+    final EdgeData copy = EdgeDataFactory.sparse(true, 0.0, 4);
+    copy.set(2, 3, 1);
+    copy.set(1, 0, 1);
+    copy.set(2, 3, 0);
+    assertEquals(0.25, cache.getFitness(copy));
+
+    copy.set(1, 0, 2);
+    assertTrue(Double.isNaN(cache.getFitness(copy)));
+
+    cache.putFitness(copy, Double.NaN);
+    assertTrue(Double.isNaN(cache.getFitness(copy)));
+
+    assertEquals(3, cache.getHits());
+    assertEquals(4, cache.getMisses());
+    assertEquals(1, cache.size());
+  }
+
+  public void testStream() throws IOException {
+    final FitnessCacheSoo cache = new FitnessCacheSoo();
+    final EdgeData solution = EdgeDataFactory.sparse(true, 0.0, 8);
+    for (int i = 0; i < 7; i++) {
+      solution.set(i, i + 1, 1);
+      cache.putFitness(solution, i);
+    }
+    cache.putEff(solution, 0.75);
+
+    final FitnessCacheSoo read = new FitnessCacheSoo().fromStream(cache.createStream());
+    assertEquals(7, read.size());
+    assertEquals(6.0, read.getFitness(solution));
+    assertEquals(0.75, read.getEff(solution));
+
+    solution.set(6, 7, 0);
+    assertEquals(5.0, read.getFitness(solution));
+    assertTrue(Double.isNaN(read.getEff(solution)));
+  }
+
+  public void testDrainAdded() throws IOException {
+    final FitnessCacheSoo cache = new FitnessCacheSoo();
+    final EdgeData first = EdgeDataFactory.sparse(true, 0.0, 4);
+    first.set(0, 1, 1);
+    final EdgeData second = EdgeDataFactory.sparse(true, 0.0, 4);
+    second.set(1, 2, 1);
+
+    cache.putFitness(first, 0.25);
+    final FitnessCacheSoo added = cache.drainAdded();
+    assertEquals(1, added.size());
+    assertEquals(0.25, added.getFitness(first));
+    assertEquals(0, cache.drainAdded().size());
+
+    //  adopted entries are not added ones, computed values of those are
+    final FitnessCacheSoo next = new FitnessCacheSoo();
+    next.putAll(new FitnessCacheSoo().fromStream(added.createStream()));
+    assertEquals(0, next.drainAdded().size());
+    next.putEff(first, 0.5);
+    next.putFitness(second, 0.75);
+    final FitnessCacheSoo nextAdded = next.drainAdded();
+    assertEquals(2, nextAdded.size());
+    assertEquals(0.25, nextAdded.getFitness(first));
+
+    //  merging fills in missing values only
+    final FitnessCacheSoo merged = new FitnessCacheSoo();
+    merged.putFitness(first, 0.125);
+    merged.putAll(nextAdded);
+    assertEquals(0.125, merged.getFitness(first));
+    assertEquals(0.5, merged.getEff(first));
+    assertEquals(0.75, merged.getFitness(second));
+  }
+
+  public void testDrainHit() {
+    final FitnessCacheSoo cache = new FitnessCacheSoo();
+    final EdgeData first = EdgeDataFactory.sparse(true, 0.0, 4);
+    first.set(0, 1, 1);
+    final EdgeData second = EdgeDataFactory.sparse(true, 0.0, 4);
+    second.set(1, 2, 1);
+
+    cache.putFitness(first, 0.25);
+    cache.putFitness(second, 0.5);
+    assertEquals(2, cache.drainAdded().size());
+
+    //  entries hit are stored again with the next delta, misses are not
+    assertEquals(0.25, cache.getFitness(first));
+    assertTrue(Double.isNaN(cache.getEff(second)));
+    final FitnessCacheSoo hit = cache.drainAdded();
+    assertEquals(1, hit.size());
+    assertEquals(0.25, hit.getFitness(first));
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.soo.domain;
+
+import junit.framework.TestCase;
+import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataFactory;
+import org.akraievoy.cnet.net.vo.EdgeSketch;
+import org.akraievoy.cnet.opt.api.ConditionUnique;
+
+import java.util.Collections;
+
+public class GenomeSooTest extends TestCase {
+  protected static EdgeData ring(final int size, final int skip) {
+    final EdgeData solution = EdgeDataFactory.sparse(true, 0.0, size);
+    for (int from = 0; from < size; from++) {
+      solution.set(from, (from + 1) % size, 1);
+      solution.set(from, (from + skip) % size, 1);
+    }
+    return solution;
+  }
+
+  public void testDupesOfMixedCapacities() {
+    //  seed genomes keep the default capacity, bred ones get the one of the strategy
+    final GenomeSoo seed = new GenomeSoo(ring(256, 7));
+    final GenomeSoo bred = new GenomeSoo(ring(256, 7), 16);
+    assertTrue(seed.getSolution().getNonDefCount() > EdgeSketch.DEFAULT_SIZE);
+    assertFalse(bred.getSketch().isExact());
+
+    assertTrue(bred.isDupeOf(seed));
+    assertTrue(seed.isDupeOf(bred));
+    assertFalse(new ConditionUnique().isValid(null, bred, Collections.singletonList(seed), 0));
+
+    final GenomeSoo other = new GenomeSoo(ring(256, 9), 16);
+    assertFalse(other.isDupeOf(seed));
+    assertTrue(new ConditionUnique().isValid(null, other, Collections.singletonList(seed), 0));
+  }
+
+  public void testSketchRebuiltOnSameCount() {
+    final GenomeSoo genome = new GenomeSoo(ring(16, 5));
+    final EdgeSketch before = genome.getSketch();
+
+    //  moved an edge without resetting the fitness, edge count stays
+    genome.getSolution().set(0, 1, 0);
+    genome.getSolution().set(0, 2, 1);
+
+    assertNotSame(before, genome.getSketch());
+    assertFalse(before.sameAs(genome.getSketch()));
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.soo.domain;
+
+import junit.framework.TestCase;
+import org.akraievoy.cnet.gen.vo.EntropySource;
+import org.akraievoy.cnet.gen.vo.EntropySourceRandom;
+import org.akraievoy.cnet.net.vo.EdgeData;
+import org.akraievoy.cnet.net.vo.EdgeDataEuclidean;
+import org.akraievoy.cnet.net.vo.EdgeDataFactory;
+
+import java.util.Arrays;
+
+import static org.akraievoy.cnet.net.Net.eClone;
+
+public class MutatorSooClusterizeTest extends TestCase {
+  /**
+   * The original full-scan rewiring, cluster lookups boxed and all.
+   */
+  protected static int referenceApply(
+      final int clusterNum,
+      final int[] nodeToCluster,
+      final int rewireLimitOuter,
+      final EdgeData solution,
+      final EdgeData distance
+  ) {
+    final int size = solution.getSize();
+
+    final double[] clusterMinPowVal = new double[clusterNum];
+    final int[] clusterMinPowPos = new int[clusterNum];
+    boolean moarRewires;
+    int rewireLimit = rewireLimitOuter;
+    do {
+      final double[] interclusterLinkCount = new double[size];
+      final double[] clusterCapacity = new double[size];
+      for (int nodeFrom = 0; nodeFrom < size; nodeFrom++) {
+        for (int nodeInto = 0; nodeInto < size; nodeInto++) {
+          if (nodeToCluster[nodeFrom] == nodeToCluster[nodeInto]) {
+            double link = solution.get(nodeFrom, nodeInto);
+            if (nodeFrom != nodeInto && link < 1.0) {
+              clusterCapacity[nodeFrom] += 1 - link;
+            }
+            continue;
+          }
+          if (solution.conn(nodeFrom, nodeInto)) {
+            interclusterLinkCount[nodeFrom] += solution.get(nodeFrom, nodeInto);
+          }
+        }
+      }
+
+      Arrays.fill(clusterMinPowPos, -1);
+      Arrays.fill(clusterMinPowVal, Double.POSITIVE_INFINITY);
+      double icLinkMaxVal = Double.NEGATIVE_INFINITY;
+      int icLinkMaxPos = -1;
+      for (int node = 0; node < size; node++) {
+        if (clusterCapacity[node] > 0 && icLinkMaxVal < interclusterLinkCount[node]) {
+          icLinkMaxVal = interclusterLinkCount[node];
+          icLinkMaxPos = node;
+        }
+        final double pow = solution.power(node);
+        if (clusterMinPowVal[nodeToCluster[node]] > pow) {
+          clusterMinPowVal[nodeToCluster[node]] = pow;
+          clusterMinPowPos[nodeToCluster[node]] = node;
+        }
+      }
+
+      moarRewires = rewireLimit > 0 && icLinkMaxVal > 0;
+      if (moarRewires) {
+        final int nodeRewire = icLinkMaxPos;
+        final int receivingCluster = nodeToCluster[nodeRewire];
+        int nodeDonor = -1;
+        int nodeReceiver = clusterMinPowPos[receivingCluster];
+        if (nodeReceiver == nodeRewire || solution.conn(nodeRewire, nodeReceiver)) {
+          nodeReceiver = -1;
+        }
+        for (int node = 0; node < size; node++) {
+          if (node == nodeRewire) {
+            continue;
+          }
+          if (nodeDonor == -1 && nodeToCluster[node] != receivingCluster && solution.conn(nodeRewire, node)) {
+            nodeDonor = node;
+          }
+          if (
+              nodeToCluster[node] == receivingCluster &&
+              !solution.conn(nodeRewire, node) &&
+              (
+                  nodeReceiver == -1 ||
+                  distance.get(nodeRewire, nodeReceiver) > distance.get(nodeRewire, node)
+              )
+          ) {
+            nodeReceiver = node;
+          }
+        }
+        if (nodeReceiver != -1 && nodeDonor != -1) {
+          rewireLimit -= 1;
+          final double delta = solution.get(nodeRewire, nodeDonor);
+          solution.set(nodeRewire, nodeDonor, 0);
+          solution.set(nodeRewire, nodeReceiver, delta);
+        } else {
+          moarRewires = false;
+        }
+      }
+    } while (moarRewires);
+
+    return rewireLimit;
+  }
+
+  protected static EdgeData solution(final EntropySource eSource, final int size, final int hubs) {
+    final EdgeData solution = EdgeDataFactory.sparse(true, 0.0, size);
+    for (int from = 0; from < size; from++) {
+      for (int into = from + 1; into < size; into++) {
+        if (from < hubs || eSource.nextDouble() < 0.15) {
+          solution.set(from, into, 1.0);
+        }
+      }
+    }
+    return solution;
+  }
+
+  protected static EdgeData distance(final EntropySource eSource, final int size) {
+    final double[] x = new double[size];
+    final double[] y = new double[size];
+    for (int i = 0; i < size; i++) {
+      x[i] = eSource.nextDouble();
+      y[i] = eSource.nextDouble();
+    }
+    return new EdgeDataEuclidean(x, y);
+  }
+
+  public void testSameAsReference() {
+    final EntropySource eSource = new EntropySourceRandom().seed(161803);
+    final int size = 40;
+
+    int rewires = 0;
+    for (int clusterNum = 2; clusterNum <= 4; clusterNum++) {
+      for (int hubs = 0; hubs <= 3; hubs++) {
+        final MutatorSooClusterize clusterize = new MutatorSooClusterize();
+        clusterize.setClusterNum(clusterNum);
+
+        final EdgeData solution = solution(eSource, size, hubs);
+        final EdgeData expected = eClone(solution);
+        final EdgeData distance = distance(eSource, size);
+        final int[] nodeToCluster = clusterize.assignNodeToClusters(solution);
+
+        final int limit = solution.getNonDefCount() / 8;
+        final int expectedLeft = referenceApply(clusterNum, nodeToCluster, limit, expected, distance);
+        final int left = clusterize.apply(nodeToCluster, limit, solution, distance);
+
+        assertEquals(expectedLeft, left);
+        for (int from = 0; from < size; from++) {
+          for (int into = 0; into < size; into++) {
+            assertEquals(expected.get(from, into), solution.get(from, into));
+          }
+        }
+        rewires += limit - left;
+      }
+    }
+
+    assertTrue(rewires > 0);
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.cnet.stat.vo;
+
+import gnu.trove.TDoubleArrayList;
+import junit.framework.TestCase;
+import org.akraievoy.gear.G4Stat;
+
+import java.util.Random;
+
+public class MomentsTest extends TestCase {
+  protected static TDoubleArrayList sample(final long seed, final int size) {
+    final Random random = new Random(seed);
+    final TDoubleArrayList data = new TDoubleArrayList(size);
+    for (int i = 0; i < size; i++) {
+      //  skewed on purpose, so skew/kurtosis are far from zero
+      data.add(Math.exp(random.nextGaussian()) + 10);
+    }
+    return data;
+  }
+
+  protected static void assertClose(final double expected, final double actual) {
+    assertEquals(expected, actual, 1e-9 * Math.max(1, Math.abs(expected)));
+  }
+
+  public void testMomentsVsG4Stat() {
+    final TDoubleArrayList data = sample(31337, 1000);
+    final Moments moments = new Moments().addAll(data.toNativeArray());
+
+    final double mean = G4Stat.mean(data);
+    final double sampleVariance = G4Stat.sampleVariance(data, mean);
+    final double sd = Math.sqrt(G4Stat.moment(data, 2, mean));
+
+    assertEquals(G4Stat.min(data), moments.min());
+    assertEquals(G4Stat.max(data), moments.max());
+    assertClose(mean, moments.mean());
+    assertClose(sampleVariance, moments.sampleVariance());
+    assertClose(G4Stat.moment(data, 3, mean), moments.moment(3));
+    assertClose(G4Stat.moment(data, 4, mean), moments.moment(4));
+    assertClose(G4Stat.skew(data, mean, sd), moments.skew());
+    assertClose(G4Stat.kurtosis(data, mean, sd), moments.kurtosis());
+    assertClose(G4Stat.sampleSkew(data, mean, sampleVariance), moments.sampleSkew());
+    assertClose(G4Stat.sampleKurtosis(data, mean, sampleVariance), moments.sampleKurtosis());
+  }
+
+  public void testMomentsMerge() {
+    final TDoubleArrayList data = sample(42, 777);
+    final Moments whole = new Moments().addAll(data.toNativeArray());
+
+    final Moments left = new Moments();
+    final Moments right = new Moments();
+    for (int i = 0; i < data.size(); i++) {
+      (i < 300 ? left : right).add(data.get(i));
+    }
+    final Moments merged = new Moments().merge(left).merge(right);
+
+    assertEquals(whole.getCount(), merged.getCount());
+    assertEquals(whole.min(), merged.min());
+    assertEquals(whole.max(), merged.max());
+    assertClose(whole.mean(), merged.mean());
+    assertClose(whole.variance(), merged.variance());
+    assertClose(whole.skew(), merged.skew());
+    assertClose(whole.kurtosis(), merged.kurtosis());
+  }
+
+  public void testQuantilesExactVsG4Stat() {
+    final TDoubleArrayList data = sample(2012, 200);
+    final QuantileSketch sketch = new QuantileSketch();
+    for (int i = 0; i < data.size(); i++) {
+      sketch.add(data.get(i));
+    }
+    assertTrue(sketch.isExact());
+
+    final TDoubleArrayList sorted = (TDoubleArrayList) data.clone();
+    sorted.sort();
+    for (double phi = 0; phi <= 1.0; phi += 0.05) {
+      assertClose(G4Stat.quantile(sorted, phi), sketch.quantile(phi));
+    }
+    assertClose(G4Stat.median(sorted), sketch.median());
+  }
+
+  public void testQuantilesApproximate() {
+    final int size = 100000;
+    final TDoubleArrayList data = sample(7, size);
+    final QuantileSketch left = new QuantileSketch();
+    final QuantileSketch right = new QuantileSketch();
+    for (int i = 0; i < data.size(); i++) {
+      (i % 3 == 0 ? left : right).add(data.get(i));
+    }
+    final QuantileSketch merged = new QuantileSketch().merge(left).merge(right);
+    assertFalse(merged.isExact());
+    assertEquals(size, merged.getCount());
+
+    final TDoubleArrayList sorted = (TDoubleArrayList) data.clone();
+    sorted.sort();
+    for (double phi = 0.05; phi < 1.0; phi += 0.05) {
+      //  rank error of KLL with k=256 stays well within a couple percent
+      final double rankOfEstimate = G4Stat.quantileInverse(sorted, merged.quantile(phi));
+      assertEquals(phi, rankOfEstimate, 0.02);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.holonet.exp.probe;
+
+import junit.framework.TestCase;
+
+public class ProbesTest extends TestCase {
+  public void testBuckets() {
+    for (long value = 0; value < 1L << 20; value += 1 + value / 7) {
+      final int bucket = Histogram.bucket(value);
+      assertTrue(Histogram.lowest(bucket) <= value);
+      assertTrue(value < Histogram.lowest(bucket + 1));
+    }
+    assertTrue(Histogram.bucket(Long.MAX_VALUE) < Histogram.BUCKETS);
+  }
+
+  public void testQuantiles() {
+    final Histogram histogram = new Histogram();
+    assertEquals(0, histogram.quantile(0.5));
+
+    for (long value = 1; value <= 1000; value++) {
+      histogram.record(value * 1000);
+    }
+    assertEquals(1000, histogram.getCount());
+    assertEquals(500500000L, histogram.getTotal());
+    assertEquals(500000, histogram.quantile(0.5), 500000 / 16);
+    assertEquals(990000, histogram.quantile(0.99), 990000 / 16);
+  }
+
+  public void testDisabled() {
+    Probes.setEnabled(false);
+    assertEquals(0, Probes.start());
+
+    final Probe probe = Probes.probe("test.disabled");
+    probe.stop(Probes.start());
+    assertEquals(0, probe.getGlobal().getCount());
+  }
+
+  public void testScope() {
+    Probes.setEnabled(true);
+    try {
+      final Probe probe = Probes.probe("test.scope");
+      probe.record(10);
+
+      Probes.openScope();
+      probe.record(20);
+      probe.stop(Probes.start());
+      final Probes.Scope scope = Probes.closeScope();
+
+      probe.record(30);
+
+      assertEquals(4, probe.getGlobal().getCount());
+      assertEquals(2, scope.getHistograms().get("test.scope").getCount());
+      assertNull(Probes.closeScope());
+    } finally {
+      Probes.setEnabled(false);
+    }
+  }
+
+  public void testReset() {
+    Probes.setEnabled(true);
+    try {
+      final Probe probe = Probes.probe("test.reset");
+      probe.record(10);
+      probe.record(20);
+
+      Probes.reset();
+      assertEquals(0, probe.getGlobal().getCount());
+      assertEquals(0, probe.getGlobal().getTotal());
+      assertEquals(0, probe.getGlobal().quantile(0.5));
+
+      probe.record(30);
+      assertSame(probe, Probes.probe("test.reset"));
+      assertSame(probe, Probes.snapshot().get("test.reset"));
+      assertEquals(1, probe.getGlobal().getCount());
+      assertEquals(30, probe.getGlobal().getTotal());
+      assertTrue(Probes.report().contains("test.reset: 1 calls"));
+    } finally {
+      Probes.setEnabled(false);
+    }
+  }
+}
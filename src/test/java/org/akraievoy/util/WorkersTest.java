@@ -0,0 +1,92 @@
+/*
+ Copyright 2012 Anton Kraievoy akraievoy@gmail.com
+ This file is part of Holonet.
+
+ Holonet is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Holonet is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with Holonet. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akraievoy.util;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+public class WorkersTest extends TestCase {
+  public void testOrderAndNesting() {
+    final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+    for (int i = 0; i < 3 * Workers.CORES + 1; i++) {
+      final int index = i;
+      tasks.add(new Callable<Integer>() {
+        public Integer call() {
+          if (Workers.CORES > 1) {
+            //  pooled threads do not fan out any further
+            assertEquals(1, Workers.parallelism());
+          }
+          return index + Workers.invokeAll("nesting", tasks(3)).get(2);
+        }
+      });
+    }
+
+    final List<Integer> results = Workers.invokeAll("testing", tasks);
+    assertEquals(tasks.size(), results.size());
+    for (int i = 0; i < results.size(); i++) {
+      assertEquals(i + 2, results.get(i).intValue());
+    }
+  }
+
+  public void testOuterShare() {
+    assertEquals(Workers.CORES, Workers.parallelism());
+
+    final int[] outerParallelism = {0};
+    Workers.runOuter(new Runnable() {
+      public void run() {
+        outerParallelism[0] = Workers.parallelism();
+      }
+    });
+
+    assertEquals(Workers.CORES, outerParallelism[0]);
+    assertEquals(Workers.CORES, Workers.parallelism());
+  }
+
+  public void testFailure() {
+    final List<Callable<Integer>> tasks = tasks(2 * Workers.CORES);
+    tasks.add(new Callable<Integer>() {
+      public Integer call() {
+        throw new IllegalArgumentException("expected");
+      }
+    });
+
+    try {
+      Workers.invokeAll("failing", tasks);
+      fail("failure of a task should propagate");
+    } catch (IllegalArgumentException e) {
+      assertEquals("expected", e.getMessage());
+    }
+  }
+
+  protected static List<Callable<Integer>> tasks(final int num) {
+    final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+    for (int i = 0; i < num; i++) {
+      final int index = i;
+      tasks.add(new Callable<Integer>() {
+        public Integer call() {
+          return index;
+        }
+      });
+    }
+    return tasks;
+  }
+}